@@ -1,15 +1,29 @@
 package com.va.trendbarservice.config;
 
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
+import com.va.trendbarservice.model.ExecutionMode;
+import com.va.trendbarservice.model.OverloadPolicy;
 import com.va.trendbarservice.model.Quote;
 import com.va.trendbarservice.model.TrendBar;
 import com.va.trendbarservice.model.TrendBarEntity;
 import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.util.BoundedQuotesQueue;
+import com.va.trendbarservice.util.KeyQuotesQueueFactory;
 import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.MicroBatcherExecutorFactory;
+import com.va.trendbarservice.util.QuoteConflator;
+import com.va.trendbarservice.util.QuoteJournal;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import com.va.trendbarservice.util.TrendBarColdStore;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.nio.file.Path;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 
@@ -18,8 +32,48 @@ import java.util.concurrent.*;
 public class TrendBarServiceConfig {
 
     @Bean
-    public ConcurrentLinkedQueue<Quote> quotesQueue() {
-        return new ConcurrentLinkedQueue<>();
+    public QuotesOverloadCounters quotesOverloadCounters() {
+        return new QuotesOverloadCounters();
+    }
+
+    @Bean
+    public Queue<Quote> quotesQueue(
+            @Value("${quotesQueue.capacity}") int capacity,
+            @Value("${quotesQueue.overload.policy}") OverloadPolicy overloadPolicy,
+            QuotesOverloadCounters quotesOverloadCounters) {
+        log.info("Initializing quotesQueue with capacity: {} and overload policy: {}", capacity, overloadPolicy);
+        return new BoundedQuotesQueue(capacity, overloadPolicy, quotesOverloadCounters);
+    }
+
+    @Bean
+    public KeyQuotesQueueFactory keyQuotesQueueFactory(
+            @Value("${keyQuotesQueue.capacity}") int capacity,
+            @Value("${keyQuotesQueue.overload.policy}") OverloadPolicy overloadPolicy,
+            @Value("${keyQuotesQueue.overload.block.timeout.millis}") long blockTimeoutMillis,
+            QuotesOverloadCounters quotesOverloadCounters) {
+        log.info("Initializing key quote queues with capacity: {} and overload policy: {}", capacity, overloadPolicy);
+        return new KeyQuotesQueueFactory(capacity, overloadPolicy, blockTimeoutMillis, quotesOverloadCounters);
+    }
+
+    @Bean
+    public QuoteConflator quoteConflator(@Value("${quotesConsumer.conflation.enabled}") boolean enabled) {
+        log.info("Initializing quote conflator, conflation enabled: {}", enabled);
+        return new QuoteConflator(enabled);
+    }
+
+    @Bean
+    public QuoteJournal quoteJournal(
+            @Value("${quoteJournal.enabled}") boolean enabled,
+            @Value("${quoteJournal.path}") String path,
+            @Value("${quoteJournal.segment.records}") int segmentRecordsCount) {
+        log.info("Initializing quote journal, journal enabled: {}", enabled);
+        return new QuoteJournal(enabled, Path.of(path), segmentRecordsCount);
+    }
+
+    @Bean
+    public TrendBarColdStore trendBarColdStore(@Value("${tiering.cold.path}") String path) {
+        log.info("Initializing trend bar cold store at {}", path);
+        return new TrendBarColdStore(Path.of(path));
     }
 
     @Bean
@@ -27,6 +81,39 @@ public class TrendBarServiceConfig {
         return new ConcurrentHashMap<>();
     }
 
+    @Bean
+    public TrendBarMetrics trendBarMetrics(
+            ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap,
+            Queue<Quote> quotesQueue,
+            QuotesOverloadCounters quotesOverloadCounters,
+            ScheduledExecutorService scheduler,
+            @Value("${metrics.dump.interval.millis}") long dumpIntervalMillis) {
+        var trendBarMetrics = new TrendBarMetrics(keyToQuotesQueueMap, quotesQueue, quotesOverloadCounters);
+        if (dumpIntervalMillis > 0) {
+            log.info("Scheduling trendbar metrics dump every {} ms", dumpIntervalMillis);
+            scheduler.scheduleAtFixedRate(trendBarMetrics::logDump, dumpIntervalMillis, dumpIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return trendBarMetrics;
+    }
+
+    @Bean
+    public TrendBarDiagnostics trendBarDiagnostics(
+            ScheduledExecutorService scheduler,
+            @Value("${diagnostics.enabled}") boolean enabled,
+            @Value("${diagnostics.summary.interval.millis}") long summaryIntervalMillis) {
+        var trendBarDiagnostics = new TrendBarDiagnostics(enabled);
+        if (enabled && summaryIntervalMillis > 0) {
+            log.info("Scheduling per-key diagnostics summary every {} ms", summaryIntervalMillis);
+            scheduler.scheduleAtFixedRate(trendBarDiagnostics::logSummary, summaryIntervalMillis, summaryIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        return trendBarDiagnostics;
+    }
+
+    @Bean
+    public MicroBatcherExecutorFactory microBatcherExecutorFactory(@Value("${microbatcher.execution.mode}") ExecutionMode executionMode) {
+        return new MicroBatcherExecutorFactory(executionMode);
+    }
+
     @Bean
     public ConcurrentMap<TrendBar, Optional<ScheduledFuture<?>>> currBuildersMap() {
         return new ConcurrentHashMap<>();
@@ -43,11 +130,22 @@ public class TrendBarServiceConfig {
         return new ConcurrentHashMap<>();
     }
 
+    @Bean
+    public ConcurrentMap<TrendBar, TrendBarEntity> amendableTrendBarEntitiesMap() {
+        return new ConcurrentHashMap<>();
+    }
+
     @Bean
     public ExecutorService consumerExecutorService() {
         return Executors.newSingleThreadScheduledExecutor();
     }
 
+    @Bean
+    public ExecutorService subscriptionExecutorService(@Value("${subscriptions.delivery.threads}") int deliveryThreads) {
+        log.info("Initializing trend bar subscription delivery with {} threads", deliveryThreads);
+        return Executors.newFixedThreadPool(deliveryThreads);
+    }
+
     @Bean
     public ScheduledExecutorService scheduler(ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap) {
         int keyCount = keyToQuotesQueueMap.size();
@@ -55,4 +153,15 @@ public class TrendBarServiceConfig {
         log.info("Initializing scheduler with core pool size: {}", corePoolSize);
         return Executors.newScheduledThreadPool(corePoolSize);
     }
+
+    // Own low priority daemon thread, so tier migration never delays bar builders on the shared scheduler
+    @Bean
+    public ScheduledExecutorService tieringScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "trendbar-tiering");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
 }
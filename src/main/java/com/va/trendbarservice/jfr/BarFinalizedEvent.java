@@ -0,0 +1,11 @@
+package com.va.trendbarservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.va.trendbarservice.BarFinalized")
+@Label("Bar Finalized")
+@Description("Trend bar completed after its period ended")
+public class BarFinalizedEvent extends TrendBarPipelineEvent {
+}
@@ -0,0 +1,11 @@
+package com.va.trendbarservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.va.trendbarservice.BarPersisted")
+@Label("Bar Persisted")
+@Description("Completed trend bar saved to the repository")
+public class BarPersistedEvent extends TrendBarPipelineEvent {
+}
@@ -0,0 +1,11 @@
+package com.va.trendbarservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.va.trendbarservice.BatchAggregated")
+@Label("Batch Aggregated")
+@Description("Micro-batch aggregated into the open trend bar")
+public class BatchAggregatedEvent extends TrendBarPipelineEvent {
+}
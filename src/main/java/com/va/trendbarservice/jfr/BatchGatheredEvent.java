@@ -0,0 +1,11 @@
+package com.va.trendbarservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.va.trendbarservice.BatchGathered")
+@Label("Batch Gathered")
+@Description("Micro-batch gathered from the per-key queue")
+public class BatchGatheredEvent extends TrendBarPipelineEvent {
+}
@@ -0,0 +1,11 @@
+package com.va.trendbarservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.va.trendbarservice.HistoryQueryServed")
+@Label("History Query Served")
+@Description("Trend bar history query served, batch size is the number of bars returned")
+public class HistoryQueryServedEvent extends TrendBarPipelineEvent {
+}
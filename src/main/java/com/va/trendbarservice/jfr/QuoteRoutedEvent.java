@@ -0,0 +1,14 @@
+package com.va.trendbarservice.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+// Emitted per quote and per key, so by default only slow offers (e.g. a blocked queue) are recorded
+@Name("com.va.trendbarservice.QuoteRouted")
+@Label("Quote Routed")
+@Description("Quote offered to the per-key queue of a trend bar")
+@Threshold("1 ms")
+public class QuoteRoutedEvent extends TrendBarPipelineEvent {
+}
@@ -0,0 +1,44 @@
+package com.va.trendbarservice.jfr;
+
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+// Duration comes from JFR begin()/commit(), key and batchSize let stages be correlated per bar
+@Category({"TrendBar Service", "Pipeline"})
+@StackTrace(false)
+public abstract class TrendBarPipelineEvent extends Event {
+
+    @Label("Key")
+    String key;
+
+    @Label("Batch Size")
+    int batchSize;
+
+    public void commitFor(TrendBarKey trendBarKey, int batchSize) {
+        commitFor(trendBarKey.symbol(), trendBarKey.trendBarPeriod(), batchSize);
+    }
+
+    // Key string is only built when the event passed its threshold and will be written
+    public void commitFor(Symbol symbol, TrendBarPeriod trendBarPeriod, int batchSize) {
+        end();
+        if (shouldCommit()) {
+            this.key = symbol + "_" + trendBarPeriod;
+            this.batchSize = batchSize;
+            commit();
+        }
+    }
+
+    public void commitFor(String key, int batchSize) {
+        end();
+        if (shouldCommit()) {
+            this.key = key;
+            this.batchSize = batchSize;
+            commit();
+        }
+    }
+}
@@ -5,5 +5,12 @@ public class ExceptionMessages {
     public static final String ERROR_QUOTE_IS_NULL = "Error! Quote is null";
     public static final String ERROR_QUOTE_NEW_PRICE_IS_NULL = "Error! Quote new price is null";
     public static final String ERROR_QUOTE_SYMBOL_IS_NULL = "Error! Quote symbol is null";
+    public static final String INVALID_QUOTES_CSV_LINE = "Invalid quotes CSV line: ";
+    public static final String ERROR_FLOW_DEMAND_NOT_POSITIVE = "Error! Requested demand must be positive: ";
+    public static final String ERROR_DOWNSAMPLING_PERIOD_NOT_SUPPORTED = "Error! Target period is not a multiple of a stored period: ";
+    public static final String ERROR_FLOW_BUFFER_OVERFLOW = "Error! Subscriber buffer overflow, capacity: ";
+    public static final String ERROR_SEGMENT_MIXED_KEYS = "Error! Segment bars must share one symbol and period: ";
+    public static final String ERROR_QUOTE_NOT_JOURNALABLE = "Error! Quote value does not fit a journal record: ";
+    public static final String ERROR_KEY_QUEUE_POLICY_NOT_SUPPORTED = "Error! Overload policy is not supported by per-key quote queues: ";
 
 }
@@ -0,0 +1,83 @@
+package com.va.trendbarservice.metrics;
+
+import com.va.trendbarservice.model.TrendBarKey;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+// Hot path only bumps per-key counters, a summary per key is logged at most once per interval
+@Slf4j
+public class TrendBarDiagnostics {
+
+    @Getter
+    private final boolean enabled;
+    private final ConcurrentMap<TrendBarKey, KeyDiagnostics> keyDiagnosticsMap = new ConcurrentHashMap<>();
+    private final LongAdder loggedSummaries = new LongAdder();
+
+    public TrendBarDiagnostics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void recordQuoteRouted(TrendBarKey trendBarKey) {
+        if (!enabled) {
+            return;
+        }
+        getKeyDiagnostics(trendBarKey).routedQuotes.increment();
+    }
+
+    public void recordBatch(TrendBarKey trendBarKey, int batchSize, boolean isBatchFinal) {
+        if (!enabled) {
+            return;
+        }
+        var keyDiagnostics = getKeyDiagnostics(trendBarKey);
+        keyDiagnostics.batches.increment();
+        keyDiagnostics.batchedQuotes.add(batchSize);
+        keyDiagnostics.lastBatchSize.set(batchSize);
+        if (isBatchFinal) {
+            keyDiagnostics.finalBatches.increment();
+        }
+    }
+
+    public void logSummary() {
+        if (!enabled) {
+            return;
+        }
+        keyDiagnosticsMap.forEach((trendBarKey, keyDiagnostics) -> {
+            long routedQuotes = keyDiagnostics.routedQuotes.sumThenReset();
+            long batches = keyDiagnostics.batches.sumThenReset();
+            long batchedQuotes = keyDiagnostics.batchedQuotes.sumThenReset();
+            long finalBatches = keyDiagnostics.finalBatches.sumThenReset();
+            if (routedQuotes == 0 && batches == 0) {
+                return;
+            }
+            log.info("Diagnostics for \"{}_{}\": routed quotes = {}, batches = {}, batched quotes = {}, last batch size = {}, final batches = {}",
+                    trendBarKey.symbol(), trendBarKey.trendBarPeriod(), routedQuotes, batches, batchedQuotes, keyDiagnostics.lastBatchSize.get(), finalBatches);
+            loggedSummaries.increment();
+        });
+    }
+
+    public long getLoggedSummaries() {
+        return loggedSummaries.sum();
+    }
+
+    private KeyDiagnostics getKeyDiagnostics(TrendBarKey trendBarKey) {
+        var keyDiagnostics = keyDiagnosticsMap.get(trendBarKey);
+        if (keyDiagnostics == null) {
+            keyDiagnostics = keyDiagnosticsMap.computeIfAbsent(trendBarKey, k -> new KeyDiagnostics());
+        }
+        return keyDiagnostics;
+    }
+
+    private static class KeyDiagnostics {
+        private final LongAdder routedQuotes = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder batchedQuotes = new LongAdder();
+        private final LongAdder finalBatches = new LongAdder();
+        private final AtomicInteger lastBatchSize = new AtomicInteger();
+    }
+}
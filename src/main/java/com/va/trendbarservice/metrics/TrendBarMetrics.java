@@ -0,0 +1,125 @@
+package com.va.trendbarservice.metrics;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+@Slf4j
+@Getter
+public class TrendBarMetrics {
+
+    private static final double[] DUMPED_PERCENTILES = {50, 99, 99.9};
+    private static final String[] DUMPED_PERCENTILE_NAMES = {"p50", "p99", "p99.9"};
+
+    private final Map<TrendBarKey, ? extends Queue<Quote>> keyToQuotesQueueMap;
+    private final Queue<Quote> quotesQueue;
+    private final QuotesOverloadCounters quotesOverloadCounters;
+
+    private final ConcurrentMap<Symbol, LongAdder> ingestedQuotesBySymbol = new ConcurrentHashMap<>();
+    private final LongAdder routedQuotes = new LongAdder();
+    private final LongAdder processedBatches = new LongAdder();
+    private final LongAdder persistedTrendBars = new LongAdder();
+
+    private final LatencyHistogram batchSize = new LatencyHistogram();
+    private final LatencyHistogram batchProcessingNanos = new LatencyHistogram();
+    private final LatencyHistogram barFinalizeLatencyMillis = new LatencyHistogram();
+    private final LatencyHistogram persistenceNanos = new LatencyHistogram();
+    private final LatencyHistogram quoteToBarLatencyMillis = new LatencyHistogram();
+
+    public TrendBarMetrics(Map<TrendBarKey, ? extends Queue<Quote>> keyToQuotesQueueMap,
+                           Queue<Quote> quotesQueue,
+                           QuotesOverloadCounters quotesOverloadCounters) {
+        this.keyToQuotesQueueMap = keyToQuotesQueueMap;
+        this.quotesQueue = quotesQueue;
+        this.quotesOverloadCounters = quotesOverloadCounters;
+    }
+
+    public void recordQuoteIngested(Symbol symbol) {
+        var counter = ingestedQuotesBySymbol.get(symbol);
+        if (counter == null) {
+            counter = ingestedQuotesBySymbol.computeIfAbsent(symbol, s -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    public long getIngestedQuotes() {
+        long ingestedQuotes = 0;
+        for (var counter : ingestedQuotesBySymbol.values()) {
+            ingestedQuotes += counter.sum();
+        }
+        return ingestedQuotes;
+    }
+
+    public void recordQuoteRouted() {
+        routedQuotes.increment();
+    }
+
+    public void recordBatchProcessed(int size, long processingNanos) {
+        processedBatches.increment();
+        batchSize.record(size);
+        batchProcessingNanos.record(processingNanos);
+    }
+
+    public void recordQuoteAggregated(long quoteUnixTimeStamp, long nowMillis) {
+        quoteToBarLatencyMillis.record(nowMillis - quoteUnixTimeStamp);
+    }
+
+    public void recordBarFinalized(long endOfPeriodMillis, long nowMillis) {
+        barFinalizeLatencyMillis.record(nowMillis - endOfPeriodMillis);
+    }
+
+    public void recordBarPersisted(long persistenceNanos) {
+        persistedTrendBars.increment();
+        this.persistenceNanos.record(persistenceNanos);
+    }
+
+    // Queue depths are gauges, read only when scraped so the hot path never calls size()
+    public Map<String, Number> snapshot() {
+        Map<String, Number> snapshot = new TreeMap<>();
+        ingestedQuotesBySymbol.forEach((symbol, counter) -> snapshot.put("quotes.ingested{symbol=" + symbol + "}", counter.sum()));
+        snapshot.put("quotes.routed", routedQuotes.sum());
+        snapshot.put("quotes.dropped", quotesOverloadCounters.getDroppedQuotes());
+        snapshot.put("quotes.rejected", quotesOverloadCounters.getRejectedQuotes());
+        snapshot.put("quotes.conflated", quotesOverloadCounters.getConflatedQuotes());
+        snapshot.put("queue.depth{queue=ingest}", quotesQueue.size());
+        keyToQuotesQueueMap.forEach((key, queue) -> snapshot.put("queue.depth{key=" + key.symbol() + "_" + key.trendBarPeriod() + "}", queue.size()));
+        snapshot.put("batches.processed", processedBatches.sum());
+        snapshot.put("trendbars.persisted", persistedTrendBars.sum());
+        putHistogram(snapshot, "batch.size", batchSize);
+        putHistogram(snapshot, "batch.processing.nanos", batchProcessingNanos);
+        putHistogram(snapshot, "trendbar.finalize.latency.millis", barFinalizeLatencyMillis);
+        putHistogram(snapshot, "trendbar.persistence.nanos", persistenceNanos);
+        putHistogram(snapshot, "quote.to.trendbar.latency.millis", quoteToBarLatencyMillis);
+        return snapshot;
+    }
+
+    public String dump() {
+        var dump = new StringBuilder();
+        snapshot().forEach((name, value) -> dump.append(name).append(' ').append(value).append('\n'));
+        return dump.toString();
+    }
+
+    public void logDump() {
+        log.info("Trendbar metrics:\n{}", dump());
+    }
+
+    private static void putHistogram(Map<String, Number> snapshot, String name, LatencyHistogram histogram) {
+        snapshot.put(name + ".count", histogram.getCount());
+        snapshot.put(name + ".mean", histogram.getMean());
+        snapshot.put(name + ".max", histogram.getMax());
+        for (int i = 0; i < DUMPED_PERCENTILES.length; i++) {
+            snapshot.put(name + "." + DUMPED_PERCENTILE_NAMES[i], histogram.getValueAtPercentile(DUMPED_PERCENTILES[i]));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.va.trendbarservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+
+// Bid and ask OHLC with spread statistics, embedded in the bar so both sides share one routing and aggregation pass.
+// Also carried by conflated quotes to fold their ticks; callers copy() before mutating a shared instance
+@Embeddable
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class BidAskTrendBar {
+
+    @Column(precision = 10, scale = 4)
+    private BigDecimal bidOpenPrice;
+    @Column(precision = 10, scale = 4)
+    private BigDecimal bidHighPrice;
+    @Column(precision = 10, scale = 4)
+    private BigDecimal bidLowPrice;
+    @Column(precision = 10, scale = 4)
+    private BigDecimal bidClosePrice;
+
+    @Column(precision = 10, scale = 4)
+    private BigDecimal askOpenPrice;
+    @Column(precision = 10, scale = 4)
+    private BigDecimal askHighPrice;
+    @Column(precision = 10, scale = 4)
+    private BigDecimal askLowPrice;
+    @Column(precision = 10, scale = 4)
+    private BigDecimal askClosePrice;
+
+    @Column(precision = 10, scale = 8)
+    private BigDecimal spreadMin;
+    @Column(precision = 10, scale = 8)
+    private BigDecimal spreadMax;
+    @Column(precision = 24, scale = 8)
+    private BigDecimal spreadSum;
+
+    @Column(name = "bid_ask_quotes_count")
+    private long quotesCount;
+
+    public static BidAskTrendBar of(BigDecimal bidPrice, BigDecimal askPrice) {
+        var spread = askPrice.subtract(bidPrice);
+        return new BidAskTrendBar(bidPrice, bidPrice, bidPrice, bidPrice, askPrice, askPrice, askPrice, askPrice,
+                spread, spread, spread, 1);
+    }
+
+    // Folds a quote in, returning the instance to keep; quotes without bid and ask leave it unchanged.
+    // The caller tells from its bar's timestamps whether the quote is the earliest so far (it sets the opens) and
+    // the latest so far (it sets the closes), so both sides follow quote time like the bar's own open and close
+    public static BidAskTrendBar aggregate(BidAskTrendBar bidAskTrendBar, Quote quote, boolean isEarliest, boolean isLatest) {
+        if (quote.getBidAsk() != null) {
+            return bidAskTrendBar == null ? quote.getBidAsk().copy() : bidAskTrendBar.merge(quote.getBidAsk(), isEarliest, isLatest);
+        }
+        if (quote.getBidPrice() == null || quote.getAskPrice() == null) {
+            return bidAskTrendBar;
+        }
+        return bidAskTrendBar == null
+                ? of(quote.getBidPrice(), quote.getAskPrice())
+                : bidAskTrendBar.add(quote.getBidPrice(), quote.getAskPrice(), isEarliest, isLatest);
+    }
+
+    public BidAskTrendBar add(BigDecimal bidPrice, BigDecimal askPrice, boolean isEarliest, boolean isLatest) {
+        if (isEarliest) {
+            bidOpenPrice = bidPrice;
+            askOpenPrice = askPrice;
+        }
+        if (isLatest) {
+            bidClosePrice = bidPrice;
+            askClosePrice = askPrice;
+        }
+        bidHighPrice = bidHighPrice.max(bidPrice);
+        bidLowPrice = bidLowPrice.min(bidPrice);
+        askHighPrice = askHighPrice.max(askPrice);
+        askLowPrice = askLowPrice.min(askPrice);
+        var spread = askPrice.subtract(bidPrice);
+        spreadMin = spreadMin.min(spread);
+        spreadMax = spreadMax.max(spread);
+        spreadSum = spreadSum.add(spread);
+        quotesCount++;
+        return this;
+    }
+
+    // The other bar supplies the opens when it starts earlier and the closes when it ends at or after this one
+    public BidAskTrendBar merge(BidAskTrendBar other, boolean isOtherEarlier, boolean isOtherLater) {
+        if (isOtherEarlier) {
+            bidOpenPrice = other.bidOpenPrice;
+            askOpenPrice = other.askOpenPrice;
+        }
+        if (isOtherLater) {
+            bidClosePrice = other.bidClosePrice;
+            askClosePrice = other.askClosePrice;
+        }
+        bidHighPrice = bidHighPrice.max(other.bidHighPrice);
+        bidLowPrice = bidLowPrice.min(other.bidLowPrice);
+        askHighPrice = askHighPrice.max(other.askHighPrice);
+        askLowPrice = askLowPrice.min(other.askLowPrice);
+        spreadMin = spreadMin.min(other.spreadMin);
+        spreadMax = spreadMax.max(other.spreadMax);
+        spreadSum = spreadSum.add(other.spreadSum);
+        quotesCount += other.quotesCount;
+        return this;
+    }
+
+    public BidAskTrendBar copy() {
+        return toBuilder().build();
+    }
+
+    public BigDecimal getSpreadAvg() {
+        return quotesCount == 0 ? null : spreadSum.divide(BigDecimal.valueOf(quotesCount), MathContext.DECIMAL64);
+    }
+}
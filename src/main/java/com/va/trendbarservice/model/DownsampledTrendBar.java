@@ -0,0 +1,16 @@
+package com.va.trendbarservice.model;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+@Builder
+public record DownsampledTrendBar(Symbol symbol,
+                                  Duration period,
+                                  long timestamp,
+                                  BigDecimal openPrice,
+                                  BigDecimal highPrice,
+                                  BigDecimal lowPrice,
+                                  BigDecimal closePrice,
+                                  int sourceTrendBarsCount) {}
@@ -0,0 +1,5 @@
+package com.va.trendbarservice.model;
+
+public enum FlowOverflowPolicy {
+    DROP_OLDEST, DROP_NEWEST, CANCEL
+}
@@ -0,0 +1,5 @@
+package com.va.trendbarservice.model;
+
+public enum IndicatorType {
+    SMA, EMA, ATR
+}
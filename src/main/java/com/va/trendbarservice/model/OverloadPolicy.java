@@ -0,0 +1,5 @@
+package com.va.trendbarservice.model;
+
+public enum OverloadPolicy {
+    BLOCK, DROP_OLDEST, REJECT, CONFLATE
+}
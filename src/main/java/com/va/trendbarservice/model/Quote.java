@@ -8,7 +8,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class Quote {
@@ -18,6 +18,54 @@ public class Quote {
     private BigDecimal newPrice;
     private long unixTimeStamp;
 
+    // Set only on conflated quotes that fold several ticks, newPrice then holds the last price
+    private BigDecimal firstPrice;
+    private BigDecimal highPrice;
+    private BigDecimal lowPrice;
+    private long firstUnixTimeStamp;
+    private int ticksCount;
+
+    // Traded size when the source provides it; turnover is only set on conflated quotes and holds the folded sum of price * size
+    private BigDecimal size;
+    private BigDecimal turnover;
+
+    // Set when the feed delivers both sides, newPrice then still drives the main OHLC (mid or last trade);
+    // bidAsk is only set on conflated quotes and holds the folded ticks of both sides
+    private BigDecimal bidPrice;
+    private BigDecimal askPrice;
+    private BidAskTrendBar bidAsk;
+
+    // Position of the quote in the quote journal, zero when it never passed the consumer; a conflated quote carries
+    // the position of the newest tick it folds
+    private long journalSequence;
+
+    public BigDecimal getFirstPrice() {
+        return firstPrice != null ? firstPrice : newPrice;
+    }
+
+    public BigDecimal getHighPrice() {
+        return highPrice != null ? highPrice : newPrice;
+    }
+
+    public BigDecimal getLowPrice() {
+        return lowPrice != null ? lowPrice : newPrice;
+    }
+
+    public long getFirstUnixTimeStamp() {
+        return firstUnixTimeStamp != 0 ? firstUnixTimeStamp : unixTimeStamp;
+    }
+
+    public int getTicksCount() {
+        return ticksCount != 0 ? ticksCount : 1;
+    }
+
+    public BigDecimal getTurnover() {
+        if (turnover != null || size == null) {
+            return turnover;
+        }
+        return newPrice.multiply(size);
+    }
+
     @ToString.Include(name = "unixTimeStamp")
     public String getFormattedTimestamp() {
         return Instant.ofEpochMilli(unixTimeStamp)
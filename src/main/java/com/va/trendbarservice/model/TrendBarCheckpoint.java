@@ -0,0 +1,11 @@
+package com.va.trendbarservice.model;
+
+import java.util.List;
+import java.util.Map;
+
+public record TrendBarCheckpoint(
+        long createdAtMillis,
+        long journalPosition,
+        Map<TrendBar, TrendBarEntity> openTrendBarEntities,
+        Map<TrendBarKey, List<Quote>> queuedQuotes,
+        Map<TrendBar, TrendBarEntity> amendableTrendBarEntities) {}
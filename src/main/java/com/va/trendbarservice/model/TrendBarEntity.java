@@ -1,6 +1,7 @@
 package com.va.trendbarservice.model;
 
 import com.va.trendbarservice.util.SymbolConverter;
+import com.va.trendbarservice.util.TrendBarPartitioning;
 import jakarta.persistence.*;
 import lombok.*;
 import java.math.BigDecimal;
@@ -9,6 +10,11 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_trend_bar_symbol_period_timestamp", columnList = "symbol, period, timestamp"),
+        @Index(name = "idx_trend_bar_period_partition_start", columnList = "period, partitionStart"),
+        @Index(name = "idx_trend_bar_symbol_period_partition_start", columnList = "symbol, period, partitionStart")
+})
 @Data
 @Builder(toBuilder = true)
 @NoArgsConstructor
@@ -44,6 +50,42 @@ public class TrendBarEntity {
     @Column(nullable = false)
     private TrendBarStatus status;
 
+    @Column(nullable = false)
+    private long partitionStart;
+
+    @Column(nullable = false)
+    private long ticksCount;
+
+    @Column(nullable = false)
+    private long firstQuoteTimestamp;
+
+    @Column(nullable = false)
+    private long lastQuoteTimestamp;
+
+    // Null unless the aggregated quotes carried size
+    @Column(precision = 24, scale = 8)
+    private BigDecimal volume;
+
+    @Column(precision = 28, scale = 8)
+    private BigDecimal turnover;
+
+    @Column(precision = 18, scale = 8)
+    private BigDecimal vwap;
+
+    // Null unless the aggregated quotes carried bid and ask
+    @Embedded
+    private BidAskTrendBar bidAsk;
+
+    // Journal sequence of the newest quote folded into the open bar, quotes at or below it are already counted
+    @Transient
+    private long lastQuoteSequence;
+
+    @PrePersist
+    @PreUpdate
+    void assignPartitionStart() {
+        partitionStart = TrendBarPartitioning.getPartitionStart(period, timestamp);
+    }
+
     @ToString.Include(name = "timestamp")
     public String getFormattedTimestamp() {
         return Instant.ofEpochMilli(timestamp)
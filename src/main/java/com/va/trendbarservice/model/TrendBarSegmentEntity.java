@@ -0,0 +1,47 @@
+package com.va.trendbarservice.model;
+
+import com.va.trendbarservice.util.SymbolConverter;
+import jakarta.persistence.*;
+import lombok.*;
+
+// One sealed partition of one key, bars encoded by TrendBarSegmentCodec
+@Entity
+@Table(indexes = {
+        @Index(name = "idx_trend_bar_segment_symbol_period_partition_start", columnList = "symbol, period, partitionStart", unique = true),
+        @Index(name = "idx_trend_bar_segment_period_partition_start", columnList = "period, partitionStart")
+})
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendBarSegmentEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Convert(converter = SymbolConverter.class)
+    @Column(nullable = false)
+    private Symbol symbol;
+
+    @Column(nullable = false)
+    private TrendBarPeriod period;
+
+    @Column(nullable = false)
+    private long partitionStart;
+
+    // Timestamps of the first and last encoded bar, range queries select segments on these without decoding
+    @Column(nullable = false)
+    private long fromTimestamp;
+
+    @Column(nullable = false)
+    private long toTimestamp;
+
+    @Column(nullable = false)
+    private int trendBarsCount;
+
+    @Lob
+    @Column(nullable = false)
+    @ToString.Exclude
+    private byte[] data;
+}
@@ -3,26 +3,110 @@ package com.va.trendbarservice.repository;
 import com.va.trendbarservice.model.Symbol;
 import com.va.trendbarservice.model.TrendBarEntity;
 import com.va.trendbarservice.model.TrendBarPeriod;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static com.va.trendbarservice.util.TrendBarPartitioning.getPartitionFrom;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// Range reads bound partitionStart from below by getPartitionFrom(from), so the partition predicate stays sargable
 @Repository
 public interface TrendBarRepository extends JpaRepository<TrendBarEntity, Long> {
 
-    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.symbol = :symbol AND tb.period = :trendBarPeriod AND tb.timestamp BETWEEN :from AND :to")
+    default Optional<List<TrendBarEntity>> findTrendBarsBySymbolAndPeriodAndTimestampInRange(Symbol symbol, TrendBarPeriod trendBarPeriod,
+                                                                                              long from, long to) {
+        return findTrendBarsBySymbolAndPeriodAndTimestampInRange(symbol, trendBarPeriod, getPartitionFrom(from), from, to);
+    }
+
+    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.symbol = :symbol AND tb.period = :trendBarPeriod AND "
+            + "tb.partitionStart > :partitionFrom AND tb.partitionStart <= :to AND tb.timestamp BETWEEN :from AND :to")
     Optional<List<TrendBarEntity>> findTrendBarsBySymbolAndPeriodAndTimestampInRange(
             @Param("symbol") Symbol symbol,
             @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("partitionFrom") long partitionFrom,
             @Param("from") long from,
             @Param("to") long to);
 
-    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.symbol = :symbol AND tb.period = :trendBarPeriod AND tb.timestamp >= :from")
+    default Optional<List<TrendBarEntity>> findTrendBarsBySymbolAndPeriodFrom(Symbol symbol, TrendBarPeriod trendBarPeriod, long from) {
+        return findTrendBarsBySymbolAndPeriodFrom(symbol, trendBarPeriod, getPartitionFrom(from), from);
+    }
+
+    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.symbol = :symbol AND tb.period = :trendBarPeriod AND "
+            + "tb.partitionStart > :partitionFrom AND tb.timestamp >= :from")
     Optional<List<TrendBarEntity>> findTrendBarsBySymbolAndPeriodFrom(
             @Param("symbol") Symbol symbol,
             @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("partitionFrom") long partitionFrom,
             @Param("from") long from);
+
+    default Optional<List<TrendBarEntity>> findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(Collection<Symbol> symbols,
+                                                                                               Collection<TrendBarPeriod> trendBarPeriods,
+                                                                                               long from, long to) {
+        return findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(symbols, trendBarPeriods, getPartitionFrom(from), from, to);
+    }
+
+    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.symbol IN :symbols AND tb.period IN :trendBarPeriods AND "
+            + "tb.partitionStart > :partitionFrom AND tb.partitionStart <= :to AND tb.timestamp BETWEEN :from AND :to ORDER BY tb.timestamp")
+    Optional<List<TrendBarEntity>> findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(
+            @Param("symbols") Collection<Symbol> symbols,
+            @Param("trendBarPeriods") Collection<TrendBarPeriod> trendBarPeriods,
+            @Param("partitionFrom") long partitionFrom,
+            @Param("from") long from,
+            @Param("to") long to);
+
+    default Stream<TrendBarEntity> streamTrendBarsBySymbolAndPeriodAndTimestampInRange(Symbol symbol, TrendBarPeriod trendBarPeriod,
+                                                                                       long from, long to) {
+        return streamTrendBarsBySymbolAndPeriodAndTimestampInRange(symbol, trendBarPeriod, getPartitionFrom(from), from, to);
+    }
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.symbol = :symbol AND tb.period = :trendBarPeriod AND "
+            + "tb.partitionStart > :partitionFrom AND tb.partitionStart <= :to AND tb.timestamp BETWEEN :from AND :to ORDER BY tb.timestamp")
+    Stream<TrendBarEntity> streamTrendBarsBySymbolAndPeriodAndTimestampInRange(
+            @Param("symbol") Symbol symbol,
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("partitionFrom") long partitionFrom,
+            @Param("from") long from,
+            @Param("to") long to);
+
+    default List<TrendBarEntity> findTrendBarsFrom(long from) {
+        return findTrendBarsFrom(getPartitionFrom(from), from);
+    }
+
+    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.partitionStart > :partitionFrom AND tb.timestamp >= :from ORDER BY tb.timestamp")
+    List<TrendBarEntity> findTrendBarsFrom(@Param("partitionFrom") long partitionFrom, @Param("from") long from);
+
+    @Query("SELECT COUNT(tb) > 0 FROM TrendBarEntity tb WHERE tb.symbol = :symbol AND tb.period = :trendBarPeriod AND tb.timestamp = :timestamp")
+    boolean existsTrendBarBySymbolAndPeriodAndTimestamp(
+            @Param("symbol") Symbol symbol,
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("timestamp") long timestamp);
+
+    @Query("SELECT tb FROM TrendBarEntity tb WHERE tb.period = :trendBarPeriod AND tb.partitionStart = :partitionStart ORDER BY tb.timestamp")
+    List<TrendBarEntity> findTrendBarsByPeriodAndPartitionStart(
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("partitionStart") long partitionStart);
+
+    @Query("SELECT DISTINCT tb.partitionStart FROM TrendBarEntity tb WHERE tb.period = :trendBarPeriod AND tb.partitionStart < :before ORDER BY tb.partitionStart")
+    List<Long> findPartitionStartsBefore(
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("before") long before);
+
+    // Whole partition in one statement, on a natively partitioned table this is where the partition gets dropped
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TrendBarEntity tb WHERE tb.period = :trendBarPeriod AND tb.partitionStart = :partitionStart")
+    int deletePartition(
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("partitionStart") long partitionStart);
 }
@@ -0,0 +1,53 @@
+package com.va.trendbarservice.repository;
+
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.model.TrendBarSegmentEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface TrendBarSegmentRepository extends JpaRepository<TrendBarSegmentEntity, Long> {
+
+    @Query("SELECT s FROM TrendBarSegmentEntity s WHERE s.symbol = :symbol AND s.period = :trendBarPeriod AND "
+            + "s.toTimestamp >= :from AND s.fromTimestamp <= :to ORDER BY s.fromTimestamp")
+    List<TrendBarSegmentEntity> findSegmentsBySymbolAndPeriodAndTimestampInRange(
+            @Param("symbol") Symbol symbol,
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("from") long from,
+            @Param("to") long to);
+
+    @Query("SELECT s FROM TrendBarSegmentEntity s WHERE s.symbol IN :symbols AND s.period IN :trendBarPeriods AND "
+            + "s.toTimestamp >= :from AND s.fromTimestamp <= :to ORDER BY s.fromTimestamp")
+    List<TrendBarSegmentEntity> findSegmentsBySymbolsAndPeriodsAndTimestampInRange(
+            @Param("symbols") Collection<Symbol> symbols,
+            @Param("trendBarPeriods") Collection<TrendBarPeriod> trendBarPeriods,
+            @Param("from") long from,
+            @Param("to") long to);
+
+    @Query("SELECT s FROM TrendBarSegmentEntity s WHERE s.toTimestamp >= :from ORDER BY s.fromTimestamp")
+    List<TrendBarSegmentEntity> findSegmentsFrom(@Param("from") long from);
+
+    List<TrendBarSegmentEntity> findByPeriodAndPartitionStart(TrendBarPeriod period, long partitionStart);
+
+    Optional<TrendBarSegmentEntity> findBySymbolAndPeriodAndPartitionStart(Symbol symbol, TrendBarPeriod period, long partitionStart);
+
+    @Query("SELECT DISTINCT s.partitionStart FROM TrendBarSegmentEntity s WHERE s.period = :trendBarPeriod AND s.partitionStart < :before ORDER BY s.partitionStart")
+    List<Long> findPartitionStartsBefore(
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("before") long before);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM TrendBarSegmentEntity s WHERE s.period = :trendBarPeriod AND s.partitionStart = :partitionStart")
+    int deletePartition(
+            @Param("trendBarPeriod") TrendBarPeriod trendBarPeriod,
+            @Param("partitionStart") long partitionStart);
+}
@@ -0,0 +1,12 @@
+package com.va.trendbarservice.service;
+
+import com.va.trendbarservice.model.Quote;
+
+import java.util.function.Consumer;
+
+public interface QuoteJournalService {
+
+    long replay(Consumer<Quote> sink);
+
+    int replayIntoOpenTrendBars(long fromPosition);
+}
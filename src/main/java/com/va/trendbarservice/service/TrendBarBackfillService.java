@@ -0,0 +1,22 @@
+package com.va.trendbarservice.service;
+
+import com.va.trendbarservice.model.Quote;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+public interface TrendBarBackfillService {
+
+    int backfill(Iterator<Quote> quotes);
+
+    int backfillInParallel(Stream<Quote> quotes);
+
+    int backfillFromCsv(Path csvPath);
+
+    int backfillFromJournal(Path journalPath);
+
+    int backfillFromTickFile(Path tickFilePath);
+
+    int backfillFromConfiguredPath();
+}
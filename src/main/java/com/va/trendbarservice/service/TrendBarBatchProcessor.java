@@ -9,6 +9,12 @@ public interface TrendBarBatchProcessor {
 
     void processMicroBatch(List<Quote> quotesBatch, TrendBar trendBar, boolean isBatchFinal);
 
+    void amendCompletedTrendBars(Quote lateQuote);
+
+    void completeRestoredTrendBar(TrendBar trendBar, List<Quote> queuedQuotes);
+
+    void sealRestoredTrendBar(TrendBar trendBar);
+
     void shutdownAllMicroBatchers();
 
 }
@@ -0,0 +1,13 @@
+package com.va.trendbarservice.service;
+
+public interface TrendBarCheckpointService {
+
+    void startPeriodicCheckpoints();
+
+    void writeCheckpoint();
+
+    // Returns the journal position the restored bars and queues cover, replay continues after it
+    long restoreCheckpoint();
+
+    void completeRestoredTrendBars();
+}
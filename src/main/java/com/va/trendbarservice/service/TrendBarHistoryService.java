@@ -1,14 +1,25 @@
 package com.va.trendbarservice.service;
 
+import com.va.trendbarservice.model.DownsampledTrendBar;
 import com.va.trendbarservice.model.Symbol;
 import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
 import com.va.trendbarservice.model.TrendBarPeriod;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface TrendBarHistoryService {
 
     List<TrendBarEntity> getTrendBarsBySymbolAndPeriodAndTimestampInRange(Symbol symbol, TrendBarPeriod period, long from, long to);
 
     List<TrendBarEntity> getTrendBarsBySymbolAndPeriodFrom(Symbol symbol, TrendBarPeriod period, long from);
+
+    // Empty periods means every period; each requested key is present in the result, possibly with an empty list
+    Map<TrendBarKey, List<TrendBarEntity>> getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(Set<Symbol> symbols, Set<TrendBarPeriod> periods, long from, long to);
+
+    // Target period must be a multiple of a stored period, e.g. H4 from H1 or W1 from D1
+    List<DownsampledTrendBar> getDownsampledTrendBars(Symbol symbol, Duration targetPeriod, long from, long to);
 }
@@ -0,0 +1,16 @@
+package com.va.trendbarservice.service;
+
+import com.va.trendbarservice.model.IndicatorType;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarPeriod;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface TrendBarIndicatorService {
+
+    void onTrendBarCompleted(TrendBarEntity trendBarEntity);
+
+    Map<IndicatorType, BigDecimal> getLatestIndicators(Symbol symbol, TrendBarPeriod period);
+}
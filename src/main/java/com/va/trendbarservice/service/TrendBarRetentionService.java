@@ -0,0 +1,8 @@
+package com.va.trendbarservice.service;
+
+public interface TrendBarRetentionService {
+
+    void startPeriodicRetention();
+
+    int expirePartitions();
+}
@@ -0,0 +1,8 @@
+package com.va.trendbarservice.service;
+
+public interface TrendBarSegmentService {
+
+    void startPeriodicSealing();
+
+    int sealPartitions();
+}
@@ -1,11 +1,9 @@
 package com.va.trendbarservice.service;
 
 import jakarta.annotation.PreDestroy;
-import org.springframework.transaction.annotation.Transactional;
 
 public interface TrendBarStarterService {
 
-    @Transactional
     void start();
 
     @PreDestroy
@@ -0,0 +1,29 @@
+package com.va.trendbarservice.service;
+
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.util.PartialTrendBarSubscription;
+import com.va.trendbarservice.util.TrendBarSubscription;
+
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+public interface TrendBarSubscriptionService {
+
+    TrendBarSubscription subscribe(Symbol symbol, TrendBarPeriod period, Consumer<TrendBarEntity> listener);
+
+    TrendBarSubscription subscribeAll(Consumer<TrendBarEntity> listener);
+
+    PartialTrendBarSubscription subscribePartial(Symbol symbol, TrendBarPeriod period, double maxUpdatesPerSecond, Consumer<TrendBarEntity> listener);
+
+    Flow.Publisher<TrendBarEntity> completedPublisher(Symbol symbol, TrendBarPeriod period);
+
+    Flow.Publisher<TrendBarEntity> partialPublisher(Symbol symbol, TrendBarPeriod period);
+
+    void publishCompleted(TrendBarEntity trendBarEntity);
+
+    void publishPartial(TrendBarEntity trendBarEntity);
+
+    int getSubscriptionsCount();
+}
@@ -0,0 +1,22 @@
+package com.va.trendbarservice.service;
+
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
+
+import java.util.List;
+
+public interface TrendBarTieringService {
+
+    void onTrendBarPersisted(TrendBarEntity trendBarEntity);
+
+    // Every bar at or after this timestamp is served from memory, Long.MAX_VALUE while the hot tier is not loaded
+    long getHotFromMillis();
+
+    List<TrendBarEntity> getHotTrendBars(TrendBarKey trendBarKey, long from, long to);
+
+    void startPeriodicMigration();
+
+    void loadHotTier();
+
+    int migrate();
+}
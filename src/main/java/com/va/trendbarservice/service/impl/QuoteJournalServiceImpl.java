@@ -0,0 +1,120 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBar;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.service.QuoteJournalService;
+import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.service.TrendBarBuilderService;
+import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.QuoteJournal;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+import static com.va.trendbarservice.util.TrendBarUtils.getStartOfPeriod;
+import static com.va.trendbarservice.util.TrendBarUtils.isTimestampInPeriod;
+
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QuoteJournalServiceImpl implements QuoteJournalService {
+
+    @Setter
+    @Value("${quoteJournal.replay.onStartup}")
+    private boolean REPLAY_ON_STARTUP;
+
+    @Setter
+    @Value("${quoteJournal.replay.batch.size}")
+    private int REPLAY_BATCH_SIZE;
+
+    private final QuoteJournal quoteJournal;
+    private final ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
+    private final ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap;
+    private final ConcurrentMap<TrendBar, TrendBarEntity> currTrendBarEntitiesMap;
+    private final TrendBarBatchProcessor batchProcessor;
+    private final TrendBarBuilderService trendBarBuilderService;
+
+    @Override
+    public long replay(Consumer<Quote> sink) {
+        return quoteJournal.replay(sink);
+    }
+
+    // Journaled quotes after the checkpoint position are aggregated straight into the running and restored bars in large
+    // batches, bypassing the per-key queues and the MicroBatcher pacing; bars skip quotes below their sequence watermark.
+    // Builders start only afterwards, so requeued checkpoint quotes are folded after the replayed ones; restored bars whose
+    // period already ended get no builder, quotes missing every open bar of a key go to the restored amendable bars
+    @Override
+    public int replayIntoOpenTrendBars(long fromPosition) {
+        Set<TrendBar> openTrendBars = new HashSet<>(currTrendBarEntitiesMap.keySet());
+        int replayedTrendBarsCount = 0;
+        if (quoteJournal.isEnabled() && REPLAY_ON_STARTUP) {
+            Set<TrendBar> replayedTrendBars = replay(fromPosition, openTrendBars);
+            openTrendBars.addAll(replayedTrendBars);
+            replayedTrendBarsCount = replayedTrendBars.size();
+            log.info("Replayed quote journal into {} open trend bars", replayedTrendBarsCount);
+        }
+        long now = System.currentTimeMillis();
+        for (var openTrendBar : openTrendBars) {
+            if (isTimestampInPeriod(now, openTrendBar) && !currMicroBatchersMap.containsKey(openTrendBar)) {
+                trendBarBuilderService.buildTrendBar(openTrendBar);
+            }
+        }
+        return replayedTrendBarsCount;
+    }
+
+    private Set<TrendBar> replay(long fromPosition, Set<TrendBar> restoredTrendBars) {
+        Instant now = Instant.now();
+        Map<Symbol, Set<TrendBar>> symbolToOpenTrendBarsMap = new HashMap<>();
+        for (var trendBarKey : keyToQuotesQueueMap.keySet()) {
+            var openTrendBar = new TrendBar(trendBarKey, getStartOfPeriod(now, trendBarKey.trendBarPeriod()));
+            symbolToOpenTrendBarsMap.computeIfAbsent(trendBarKey.symbol(), s -> new HashSet<>()).add(openTrendBar);
+        }
+        for (var restoredTrendBar : restoredTrendBars) {
+            symbolToOpenTrendBarsMap.computeIfAbsent(restoredTrendBar.trendBarKey().symbol(), s -> new HashSet<>()).add(restoredTrendBar);
+        }
+
+        Map<Symbol, Long> symbolToKeysCountMap = new HashMap<>();
+        for (var trendBarKey : keyToQuotesQueueMap.keySet()) {
+            symbolToKeysCountMap.merge(trendBarKey.symbol(), 1L, Long::sum);
+        }
+
+        Map<TrendBar, List<Quote>> pendingQuotesMap = new HashMap<>();
+        quoteJournal.replay(fromPosition, quote -> {
+            long matchedTrendBarsCount = 0;
+            for (var openTrendBar : symbolToOpenTrendBarsMap.getOrDefault(quote.getSymbol(), Set.of())) {
+                if (!isTimestampInPeriod(quote.getUnixTimeStamp(), openTrendBar)) {
+                    continue;
+                }
+                matchedTrendBarsCount++;
+                var pendingQuotes = pendingQuotesMap.computeIfAbsent(openTrendBar, t -> new ArrayList<>());
+                pendingQuotes.add(quote);
+                if (pendingQuotes.size() >= REPLAY_BATCH_SIZE) {
+                    batchProcessor.processMicroBatch(pendingQuotes, openTrendBar, false);
+                    pendingQuotesMap.put(openTrendBar, new ArrayList<>());
+                }
+            }
+            if (matchedTrendBarsCount < symbolToKeysCountMap.getOrDefault(quote.getSymbol(), 0L)) {
+                batchProcessor.amendCompletedTrendBars(quote);
+            }
+        });
+
+        for (var entry : pendingQuotesMap.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                batchProcessor.processMicroBatch(entry.getValue(), entry.getKey(), false);
+            }
+        }
+        return pendingQuotesMap.keySet();
+    }
+}
@@ -1,61 +1,129 @@
 package com.va.trendbarservice.service.impl;
 
+import com.va.trendbarservice.jfr.QuoteRoutedEvent;
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.Quote;
 import com.va.trendbarservice.model.TrendBar;
 import com.va.trendbarservice.model.TrendBarKey;
 import com.va.trendbarservice.service.QuotesConsumerService;
+import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.util.KeyQuotesQueueFactory;
+import com.va.trendbarservice.util.QuoteConflator;
+import com.va.trendbarservice.util.QuoteJournal;
 import jakarta.annotation.PreDestroy;
 import lombok.Builder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.Instant;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.function.Consumer;
 
 import static com.va.trendbarservice.messages.ExceptionMessages.*;
+import static com.va.trendbarservice.util.TrendBarUtils.isTimestampInPeriod;
 
 
 @Slf4j
 @Service
-@Builder
+@Builder(toBuilder = true)
 @RequiredArgsConstructor
 public class QuotesConsumerServiceImpl implements QuotesConsumerService {
 
-    private final ConcurrentLinkedQueue<Quote> quotesQueue;
+    public static final int MAX_CONFLATION_CYCLE_SIZE = 10_000;
+
+    private final Queue<Quote> quotesQueue;
     private final ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
     private final ConcurrentMap<TrendBar, Optional<ScheduledFuture<?>>> currBuildersMap;
     private final ExecutorService consumerExecutorService;
+    private final TrendBarBatchProcessor batchProcessor;
+    private final KeyQuotesQueueFactory keyQuotesQueueFactory;
+    private final QuoteConflator quoteConflator;
+    private final TrendBarMetrics trendBarMetrics;
+    private final TrendBarDiagnostics trendBarDiagnostics;
+    private final QuoteJournal quoteJournal;
 
     @Override
     public void start() {
         log.info("Starting QuotesConsumerServiceImpl.start()...");
         consumerExecutorService.submit(() -> {
+            Consumer<Quote> quoteRouter = this::routeQuote;
             while (!Thread.currentThread().isInterrupted()) {
+                if (quoteConflator.isEnabled()) {
+                    processConflationCycle(quoteRouter);
+                    continue;
+                }
                 Quote quote;
                 while ((quote = quotesQueue.poll()) != null) {
                     processQuote(quote);
                 }
+                quoteJournal.commit();
             }
         });
     }
 
+    public void processConflationCycle(Consumer<Quote> quoteRouter) {
+        Quote quote;
+        int cycleSize = 0;
+        while (cycleSize++ < MAX_CONFLATION_CYCLE_SIZE && (quote = quotesQueue.poll()) != null) {
+            if (!validateQuote(quote) && ingestQuote(quote)) {
+                quoteConflator.fold(quote, quoteRouter);
+            }
+        }
+        quoteConflator.drain(quoteRouter);
+        quoteJournal.commit();
+    }
+
     public void processQuote(Quote quote) {
-        if (validateQuote(quote)) return;
+        if (validateQuote(quote) || !ingestQuote(quote)) return;
+        routeQuote(quote);
+    }
 
+    // Raw quotes are journaled before conflation so a replay sees every tick; a quote the journal cannot record is
+    // dropped so that replay never rebuilds a bar differently from the live one
+    private boolean ingestQuote(Quote quote) {
+        trendBarMetrics.recordQuoteIngested(quote.getSymbol());
+        try {
+            quoteJournal.append(quote);
+            return true;
+        } catch (IllegalArgumentException e) {
+            log.error(e.getMessage());
+            return false;
+        }
+    }
+
+    // Only a quote that missed an open bar of its symbol can belong to a completed one, in-order quotes never reach
+    // the amendment scan
+    public void routeQuote(Quote quote) {
+        int symbolTrendBarsCount = 0;
+        int matchedTrendBarsCount = 0;
         for (var trendBar : currBuildersMap.keySet()) {
-            boolean isQuoteTimestampInPeriod = isQuoteTimestampInPeriod(quote, trendBar);
             TrendBarKey trendBarKey = trendBar.trendBarKey();
-            if (trendBarKey.symbol().equals(quote.getSymbol()) && isQuoteTimestampInPeriod) {
-                BlockingQueue<Quote> quotes = keyToQuotesQueueMap.computeIfAbsent(trendBarKey, k -> new LinkedBlockingQueue<>());
-
-                quotes.add(quote);
-
-                String trendBarKeyStr = trendBarKey.symbol() + "_" + trendBarKey.trendBarPeriod();
-                log.info("IN processQuote: ADDED quote to trendBar \"{}\" and NOW keyToQuotesQueueMap.get({}).size() = {}", trendBarKeyStr, trendBarKeyStr, keyToQuotesQueueMap.get(trendBarKey).size());
+            if (!trendBarKey.symbol().equals(quote.getSymbol())) {
+                continue;
+            }
+            symbolTrendBarsCount++;
+            if (isQuoteTimestampInPeriod(quote, trendBar)) {
+                matchedTrendBarsCount++;
+                var quoteRoutedEvent = new QuoteRoutedEvent();
+                quoteRoutedEvent.begin();
+                BlockingQueue<Quote> quotes = keyToQuotesQueueMap.computeIfAbsent(trendBarKey, k -> keyQuotesQueueFactory.create());
+                boolean isQuoteOffered = quotes.offer(quote);
+                quoteRoutedEvent.commitFor(trendBarKey, 1);
+
+                if (!isQuoteOffered) {
+                    continue;
+                }
+                trendBarMetrics.recordQuoteRouted();
+                trendBarDiagnostics.recordQuoteRouted(trendBarKey);
             }
         }
+
+        if (symbolTrendBarsCount == 0 || matchedTrendBarsCount < symbolTrendBarsCount) {
+            batchProcessor.amendCompletedTrendBars(quote);
+        }
     }
 
     private static boolean validateQuote(Quote quote) {
@@ -76,14 +144,7 @@ public class QuotesConsumerServiceImpl implements QuotesConsumerService {
     }
 
     private boolean isQuoteTimestampInPeriod(Quote quote, TrendBar trendBar) {
-        Instant quoteTimestamp = Instant.ofEpochMilli(quote.getUnixTimeStamp());
-
-        Instant startOfPeriod = trendBar.startOfPeriod();
-
-        Instant endOfPeriod = startOfPeriod.plus(trendBar.trendBarKey().trendBarPeriod().getDuration());
-
-        return quoteTimestamp.isAfter(startOfPeriod)
-               && quoteTimestamp.isBefore(endOfPeriod);
+        return isTimestampInPeriod(quote.getUnixTimeStamp(), trendBar);
     }
 
     @Override
@@ -0,0 +1,427 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.service.TrendBarBackfillService;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.util.QuoteJournal;
+import com.va.trendbarservice.util.QuotesCsvParser;
+import com.va.trendbarservice.util.TickFileReader;
+import com.va.trendbarservice.util.TrendBarAccumulator;
+import com.va.trendbarservice.util.TrendBarAggregationTask;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
+
+import static com.va.trendbarservice.util.TrendBarUtils.getStartOfPeriod;
+import static com.va.trendbarservice.util.TrendBarUtils.isTimestampInPeriod;
+
+
+// Builds bars from historical quotes using the quote timestamps as the clock, so a run is
+// bounded by parsing and bulk writes rather than by the live MicroBatcher and builder timers
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendBarBackfillServiceImpl implements TrendBarBackfillService {
+
+    private static final long MILLIS_PER_DAY = TrendBarPeriod.D1.getDuration().toMillis();
+
+    @Setter
+    @Value("${backfill.path}")
+    private String BACKFILL_PATH;
+
+    @Setter
+    @Value("${backfill.save.batch.size}")
+    private int BACKFILL_SAVE_BATCH_SIZE;
+
+    @Setter
+    @Value("${backfill.parallel.enabled}")
+    private boolean BACKFILL_PARALLEL_ENABLED;
+
+    // 0 means one worker per available processor
+    @Setter
+    @Value("${backfill.parallel.parallelism}")
+    private int BACKFILL_PARALLELISM;
+
+    // A symbol-day partition above this size is cut into slices so a single busy day does not serialize the run
+    @Setter
+    @Value("${backfill.parallel.slice.max.quotes}")
+    private int BACKFILL_SLICE_MAX_QUOTES;
+
+    @Setter
+    @Value("${quoteJournal.segment.records}")
+    private int QUOTE_JOURNAL_SEGMENT_RECORDS;
+
+    private final TrendBarRepository trendBarRepository;
+    private final TrendBarTieringService trendBarTieringService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public int backfill(Iterator<Quote> quotes) {
+        var backfillRun = new BackfillRun(System.currentTimeMillis());
+        quotes.forEachRemaining(backfillRun);
+        return backfillRun.finish();
+    }
+
+    // Quotes are cut into slices per symbol and UTC day while the source is read and the slices are aggregated on a
+    // worker pool, so only the open day of every symbol and a bounded number of slices are ever held in memory
+    @Override
+    public int backfillInParallel(Stream<Quote> quotes) {
+        var parallelBackfillRun = new ParallelBackfillRun(System.currentTimeMillis());
+        try {
+            quotes.sequential().forEach(parallelBackfillRun);
+            return parallelBackfillRun.finish();
+        } finally {
+            parallelBackfillRun.shutdown();
+        }
+    }
+
+    @Override
+    public int backfillFromCsv(Path csvPath) {
+        log.info("Starting backfill from quotes CSV {}", csvPath);
+        var quotesCsvParser = new QuotesCsvParser();
+        try (Stream<String> lines = Files.lines(csvPath)) {
+            var quotes = lines.filter(QuotesCsvParser::isQuoteLine).map(quotesCsvParser::parse);
+            return BACKFILL_PARALLEL_ENABLED ? backfillInParallel(quotes) : backfill(quotes.iterator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int backfillFromJournal(Path journalPath) {
+        log.info("Starting backfill from quote journal {}", journalPath);
+        if (!QuoteJournal.exists(journalPath)) {
+            log.warn("Quote journal {} does not exist, nothing to backfill", journalPath);
+            return 0;
+        }
+        try (var quoteJournal = new QuoteJournal(true, journalPath, QUOTE_JOURNAL_SEGMENT_RECORDS)) {
+            return backfillFromReplay(quoteJournal::replay);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int backfillFromTickFile(Path tickFilePath) {
+        log.info("Starting backfill from tick file {}", tickFilePath);
+        try (var tickFileReader = new TickFileReader(tickFilePath)) {
+            return backfillFromReplay(tickFileReader::replay);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int backfillFromConfiguredPath() {
+        if (BACKFILL_PATH == null || BACKFILL_PATH.isBlank()) {
+            return 0;
+        }
+        var backfillPath = Path.of(BACKFILL_PATH);
+        String fileName = backfillPath.getFileName().toString();
+        if (fileName.endsWith(".csv")) {
+            return backfillFromCsv(backfillPath);
+        }
+        return fileName.endsWith(".ticks") ? backfillFromTickFile(backfillPath) : backfillFromJournal(backfillPath);
+    }
+
+    private int backfillFromReplay(ToLongFunction<Consumer<Quote>> replay) {
+        if (BACKFILL_PARALLEL_ENABLED) {
+            var parallelBackfillRun = new ParallelBackfillRun(System.currentTimeMillis());
+            try {
+                replay.applyAsLong(parallelBackfillRun);
+                return parallelBackfillRun.finish();
+            } finally {
+                parallelBackfillRun.shutdown();
+            }
+        }
+        var backfillRun = new BackfillRun(System.currentTimeMillis());
+        replay.applyAsLong(backfillRun);
+        return backfillRun.finish();
+    }
+
+    // Each flush batch commits in its own transaction, so the persistence context never holds more than one batch
+    private void saveTrendBars(List<TrendBarEntity> trendBarEntities) {
+        transactionTemplate.executeWithoutResult(status -> {
+            trendBarRepository.saveAll(trendBarEntities);
+            trendBarEntities.forEach(trendBarTieringService::onTrendBarPersisted);
+        });
+    }
+
+    private static long getEndOfPeriod(TrendBar trendBar) {
+        return trendBar.startOfPeriod().plus(trendBar.trendBarKey().trendBarPeriod().getDuration()).toEpochMilli();
+    }
+
+    // Quotes are expected in timestamp order per symbol, a quote older than the open bar of its key
+    // would reopen an already completed bar and is skipped for that key
+    private class BackfillRun implements Consumer<Quote> {
+
+        private final long nowMillis;
+        private final long startNanos = System.nanoTime();
+        private final Map<TrendBarKey, TrendBarAccumulator> openAccumulatorsMap = new HashMap<>();
+        private final List<TrendBarEntity> pendingTrendBarEntities = new ArrayList<>();
+        private long quotesCount;
+        private long skippedQuotesCount;
+        private int savedTrendBarsCount;
+
+        private BackfillRun(long nowMillis) {
+            this.nowMillis = nowMillis;
+        }
+
+        @Override
+        public void accept(Quote quote) {
+            quotesCount++;
+            long unixTimeStamp = quote.getUnixTimeStamp();
+            for (var trendBarPeriod : TrendBarPeriod.values()) {
+                var trendBarKey = new TrendBarKey(quote.getSymbol(), trendBarPeriod);
+                var accumulator = openAccumulatorsMap.get(trendBarKey);
+                if (accumulator == null || !isTimestampInPeriod(unixTimeStamp, accumulator.getTrendBar())) {
+                    if (accumulator != null && unixTimeStamp < accumulator.getTrendBar().startOfPeriod().toEpochMilli()) {
+                        skippedQuotesCount++;
+                        continue;
+                    }
+                    if (accumulator != null) {
+                        complete(accumulator);
+                    }
+                    var trendBar = new TrendBar(trendBarKey, getStartOfPeriod(Instant.ofEpochMilli(unixTimeStamp), trendBarPeriod));
+                    accumulator = new TrendBarAccumulator(trendBar);
+                    openAccumulatorsMap.put(trendBarKey, accumulator);
+                }
+                accumulator.add(quote);
+            }
+        }
+
+        private int finish() {
+            openAccumulatorsMap.values().forEach(this::complete);
+            openAccumulatorsMap.clear();
+            flush();
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            log.info("Backfill finished: {} quotes ({} skipped as out of order), {} trend bars saved in {} ms ({} quotes/s)",
+                    quotesCount, skippedQuotesCount, savedTrendBarsCount, elapsedMillis, quotesCount * 1000 / elapsedMillis);
+            return savedTrendBarsCount;
+        }
+
+        // A bar whose period has not ended yet is left to the live pipeline
+        private void complete(TrendBarAccumulator accumulator) {
+            if (getEndOfPeriod(accumulator.getTrendBar()) > nowMillis) {
+                return;
+            }
+            pendingTrendBarEntities.add(accumulator.toCompletedTrendBarEntity());
+            if (pendingTrendBarEntities.size() >= BACKFILL_SAVE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pendingTrendBarEntities.isEmpty()) {
+                return;
+            }
+            saveTrendBars(pendingTrendBarEntities);
+            savedTrendBarsCount += pendingTrendBarEntities.size();
+            pendingTrendBarEntities.clear();
+        }
+    }
+
+    // Applies the same out-of-order rule as BackfillRun: the reader drops a quote from a day its symbol has already left,
+    // and every slice carries the newest timestamp before it so the workers skip the same quotes per period. A day is
+    // saved once it is sealed and all its slices are merged, the saving stays on the reading thread
+    private class ParallelBackfillRun implements Consumer<Quote> {
+
+        private static final int TREND_BAR_PERIODS_COUNT = TrendBarPeriod.values().length;
+
+        private final long nowMillis;
+        private final long startNanos = System.nanoTime();
+        private final int parallelism;
+        private final ExecutorService backfillExecutorService;
+        // Bounds the slices handed to the pool and not yet aggregated, so the reader waits instead of buffering the source
+        private final Semaphore pendingSlicesSemaphore;
+        private final Map<Symbol, BackfillSymbol> symbolsMap = new HashMap<>();
+        private final Queue<BackfillDay> completedDaysQueue = new ConcurrentLinkedQueue<>();
+        private final LongAdder skippedQuotesCounter = new LongAdder();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final List<TrendBarEntity> pendingTrendBarEntities = new ArrayList<>();
+        private long quotesCount;
+        private int daysCount;
+        private int slicesCount;
+        private int savedTrendBarsCount;
+
+        private ParallelBackfillRun(long nowMillis) {
+            this.nowMillis = nowMillis;
+            this.parallelism = BACKFILL_PARALLELISM > 0 ? BACKFILL_PARALLELISM : Runtime.getRuntime().availableProcessors();
+            this.backfillExecutorService = Executors.newFixedThreadPool(parallelism);
+            this.pendingSlicesSemaphore = new Semaphore(2 * parallelism);
+        }
+
+        @Override
+        public void accept(Quote quote) {
+            quotesCount++;
+            var backfillSymbol = symbolsMap.computeIfAbsent(quote.getSymbol(), symbol -> new BackfillSymbol());
+            long epochDay = Math.floorDiv(quote.getUnixTimeStamp(), MILLIS_PER_DAY);
+            if (backfillSymbol.openDay != null && epochDay < backfillSymbol.openDay.epochDay) {
+                skippedQuotesCounter.add(TREND_BAR_PERIODS_COUNT);
+                return;
+            }
+            if (backfillSymbol.openDay == null || epochDay > backfillSymbol.openDay.epochDay) {
+                if (backfillSymbol.openDay != null) {
+                    sealDay(backfillSymbol);
+                }
+                backfillSymbol.openDay = new BackfillDay(epochDay);
+                daysCount++;
+            }
+            if (backfillSymbol.sliceQuotes.isEmpty()) {
+                backfillSymbol.sliceLastUnixTimeStamp = backfillSymbol.lastUnixTimeStamp;
+            }
+            backfillSymbol.sliceQuotes.add(quote);
+            backfillSymbol.lastUnixTimeStamp = Math.max(backfillSymbol.lastUnixTimeStamp, quote.getUnixTimeStamp());
+            if (backfillSymbol.sliceQuotes.size() >= BACKFILL_SLICE_MAX_QUOTES) {
+                submitSlice(backfillSymbol);
+            }
+            saveCompletedDays();
+        }
+
+        private int finish() {
+            symbolsMap.values().forEach(this::sealDay);
+            symbolsMap.clear();
+            backfillExecutorService.shutdown();
+            try {
+                while (!backfillExecutorService.awaitTermination(1, TimeUnit.SECONDS)) {
+                    saveCompletedDays();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for backfill slices", e);
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            saveCompletedDays();
+            flush();
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            log.info("Parallel backfill finished: {} quotes ({} skipped as out of order) in {} symbol days ({} slices) on {} workers, {} trend bars saved in {} ms ({} quotes/s)",
+                    quotesCount, skippedQuotesCounter.sum(), daysCount, slicesCount, parallelism, savedTrendBarsCount, elapsedMillis,
+                    quotesCount * 1000 / elapsedMillis);
+            return savedTrendBarsCount;
+        }
+
+        private void shutdown() {
+            backfillExecutorService.shutdownNow();
+        }
+
+        private void sealDay(BackfillSymbol backfillSymbol) {
+            if (!backfillSymbol.sliceQuotes.isEmpty()) {
+                submitSlice(backfillSymbol);
+            }
+            var backfillDay = backfillSymbol.openDay;
+            if (backfillDay != null && backfillDay.seal()) {
+                completedDaysQueue.offer(backfillDay);
+            }
+        }
+
+        private void submitSlice(BackfillSymbol backfillSymbol) {
+            var backfillDay = backfillSymbol.openDay;
+            var aggregationTask = new TrendBarAggregationTask(backfillSymbol.sliceQuotes, backfillSymbol.sliceLastUnixTimeStamp);
+            backfillSymbol.sliceQuotes = new ArrayList<>();
+            backfillDay.addPendingSlice();
+            pendingSlicesSemaphore.acquireUninterruptibly();
+            slicesCount++;
+            backfillExecutorService.execute(() -> {
+                try {
+                    var accumulatorsMap = aggregationTask.call();
+                    skippedQuotesCounter.add(aggregationTask.getSkippedQuotesCount());
+                    if (backfillDay.mergeSlice(accumulatorsMap)) {
+                        completedDaysQueue.offer(backfillDay);
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    pendingSlicesSemaphore.release();
+                }
+            });
+        }
+
+        private void saveCompletedDays() {
+            BackfillDay backfillDay;
+            while ((backfillDay = completedDaysQueue.poll()) != null) {
+                for (var accumulator : backfillDay.accumulatorsMap.values()) {
+                    complete(accumulator);
+                }
+            }
+        }
+
+        // A bar whose period has not ended yet is left to the live pipeline
+        private void complete(TrendBarAccumulator accumulator) {
+            if (getEndOfPeriod(accumulator.getTrendBar()) > nowMillis) {
+                return;
+            }
+            pendingTrendBarEntities.add(accumulator.toCompletedTrendBarEntity());
+            if (pendingTrendBarEntities.size() >= BACKFILL_SAVE_BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (pendingTrendBarEntities.isEmpty()) {
+                return;
+            }
+            saveTrendBars(pendingTrendBarEntities);
+            savedTrendBarsCount += pendingTrendBarEntities.size();
+            pendingTrendBarEntities.clear();
+        }
+    }
+
+    // Reader-side state of one symbol, only touched by the reading thread
+    private static class BackfillSymbol {
+
+        private BackfillDay openDay;
+        private List<Quote> sliceQuotes = new ArrayList<>();
+        private long sliceLastUnixTimeStamp = Long.MIN_VALUE;
+        private long lastUnixTimeStamp = Long.MIN_VALUE;
+    }
+
+    // Bars never span a UTC day, so the merged partials of a sealed day with no pending slices are complete
+    private static class BackfillDay {
+
+        private final long epochDay;
+        private final Map<TrendBar, TrendBarAccumulator> accumulatorsMap = new HashMap<>();
+        private int pendingSlicesCount;
+        private boolean isSealed;
+
+        private BackfillDay(long epochDay) {
+            this.epochDay = epochDay;
+        }
+
+        private synchronized void addPendingSlice() {
+            pendingSlicesCount++;
+        }
+
+        private synchronized boolean mergeSlice(Map<TrendBar, TrendBarAccumulator> sliceAccumulatorsMap) {
+            sliceAccumulatorsMap.forEach((trendBar, accumulator) -> accumulatorsMap.merge(trendBar, accumulator, TrendBarAccumulator::merge));
+            return --pendingSlicesCount == 0 && isSealed;
+        }
+
+        private synchronized boolean seal() {
+            isSealed = true;
+            return pendingSlicesCount == 0;
+        }
+    }
+}
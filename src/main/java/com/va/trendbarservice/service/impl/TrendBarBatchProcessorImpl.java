@@ -1,15 +1,23 @@
 package com.va.trendbarservice.service.impl;
 
+import com.va.trendbarservice.jfr.BarFinalizedEvent;
+import com.va.trendbarservice.jfr.BarPersistedEvent;
+import com.va.trendbarservice.jfr.BatchAggregatedEvent;
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.*;
 import com.va.trendbarservice.repository.TrendBarRepository;
 import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.service.TrendBarIndicatorService;
+import com.va.trendbarservice.service.TrendBarSubscriptionService;
+import com.va.trendbarservice.service.TrendBarTieringService;
 import com.va.trendbarservice.util.MicroBatcher;
-import lombok.Builder;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
@@ -17,76 +25,86 @@ import java.util.Optional;
 import java.util.concurrent.*;
 
 import static com.va.trendbarservice.util.TrendBarUtils.getStartOfPeriod;
+import static com.va.trendbarservice.util.TrendBarUtils.getVwap;
+import static com.va.trendbarservice.util.TrendBarUtils.isTimestampInPeriod;
 
 
 @Slf4j
 @Service
-@Builder
 @RequiredArgsConstructor
 public class TrendBarBatchProcessorImpl implements TrendBarBatchProcessor {
 
     public static final int MAX_BATCH_BUFFER_SIZE = 10;
 
+    @Setter
+    @Value("${trendbar.lateness.millis}")
+    private long TRENDBAR_LATENESS_MILLIS;
+
     private final ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap;
     private final TrendBarRepository trendBarRepository;
-    private final Map<TrendBar, TrendBarEntity> currTrendBarEntities;
+    private final Map<TrendBar, TrendBarEntity> currTrendBarEntitiesMap;
     private final ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
     private final ConcurrentMap<TrendBar, Optional<ScheduledFuture<?>>> currBuildersMap;
-
+    private final ConcurrentMap<TrendBar, TrendBarEntity> amendableTrendBarEntitiesMap;
+    private final ScheduledExecutorService scheduler;
+    private final TrendBarMetrics trendBarMetrics;
+    private final TrendBarDiagnostics trendBarDiagnostics;
+    private final TrendBarSubscriptionService trendBarSubscriptionService;
+    private final TrendBarIndicatorService trendBarIndicatorService;
+    private final TrendBarTieringService trendBarTieringService;
 
     @Override
     public void processMicroBatch(List<Quote> quotesBatch, TrendBar trendBar, boolean isBatchFinal) {
-        TrendBarKey trendBarKey = trendBar.trendBarKey();
-        String trendBarKeyStr = trendBarKey.symbol() + "_" + trendBarKey.trendBarPeriod();
-        log.info("IN processMicroBatch: Processing batch for \"{}\" of size: {}, isBatchFinal = {}", trendBarKeyStr, quotesBatch.size(), isBatchFinal);
+        trendBarDiagnostics.recordBatch(trendBar.trendBarKey(), quotesBatch.size(), isBatchFinal);
 
-        TrendBarEntity currTrendBarEntity = currTrendBarEntities.get(trendBar);
+        var batchAggregatedEvent = new BatchAggregatedEvent();
+        batchAggregatedEvent.begin();
+        TrendBarEntity currTrendBarEntity = currTrendBarEntitiesMap.get(trendBar);
+        recordQuotesAggregated(quotesBatch);
 
         if (!quotesBatch.isEmpty()) {
             if (currTrendBarEntity == null) {
                 var createdTrendBarEntity = createTrendBarEntity(quotesBatch, trendBar);
-                log.info("IN processMicroBatch: CREATED new TrendBar {}: currTrendBarEntities.size() = {}", createdTrendBarEntity, currTrendBarEntities.size());
+                trendBarSubscriptionService.publishPartial(createdTrendBarEntity);
+                log.debug("IN processMicroBatch: CREATED new TrendBar {}", createdTrendBarEntity);
             } else {
-                updateTrendBarEntity(currTrendBarEntity, quotesBatch, isBatchFinal);
-                log.info("IN processMicroBatch: UPDATED TrendBar {}: currTrendBarEntities.size() = {}", currTrendBarEntity, currTrendBarEntities.size());
+                var updatedTrendBarEntity = updateTrendBarEntity(currTrendBarEntity, quotesBatch, isBatchFinal);
+                if (!isBatchFinal) {
+                    trendBarSubscriptionService.publishPartial(updatedTrendBarEntity);
+                }
+                log.debug("IN processMicroBatch: UPDATED TrendBar {}", currTrendBarEntity);
             }
+        } else if (isBatchFinal && currTrendBarEntity != null) {
+            updateTrendBarEntity(currTrendBarEntity, quotesBatch, true);
         }
+        batchAggregatedEvent.commitFor(trendBar.trendBarKey(), quotesBatch.size());
     }
 
         public TrendBarEntity createTrendBarEntity(List<Quote> quotesBatch, TrendBar trendBar) {
         TrendBarKey trendBarKey = trendBar.trendBarKey();
-        String trendBarKeyStr = trendBarKey.symbol() + "_" + trendBarKey.trendBarPeriod();
-        log.info("Starting createTrendBar \"{}\" for quotesBatch.size() = : {}", trendBarKeyStr, + quotesBatch.size());
+        log.debug("Starting createTrendBar \"{}_{}\" for quotesBatch.size() = {}", trendBarKey.symbol(), trendBarKey.trendBarPeriod(), quotesBatch.size());
 
         if (!quotesBatch.isEmpty()) {
             Instant firstQuoteUnixTimestamp= Instant.ofEpochMilli(quotesBatch.get(0).getUnixTimeStamp());
             Instant startOfPeriod = getStartOfPeriod(firstQuoteUnixTimestamp, trendBarKey.trendBarPeriod());
-            log.info("IN createTrendBar: startOfPeriod = {}", startOfPeriod);
-
-            var openPrice = quotesBatch.get(0).getNewPrice();
+            log.debug("IN createTrendBar: startOfPeriod = {}", startOfPeriod);
 
-            var highPrice = quotesBatch.stream()
-                    .map(Quote::getNewPrice)
-                    .max(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
-            var lowPrice = quotesBatch.stream()
-                    .map(Quote::getNewPrice)
-                    .min(BigDecimal::compareTo)
-                    .orElse(BigDecimal.ZERO);
+            var firstQuote = quotesBatch.get(0);
 
-            var trendBarEntity = TrendBarEntity.builder()
+            var trendBarEntity = aggregateQuotes(TrendBarEntity.builder()
                     .id(null)
                     .symbol(trendBarKey.symbol())
-                    .highPrice(highPrice)
-                    .lowPrice(lowPrice)
-                    .openPrice(openPrice)
+                    .highPrice(firstQuote.getHighPrice())
+                    .lowPrice(firstQuote.getLowPrice())
+                    .openPrice(firstQuote.getFirstPrice())
                     .closePrice(null)
                     .timestamp(startOfPeriod.toEpochMilli())
                     .period(trendBarKey.trendBarPeriod())
                     .status(TrendBarStatus.INCOMPLETE)
-                    .build();
+                    .firstQuoteTimestamp(firstQuote.getFirstUnixTimeStamp())
+                    .build(), quotesBatch);
 
-            currTrendBarEntities.put(trendBar, trendBarEntity);
+            currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
             return trendBarEntity;
         }
         else {
@@ -97,61 +115,217 @@ public class TrendBarBatchProcessorImpl implements TrendBarBatchProcessor {
 
 //    @Override
     public TrendBarEntity updateTrendBarEntity(TrendBarEntity trendBarEntity, List<Quote> quotesBatch, boolean isBatchFinal) {
-        log.info("Starting updateTrendBarEntity: {}", trendBarEntity);
-        log.info("quotesBatch.size(): {}", quotesBatch.size());
+        log.debug("Starting updateTrendBarEntity: {} for quotesBatch.size() = {}", trendBarEntity, quotesBatch.size());
 
         TrendBarKey key = new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod());
         TrendBar trendBar = new TrendBar(key, Instant.ofEpochMilli(trendBarEntity.getTimestamp()));
 
         if (!quotesBatch.isEmpty()) {
-            var highPrice = quotesBatch.stream()
-                    .map(Quote::getNewPrice)
-                    .max(BigDecimal::compareTo)
-                    .orElse(trendBarEntity.getHighPrice());
+            trendBarEntity = aggregateQuotes(trendBarEntity, quotesBatch);
+            currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
+        }
 
-            var lowPrice = quotesBatch.stream()
-                    .map(Quote::getNewPrice)
-                    .min(BigDecimal::compareTo)
-                    .orElse(trendBarEntity.getLowPrice());
+        if (isBatchFinal) {
+            log.debug("!!! isBatchFinal = TRUE");
+            var barFinalizedEvent = new BarFinalizedEvent();
+            barFinalizedEvent.begin();
 
-            var highPriceUpdated = highPrice.compareTo(trendBarEntity.getHighPrice()) > 0 ? highPrice : trendBarEntity.getHighPrice();
-            var lowPriceUpdated = lowPrice.compareTo(trendBarEntity.getLowPrice()) < 0 ? lowPrice : trendBarEntity.getLowPrice();
+            trendBarEntity = doFinalUpdate(trendBarEntity);
+            trendBarMetrics.recordBarFinalized(getEndOfPeriod(trendBar), System.currentTimeMillis());
+            currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
+            completeTrendBarEntity(trendBar, trendBarEntity);
 
-            trendBarEntity = trendBarEntity.toBuilder()
-                    .highPrice(highPriceUpdated)
-                    .lowPrice(lowPriceUpdated)
-                    .build();
-            currTrendBarEntities.put(trendBar, trendBarEntity);
+            doCleanMaps(trendBar);
+            barFinalizedEvent.commitFor(key, quotesBatch.size());
         }
 
-        if (isBatchFinal) {
-            log.info("!!! isBatchFinal = TRUE");
+        log.debug("Finished update trendBarEntity: {}", trendBarEntity);
+        return trendBarEntity;
+    }
 
-            trendBarEntity = doFinalUpdate(trendBarEntity, quotesBatch);
+    // Inside the lateness window the bar is still amendable, so it is only published once it is sealed
+    private void completeTrendBarEntity(TrendBar trendBar, TrendBarEntity trendBarEntity) {
+        if (TRENDBAR_LATENESS_MILLIS > 0) {
+            amendableTrendBarEntitiesMap.put(trendBar, trendBarEntity);
+            scheduleSeal(trendBar);
+        } else {
+            finishTrendBarEntity(trendBarEntity);
+            log.info("Saved trendbar entity: {}", trendBarEntity);
+        }
+    }
 
-            currTrendBarEntities.put(trendBar, trendBarEntity);
+    // Subscribers and indicators see every bar exactly once, with the values that were persisted
+    private void finishTrendBarEntity(TrendBarEntity trendBarEntity) {
+        saveTrendBarEntity(trendBarEntity);
+        trendBarSubscriptionService.publishCompleted(trendBarEntity);
+        trendBarIndicatorService.onTrendBarCompleted(trendBarEntity);
+    }
 
-            trendBarRepository.save(trendBarEntity);
-            log.info("Saved trendbar entity: {}", trendBarEntity);
+    // A checkpointed bar whose period ended while the service was down is completed with its tracked close after the
+    // journal replay; it never got a MicroBatcher, and a bar persisted just before the crash is dropped, not saved twice
+    @Override
+    public void completeRestoredTrendBar(TrendBar trendBar, List<Quote> queuedQuotes) {
+        var trendBarEntity = currTrendBarEntitiesMap.remove(trendBar);
+        if (trendBarEntity == null || isTrendBarPersisted(trendBar)) {
+            return;
+        }
+        if (!queuedQuotes.isEmpty()) {
+            trendBarEntity = aggregateQuotes(trendBarEntity, queuedQuotes);
+        }
+        completeTrendBarEntity(trendBar, doFinalUpdate(trendBarEntity));
+        log.info("Completed restored TrendBar {} whose period ended before restart", trendBar);
+    }
 
-            doCleanMaps(trendBar);
+    @Override
+    public void sealRestoredTrendBar(TrendBar trendBar) {
+        if (isTrendBarPersisted(trendBar)) {
+            amendableTrendBarEntitiesMap.remove(trendBar);
+            return;
         }
+        scheduleSeal(trendBar);
+    }
 
-        log.info("Finished update trendBarEntity: {}", trendBarEntity);
-        return trendBarEntity;
+    private boolean isTrendBarPersisted(TrendBar trendBar) {
+        var trendBarKey = trendBar.trendBarKey();
+        return trendBarRepository.existsTrendBarBySymbolAndPeriodAndTimestamp(trendBarKey.symbol(), trendBarKey.trendBarPeriod(),
+                trendBar.startOfPeriod().toEpochMilli());
     }
 
-    public TrendBarEntity doFinalUpdate(TrendBarEntity trendBarEntity, List<Quote> quotesBatch) {
-        log.info("Starting doFinalUpdate...");
-        var closePrice = quotesBatch.isEmpty() ? trendBarEntity.getOpenPrice() : quotesBatch.get(quotesBatch.size() - 1).getNewPrice();
+    // Close is already tracked by aggregateQuotes, finalizing only flips the status
+    public TrendBarEntity doFinalUpdate(TrendBarEntity trendBarEntity) {
+        log.debug("Starting doFinalUpdate...");
         return trendBarEntity.toBuilder()
-                .closePrice(closePrice)
                 .status(TrendBarStatus.COMPLETED)
                 .build();
     }
 
+    @Override
+    public void amendCompletedTrendBars(Quote lateQuote) {
+        if (amendableTrendBarEntitiesMap.isEmpty()) {
+            return;
+        }
+        for (var trendBar : amendableTrendBarEntitiesMap.keySet()) {
+            if (trendBar.trendBarKey().symbol().equals(lateQuote.getSymbol())
+                && isTimestampInPeriod(lateQuote.getUnixTimeStamp(), trendBar)) {
+                amendableTrendBarEntitiesMap.computeIfPresent(trendBar, (key, trendBarEntity) -> amendTrendBarEntity(trendBarEntity, lateQuote));
+                log.debug("IN amendCompletedTrendBars: AMENDED completed TrendBar {} with late quote {}", trendBar, lateQuote);
+            }
+        }
+    }
+
+    // A late quote usually predates the bar's last quote, so it only moves close when it is at least as recent
+    public TrendBarEntity amendTrendBarEntity(TrendBarEntity trendBarEntity, Quote lateQuote) {
+        return aggregateQuotes(trendBarEntity, List.of(lateQuote));
+    }
+
+    // One pass per batch: high/low/close plus activity fields, only the sized quotes touch the BigDecimal volume sums.
+    // Open follows the quote with the earliest timestamp, ties go to the earlier arrival, and close the quote with
+    // the latest timestamp, ties go to the later arrival, same as TrendBarAccumulator in the backfill.
+    // Bid and ask opens and closes follow the same rule.
+    // Bid/ask state is copied once per batch, earlier entity snapshots may still be in flight to subscribers.
+    // Quotes at or below the bar's sequence watermark were folded before a checkpoint and are skipped on requeue or replay
+    private static TrendBarEntity aggregateQuotes(TrendBarEntity trendBarEntity, List<Quote> quotesBatch) {
+        var highPrice = trendBarEntity.getHighPrice();
+        var lowPrice = trendBarEntity.getLowPrice();
+        var openPrice = trendBarEntity.getOpenPrice();
+        var closePrice = trendBarEntity.getClosePrice();
+        long ticksCount = trendBarEntity.getTicksCount();
+        long firstQuoteTimestamp = trendBarEntity.getFirstQuoteTimestamp();
+        long lastQuoteTimestamp = trendBarEntity.getLastQuoteTimestamp();
+        var volume = trendBarEntity.getVolume();
+        var turnover = trendBarEntity.getTurnover();
+        var bidAsk = trendBarEntity.getBidAsk() == null ? null : trendBarEntity.getBidAsk().copy();
+        long lastQuoteSequence = trendBarEntity.getLastQuoteSequence();
+        for (int i = 0; i < quotesBatch.size(); i++) {
+            var quote = quotesBatch.get(i);
+            if (quote.getJournalSequence() != 0) {
+                if (quote.getJournalSequence() <= lastQuoteSequence) {
+                    continue;
+                }
+                lastQuoteSequence = quote.getJournalSequence();
+            }
+            if (quote.getHighPrice().compareTo(highPrice) > 0) {
+                highPrice = quote.getHighPrice();
+            }
+            if (quote.getLowPrice().compareTo(lowPrice) < 0) {
+                lowPrice = quote.getLowPrice();
+            }
+            ticksCount += quote.getTicksCount();
+            boolean isEarliest = firstQuoteTimestamp == 0 || quote.getFirstUnixTimeStamp() < firstQuoteTimestamp;
+            boolean isLatest = closePrice == null || quote.getUnixTimeStamp() >= lastQuoteTimestamp;
+            if (isEarliest) {
+                openPrice = quote.getFirstPrice();
+                firstQuoteTimestamp = quote.getFirstUnixTimeStamp();
+            }
+            if (isLatest) {
+                closePrice = quote.getNewPrice();
+            }
+            if (quote.getUnixTimeStamp() > lastQuoteTimestamp) {
+                lastQuoteTimestamp = quote.getUnixTimeStamp();
+            }
+            if (quote.getSize() != null) {
+                volume = volume == null ? quote.getSize() : volume.add(quote.getSize());
+                turnover = turnover == null ? quote.getTurnover() : turnover.add(quote.getTurnover());
+            }
+            bidAsk = BidAskTrendBar.aggregate(bidAsk, quote, isEarliest, isLatest);
+        }
+        return trendBarEntity.toBuilder()
+                .openPrice(openPrice)
+                .highPrice(highPrice)
+                .lowPrice(lowPrice)
+                .closePrice(closePrice)
+                .ticksCount(ticksCount)
+                .firstQuoteTimestamp(firstQuoteTimestamp)
+                .lastQuoteTimestamp(lastQuoteTimestamp)
+                .volume(volume)
+                .turnover(turnover)
+                .vwap(getVwap(volume, turnover))
+                .bidAsk(bidAsk)
+                .lastQuoteSequence(lastQuoteSequence)
+                .build();
+    }
+
+    private void recordQuotesAggregated(List<Quote> quotesBatch) {
+        long nowMillis = System.currentTimeMillis();
+        for (int i = 0; i < quotesBatch.size(); i++) {
+            trendBarMetrics.recordQuoteAggregated(quotesBatch.get(i).getUnixTimeStamp(), nowMillis);
+        }
+    }
+
+    private void saveTrendBarEntity(TrendBarEntity trendBarEntity) {
+        var barPersistedEvent = new BarPersistedEvent();
+        barPersistedEvent.begin();
+        long persistenceStartNanos = System.nanoTime();
+        trendBarRepository.save(trendBarEntity);
+        trendBarMetrics.recordBarPersisted(System.nanoTime() - persistenceStartNanos);
+        trendBarTieringService.onTrendBarPersisted(trendBarEntity);
+        barPersistedEvent.commitFor(trendBarEntity.getSymbol(), trendBarEntity.getPeriod(), 1);
+    }
+
+    private static long getEndOfPeriod(TrendBar trendBar) {
+        return trendBar.startOfPeriod().plus(trendBar.trendBarKey().trendBarPeriod().getDuration()).toEpochMilli();
+    }
+
+    private void scheduleSeal(TrendBar trendBar) {
+        long sealDelayInMillis = Math.max(0, getEndOfPeriod(trendBar) + TRENDBAR_LATENESS_MILLIS - System.currentTimeMillis());
+        try {
+            scheduler.schedule(() -> sealTrendBar(trendBar), sealDelayInMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("Scheduler rejected seal of TrendBar {}, sealing immediately", trendBar);
+            sealTrendBar(trendBar);
+        }
+    }
+
+    public void sealTrendBar(TrendBar trendBar) {
+        var trendBarEntity = amendableTrendBarEntitiesMap.remove(trendBar);
+        if (trendBarEntity != null) {
+            finishTrendBarEntity(trendBarEntity);
+            log.info("Sealed and saved trendbar entity: {}", trendBarEntity);
+        }
+    }
+
     public void doCleanMaps(TrendBar trendBar) {
-        currTrendBarEntities.remove(trendBar);
+        currTrendBarEntitiesMap.remove(trendBar);
 
         currBuildersMap.remove(trendBar);
 
@@ -165,5 +339,9 @@ public class TrendBarBatchProcessorImpl implements TrendBarBatchProcessor {
             microBatcher.shutdown();
         }
         log.info("All microbatchers shut down successfully");
+
+        for (var trendBar : amendableTrendBarEntitiesMap.keySet()) {
+            sealTrendBar(trendBar);
+        }
     }
 }
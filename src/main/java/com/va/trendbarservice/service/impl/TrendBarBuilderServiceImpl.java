@@ -1,9 +1,12 @@
 package com.va.trendbarservice.service.impl;
 
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.*;
 import com.va.trendbarservice.service.TrendBarBatchProcessor;
 import com.va.trendbarservice.service.TrendBarBuilderService;
+import com.va.trendbarservice.util.KeyQuotesQueueFactory;
 import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.MicroBatcherExecutorFactory;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
@@ -39,6 +42,9 @@ public class TrendBarBuilderServiceImpl implements TrendBarBuilderService {
     private final ConcurrentMap<TrendBar, Optional<ScheduledFuture<?>>> currBuildersMap;
     private final ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap;
     private final TrendBarBatchProcessor batchProcessor;
+    private final KeyQuotesQueueFactory keyQuotesQueueFactory;
+    private final TrendBarMetrics trendBarMetrics;
+    private final MicroBatcherExecutorFactory microBatcherExecutorFactory;
 
     @Override
     @PostConstruct
@@ -67,7 +73,7 @@ public class TrendBarBuilderServiceImpl implements TrendBarBuilderService {
 
             var key = new TrendBarKey(symbol, trendBarPeriod);
             var trendBar = new TrendBar(key, getStartOfNextPeriod(Instant.now(), trendBarPeriod));
-            keyToQuotesQueueMap.put(key, new LinkedBlockingQueue<>());
+            keyToQuotesQueueMap.put(key, keyQuotesQueueFactory.create());
             currBuildersMap.put(trendBar, Optional.empty());
 
             log.info("IN fillMaps: keyToQuotesQueueMap = {}", keyToQuotesQueueMap.size());
@@ -86,13 +92,13 @@ public class TrendBarBuilderServiceImpl implements TrendBarBuilderService {
 
         trendBar = new TrendBar(key, startOfPeriod);
         currBuildersMap.put(trendBar, Optional.empty());
-        keyToQuotesQueueMap.computeIfAbsent(key, k -> new LinkedBlockingQueue<>());
+        keyToQuotesQueueMap.computeIfAbsent(key, k -> keyQuotesQueueFactory.create());
 
         var finalTrendBar = trendBar;
         var microBatcher = new MicroBatcher(keyToQuotesQueueMap.get(key), MICROBATCHER_EXECUTION_THRESHOLD_NUMBER, MICROBATCHER_TIMEOUT_THRESHOLD_MILLIS, finalTrendBar, (quotesBatch, isBatchFinal) -> {
-            log.info("Processing batch of size: {} for key: {}, isBatchFinal = {}", quotesBatch.size(), trendBarKeyStr, isBatchFinal);
+            log.debug("Processing batch of size: {} for key: {}, isBatchFinal = {}", quotesBatch.size(), trendBarKeyStr, isBatchFinal);
             batchProcessor.processMicroBatch(quotesBatch, finalTrendBar, isBatchFinal);
-        });
+        }, trendBarMetrics, microBatcherExecutorFactory);
         currMicroBatchersMap.put(finalTrendBar, microBatcher);
 
         while (true) {
@@ -0,0 +1,192 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.service.TrendBarCheckpointService;
+import com.va.trendbarservice.util.QuoteJournal;
+import com.va.trendbarservice.util.TrendBarCheckpointCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.va.trendbarservice.util.TrendBarUtils.isTimestampInPeriod;
+
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendBarCheckpointServiceImpl implements TrendBarCheckpointService {
+
+    @Setter
+    @Value("${checkpoint.enabled}")
+    private boolean CHECKPOINT_ENABLED;
+
+    @Setter
+    @Value("${checkpoint.path}")
+    private String CHECKPOINT_PATH;
+
+    @Setter
+    @Value("${checkpoint.interval.millis}")
+    private long CHECKPOINT_INTERVAL_MILLIS;
+
+    private final ConcurrentMap<TrendBar, TrendBarEntity> currTrendBarEntitiesMap;
+    private final ConcurrentMap<TrendBar, TrendBarEntity> amendableTrendBarEntitiesMap;
+    private final ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
+    private final ScheduledExecutorService scheduler;
+    private final QuoteJournal quoteJournal;
+    private final TrendBarBatchProcessor batchProcessor;
+
+    // Unfolded queued quotes of restored bars whose period already ended, folded in when those bars are completed
+    private final Map<TrendBar, List<Quote>> endedTrendBarsQueuedQuotes = new ConcurrentHashMap<>();
+
+    @Override
+    public void startPeriodicCheckpoints() {
+        if (!CHECKPOINT_ENABLED) {
+            return;
+        }
+        log.info("Scheduling checkpoint of open trend bars to {} every {} ms", CHECKPOINT_PATH, CHECKPOINT_INTERVAL_MILLIS);
+        scheduler.scheduleAtFixedRate(this::writeCheckpoint, CHECKPOINT_INTERVAL_MILLIS, CHECKPOINT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Copied without locking: the journal position is read first and queues before bars, so every quote up to the position
+    // is queued, folded into its bar or both; the bar's sequence watermark drops the duplicates on restore.
+    // Amendable bars are copied last, a bar completed in between shows up in both maps and its amendable copy wins
+    @Override
+    public void writeCheckpoint() {
+        if (!CHECKPOINT_ENABLED) {
+            return;
+        }
+        long journalPosition = quoteJournal.getCommittedCount();
+        Map<TrendBarKey, List<Quote>> queuedQuotes = new HashMap<>();
+        keyToQuotesQueueMap.forEach((trendBarKey, quotes) -> {
+            if (!quotes.isEmpty()) {
+                queuedQuotes.put(trendBarKey, new ArrayList<>(quotes));
+            }
+        });
+        Map<TrendBar, TrendBarEntity> openTrendBarEntities = new HashMap<>(currTrendBarEntitiesMap);
+        Map<TrendBar, TrendBarEntity> amendableTrendBarEntities = new HashMap<>(amendableTrendBarEntitiesMap);
+        var trendBarCheckpoint = new TrendBarCheckpoint(System.currentTimeMillis(), journalPosition, openTrendBarEntities,
+                queuedQuotes, amendableTrendBarEntities);
+
+        Path checkpointPath = Path.of(CHECKPOINT_PATH);
+        Path tempCheckpointPath = checkpointPath.resolveSibling(checkpointPath.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(checkpointPath.toAbsolutePath().getParent());
+            try (OutputStream outputStream = Files.newOutputStream(tempCheckpointPath)) {
+                TrendBarCheckpointCodec.write(trendBarCheckpoint, outputStream);
+            }
+            Files.move(tempCheckpointPath, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            quoteJournal.releaseBefore(getReleasablePosition(trendBarCheckpoint));
+            log.debug("Wrote checkpoint with {} open and {} amendable trend bars", openTrendBarEntities.size(), amendableTrendBarEntities.size());
+        } catch (IOException e) {
+            log.error("Failed to write checkpoint to {}", checkpointPath, e);
+        }
+    }
+
+    // Restoring this checkpoint never replays from before the lowest bar watermark or queued quote, journal files up to
+    // there are no longer needed
+    private static long getReleasablePosition(TrendBarCheckpoint trendBarCheckpoint) {
+        long releasablePosition = trendBarCheckpoint.journalPosition();
+        for (var trendBarEntity : trendBarCheckpoint.openTrendBarEntities().values()) {
+            releasablePosition = Math.min(releasablePosition, trendBarEntity.getLastQuoteSequence());
+        }
+        for (var quotes : trendBarCheckpoint.queuedQuotes().values()) {
+            for (var quote : quotes) {
+                if (quote.getJournalSequence() > 0) {
+                    releasablePosition = Math.min(releasablePosition, quote.getJournalSequence() - 1);
+                }
+            }
+        }
+        return releasablePosition;
+    }
+
+    // Bars whose period ended while the service was down are restored too and completed by completeRestoredTrendBars.
+    // A batch drained from its queue but not yet folded when the checkpoint was taken is in neither copy, and queued
+    // quotes without a restored bar have no bar to go to, so replay starts early enough to cover both.
+    // Builders of the restored bars are started by the journal replay once it has caught them up
+    @Override
+    public long restoreCheckpoint() {
+        Path checkpointPath = Path.of(CHECKPOINT_PATH);
+        if (!CHECKPOINT_ENABLED || !Files.exists(checkpointPath)) {
+            return 0;
+        }
+        TrendBarCheckpoint trendBarCheckpoint;
+        try (InputStream inputStream = Files.newInputStream(checkpointPath)) {
+            trendBarCheckpoint = TrendBarCheckpointCodec.read(inputStream);
+        } catch (IOException e) {
+            log.error("Failed to read checkpoint from {}, starting without restored trend bars", checkpointPath, e);
+            return 0;
+        }
+        long journalPosition = trendBarCheckpoint.journalPosition();
+        quoteJournal.resumeFrom(journalPosition);
+        amendableTrendBarEntitiesMap.putAll(trendBarCheckpoint.amendableTrendBarEntities());
+
+        long now = System.currentTimeMillis();
+        long replayPosition = journalPosition;
+        Map<TrendBarKey, TrendBar> restoredTrendBars = new HashMap<>();
+        for (var entry : trendBarCheckpoint.openTrendBarEntities().entrySet()) {
+            var trendBar = entry.getKey();
+            if (trendBarCheckpoint.amendableTrendBarEntities().containsKey(trendBar)) {
+                continue;
+            }
+            var trendBarEntity = entry.getValue();
+            currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
+            restoredTrendBars.put(trendBar.trendBarKey(), trendBar);
+            replayPosition = Math.min(replayPosition, trendBarEntity.getLastQuoteSequence());
+        }
+
+        for (var entry : trendBarCheckpoint.queuedQuotes().entrySet()) {
+            var trendBar = restoredTrendBars.get(entry.getKey());
+            var quotes = keyToQuotesQueueMap.get(entry.getKey());
+            if (trendBar == null || quotes == null) {
+                for (var quote : entry.getValue()) {
+                    if (quote.getJournalSequence() > 0) {
+                        replayPosition = Math.min(replayPosition, quote.getJournalSequence() - 1);
+                    }
+                }
+                continue;
+            }
+            long lastQuoteSequence = currTrendBarEntitiesMap.get(trendBar).getLastQuoteSequence();
+            var unfoldedQuotes = entry.getValue().stream()
+                    .filter(quote -> quote.getJournalSequence() == 0 || quote.getJournalSequence() > lastQuoteSequence)
+                    .toList();
+            if (isTimestampInPeriod(now, trendBar)) {
+                unfoldedQuotes.forEach(quotes::offer);
+            } else {
+                endedTrendBarsQueuedQuotes.put(trendBar, unfoldedQuotes);
+            }
+        }
+
+        log.info("Restored {} open and {} amendable trend bars from checkpoint written at {} at journal position {}",
+                restoredTrendBars.size(), trendBarCheckpoint.amendableTrendBarEntities().size(), trendBarCheckpoint.createdAtMillis(), journalPosition);
+        return replayPosition;
+    }
+
+    // Runs after the journal replay: restored amendable bars get their seal back, bars whose period ended are
+    // completed with their tracked close and their remaining queued quotes
+    @Override
+    public void completeRestoredTrendBars() {
+        for (var trendBar : List.copyOf(amendableTrendBarEntitiesMap.keySet())) {
+            batchProcessor.sealRestoredTrendBar(trendBar);
+        }
+        long now = System.currentTimeMillis();
+        for (var trendBar : List.copyOf(currTrendBarEntitiesMap.keySet())) {
+            if (!isTimestampInPeriod(now, trendBar)) {
+                var queuedQuotes = endedTrendBarsQueuedQuotes.remove(trendBar);
+                batchProcessor.completeRestoredTrendBar(trendBar, queuedQuotes != null ? queuedQuotes : List.of());
+            }
+        }
+        endedTrendBarsQueuedQuotes.clear();
+    }
+}
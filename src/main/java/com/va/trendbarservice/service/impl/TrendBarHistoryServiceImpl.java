@@ -1,38 +1,257 @@
 package com.va.trendbarservice.service.impl;
 
+import com.va.trendbarservice.jfr.HistoryQueryServedEvent;
+import com.va.trendbarservice.model.DownsampledTrendBar;
 import com.va.trendbarservice.model.Symbol;
 import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
 import com.va.trendbarservice.model.TrendBarPeriod;
 import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
 import com.va.trendbarservice.service.TrendBarHistoryService;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import com.va.trendbarservice.util.TrendBarDownsampler;
+import com.va.trendbarservice.util.TrendBarSegmentCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
-import java.util.List;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
 
+import static com.va.trendbarservice.messages.ExceptionMessages.ERROR_DOWNSAMPLING_PERIOD_NOT_SUPPORTED;
 
+
+// Each query is stitched across tiers by age: cold segment files, then warm rows and sealed segments in the database,
+// then the hot in-memory tier from its boundary on. Recent ranges never reach the database, and a bar found in two
+// tiers while it is being moved is returned once, from the newer tier
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TrendBarHistoryServiceImpl implements TrendBarHistoryService {
 
+    private static final TrendBarPeriod[] TREND_BAR_PERIODS = TrendBarPeriod.values();
+    private static final Comparator<TrendBarEntity> BY_TIMESTAMP = Comparator.comparingLong(TrendBarEntity::getTimestamp);
+
     private final TrendBarRepository trendBarRepository;
+    private final TrendBarSegmentRepository trendBarSegmentRepository;
+    private final TrendBarColdStore trendBarColdStore;
+    private final TrendBarTieringService trendBarTieringService;
 
     @Override
     public List<TrendBarEntity> getTrendBarsBySymbolAndPeriodAndTimestampInRange(Symbol symbol, TrendBarPeriod trendBarPeriod, long from, long to) {
-        if (to == 0) {
-            return trendBarRepository.findTrendBarsBySymbolAndPeriodFrom(symbol, trendBarPeriod, from)
+        var historyQueryServedEvent = new HistoryQueryServedEvent();
+        historyQueryServedEvent.begin();
+        var trendBarEntities = getTrendBars(symbol, trendBarPeriod, from, to == 0 ? Long.MAX_VALUE : to);
+        historyQueryServedEvent.commitFor(symbol, trendBarPeriod, trendBarEntities.size());
+        return trendBarEntities;
+    }
+
+    @Override
+    public List<TrendBarEntity> getTrendBarsBySymbolAndPeriodFrom(Symbol symbol, TrendBarPeriod trendBarPeriod, long from) {
+        var historyQueryServedEvent = new HistoryQueryServedEvent();
+        historyQueryServedEvent.begin();
+        var trendBarEntities = getTrendBars(symbol, trendBarPeriod, from, Long.MAX_VALUE);
+        historyQueryServedEvent.commitFor(symbol, trendBarPeriod, trendBarEntities.size());
+        return trendBarEntities;
+    }
+
+    // One IN query on the (symbol, period, timestamp) index instead of a round-trip per symbol, split per key afterwards
+    @Override
+    public Map<TrendBarKey, List<TrendBarEntity>> getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(Set<Symbol> symbols, Set<TrendBarPeriod> periods,
+                                                                                                    long from, long to) {
+        var trendBarPeriods = periods.isEmpty() ? EnumSet.allOf(TrendBarPeriod.class) : periods;
+        Map<TrendBarKey, List<TrendBarEntity>> keyToTrendBarsMap = new LinkedHashMap<>();
+        for (var symbol : symbols) {
+            for (var trendBarPeriod : trendBarPeriods) {
+                keyToTrendBarsMap.put(new TrendBarKey(symbol, trendBarPeriod), new ArrayList<>());
+            }
+        }
+        if (keyToTrendBarsMap.isEmpty()) {
+            return keyToTrendBarsMap;
+        }
+        var historyQueryServedEvent = new HistoryQueryServedEvent();
+        historyQueryServedEvent.begin();
+        long toTimestamp = to == 0 ? Long.MAX_VALUE : to;
+        long hotFromMillis = trendBarTieringService.getHotFromMillis();
+        long storedToTimestamp = getStoredToTimestamp(toTimestamp, hotFromMillis);
+        if (from <= storedToTimestamp) {
+            // Tiers are read source first, rows before segments before cold files, as sealing and migration move bars
+            // in that direction; a move in between shows a bar twice, never zero times. They are still added oldest first
+            List<TrendBarEntity> trendBarEntities = trendBarRepository.findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(
+                            symbols, trendBarPeriods, from, storedToTimestamp)
                     .orElse(Collections.emptyList());
+            var trendBarSegmentEntities = trendBarSegmentRepository.findSegmentsBySymbolsAndPeriodsAndTimestampInRange(
+                    symbols, trendBarPeriods, from, storedToTimestamp);
+            boolean hasSealedTrendBars = false;
+            for (var entry : keyToTrendBarsMap.entrySet()) {
+                trendBarColdStore.streamTrendBars(entry.getKey().symbol(), entry.getKey().trendBarPeriod(), from, storedToTimestamp)
+                        .forEach(entry.getValue()::add);
+                hasSealedTrendBars |= !entry.getValue().isEmpty();
+            }
+            for (var trendBarSegmentEntity : trendBarSegmentEntities) {
+                var trendBars = keyToTrendBarsMap.get(new TrendBarKey(trendBarSegmentEntity.getSymbol(), trendBarSegmentEntity.getPeriod()));
+                TrendBarSegmentCodec.stream(trendBarSegmentEntity.getData(), from, storedToTimestamp).forEach(trendBars::add);
+                hasSealedTrendBars = true;
+            }
+            for (var trendBarEntity : trendBarEntities) {
+                keyToTrendBarsMap.get(new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod())).add(trendBarEntity);
+            }
+            if (hasSealedTrendBars) {
+                keyToTrendBarsMap.replaceAll((trendBarKey, trendBars) -> sortKeepingNewest(trendBars));
+            }
         }
-        return trendBarRepository.findTrendBarsBySymbolAndPeriodAndTimestampInRange(symbol, trendBarPeriod, from, to)
-                .orElse(Collections.emptyList());
+        if (isHotInRange(hotFromMillis, toTimestamp)) {
+            for (var entry : keyToTrendBarsMap.entrySet()) {
+                entry.getValue().addAll(trendBarTieringService.getHotTrendBars(entry.getKey(), Math.max(from, hotFromMillis), toTimestamp));
+            }
+        }
+        historyQueryServedEvent.commitFor(keyToTrendBarsMap.size() + " keys", keyToTrendBarsMap.values().stream().mapToInt(List::size).sum());
+        return keyToTrendBarsMap;
     }
 
+    // The coarsest stored period that divides the target is streamed in timestamp order and merged bucket by bucket,
+    // so neither side materializes the finer bars; from is aligned down so the first bucket is complete. Stored tiers
+    // are merged lazily by timestamp, the hot tier follows them as it only holds later bars
     @Override
-    public List<TrendBarEntity> getTrendBarsBySymbolAndPeriodFrom(Symbol symbol, TrendBarPeriod trendBarPeriod, long from) {
-        return trendBarRepository.findTrendBarsBySymbolAndPeriodFrom(symbol, trendBarPeriod, from)
+    @Transactional(readOnly = true)
+    public List<DownsampledTrendBar> getDownsampledTrendBars(Symbol symbol, Duration targetPeriod, long from, long to) {
+        var sourceTrendBarPeriod = getSourceTrendBarPeriod(targetPeriod);
+        var historyQueryServedEvent = new HistoryQueryServedEvent();
+        historyQueryServedEvent.begin();
+        List<DownsampledTrendBar> downsampledTrendBars = new ArrayList<>();
+        var trendBarDownsampler = new TrendBarDownsampler(targetPeriod, downsampledTrendBars::add);
+        long fromTimestamp = TrendBarDownsampler.getStartOfBucket(from, targetPeriod);
+        long toTimestamp = to == 0 ? Long.MAX_VALUE : to;
+        long hotFromMillis = trendBarTieringService.getHotFromMillis();
+        long storedToTimestamp = getStoredToTimestamp(toTimestamp, hotFromMillis);
+        if (fromTimestamp <= storedToTimestamp) {
+            // Tiers are read source first as in the batch query: the row cursor is opened, then segments are queried, then
+            // cold windows are listed
+            try (Stream<TrendBarEntity> trendBarEntities = trendBarRepository.streamTrendBarsBySymbolAndPeriodAndTimestampInRange(
+                    symbol, sourceTrendBarPeriod, fromTimestamp, storedToTimestamp)) {
+                var warmTrendBarEntities = trendBarSegmentRepository.findSegmentsBySymbolAndPeriodAndTimestampInRange(
+                                symbol, sourceTrendBarPeriod, fromTimestamp, storedToTimestamp).stream()
+                        .flatMap(trendBarSegmentEntity -> TrendBarSegmentCodec.stream(trendBarSegmentEntity.getData(), fromTimestamp, storedToTimestamp));
+                var coldTrendBarEntities = trendBarColdStore.streamTrendBars(symbol, sourceTrendBarPeriod, fromTimestamp, storedToTimestamp);
+                mergeByTimestamp(mergeByTimestamp(coldTrendBarEntities.iterator(), warmTrendBarEntities.iterator()), trendBarEntities.iterator())
+                        .forEachRemaining(trendBarDownsampler::add);
+            }
+        }
+        if (isHotInRange(hotFromMillis, toTimestamp)) {
+            trendBarTieringService.getHotTrendBars(new TrendBarKey(symbol, sourceTrendBarPeriod), Math.max(fromTimestamp, hotFromMillis), toTimestamp)
+                    .forEach(trendBarDownsampler::add);
+        }
+        trendBarDownsampler.finish();
+        historyQueryServedEvent.commitFor(symbol + "_" + targetPeriod, downsampledTrendBars.size());
+        return downsampledTrendBars;
+    }
+
+    private List<TrendBarEntity> getTrendBars(Symbol symbol, TrendBarPeriod trendBarPeriod, long from, long to) {
+        long hotFromMillis = trendBarTieringService.getHotFromMillis();
+        long storedToTimestamp = getStoredToTimestamp(to, hotFromMillis);
+        List<TrendBarEntity> trendBarEntities = from <= storedToTimestamp
+                ? getStoredTrendBars(symbol, trendBarPeriod, from, storedToTimestamp)
+                : Collections.emptyList();
+        if (!isHotInRange(hotFromMillis, to)) {
+            return trendBarEntities;
+        }
+        var hotTrendBarEntities = trendBarTieringService.getHotTrendBars(new TrendBarKey(symbol, trendBarPeriod), Math.max(from, hotFromMillis), to);
+        if (trendBarEntities.isEmpty()) {
+            return hotTrendBarEntities;
+        }
+        List<TrendBarEntity> stitchedTrendBarEntities = new ArrayList<>(trendBarEntities);
+        stitchedTrendBarEntities.addAll(hotTrendBarEntities);
+        return stitchedTrendBarEntities;
+    }
+
+    // Rows only remain in a sealed window when they arrived after sealing, so the merge is normally a concatenation.
+    // Tiers are read rows, segments, cold files, the direction bars move in, and added oldest tier first
+    private List<TrendBarEntity> getStoredTrendBars(Symbol symbol, TrendBarPeriod trendBarPeriod, long from, long to) {
+        List<TrendBarEntity> trendBarEntities = (to == Long.MAX_VALUE
+                ? trendBarRepository.findTrendBarsBySymbolAndPeriodFrom(symbol, trendBarPeriod, from)
+                : trendBarRepository.findTrendBarsBySymbolAndPeriodAndTimestampInRange(symbol, trendBarPeriod, from, to))
                 .orElse(Collections.emptyList());
+        var trendBarSegmentEntities = trendBarSegmentRepository.findSegmentsBySymbolAndPeriodAndTimestampInRange(symbol, trendBarPeriod, from, to);
+        List<TrendBarEntity> sealedTrendBarEntities = new ArrayList<>();
+        trendBarColdStore.streamTrendBars(symbol, trendBarPeriod, from, to).forEach(sealedTrendBarEntities::add);
+        for (var trendBarSegmentEntity : trendBarSegmentEntities) {
+            TrendBarSegmentCodec.stream(trendBarSegmentEntity.getData(), from, to).forEach(sealedTrendBarEntities::add);
+        }
+        if (sealedTrendBarEntities.isEmpty()) {
+            return trendBarEntities;
+        }
+        sealedTrendBarEntities.addAll(trendBarEntities);
+        return sortKeepingNewest(sealedTrendBarEntities);
+    }
+
+    // Bars are added oldest tier first and the sort is stable, so of two bars with one timestamp the later one is newer
+    private static List<TrendBarEntity> sortKeepingNewest(List<TrendBarEntity> trendBarEntities) {
+        trendBarEntities.sort(BY_TIMESTAMP);
+        List<TrendBarEntity> sortedTrendBarEntities = new ArrayList<>(trendBarEntities.size());
+        for (var trendBarEntity : trendBarEntities) {
+            int lastIndex = sortedTrendBarEntities.size() - 1;
+            if (lastIndex >= 0 && sortedTrendBarEntities.get(lastIndex).getTimestamp() == trendBarEntity.getTimestamp()) {
+                sortedTrendBarEntities.set(lastIndex, trendBarEntity);
+            } else {
+                sortedTrendBarEntities.add(trendBarEntity);
+            }
+        }
+        return sortedTrendBarEntities;
+    }
+
+    // Storage serves everything before the hot boundary, or the whole range while the hot tier is not loaded
+    private static long getStoredToTimestamp(long to, long hotFromMillis) {
+        return hotFromMillis == Long.MAX_VALUE ? to : Math.min(to, hotFromMillis - 1);
+    }
+
+    private static boolean isHotInRange(long hotFromMillis, long to) {
+        return hotFromMillis != Long.MAX_VALUE && hotFromMillis <= to;
+    }
+
+    // Ties keep the right side, which is always the newer tier
+    private static Iterator<TrendBarEntity> mergeByTimestamp(Iterator<TrendBarEntity> left, Iterator<TrendBarEntity> right) {
+        return new Iterator<>() {
+            private TrendBarEntity nextLeft = left.hasNext() ? left.next() : null;
+            private TrendBarEntity nextRight = right.hasNext() ? right.next() : null;
+
+            @Override
+            public boolean hasNext() {
+                return nextLeft != null || nextRight != null;
+            }
+
+            @Override
+            public TrendBarEntity next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                TrendBarEntity trendBarEntity;
+                if (nextRight == null || (nextLeft != null && nextLeft.getTimestamp() < nextRight.getTimestamp())) {
+                    trendBarEntity = nextLeft;
+                    nextLeft = left.hasNext() ? left.next() : null;
+                } else {
+                    if (nextLeft != null && nextLeft.getTimestamp() == nextRight.getTimestamp()) {
+                        nextLeft = left.hasNext() ? left.next() : null;
+                    }
+                    trendBarEntity = nextRight;
+                    nextRight = right.hasNext() ? right.next() : null;
+                }
+                return trendBarEntity;
+            }
+        };
+    }
+
+    private static TrendBarPeriod getSourceTrendBarPeriod(Duration targetPeriod) {
+        long targetPeriodMillis = targetPeriod.toMillis();
+        for (int i = TREND_BAR_PERIODS.length - 1; i >= 0; i--) {
+            long periodMillis = TREND_BAR_PERIODS[i].getDuration().toMillis();
+            if (targetPeriodMillis >= periodMillis && targetPeriodMillis % periodMillis == 0) {
+                return TREND_BAR_PERIODS[i];
+            }
+        }
+        throw new IllegalArgumentException(ERROR_DOWNSAMPLING_PERIOD_NOT_SUPPORTED + targetPeriod);
     }
 }
@@ -0,0 +1,64 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.service.TrendBarIndicatorService;
+import com.va.trendbarservice.util.TrendBarIndicators;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+// Consumers read the latest values here instead of re-fetching a full window of history after every bar.
+// Bars of one key complete one after another, the lock per key only guards against an overlapping seal
+@Slf4j
+@Service
+public class TrendBarIndicatorServiceImpl implements TrendBarIndicatorService {
+
+    @Setter
+    @Value("${indicators.enabled}")
+    private boolean INDICATORS_ENABLED;
+    @Setter
+    @Value("${indicators.window.size}")
+    private int INDICATORS_WINDOW_SIZE;
+    @Setter
+    @Value("${indicators.types}")
+    private Set<IndicatorType> INDICATORS_TYPES;
+
+    private final ConcurrentMap<TrendBarKey, TrendBarIndicators> keyToIndicatorsMap = new ConcurrentHashMap<>();
+
+    @Override
+    public void onTrendBarCompleted(TrendBarEntity trendBarEntity) {
+        if (!INDICATORS_ENABLED) {
+            return;
+        }
+        var trendBarIndicators = keyToIndicatorsMap.computeIfAbsent(new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod()),
+                k -> new TrendBarIndicators(INDICATORS_WINDOW_SIZE));
+        synchronized (trendBarIndicators) {
+            if (trendBarEntity.getTimestamp() > trendBarIndicators.getLastTimestamp()) {
+                trendBarIndicators.update(trendBarEntity);
+            }
+        }
+    }
+
+    @Override
+    public Map<IndicatorType, BigDecimal> getLatestIndicators(Symbol symbol, TrendBarPeriod period) {
+        var trendBarIndicators = keyToIndicatorsMap.get(new TrendBarKey(symbol, period));
+        if (trendBarIndicators == null) {
+            return Collections.emptyMap();
+        }
+        Map<IndicatorType, BigDecimal> indicatorValues;
+        synchronized (trendBarIndicators) {
+            indicatorValues = trendBarIndicators.getValues();
+        }
+        indicatorValues.keySet().retainAll(INDICATORS_TYPES);
+        return indicatorValues;
+    }
+}
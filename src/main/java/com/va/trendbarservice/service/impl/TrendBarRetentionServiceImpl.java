@@ -0,0 +1,109 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.service.TrendBarRetentionService;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.va.trendbarservice.util.TrendBarPartitioning.getPartitionEnd;
+
+
+// A partition expires only once its whole window is older than the retention, so every delete removes a full
+// (period, window) partition in one statement and the cost does not grow with the history kept. Sealed windows live
+// as segments in the database or as cold files, so the rows and segments of an expired window are dropped in every tier
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendBarRetentionServiceImpl implements TrendBarRetentionService {
+
+    @Setter
+    @Value("${retention.enabled}")
+    private boolean RETENTION_ENABLED;
+
+    @Setter
+    @Value("${retention.interval.millis}")
+    private long RETENTION_INTERVAL_MILLIS;
+
+    // Zero keeps the period forever
+    @Setter
+    @Value("${retention.m1.days}")
+    private long RETENTION_M1_DAYS;
+
+    @Setter
+    @Value("${retention.h1.days}")
+    private long RETENTION_H1_DAYS;
+
+    @Setter
+    @Value("${retention.d1.days}")
+    private long RETENTION_D1_DAYS;
+
+    private final TrendBarRepository trendBarRepository;
+    private final TrendBarSegmentRepository trendBarSegmentRepository;
+    private final TrendBarColdStore trendBarColdStore;
+    private final ScheduledExecutorService scheduler;
+
+    @Override
+    public void startPeriodicRetention() {
+        if (!RETENTION_ENABLED) {
+            return;
+        }
+        log.info("Scheduling trend bar retention every {} ms, keeping M1 {} days, H1 {} days, D1 {} days",
+                RETENTION_INTERVAL_MILLIS, RETENTION_M1_DAYS, RETENTION_H1_DAYS, RETENTION_D1_DAYS);
+        scheduler.scheduleWithFixedDelay(this::expirePartitionsSafely, 0, RETENTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int expirePartitions() {
+        long nowMillis = System.currentTimeMillis();
+        int expiredPartitionsCount = 0;
+        for (var trendBarPeriod : TrendBarPeriod.values()) {
+            long retentionDays = getRetentionDays(trendBarPeriod);
+            if (retentionDays <= 0) {
+                continue;
+            }
+            long cutoffMillis = nowMillis - Duration.ofDays(retentionDays).toMillis();
+            NavigableSet<Long> partitionStarts = new TreeSet<>(trendBarRepository.findPartitionStartsBefore(trendBarPeriod, cutoffMillis));
+            partitionStarts.addAll(trendBarSegmentRepository.findPartitionStartsBefore(trendBarPeriod, cutoffMillis));
+            partitionStarts.addAll(trendBarColdStore.findPartitionStartsBefore(trendBarPeriod, cutoffMillis));
+            for (long partitionStart : partitionStarts) {
+                if (getPartitionEnd(trendBarPeriod, partitionStart) <= cutoffMillis) {
+                    int deletedCount = trendBarRepository.deletePartition(trendBarPeriod, partitionStart);
+                    int deletedSegmentsCount = trendBarSegmentRepository.deletePartition(trendBarPeriod, partitionStart)
+                            + trendBarColdStore.deletePartition(trendBarPeriod, partitionStart);
+                    expiredPartitionsCount++;
+                    log.info("Expired {} partition starting at {} with {} trend bars and {} segments",
+                            trendBarPeriod, partitionStart, deletedCount, deletedSegmentsCount);
+                }
+            }
+        }
+        return expiredPartitionsCount;
+    }
+
+    private void expirePartitionsSafely() {
+        try {
+            expirePartitions();
+        } catch (RuntimeException e) {
+            log.error("Trend bar retention run failed", e);
+        }
+    }
+
+    private long getRetentionDays(TrendBarPeriod trendBarPeriod) {
+        return switch (trendBarPeriod) {
+            case M1 -> RETENTION_M1_DAYS;
+            case H1 -> RETENTION_H1_DAYS;
+            case D1 -> RETENTION_D1_DAYS;
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.model.TrendBarSegmentEntity;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.service.TrendBarSegmentService;
+import com.va.trendbarservice.util.TrendBarSegmentCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.va.trendbarservice.util.TrendBarPartitioning.getPartitionEnd;
+
+
+// Once a partition window has been closed for the seal delay its rows are re-encoded into one compressed segment per symbol
+// and the rows are dropped in the same transaction, so readers see each bar in exactly one place. Rows arriving late into an
+// already sealed window, e.g. from a backfill, are merged into the existing segment on the next run
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendBarSegmentServiceImpl implements TrendBarSegmentService {
+
+    @Setter
+    @Value("${segments.enabled}")
+    private boolean SEGMENTS_ENABLED;
+
+    @Setter
+    @Value("${segments.seal.interval.millis}")
+    private long SEGMENTS_SEAL_INTERVAL_MILLIS;
+
+    // Grace after the window end for late bars and amendments before the window is sealed
+    @Setter
+    @Value("${segments.seal.delay.millis}")
+    private long SEGMENTS_SEAL_DELAY_MILLIS;
+
+    private final TrendBarRepository trendBarRepository;
+    private final TrendBarSegmentRepository trendBarSegmentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService scheduler;
+
+    @Override
+    public void startPeriodicSealing() {
+        if (!SEGMENTS_ENABLED) {
+            return;
+        }
+        log.info("Scheduling trend bar segment sealing every {} ms, {} ms after the partition window ends",
+                SEGMENTS_SEAL_INTERVAL_MILLIS, SEGMENTS_SEAL_DELAY_MILLIS);
+        scheduler.scheduleWithFixedDelay(this::sealPartitionsSafely, 0, SEGMENTS_SEAL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public int sealPartitions() {
+        long cutoffMillis = System.currentTimeMillis() - SEGMENTS_SEAL_DELAY_MILLIS;
+        int sealedPartitionsCount = 0;
+        for (var trendBarPeriod : TrendBarPeriod.values()) {
+            for (long partitionStart : trendBarRepository.findPartitionStartsBefore(trendBarPeriod, cutoffMillis)) {
+                if (getPartitionEnd(trendBarPeriod, partitionStart) <= cutoffMillis) {
+                    transactionTemplate.executeWithoutResult(status -> sealPartition(trendBarPeriod, partitionStart));
+                    sealedPartitionsCount++;
+                }
+            }
+        }
+        return sealedPartitionsCount;
+    }
+
+    // Only the rows that were encoded are deleted, a late seal or a backfill inserting into the window after the read
+    // keeps its rows for the next run
+    private void sealPartition(TrendBarPeriod trendBarPeriod, long partitionStart) {
+        Map<Symbol, List<TrendBarEntity>> symbolToTrendBarsMap = new LinkedHashMap<>();
+        List<Long> encodedIds = new ArrayList<>();
+        for (var trendBarEntity : trendBarRepository.findTrendBarsByPeriodAndPartitionStart(trendBarPeriod, partitionStart)) {
+            symbolToTrendBarsMap.computeIfAbsent(trendBarEntity.getSymbol(), symbol -> new ArrayList<>()).add(trendBarEntity);
+            encodedIds.add(trendBarEntity.getId());
+        }
+        long segmentsBytes = 0;
+        for (var entry : symbolToTrendBarsMap.entrySet()) {
+            var trendBarSegmentEntity = trendBarSegmentRepository.findBySymbolAndPeriodAndPartitionStart(entry.getKey(), trendBarPeriod, partitionStart)
+                    .orElseGet(() -> TrendBarSegmentEntity.builder()
+                            .symbol(entry.getKey())
+                            .period(trendBarPeriod)
+                            .partitionStart(partitionStart)
+                            .build());
+            // A late row replaces the sealed bar it amends
+            var trendBarEntities = TrendBarSegmentCodec.merge(trendBarSegmentEntity.getData(), entry.getValue());
+            byte[] data = TrendBarSegmentCodec.encode(trendBarEntities);
+            trendBarSegmentEntity.setFromTimestamp(trendBarEntities.get(0).getTimestamp());
+            trendBarSegmentEntity.setToTimestamp(trendBarEntities.get(trendBarEntities.size() - 1).getTimestamp());
+            trendBarSegmentEntity.setTrendBarsCount(trendBarEntities.size());
+            trendBarSegmentEntity.setData(data);
+            trendBarSegmentRepository.save(trendBarSegmentEntity);
+            segmentsBytes += data.length;
+        }
+        trendBarRepository.deleteAllByIdInBatch(encodedIds);
+        log.info("Sealed {} partition starting at {}: {} trend bars of {} symbols into {} bytes",
+                trendBarPeriod, partitionStart, encodedIds.size(), symbolToTrendBarsMap.size(), segmentsBytes);
+    }
+
+    private void sealPartitionsSafely() {
+        try {
+            sealPartitions();
+        } catch (RuntimeException e) {
+            log.error("Trend bar segment sealing run failed", e);
+        }
+    }
+}
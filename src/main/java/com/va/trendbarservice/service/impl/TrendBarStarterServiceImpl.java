@@ -6,7 +6,6 @@ import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 
 @Slf4j
@@ -17,6 +16,12 @@ public class TrendBarStarterServiceImpl implements TrendBarStarterService {
     private final QuotesConsumerService quotesConsumerService;
     private final TrendBarSchedulerService schedulerService;
     private final TrendBarBuilderService trendBarBuilderService;
+    private final TrendBarCheckpointService trendBarCheckpointService;
+    private final QuoteJournalService quoteJournalService;
+    private final TrendBarBackfillService trendBarBackfillService;
+    private final TrendBarRetentionService trendBarRetentionService;
+    private final TrendBarSegmentService trendBarSegmentService;
+    private final TrendBarTieringService trendBarTieringService;
 
     @PostConstruct
     public void init() {
@@ -29,16 +34,24 @@ public class TrendBarStarterServiceImpl implements TrendBarStarterService {
     }
 
     @Override
-    @Transactional
     public void start() {
         log.info("Starting TrendBarBuilderServiceImpl.start()...");
+        trendBarBackfillService.backfillFromConfiguredPath();
+        long journalPosition = trendBarCheckpointService.restoreCheckpoint();
+        quoteJournalService.replayIntoOpenTrendBars(journalPosition);
+        trendBarCheckpointService.completeRestoredTrendBars();
         schedulerService.startAllTrendBarBuildersWithInitialDelays();
         schedulerService.startQuotesConsumer();
+        trendBarCheckpointService.startPeriodicCheckpoints();
+        trendBarRetentionService.startPeriodicRetention();
+        trendBarSegmentService.startPeriodicSealing();
+        trendBarTieringService.startPeriodicMigration();
     }
 
     @Override
     @PreDestroy
     public void shutDown() {
+        trendBarCheckpointService.writeCheckpoint();
         schedulerService.shutDown();
         quotesConsumerService.shutdown();
         log.info("TrendBarService stopped successfully");
@@ -0,0 +1,145 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.FlowOverflowPolicy;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.service.TrendBarSubscriptionService;
+import com.va.trendbarservice.util.PartialTrendBarSubscription;
+import com.va.trendbarservice.util.TrendBarFlowPublisher;
+import com.va.trendbarservice.util.TrendBarSubscription;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+
+// Subscriber lists are copy-on-write, so publishing iterates a snapshot without locks; subscribing and cancelling are rare
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendBarSubscriptionServiceImpl implements TrendBarSubscriptionService {
+
+    private final ExecutorService subscriptionExecutorService;
+    private final ScheduledExecutorService scheduler;
+
+    @Setter
+    @Value("${subscriptions.delivery.buffer.capacity}")
+    private int DELIVERY_BUFFER_CAPACITY;
+    @Setter
+    @Value("${subscriptions.delivery.overflow.policy}")
+    private FlowOverflowPolicy DELIVERY_OVERFLOW_POLICY;
+    @Setter
+    @Value("${subscriptions.flow.buffer.capacity}")
+    private int FLOW_BUFFER_CAPACITY;
+    @Setter
+    @Value("${subscriptions.flow.overflow.policy}")
+    private FlowOverflowPolicy FLOW_OVERFLOW_POLICY;
+
+    private final ConcurrentMap<TrendBarKey, CopyOnWriteArrayList<TrendBarSubscription>> keyToSubscriptionsMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TrendBarKey, CopyOnWriteArrayList<PartialTrendBarSubscription>> keyToPartialSubscriptionsMap = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<TrendBarSubscription> allSymbolsSubscriptions = new CopyOnWriteArrayList<>();
+    private final ConcurrentMap<TrendBarKey, TrendBarFlowPublisher> keyToCompletedPublisherMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TrendBarKey, TrendBarFlowPublisher> keyToPartialPublisherMap = new ConcurrentHashMap<>();
+
+    @Override
+    public TrendBarSubscription subscribe(Symbol symbol, TrendBarPeriod period, Consumer<TrendBarEntity> listener) {
+        var subscriptions = keyToSubscriptionsMap.computeIfAbsent(new TrendBarKey(symbol, period), k -> new CopyOnWriteArrayList<>());
+        var subscription = createSubscription(listener, subscriptions);
+        log.info("Subscribed listener to completed {}_{} trend bars", symbol, period);
+        return subscription;
+    }
+
+    @Override
+    public TrendBarSubscription subscribeAll(Consumer<TrendBarEntity> listener) {
+        var subscription = createSubscription(listener, allSymbolsSubscriptions);
+        log.info("Subscribed listener to all completed trend bars");
+        return subscription;
+    }
+
+    @Override
+    public PartialTrendBarSubscription subscribePartial(Symbol symbol, TrendBarPeriod period, double maxUpdatesPerSecond,
+                                                        Consumer<TrendBarEntity> listener) {
+        var partialSubscriptions = keyToPartialSubscriptionsMap.computeIfAbsent(new TrendBarKey(symbol, period), k -> new CopyOnWriteArrayList<>());
+        var partialSubscription = new PartialTrendBarSubscription(listener, subscriptionExecutorService, scheduler, maxUpdatesPerSecond,
+                partialSubscriptions::remove);
+        partialSubscriptions.add(partialSubscription);
+        log.info("Subscribed listener to partial {}_{} trend bars at up to {} updates/s", symbol, period, maxUpdatesPerSecond);
+        return partialSubscription;
+    }
+
+    @Override
+    public Flow.Publisher<TrendBarEntity> completedPublisher(Symbol symbol, TrendBarPeriod period) {
+        return keyToCompletedPublisherMap.computeIfAbsent(new TrendBarKey(symbol, period), k -> createFlowPublisher());
+    }
+
+    @Override
+    public Flow.Publisher<TrendBarEntity> partialPublisher(Symbol symbol, TrendBarPeriod period) {
+        return keyToPartialPublisherMap.computeIfAbsent(new TrendBarKey(symbol, period), k -> createFlowPublisher());
+    }
+
+    @Override
+    public void publishCompleted(TrendBarEntity trendBarEntity) {
+        var trendBarKey = new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod());
+        var subscriptions = keyToSubscriptionsMap.get(trendBarKey);
+        if (subscriptions != null) {
+            for (var subscription : subscriptions) {
+                subscription.deliver(trendBarEntity);
+            }
+        }
+        for (var subscription : allSymbolsSubscriptions) {
+            subscription.deliver(trendBarEntity);
+        }
+        var completedPublisher = keyToCompletedPublisherMap.get(trendBarKey);
+        if (completedPublisher != null) {
+            completedPublisher.submit(trendBarEntity);
+        }
+    }
+
+    // The forming bar's close already follows its latest quote by timestamp, the entity is an immutable snapshot
+    // of the batch and is delivered as is
+    @Override
+    public void publishPartial(TrendBarEntity trendBarEntity) {
+        var trendBarKey = new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod());
+        var partialSubscriptions = keyToPartialSubscriptionsMap.get(trendBarKey);
+        var partialPublisher = keyToPartialPublisherMap.get(trendBarKey);
+        boolean hasPartialSubscriptions = partialSubscriptions != null && !partialSubscriptions.isEmpty();
+        boolean hasPartialPublisherSubscribers = partialPublisher != null && partialPublisher.hasSubscribers();
+        if (!hasPartialSubscriptions && !hasPartialPublisherSubscribers) {
+            return;
+        }
+        if (hasPartialSubscriptions) {
+            for (var partialSubscription : partialSubscriptions) {
+                partialSubscription.deliver(trendBarEntity);
+            }
+        }
+        if (hasPartialPublisherSubscribers) {
+            partialPublisher.submit(trendBarEntity);
+        }
+    }
+
+    @Override
+    public int getSubscriptionsCount() {
+        return allSymbolsSubscriptions.size()
+                + keyToSubscriptionsMap.values().stream().mapToInt(CopyOnWriteArrayList::size).sum()
+                + keyToPartialSubscriptionsMap.values().stream().mapToInt(CopyOnWriteArrayList::size).sum()
+                + keyToCompletedPublisherMap.values().stream().mapToInt(TrendBarFlowPublisher::getSubscribersCount).sum()
+                + keyToPartialPublisherMap.values().stream().mapToInt(TrendBarFlowPublisher::getSubscribersCount).sum();
+    }
+
+    private TrendBarFlowPublisher createFlowPublisher() {
+        return new TrendBarFlowPublisher(subscriptionExecutorService, FLOW_BUFFER_CAPACITY, FLOW_OVERFLOW_POLICY);
+    }
+
+    private TrendBarSubscription createSubscription(Consumer<TrendBarEntity> listener, CopyOnWriteArrayList<TrendBarSubscription> subscriptions) {
+        var subscription = new TrendBarSubscription(listener, subscriptionExecutorService, DELIVERY_BUFFER_CAPACITY, DELIVERY_OVERFLOW_POLICY,
+                subscriptions::remove);
+        subscriptions.add(subscription);
+        return subscription;
+    }
+}
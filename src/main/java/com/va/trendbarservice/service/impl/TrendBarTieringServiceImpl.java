@@ -0,0 +1,190 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import com.va.trendbarservice.util.TrendBarHotTier;
+import com.va.trendbarservice.util.TrendBarSegmentCodec;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.va.trendbarservice.util.TrendBarPartitioning.getPartitionEnd;
+import static com.va.trendbarservice.util.TrendBarSegmentCodec.PRICE_SCALE;
+import static com.va.trendbarservice.util.TrendBarSegmentCodec.SPREAD_SCALE;
+
+
+// Three tiers by age: hot bars in memory for the last hot window, warm rows and sealed segments in the database, and
+// cold segment files once a window is older than the cold age. The database stays the source of truth for the hot
+// window, memory only mirrors what was persisted. Loading and migration run on the dedicated tiering thread, ingestion
+// only pays one skip list insert per persisted bar
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TrendBarTieringServiceImpl implements TrendBarTieringService {
+
+    // Scale of the volume, turnover and vwap columns
+    private static final int AMOUNT_SCALE = 8;
+
+    @Setter
+    @Value("${tiering.enabled}")
+    private boolean TIERING_ENABLED;
+
+    @Setter
+    @Value("${tiering.hot.window.millis}")
+    private long TIERING_HOT_WINDOW_MILLIS;
+
+    // Should stay above the hot window and the seal delay, so a window reaches the cold tier only once sealed
+    @Setter
+    @Value("${tiering.cold.after.days}")
+    private long TIERING_COLD_AFTER_DAYS;
+
+    @Setter
+    @Value("${tiering.migration.interval.millis}")
+    private long TIERING_MIGRATION_INTERVAL_MILLIS;
+
+    private final TrendBarHotTier trendBarHotTier = new TrendBarHotTier();
+
+    private final TrendBarRepository trendBarRepository;
+    private final TrendBarSegmentRepository trendBarSegmentRepository;
+    private final TrendBarColdStore trendBarColdStore;
+    private final ScheduledExecutorService tieringScheduler;
+
+    // Backfill persists bars of any age before the tier is loaded, only those inside the hot window are mirrored
+    @Override
+    public void onTrendBarPersisted(TrendBarEntity trendBarEntity) {
+        if (TIERING_ENABLED && trendBarEntity.getTimestamp() >= System.currentTimeMillis() - TIERING_HOT_WINDOW_MILLIS) {
+            trendBarHotTier.put(toColumnScale(trendBarEntity));
+        }
+    }
+
+    @Override
+    public long getHotFromMillis() {
+        return trendBarHotTier.getHotFromMillis();
+    }
+
+    @Override
+    public List<TrendBarEntity> getHotTrendBars(TrendBarKey trendBarKey, long from, long to) {
+        return trendBarHotTier.getTrendBars(trendBarKey, from, to);
+    }
+
+    @Override
+    public void startPeriodicMigration() {
+        if (!TIERING_ENABLED) {
+            return;
+        }
+        log.info("Scheduling trend bar tiering every {} ms, hot window {} ms, cold after {} days",
+                TIERING_MIGRATION_INTERVAL_MILLIS, TIERING_HOT_WINDOW_MILLIS, TIERING_COLD_AFTER_DAYS);
+        tieringScheduler.execute(this::loadHotTierSafely);
+        tieringScheduler.scheduleWithFixedDelay(this::migrateSafely, TIERING_MIGRATION_INTERVAL_MILLIS, TIERING_MIGRATION_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Bars persisted while loading are put by the persisting thread as well, both writes carry the same stored bar.
+    // Rows are put after sealed segments so a late row wins over the bar it amended
+    @Override
+    public void loadHotTier() {
+        long hotFromMillis = System.currentTimeMillis() - TIERING_HOT_WINDOW_MILLIS;
+        for (var trendBarSegmentEntity : trendBarSegmentRepository.findSegmentsFrom(hotFromMillis)) {
+            TrendBarSegmentCodec.stream(trendBarSegmentEntity.getData(), hotFromMillis, Long.MAX_VALUE).forEach(trendBarHotTier::put);
+        }
+        trendBarRepository.findTrendBarsFrom(hotFromMillis).forEach(trendBarHotTier::put);
+        trendBarHotTier.markLoadedFrom(hotFromMillis);
+        log.info("Loaded {} trend bars into the hot tier from {}", trendBarHotTier.size(), hotFromMillis);
+    }
+
+    @Override
+    public int migrate() {
+        long nowMillis = System.currentTimeMillis();
+        int evictedCount = trendBarHotTier.evictBefore(nowMillis - TIERING_HOT_WINDOW_MILLIS);
+        long coldCutoffMillis = nowMillis - Duration.ofDays(TIERING_COLD_AFTER_DAYS).toMillis();
+        int migratedPartitionsCount = 0;
+        for (var trendBarPeriod : TrendBarPeriod.values()) {
+            for (long partitionStart : trendBarSegmentRepository.findPartitionStartsBefore(trendBarPeriod, coldCutoffMillis)) {
+                if (getPartitionEnd(trendBarPeriod, partitionStart) <= coldCutoffMillis) {
+                    migratePartition(trendBarPeriod, partitionStart);
+                    migratedPartitionsCount++;
+                }
+            }
+        }
+        if (evictedCount > 0 || migratedPartitionsCount > 0) {
+            log.info("Tiering evicted {} hot trend bars and moved {} partitions to the cold tier", evictedCount, migratedPartitionsCount);
+        }
+        return migratedPartitionsCount;
+    }
+
+    // The file is in place before the database copy goes, a crash in between leaves both copies and the next run
+    // merges them again; readers keep the newer copy of a bar seen in two tiers
+    private void migratePartition(TrendBarPeriod trendBarPeriod, long partitionStart) {
+        for (var trendBarSegmentEntity : trendBarSegmentRepository.findByPeriodAndPartitionStart(trendBarPeriod, partitionStart)) {
+            var symbol = trendBarSegmentEntity.getSymbol();
+            byte[] segment = trendBarColdStore.read(symbol, trendBarPeriod, partitionStart)
+                    .map(coldSegment -> TrendBarSegmentCodec.encode(
+                            TrendBarSegmentCodec.merge(coldSegment, TrendBarSegmentCodec.decode(trendBarSegmentEntity.getData()))))
+                    .orElse(trendBarSegmentEntity.getData());
+            trendBarColdStore.write(symbol, trendBarPeriod, partitionStart, segment);
+        }
+        trendBarSegmentRepository.deletePartition(trendBarPeriod, partitionStart);
+    }
+
+    private void loadHotTierSafely() {
+        try {
+            loadHotTier();
+        } catch (RuntimeException e) {
+            log.error("Trend bar hot tier load failed, history is served from storage", e);
+        }
+    }
+
+    private void migrateSafely() {
+        try {
+            migrate();
+        } catch (RuntimeException e) {
+            log.error("Trend bar tiering run failed", e);
+        }
+    }
+
+    // The persisted entity still carries the quotes' scale while rows, segments and cold files hold the column scale,
+    // so the mirror is rounded the way the columns store it and reads give the same bar from every tier
+    private static TrendBarEntity toColumnScale(TrendBarEntity trendBarEntity) {
+        var bidAsk = trendBarEntity.getBidAsk();
+        return trendBarEntity.toBuilder()
+                .openPrice(setScale(trendBarEntity.getOpenPrice(), PRICE_SCALE))
+                .highPrice(setScale(trendBarEntity.getHighPrice(), PRICE_SCALE))
+                .lowPrice(setScale(trendBarEntity.getLowPrice(), PRICE_SCALE))
+                .closePrice(setScale(trendBarEntity.getClosePrice(), PRICE_SCALE))
+                .volume(setScale(trendBarEntity.getVolume(), AMOUNT_SCALE))
+                .turnover(setScale(trendBarEntity.getTurnover(), AMOUNT_SCALE))
+                .vwap(setScale(trendBarEntity.getVwap(), AMOUNT_SCALE))
+                .bidAsk(bidAsk == null ? null : bidAsk.toBuilder()
+                        .bidOpenPrice(setScale(bidAsk.getBidOpenPrice(), PRICE_SCALE))
+                        .bidHighPrice(setScale(bidAsk.getBidHighPrice(), PRICE_SCALE))
+                        .bidLowPrice(setScale(bidAsk.getBidLowPrice(), PRICE_SCALE))
+                        .bidClosePrice(setScale(bidAsk.getBidClosePrice(), PRICE_SCALE))
+                        .askOpenPrice(setScale(bidAsk.getAskOpenPrice(), PRICE_SCALE))
+                        .askHighPrice(setScale(bidAsk.getAskHighPrice(), PRICE_SCALE))
+                        .askLowPrice(setScale(bidAsk.getAskLowPrice(), PRICE_SCALE))
+                        .askClosePrice(setScale(bidAsk.getAskClosePrice(), PRICE_SCALE))
+                        .spreadMin(setScale(bidAsk.getSpreadMin(), SPREAD_SCALE))
+                        .spreadMax(setScale(bidAsk.getSpreadMax(), SPREAD_SCALE))
+                        .spreadSum(setScale(bidAsk.getSpreadSum(), SPREAD_SCALE))
+                        .build())
+                .build();
+    }
+
+    private static BigDecimal setScale(BigDecimal value, int scale) {
+        return value == null ? null : value.setScale(scale, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,67 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.OverloadPolicy;
+import com.va.trendbarservice.model.Quote;
+import lombok.Getter;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.va.trendbarservice.messages.ExceptionMessages.ERROR_KEY_QUEUE_POLICY_NOT_SUPPORTED;
+
+
+// Conflation belongs to the ingest queue and the quote conflator, which fold per symbol before routing; a per-key queue
+// cannot fold into its tail, so CONFLATE is rejected instead of silently behaving like DROP_OLDEST
+public class BoundedKeyQuotesQueue extends LinkedBlockingQueue<Quote> {
+
+    @Getter
+    private final OverloadPolicy overloadPolicy;
+    private final long blockTimeoutMillis;
+    private final QuotesOverloadCounters overloadCounters;
+
+    public BoundedKeyQuotesQueue(int capacity, OverloadPolicy overloadPolicy, long blockTimeoutMillis, QuotesOverloadCounters overloadCounters) {
+        super(capacity);
+        if (overloadPolicy == OverloadPolicy.CONFLATE) {
+            throw new IllegalArgumentException(ERROR_KEY_QUEUE_POLICY_NOT_SUPPORTED + overloadPolicy);
+        }
+        this.overloadPolicy = overloadPolicy;
+        this.blockTimeoutMillis = blockTimeoutMillis;
+        this.overloadCounters = overloadCounters;
+    }
+
+    @Override
+    public boolean offer(Quote quote) {
+        if (super.offer(quote)) {
+            return true;
+        }
+
+        return switch (overloadPolicy) {
+            case BLOCK -> offerWithinBlockTimeout(quote);
+            case DROP_OLDEST -> {
+                do {
+                    if (poll() != null) {
+                        overloadCounters.incrementDropped();
+                    }
+                } while (!super.offer(quote));
+                yield true;
+            }
+            case REJECT, CONFLATE -> {
+                overloadCounters.incrementRejected();
+                yield false;
+            }
+        };
+    }
+
+    // The single routing thread feeds every key, so a stalled key may hold it up for the timeout but never for good
+    private boolean offerWithinBlockTimeout(Quote quote) {
+        try {
+            if (offer(quote, blockTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        overloadCounters.incrementRejected();
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.OverloadPolicy;
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.AbstractQueue;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+
+// Wraps the queue instead of extending it, so every inherited mutator (add, addAll, clear) goes through offer and poll
+// and cannot bypass the capacity check or the queued count
+@Slf4j
+public class BoundedQuotesQueue extends AbstractQueue<Quote> {
+
+    private static final long BLOCK_PARK_NANOS = 10_000;
+
+    @Getter
+    private final int capacity;
+    @Getter
+    private final OverloadPolicy overloadPolicy;
+    @Getter
+    private final QuotesOverloadCounters overloadCounters;
+
+    private final Queue<Quote> queuedQuotes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+
+    // Per symbol the folded quotes that did not fit into the queue, drained once the queue is empty
+    private final ConcurrentMap<Symbol, Quote> conflatedQuotesMap = new ConcurrentHashMap<>();
+
+    public BoundedQuotesQueue(int capacity, OverloadPolicy overloadPolicy, QuotesOverloadCounters overloadCounters) {
+        this.capacity = capacity;
+        this.overloadPolicy = overloadPolicy;
+        this.overloadCounters = overloadCounters;
+    }
+
+    @Override
+    public boolean offer(Quote quote) {
+        if (overloadPolicy == OverloadPolicy.CONFLATE && quote.getSymbol() != null
+            && conflatedQuotesMap.containsKey(quote.getSymbol())) {
+            conflate(quote);
+            return true;
+        }
+
+        while (true) {
+            int currQueuedCount = queuedCount.get();
+            if (currQueuedCount < capacity) {
+                if (queuedCount.compareAndSet(currQueuedCount, currQueuedCount + 1)) {
+                    return queuedQuotes.offer(quote);
+                }
+                continue;
+            }
+
+            switch (overloadPolicy) {
+                case BLOCK -> {
+                    LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                    if (Thread.currentThread().isInterrupted()) {
+                        overloadCounters.incrementRejected();
+                        return false;
+                    }
+                }
+                case DROP_OLDEST -> {
+                    if (pollQueued() != null) {
+                        overloadCounters.incrementDropped();
+                    }
+                }
+                case REJECT -> {
+                    overloadCounters.incrementRejected();
+                    return false;
+                }
+                case CONFLATE -> {
+                    if (quote.getSymbol() == null) {
+                        overloadCounters.incrementRejected();
+                        return false;
+                    }
+                    conflate(quote);
+                    return true;
+                }
+            }
+        }
+    }
+
+    // A superseded quote of the same minute is folded into the survivor, so its extremes, ticks, size and bid/ask still
+    // reach the bar. One of another minute cannot be folded without spanning a bar boundary, so it is queued past
+    // capacity, which stays bounded by one quote per symbol and minute
+    private void conflate(Quote quote) {
+        conflatedQuotesMap.compute(quote.getSymbol(), (symbol, pendingQuote) -> {
+            if (pendingQuote == null) {
+                return QuoteConflator.toPendingQuote(quote);
+            }
+            if (QuoteConflator.isSameFoldBucket(pendingQuote, quote)) {
+                QuoteConflator.merge(pendingQuote, quote);
+                overloadCounters.incrementConflated();
+                return pendingQuote;
+            }
+            queuedCount.incrementAndGet();
+            queuedQuotes.offer(pendingQuote);
+            return QuoteConflator.toPendingQuote(quote);
+        });
+    }
+
+    @Override
+    public Quote poll() {
+        var quote = pollQueued();
+        return quote != null ? quote : pollConflated();
+    }
+
+    @Override
+    public Quote peek() {
+        var quote = queuedQuotes.peek();
+        if (quote != null) {
+            return quote;
+        }
+        var conflatedQuotes = conflatedQuotesMap.values().iterator();
+        return conflatedQuotes.hasNext() ? conflatedQuotes.next() : null;
+    }
+
+    private Quote pollQueued() {
+        var quote = queuedQuotes.poll();
+        if (quote != null) {
+            queuedCount.decrementAndGet();
+        }
+        return quote;
+    }
+
+    private Quote pollConflated() {
+        if (conflatedQuotesMap.isEmpty()) {
+            return null;
+        }
+        for (var symbol : conflatedQuotesMap.keySet()) {
+            var quote = conflatedQuotesMap.remove(symbol);
+            if (quote != null) {
+                return quote;
+            }
+        }
+        return null;
+    }
+
+    // Removal by value is atomic on the wrapped queue, so the count only drops when this call unlinked the quote
+    @Override
+    public boolean remove(Object o) {
+        if (queuedQuotes.remove(o)) {
+            queuedCount.decrementAndGet();
+            return true;
+        }
+        return o instanceof Quote quote && quote.getSymbol() != null && conflatedQuotesMap.remove(quote.getSymbol(), quote);
+    }
+
+    // Weakly consistent and read-only, removing through it would have to race poll for the count
+    @Override
+    public Iterator<Quote> iterator() {
+        return Stream.concat(queuedQuotes.stream(), conflatedQuotesMap.values().stream()).iterator();
+    }
+
+    @Override
+    public int size() {
+        return queuedCount.get() + conflatedQuotesMap.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queuedQuotes.isEmpty() && conflatedQuotesMap.isEmpty();
+    }
+}
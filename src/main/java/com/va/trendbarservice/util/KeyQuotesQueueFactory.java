@@ -0,0 +1,21 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.OverloadPolicy;
+import com.va.trendbarservice.model.Quote;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.LinkedBlockingQueue;
+
+
+@RequiredArgsConstructor
+public class KeyQuotesQueueFactory {
+
+    private final int capacity;
+    private final OverloadPolicy overloadPolicy;
+    private final long blockTimeoutMillis;
+    private final QuotesOverloadCounters overloadCounters;
+
+    public LinkedBlockingQueue<Quote> create() {
+        return new BoundedKeyQuotesQueue(capacity, overloadPolicy, blockTimeoutMillis, overloadCounters);
+    }
+}
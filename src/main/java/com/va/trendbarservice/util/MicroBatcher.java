@@ -1,5 +1,7 @@
 package com.va.trendbarservice.util;
 
+import com.va.trendbarservice.jfr.BatchGatheredEvent;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.Quote;
 import com.va.trendbarservice.model.TrendBar;
 import lombok.Getter;
@@ -21,6 +23,7 @@ public class MicroBatcher {
     private final long timeoutThreshold;
     private final List<Runnable> taskList = new ArrayList<>();
     private final BiConsumer<List<Quote>, Boolean> executionLogic;
+    private final TrendBarMetrics trendBarMetrics;
 
     @Getter
     private final ExecutorService executorService;
@@ -39,19 +42,22 @@ public class MicroBatcher {
             int executionThreshold,
             long timeoutThreshold,
             TrendBar trendBar,
-            BiConsumer<List<Quote>, Boolean> executionLogic) {
+            BiConsumer<List<Quote>, Boolean> executionLogic,
+            TrendBarMetrics trendBarMetrics,
+            MicroBatcherExecutorFactory microBatcherExecutorFactory) {
         this.trendBarKeyQuotesQueue = trendBarKeyQuotesQueue;
         this.executionThreshold = executionThreshold;
         this.timeoutThreshold = timeoutThreshold;
         this.trendBar = trendBar;
         this.executionLogic = executionLogic;
-        this.executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
-        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+        this.trendBarMetrics = trendBarMetrics;
+        this.executorService = microBatcherExecutorFactory.newTaskExecutor();
+        this.scheduledExecutorService = microBatcherExecutorFactory.newBatchScheduler();
         startBatchHandling();
     }
 
     public void submit(Quote quote) {
-        trendBarKeyQuotesQueue.add(quote);
+        trendBarKeyQuotesQueue.offer(quote);
     }
 
     private void startBatchHandling() {
@@ -73,10 +79,15 @@ public class MicroBatcher {
         isBatchFinal = false;
 
         try {
+            var batchGatheredEvent = new BatchGatheredEvent();
+            batchGatheredEvent.begin();
             gatherQuotes(quoteList, currTrendbarPeriodEnd, startTime);
+            batchGatheredEvent.commitFor(trendBar.trendBarKey(), quoteList.size());
 
             if (!quoteList.isEmpty() || isBatchFinal) {
+                long processingStartNanos = System.nanoTime();
                 processQuotes(quoteList);
+                trendBarMetrics.recordBatchProcessed(quoteList.size(), System.nanoTime() - processingStartNanos);
             }
         } finally {
             if (isBatchFinal) {
@@ -95,16 +106,14 @@ public class MicroBatcher {
 
             if (quotePolled != null) {
                 quoteList.add(quotePolled);
-                log.info("IN MicroBatcher: added quote, new quoteList.size() = {}", quoteList.size());
 
                 if (quoteList.size() >= executionThreshold) {
-                    log.info("IN MicroBatcher: Batch size threshold reached !!!!!!");
+                    log.debug("IN MicroBatcher: Batch size threshold reached !!!!!!");
                     break;
                 }
             } else {
                 if (Instant.now().isAfter(currTrendbarPeriodEnd)) {
-                    log.info("IN MicroBatcher: currTrendbarPeriodEnd = {}", currTrendbarPeriodEnd);
-                    log.info("IN MicroBatcher: Period ended and queue is empty, setting isBatchFinal = TRUE");
+                    log.info("IN MicroBatcher: Period ended at {} and queue is empty, setting isBatchFinal = TRUE", currTrendbarPeriodEnd);
                     isBatchFinal = true;
                     break;
                 }
@@ -135,7 +144,7 @@ public class MicroBatcher {
         }
 
         if (quoteList.isEmpty() && isBatchFinal) {
-            log.info("IN MicroBatcher: quoteList.isEmpty() && isBatchFinal = TRUE");
+            log.debug("IN MicroBatcher: quoteList.isEmpty() && isBatchFinal = TRUE");
             CountDownLatch latch2 = new CountDownLatch(1);
 
             submitFinalTask(quoteList, latch2);
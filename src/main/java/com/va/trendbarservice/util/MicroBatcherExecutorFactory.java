@@ -0,0 +1,65 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.ExecutionMode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+
+// Creates the per-MicroBatcher executors. In VIRTUAL mode the gather loop and the aggregation tasks of a key run on
+// virtual threads, so the blocking poll and latch waits park the virtual thread instead of holding a platform thread.
+// Virtual threads are looked up reflectively because the service still builds for JDK 17, where VIRTUAL falls back to PLATFORM.
+@Slf4j
+public class MicroBatcherExecutorFactory {
+
+    @Getter
+    private final ExecutionMode executionMode;
+    private final ThreadFactory virtualThreadFactory;
+    private final Method newVirtualThreadPerTaskExecutor;
+
+    public MicroBatcherExecutorFactory(ExecutionMode requestedExecutionMode) {
+        ThreadFactory threadFactory = null;
+        Method executorMethod = null;
+        if (requestedExecutionMode == ExecutionMode.VIRTUAL) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "microbatcher-", 0L);
+                threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+                executorMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            } catch (ReflectiveOperationException | LinkageError e) {
+                log.warn("Virtual threads are not available on Java {}, falling back to PLATFORM execution mode", Runtime.version().feature());
+                threadFactory = null;
+                executorMethod = null;
+            }
+        }
+        this.virtualThreadFactory = threadFactory;
+        this.newVirtualThreadPerTaskExecutor = executorMethod;
+        this.executionMode = threadFactory != null ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+        log.info("MicroBatcher execution mode: {}", executionMode);
+    }
+
+    public ExecutorService newTaskExecutor() {
+        if (executionMode == ExecutionMode.PLATFORM) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        }
+        try {
+            return (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    // A single-threaded scheduler on a virtual thread keeps the fixed-rate gather loop of one key off the carrier pool while it waits
+    public ScheduledExecutorService newBatchScheduler() {
+        if (executionMode == ExecutionMode.PLATFORM) {
+            return Executors.newSingleThreadScheduledExecutor();
+        }
+        return Executors.newSingleThreadScheduledExecutor(virtualThreadFactory);
+    }
+}
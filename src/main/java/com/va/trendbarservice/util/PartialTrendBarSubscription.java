@@ -0,0 +1,125 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.TrendBarEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+
+// Holds only the latest partial state of one forming bar: a newer update replaces an undelivered one, so a slow
+// listener never builds a backlog. Deliveries are at least minDeliveryIntervalNanos apart; when an update arrives
+// sooner the drain is re-armed on the scheduler instead of waiting on a delivery thread
+@Slf4j
+public class PartialTrendBarSubscription implements AutoCloseable {
+
+    private final Consumer<TrendBarEntity> listener;
+    private final Executor deliveryExecutor;
+    private final ScheduledExecutorService scheduler;
+    private final long minDeliveryIntervalNanos;
+    private final Consumer<PartialTrendBarSubscription> onCancel;
+
+    private final AtomicReference<TrendBarEntity> latestTrendBarEntity = new AtomicReference<>();
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+    private final LongAdder deliveredCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private long lastDeliveryNanos;
+    private boolean hasDelivered;
+    private volatile boolean isCancelled;
+
+    // maxUpdatesPerSecond <= 0 means no rate limit, updates are still coalesced while a delivery is in flight
+    public PartialTrendBarSubscription(Consumer<TrendBarEntity> listener, Executor deliveryExecutor, ScheduledExecutorService scheduler,
+                                       double maxUpdatesPerSecond, Consumer<PartialTrendBarSubscription> onCancel) {
+        this.listener = listener;
+        this.deliveryExecutor = deliveryExecutor;
+        this.scheduler = scheduler;
+        this.minDeliveryIntervalNanos = maxUpdatesPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / maxUpdatesPerSecond) : 0;
+        this.onCancel = onCancel;
+    }
+
+    public void deliver(TrendBarEntity trendBarEntity) {
+        if (isCancelled) {
+            return;
+        }
+        if (latestTrendBarEntity.getAndSet(trendBarEntity) != null) {
+            coalescedCount.increment();
+        }
+        scheduleDrain();
+    }
+
+    public void cancel() {
+        if (isCancelled) {
+            return;
+        }
+        isCancelled = true;
+        latestTrendBarEntity.set(null);
+        onCancel.accept(this);
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    public long getDeliveredCount() {
+        return deliveredCount.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.sum();
+    }
+
+    private void scheduleDrain() {
+        if (isDrainScheduled.compareAndSet(false, true)) {
+            executeDrain();
+        }
+    }
+
+    private void executeDrain() {
+        try {
+            deliveryExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            isDrainScheduled.set(false);
+            log.warn("Delivery executor rejected partial trend bar delivery");
+        }
+    }
+
+    // Drains never overlap, so the delivery bookkeeping needs no synchronization beyond the scheduled flag
+    private void drain() {
+        if (isCancelled) {
+            isDrainScheduled.set(false);
+            return;
+        }
+        long waitNanos = lastDeliveryNanos + minDeliveryIntervalNanos - System.nanoTime();
+        if (hasDelivered && waitNanos > 0) {
+            try {
+                scheduler.schedule(this::executeDrain, waitNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                isDrainScheduled.set(false);
+            }
+            return;
+        }
+        var trendBarEntity = latestTrendBarEntity.getAndSet(null);
+        if (trendBarEntity != null) {
+            try {
+                listener.accept(trendBarEntity);
+            } catch (RuntimeException e) {
+                log.warn("Partial trend bar listener failed on {}", trendBarEntity, e);
+            }
+            deliveredCount.increment();
+            lastDeliveryNanos = System.nanoTime();
+            hasDelivered = true;
+        }
+        isDrainScheduled.set(false);
+        if (latestTrendBarEntity.get() != null) {
+            scheduleDrain();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.BidAskTrendBar;
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import lombok.Getter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+
+// Owned by the single quotes consumer thread, so the pending map needs no synchronization
+public class QuoteConflator {
+
+    // Every period is a multiple of the shortest one, so a folded quote never spans a period boundary
+    private static final long FOLD_BUCKET_MILLIS = Arrays.stream(TrendBarPeriod.values())
+            .mapToLong(trendBarPeriod -> trendBarPeriod.getDuration().toMillis())
+            .min()
+            .orElseThrow();
+
+    @Getter
+    private final boolean enabled;
+
+    private final Map<Symbol, Quote> pendingQuotesMap = new HashMap<>();
+
+    public QuoteConflator(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void fold(Quote quote, Consumer<Quote> downstream) {
+        var pendingQuote = pendingQuotesMap.get(quote.getSymbol());
+        if (pendingQuote != null) {
+            if (isSameFoldBucket(pendingQuote, quote)) {
+                merge(pendingQuote, quote);
+                return;
+            }
+            downstream.accept(pendingQuote);
+        }
+        pendingQuotesMap.put(quote.getSymbol(), toPendingQuote(quote));
+    }
+
+    public void drain(Consumer<Quote> downstream) {
+        if (pendingQuotesMap.isEmpty()) {
+            return;
+        }
+        for (var pendingQuote : pendingQuotesMap.values()) {
+            downstream.accept(pendingQuote);
+        }
+        pendingQuotesMap.clear();
+    }
+
+    public int getPendingSymbolsCount() {
+        return pendingQuotesMap.size();
+    }
+
+    static boolean isSameFoldBucket(Quote pendingQuote, Quote quote) {
+        return getFoldBucket(pendingQuote) == getFoldBucket(quote);
+    }
+
+    private static long getFoldBucket(Quote quote) {
+        return Math.floorDiv(quote.getUnixTimeStamp(), FOLD_BUCKET_MILLIS);
+    }
+
+    // A copy, merge mutates the pending quote and the offered one may still be referenced by the producer
+    static Quote toPendingQuote(Quote quote) {
+        return Quote.builder()
+                .id(quote.getId())
+                .symbol(quote.getSymbol())
+                .newPrice(quote.getNewPrice())
+                .unixTimeStamp(quote.getUnixTimeStamp())
+                .firstPrice(quote.getFirstPrice())
+                .highPrice(quote.getHighPrice())
+                .lowPrice(quote.getLowPrice())
+                .firstUnixTimeStamp(quote.getFirstUnixTimeStamp())
+                .ticksCount(quote.getTicksCount())
+                .size(quote.getSize())
+                .turnover(quote.getTurnover())
+                .bidAsk(BidAskTrendBar.aggregate(null, quote, true, true))
+                .journalSequence(quote.getJournalSequence())
+                .build();
+    }
+
+    // Merged by quote time like the raw path: the earliest tick supplies first price and time, the latest one close and
+    // time, ties go to the later arrival for close and to the earlier one for first
+    static void merge(Quote pendingQuote, Quote quote) {
+        if (quote.getHighPrice().compareTo(pendingQuote.getHighPrice()) > 0) {
+            pendingQuote.setHighPrice(quote.getHighPrice());
+        }
+        if (quote.getLowPrice().compareTo(pendingQuote.getLowPrice()) < 0) {
+            pendingQuote.setLowPrice(quote.getLowPrice());
+        }
+        if (quote.getSize() != null) {
+            pendingQuote.setTurnover(pendingQuote.getSize() == null ? quote.getTurnover() : pendingQuote.getTurnover().add(quote.getTurnover()));
+            pendingQuote.setSize(pendingQuote.getSize() == null ? quote.getSize() : pendingQuote.getSize().add(quote.getSize()));
+        }
+        boolean isEarliest = quote.getFirstUnixTimeStamp() < pendingQuote.getFirstUnixTimeStamp();
+        boolean isLatest = quote.getUnixTimeStamp() >= pendingQuote.getUnixTimeStamp();
+        pendingQuote.setBidAsk(BidAskTrendBar.aggregate(pendingQuote.getBidAsk(), quote, isEarliest, isLatest));
+        pendingQuote.setTicksCount(pendingQuote.getTicksCount() + quote.getTicksCount());
+        if (isEarliest) {
+            pendingQuote.setFirstPrice(quote.getFirstPrice());
+            pendingQuote.setFirstUnixTimeStamp(quote.getFirstUnixTimeStamp());
+        }
+        if (isLatest) {
+            pendingQuote.setNewPrice(quote.getNewPrice());
+            pendingQuote.setUnixTimeStamp(quote.getUnixTimeStamp());
+        }
+        pendingQuote.setJournalSequence(Math.max(pendingQuote.getJournalSequence(), quote.getJournalSequence()));
+    }
+}
@@ -0,0 +1,352 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static com.va.trendbarservice.messages.ExceptionMessages.ERROR_QUOTE_NOT_JOURNALABLE;
+
+// Append-only memory-mapped journal of fixed-width quote records, written by the single consumer thread.
+// The journal rolls over files named <path>.<base position>, each holding up to segmentRecordsCount records.
+// Header: magic (int), version (short), record size (short), committed records count (long), base position (long).
+// Record: unixTimeStamp (long), unscaled price (long), base and quote currency codes (3 ASCII bytes each), price scale (byte),
+// presence flags (byte), unscaled size, bid and ask (long each), their scales (byte each), padding.
+// Records become visible to replay only after commit(), which publishes the count in the header.
+// Every appended quote gets its 1-based record position as journal sequence, also when the journal is disabled,
+// so open bars can tell which quotes they have already folded.
+@Slf4j
+public class QuoteJournal implements Closeable {
+
+    public static final int MAGIC = 0x514A524E; // "QJRN"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 56;
+
+    private static final int COMMITTED_COUNT_OFFSET = 8;
+    private static final int BASE_POSITION_OFFSET = 16;
+
+    private static final int PRICE_OFFSET = 8;
+    private static final int BASE_CURRENCY_OFFSET = 16;
+    private static final int QUOTE_CURRENCY_OFFSET = 19;
+    private static final int SCALE_OFFSET = 22;
+    private static final int FLAGS_OFFSET = 23;
+    private static final int SIZE_OFFSET = 24;
+    private static final int BID_OFFSET = 32;
+    private static final int ASK_OFFSET = 40;
+    private static final int SIZE_SCALE_OFFSET = 48;
+    private static final int BID_SCALE_OFFSET = 49;
+    private static final int ASK_SCALE_OFFSET = 50;
+
+    private static final int HAS_SIZE = 1;
+    private static final int HAS_BID = 2;
+    private static final int HAS_ASK = 4;
+
+    @Getter
+    private final boolean enabled;
+    private final Path path;
+    private final int segmentRecordsCount;
+
+    // Base position of every journal file, the last one is the file being appended to
+    private final ConcurrentSkipListMap<Long, Path> journalFiles = new ConcurrentSkipListMap<>();
+
+    private FileChannel fileChannel;
+    private MappedByteBuffer headerBuffer;
+    private MappedByteBuffer segmentBuffer;
+    private long basePosition;
+    @Getter
+    private long appendedCount;
+    @Getter
+    private volatile long committedCount;
+
+    public QuoteJournal(boolean enabled, Path path, int segmentRecordsCount) {
+        this.enabled = enabled;
+        this.path = path;
+        this.segmentRecordsCount = segmentRecordsCount;
+        if (enabled) {
+            open();
+        }
+    }
+
+    public static boolean exists(Path path) {
+        return !listJournalFiles(path).isEmpty();
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            journalFiles.putAll(listJournalFiles(path));
+            if (journalFiles.isEmpty()) {
+                openFile(0);
+            } else {
+                openFile(journalFiles.lastKey());
+            }
+            committedCount = appendedCount;
+            log.info("Opened quote journal {} with {} committed quotes in {} files", path, appendedCount, journalFiles.size());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open quote journal " + path, e);
+        }
+    }
+
+    private void openFile(long filePosition) throws IOException {
+        Path filePath = getFilePath(filePosition);
+        fileChannel = FileChannel.open(filePath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean isNewFile = fileChannel.size() == 0;
+        headerBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (isNewFile) {
+            headerBuffer.putInt(0, MAGIC);
+            headerBuffer.putShort(4, VERSION);
+            headerBuffer.putShort(6, (short) RECORD_SIZE);
+            headerBuffer.putLong(COMMITTED_COUNT_OFFSET, 0);
+            headerBuffer.putLong(BASE_POSITION_OFFSET, filePosition);
+        } else {
+            validateHeader(headerBuffer);
+        }
+        segmentBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, (long) segmentRecordsCount * RECORD_SIZE);
+        basePosition = filePosition;
+        appendedCount = filePosition + headerBuffer.getLong(COMMITTED_COUNT_OFFSET);
+        journalFiles.put(filePosition, filePath);
+    }
+
+    // The full file is published as committed before the next one is started
+    private void rollTo(long filePosition) {
+        try {
+            headerBuffer.putLong(COMMITTED_COUNT_OFFSET, appendedCount - basePosition);
+            headerBuffer.force();
+            segmentBuffer.force();
+            fileChannel.close();
+            openFile(filePosition);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll quote journal " + path + " to position " + filePosition, e);
+        }
+    }
+
+    // Rejects the quote before writing anything when one of its values does not fit a record
+    public void append(Quote quote) {
+        if (!enabled) {
+            quote.setJournalSequence(++appendedCount);
+            return;
+        }
+        var price = quote.getNewPrice();
+        validateRecordable(price, "price");
+        validateRecordable(quote.getSize(), "size");
+        validateRecordable(quote.getBidPrice(), "bid");
+        validateRecordable(quote.getAskPrice(), "ask");
+
+        if (appendedCount - basePosition == segmentRecordsCount) {
+            rollTo(appendedCount);
+        }
+        int position = (int) ((appendedCount - basePosition) * RECORD_SIZE);
+        segmentBuffer.putLong(position, quote.getUnixTimeStamp());
+        segmentBuffer.putLong(position + PRICE_OFFSET, price.unscaledValue().longValue());
+        putCurrencyCode(segmentBuffer, position + BASE_CURRENCY_OFFSET, quote.getSymbol().baseCurrency());
+        putCurrencyCode(segmentBuffer, position + QUOTE_CURRENCY_OFFSET, quote.getSymbol().quoteCurrency());
+        segmentBuffer.put(position + SCALE_OFFSET, (byte) price.scale());
+        int flags = putOptional(segmentBuffer, position + SIZE_OFFSET, position + SIZE_SCALE_OFFSET, quote.getSize(), HAS_SIZE)
+                | putOptional(segmentBuffer, position + BID_OFFSET, position + BID_SCALE_OFFSET, quote.getBidPrice(), HAS_BID)
+                | putOptional(segmentBuffer, position + ASK_OFFSET, position + ASK_SCALE_OFFSET, quote.getAskPrice(), HAS_ASK);
+        segmentBuffer.put(position + FLAGS_OFFSET, (byte) flags);
+        quote.setJournalSequence(++appendedCount);
+    }
+
+    // Called once per drained batch, publishing is a single store into the mapped header
+    public void commit() {
+        committedCount = appendedCount;
+        if (!enabled) {
+            return;
+        }
+        headerBuffer.putLong(COMMITTED_COUNT_OFFSET, appendedCount - basePosition);
+    }
+
+    // A disabled or lost journal restarts counting behind a restored checkpoint, sequences then continue after its position
+    public void resumeFrom(long position) {
+        if (position <= appendedCount) {
+            return;
+        }
+        if (enabled) {
+            log.warn("Quote journal {} holds {} quotes, behind checkpoint position {}, continuing in a new file", path, appendedCount, position);
+            rollTo(position);
+        }
+        appendedCount = position;
+        committedCount = position;
+    }
+
+    // Deletes the files whose records all lie at or before the position, called once a checkpoint covering them is written
+    public void releaseBefore(long position) {
+        if (!enabled) {
+            return;
+        }
+        for (var entry : journalFiles.headMap(journalFiles.lastKey()).entrySet()) {
+            var nextFilePosition = journalFiles.higherKey(entry.getKey());
+            if (nextFilePosition == null || nextFilePosition > position) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.getValue());
+                journalFiles.remove(entry.getKey());
+                log.debug("Released quote journal file {}", entry.getValue());
+            } catch (IOException e) {
+                log.error("Failed to release quote journal file {}", entry.getValue(), e);
+                break;
+            }
+        }
+    }
+
+    public long replay(Consumer<Quote> sink) {
+        return replay(0, sink);
+    }
+
+    // Replays the committed records after the given position, each with its journal sequence
+    public long replay(long fromPosition, Consumer<Quote> sink) {
+        if (!enabled) {
+            return 0;
+        }
+        Map<Long, Symbol> symbolsCache = new HashMap<>();
+        long replayedCount = 0;
+        for (var filePath : journalFiles.values()) {
+            try (var replayChannel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+                var replayHeader = replayChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                long filePosition = replayHeader.getLong(BASE_POSITION_OFFSET);
+                long fileCommittedCount = replayHeader.getLong(COMMITTED_COUNT_OFFSET);
+                if (filePosition + fileCommittedCount <= fromPosition) {
+                    continue;
+                }
+                var replayBuffer = replayChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, fileCommittedCount * RECORD_SIZE);
+                for (long i = Math.max(0, fromPosition - filePosition); i < fileCommittedCount; i++) {
+                    var quote = readQuote(replayBuffer, (int) (i * RECORD_SIZE), symbolsCache);
+                    quote.setJournalSequence(filePosition + i + 1);
+                    sink.accept(quote);
+                    replayedCount++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to replay quote journal file " + filePath, e);
+            }
+        }
+        log.info("Replayed {} quotes after position {} from quote journal {}", replayedCount, fromPosition, path);
+        return replayedCount;
+    }
+
+    public void force() {
+        if (!enabled) {
+            return;
+        }
+        headerBuffer.force();
+        segmentBuffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        commit();
+        force();
+        fileChannel.close();
+    }
+
+    private Path getFilePath(long filePosition) {
+        return path.resolveSibling(path.getFileName() + "." + String.format("%020d", filePosition));
+    }
+
+    private static SortedMap<Long, Path> listJournalFiles(Path path) {
+        SortedMap<Long, Path> journalFiles = new TreeMap<>();
+        Path directory = path.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return journalFiles;
+        }
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String fileName = file.getFileName().toString();
+                if (fileName.startsWith(prefix) && fileName.length() == prefix.length() + 20
+                        && fileName.substring(prefix.length()).chars().allMatch(Character::isDigit)) {
+                    journalFiles.put(Long.parseLong(fileName.substring(prefix.length())), file);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list quote journal files of " + path, e);
+        }
+        return journalFiles;
+    }
+
+    private static void validateRecordable(BigDecimal value, String name) {
+        if (value == null) {
+            return;
+        }
+        if (value.unscaledValue().bitLength() > 63 || value.scale() < Byte.MIN_VALUE || value.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException(ERROR_QUOTE_NOT_JOURNALABLE + name + " " + value);
+        }
+    }
+
+    private static int putOptional(MappedByteBuffer buffer, int position, int scalePosition, BigDecimal value, int flag) {
+        if (value == null) {
+            return 0;
+        }
+        buffer.putLong(position, value.unscaledValue().longValue());
+        buffer.put(scalePosition, (byte) value.scale());
+        return flag;
+    }
+
+    private static BigDecimal getOptional(MappedByteBuffer buffer, int position, int scalePosition, int flags, int flag) {
+        if ((flags & flag) == 0) {
+            return null;
+        }
+        return BigDecimal.valueOf(buffer.getLong(position), buffer.get(scalePosition));
+    }
+
+    private static Quote readQuote(MappedByteBuffer buffer, int position, Map<Long, Symbol> symbolsCache) {
+        long unixTimeStamp = buffer.getLong(position);
+        long unscaledPrice = buffer.getLong(position + PRICE_OFFSET);
+        long packedSymbol = buffer.getLong(position + BASE_CURRENCY_OFFSET) >>> 16;
+        var symbol = symbolsCache.computeIfAbsent(packedSymbol, p -> Symbol.builder()
+                .baseCurrency(getCurrency(buffer, position + BASE_CURRENCY_OFFSET))
+                .quoteCurrency(getCurrency(buffer, position + QUOTE_CURRENCY_OFFSET))
+                .build());
+        int flags = buffer.get(position + FLAGS_OFFSET);
+        return Quote.builder()
+                .symbol(symbol)
+                .newPrice(BigDecimal.valueOf(unscaledPrice, buffer.get(position + SCALE_OFFSET)))
+                .unixTimeStamp(unixTimeStamp)
+                .size(getOptional(buffer, position + SIZE_OFFSET, position + SIZE_SCALE_OFFSET, flags, HAS_SIZE))
+                .bidPrice(getOptional(buffer, position + BID_OFFSET, position + BID_SCALE_OFFSET, flags, HAS_BID))
+                .askPrice(getOptional(buffer, position + ASK_OFFSET, position + ASK_SCALE_OFFSET, flags, HAS_ASK))
+                .build();
+    }
+
+    private static void putCurrencyCode(MappedByteBuffer buffer, int position, Currency currency) {
+        String currencyCode = currency.getCurrencyCode();
+        for (int i = 0; i < 3; i++) {
+            buffer.put(position + i, (byte) currencyCode.charAt(i));
+        }
+    }
+
+    private static Currency getCurrency(MappedByteBuffer buffer, int position) {
+        byte[] currencyCode = new byte[3];
+        buffer.get(position, currencyCode);
+        return Currency.getInstance(new String(currencyCode, StandardCharsets.US_ASCII));
+    }
+
+    private static void validateHeader(MappedByteBuffer headerBuffer) throws IOException {
+        if (headerBuffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a quote journal");
+        }
+        if (headerBuffer.getShort(4) != VERSION || headerBuffer.getShort(6) != RECORD_SIZE) {
+            throw new IOException("Unsupported quote journal version " + headerBuffer.getShort(4));
+        }
+    }
+}
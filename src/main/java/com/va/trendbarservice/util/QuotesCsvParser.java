@@ -0,0 +1,45 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.va.trendbarservice.messages.ExceptionMessages.INVALID_QUOTES_CSV_LINE;
+
+
+// Parses historical quote lines of the form "EURUSD,1.07123,1718870400000" with an optional trailing size column,
+// safe to share across parallel stream threads
+public class QuotesCsvParser {
+
+    private final SymbolConverter symbolConverter = new SymbolConverter();
+    private final Map<String, Symbol> symbolsCache = new ConcurrentHashMap<>();
+
+    // Blank lines, "#" comments and a "symbol,..." header are not quotes
+    public static boolean isQuoteLine(String line) {
+        return !line.isBlank() && line.charAt(0) != '#' && !line.regionMatches(true, 0, "symbol", 0, 6);
+    }
+
+    public Quote parse(String line) {
+        int firstComma = line.indexOf(',');
+        int secondComma = line.indexOf(',', firstComma + 1);
+        if (firstComma < 0 || secondComma < 0) {
+            throw new IllegalArgumentException(INVALID_QUOTES_CSV_LINE + line);
+        }
+        try {
+            var symbol = symbolsCache.computeIfAbsent(line.substring(0, firstComma).trim(), symbolConverter::convertToEntityAttribute);
+            int thirdComma = line.indexOf(',', secondComma + 1);
+            int timestampEnd = thirdComma < 0 ? line.length() : thirdComma;
+            return Quote.builder()
+                    .symbol(symbol)
+                    .newPrice(new BigDecimal(line.substring(firstComma + 1, secondComma).trim()))
+                    .unixTimeStamp(Long.parseLong(line.substring(secondComma + 1, timestampEnd).trim()))
+                    .size(thirdComma < 0 ? null : new BigDecimal(line.substring(thirdComma + 1).trim()))
+                    .build();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(INVALID_QUOTES_CSV_LINE + line, e);
+        }
+    }
+}
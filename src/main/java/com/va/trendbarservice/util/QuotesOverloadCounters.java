@@ -0,0 +1,34 @@
+package com.va.trendbarservice.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class QuotesOverloadCounters {
+
+    private final LongAdder droppedQuotes = new LongAdder();
+    private final LongAdder rejectedQuotes = new LongAdder();
+    private final LongAdder conflatedQuotes = new LongAdder();
+
+    public void incrementDropped() {
+        droppedQuotes.increment();
+    }
+
+    public void incrementRejected() {
+        rejectedQuotes.increment();
+    }
+
+    public void incrementConflated() {
+        conflatedQuotes.increment();
+    }
+
+    public long getDroppedQuotes() {
+        return droppedQuotes.sum();
+    }
+
+    public long getRejectedQuotes() {
+        return rejectedQuotes.sum();
+    }
+
+    public long getConflatedQuotes() {
+        return conflatedQuotes.sum();
+    }
+}
@@ -0,0 +1,42 @@
+package com.va.trendbarservice.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+
+// Ring buffer with a running sum: adding a value evicts the oldest once full, so the average is O(1) per update.
+// The sum stays exact in BigDecimal, so it does not drift however long the window rolls
+public class RollingWindow {
+
+    private final BigDecimal[] values;
+    private int nextIndex;
+    private int size;
+    private BigDecimal sum = BigDecimal.ZERO;
+
+    public RollingWindow(int capacity) {
+        this.values = new BigDecimal[capacity];
+    }
+
+    public void add(BigDecimal value) {
+        if (size == values.length) {
+            sum = sum.subtract(values[nextIndex]);
+        } else {
+            size++;
+        }
+        values[nextIndex] = value;
+        sum = sum.add(value);
+        nextIndex = (nextIndex + 1) % values.length;
+    }
+
+    public boolean isFull() {
+        return size == values.length;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public BigDecimal getAverage(MathContext mathContext) {
+        return sum.divide(BigDecimal.valueOf(size), mathContext);
+    }
+}
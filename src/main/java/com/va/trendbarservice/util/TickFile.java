@@ -0,0 +1,72 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Symbol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+
+// Tick file layout, all numbers big-endian:
+// Header (64 bytes): magic "TICK" (int), version (short), record size (short), records count (long),
+//   symbols count (int), padding (int), index offset (long), block records count (int), reserved up to 64 bytes.
+// Records (16 bytes each, in write order): epoch millis (long), unscaled price (int), symbol id (unsigned short),
+//   price scale (byte), reserved (byte).
+// Symbol index at index offset (48 bytes per symbol, position = symbol id): symbol code (6 ASCII bytes), padding (2),
+//   records count (long), first epoch millis (long), last epoch millis (long), block ranges offset (long),
+//   block ranges count (long).
+// Block ranges right after the index (16 bytes each): first block (long), last block inclusive (long). Records are
+//   grouped into blocks of block records count, a symbol's ranges cover every block holding at least one of its records.
+public final class TickFile {
+
+    public static final int MAGIC = 0x5449434B; // "TICK"
+    public static final short VERSION = 2;
+    public static final int HEADER_SIZE = 64;
+    public static final int RECORD_SIZE = 16;
+    public static final int INDEX_ENTRY_SIZE = 48;
+    public static final int BLOCK_RANGE_SIZE = 16;
+    public static final int BLOCK_RECORDS_COUNT = 4096;
+    public static final int MAX_SYMBOLS_COUNT = 1 << 16;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 6;
+    static final int RECORDS_COUNT_OFFSET = 8;
+    static final int SYMBOLS_COUNT_OFFSET = 16;
+    static final int INDEX_OFFSET_OFFSET = 24;
+    static final int BLOCK_RECORDS_COUNT_OFFSET = 32;
+
+    static final int TIMESTAMP_OFFSET = 0;
+    static final int PRICE_OFFSET = 8;
+    static final int SYMBOL_ID_OFFSET = 12;
+    static final int SCALE_OFFSET = 14;
+
+    static final int INDEX_RECORDS_COUNT_OFFSET = 8;
+    static final int INDEX_FIRST_TIMESTAMP_OFFSET = 16;
+    static final int INDEX_LAST_TIMESTAMP_OFFSET = 24;
+    static final int INDEX_BLOCK_RANGES_OFFSET_OFFSET = 32;
+    static final int INDEX_BLOCK_RANGES_COUNT_OFFSET = 40;
+
+    static final int BLOCK_RANGE_FIRST_BLOCK_OFFSET = 0;
+    static final int BLOCK_RANGE_LAST_BLOCK_OFFSET = 8;
+
+    private static final int SYMBOL_CODE_LENGTH = 6;
+
+    private TickFile() {
+
+    }
+
+    static void putSymbolCode(ByteBuffer buffer, int position, Symbol symbol) {
+        String symbolCode = symbol.toString();
+        for (int i = 0; i < SYMBOL_CODE_LENGTH; i++) {
+            buffer.put(position + i, (byte) symbolCode.charAt(i));
+        }
+    }
+
+    static Symbol getSymbol(ByteBuffer buffer, int position) {
+        byte[] symbolCode = new byte[SYMBOL_CODE_LENGTH];
+        buffer.get(position, symbolCode);
+        String code = new String(symbolCode, StandardCharsets.US_ASCII);
+        return new Symbol(Currency.getInstance(code.substring(0, 3)), Currency.getInstance(code.substring(3)));
+    }
+}
@@ -0,0 +1,201 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static com.va.trendbarservice.util.TickFile.*;
+
+
+// Maps a closed tick file read-only; forEach hands out primitive fields and does not allocate per tick
+@Slf4j
+public class TickFileReader implements Closeable {
+
+    // 1 GiB chunks keep every record offset within int range of its MappedByteBuffer
+    private static final long CHUNK_RECORDS_COUNT = (1L << 30) / RECORD_SIZE;
+    private static final long CHUNK_SIZE = CHUNK_RECORDS_COUNT * RECORD_SIZE;
+
+    @FunctionalInterface
+    public interface TickConsumer {
+        void accept(int symbolId, long epochMillis, long unscaledPrice, int scale);
+    }
+
+    private final FileChannel fileChannel;
+    private final MappedByteBuffer[] chunkBuffers;
+    private final Symbol[] symbols;
+    private final Map<Symbol, Integer> symbolIdsMap = new HashMap<>();
+    private final long[] symbolRecordsCounts;
+    private final long[] symbolFirstTimestamps;
+    private final long[] symbolLastTimestamps;
+    private final long[][] symbolBlockRanges;
+    private final int blockRecordsCount;
+    @Getter
+    private final long recordsCount;
+
+    public TickFileReader(Path path) {
+        try {
+            fileChannel = FileChannel.open(path, StandardOpenOption.READ);
+            var headerBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            validateHeader(headerBuffer);
+            recordsCount = headerBuffer.getLong(RECORDS_COUNT_OFFSET);
+            int symbolsCount = headerBuffer.getInt(SYMBOLS_COUNT_OFFSET);
+            long indexOffset = headerBuffer.getLong(INDEX_OFFSET_OFFSET);
+            blockRecordsCount = headerBuffer.getInt(BLOCK_RECORDS_COUNT_OFFSET);
+
+            // The block ranges follow the index up to the end of the file
+            var indexBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, indexOffset, fileChannel.size() - indexOffset);
+            symbols = new Symbol[symbolsCount];
+            symbolRecordsCounts = new long[symbolsCount];
+            symbolFirstTimestamps = new long[symbolsCount];
+            symbolLastTimestamps = new long[symbolsCount];
+            symbolBlockRanges = new long[symbolsCount][];
+            for (int symbolId = 0; symbolId < symbolsCount; symbolId++) {
+                int position = symbolId * INDEX_ENTRY_SIZE;
+                symbols[symbolId] = TickFile.getSymbol(indexBuffer, position);
+                symbolIdsMap.put(symbols[symbolId], symbolId);
+                symbolRecordsCounts[symbolId] = indexBuffer.getLong(position + INDEX_RECORDS_COUNT_OFFSET);
+                symbolFirstTimestamps[symbolId] = indexBuffer.getLong(position + INDEX_FIRST_TIMESTAMP_OFFSET);
+                symbolLastTimestamps[symbolId] = indexBuffer.getLong(position + INDEX_LAST_TIMESTAMP_OFFSET);
+                symbolBlockRanges[symbolId] = readBlockRanges(indexBuffer,
+                        (int) (indexBuffer.getLong(position + INDEX_BLOCK_RANGES_OFFSET_OFFSET) - indexOffset),
+                        (int) indexBuffer.getLong(position + INDEX_BLOCK_RANGES_COUNT_OFFSET));
+            }
+
+            long recordsSize = recordsCount * RECORD_SIZE;
+            chunkBuffers = new MappedByteBuffer[(int) ((recordsSize + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int i = 0; i < chunkBuffers.length; i++) {
+                long chunkOffset = i * CHUNK_SIZE;
+                chunkBuffers[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + chunkOffset, Math.min(CHUNK_SIZE, recordsSize - chunkOffset));
+            }
+            log.info("Opened tick file {} with {} ticks of {} symbols", path, recordsCount, symbolsCount);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open tick file " + path, e);
+        }
+    }
+
+    public int getSymbolsCount() {
+        return symbols.length;
+    }
+
+    public Symbol getSymbol(int symbolId) {
+        return symbols[symbolId];
+    }
+
+    // -1 when the symbol has no ticks in this file
+    public int getSymbolId(Symbol symbol) {
+        return symbolIdsMap.getOrDefault(symbol, -1);
+    }
+
+    public long getSymbolRecordsCount(int symbolId) {
+        return symbolRecordsCounts[symbolId];
+    }
+
+    public long getFirstTimestamp(int symbolId) {
+        return symbolFirstTimestamps[symbolId];
+    }
+
+    public long getLastTimestamp(int symbolId) {
+        return symbolLastTimestamps[symbolId];
+    }
+
+    // Blocks of records the per-symbol forEach visits
+    public long getSymbolBlocksCount(int symbolId) {
+        var blockRanges = symbolBlockRanges[symbolId];
+        long blocksCount = 0;
+        for (int i = 0; i < blockRanges.length; i += 2) {
+            blocksCount += blockRanges[i + 1] - blockRanges[i] + 1;
+        }
+        return blocksCount;
+    }
+
+    public void forEach(TickConsumer tickConsumer) {
+        for (var chunkBuffer : chunkBuffers) {
+            int limit = chunkBuffer.limit();
+            for (int position = 0; position < limit; position += RECORD_SIZE) {
+                tickConsumer.accept(
+                        Short.toUnsignedInt(chunkBuffer.getShort(position + SYMBOL_ID_OFFSET)),
+                        chunkBuffer.getLong(position + TIMESTAMP_OFFSET),
+                        chunkBuffer.getInt(position + PRICE_OFFSET),
+                        chunkBuffer.get(position + SCALE_OFFSET));
+            }
+        }
+    }
+
+    // Seeks to the blocks holding the symbol's records and stops right after its last tick
+    public void forEach(int symbolId, TickConsumer tickConsumer) {
+        var blockRanges = symbolBlockRanges[symbolId];
+        long remainingRecordsCount = symbolRecordsCounts[symbolId];
+        for (int i = 0; i < blockRanges.length && remainingRecordsCount > 0; i += 2) {
+            long fromRecord = blockRanges[i] * blockRecordsCount;
+            long toRecord = Math.min((blockRanges[i + 1] + 1) * blockRecordsCount, recordsCount);
+            remainingRecordsCount = forEach(symbolId, fromRecord, toRecord, remainingRecordsCount, tickConsumer);
+        }
+    }
+
+    public long replay(Consumer<Quote> sink) {
+        forEach((symbolId, epochMillis, unscaledPrice, scale) -> sink.accept(Quote.builder()
+                .symbol(symbols[symbolId])
+                .newPrice(BigDecimal.valueOf(unscaledPrice, scale))
+                .unixTimeStamp(epochMillis)
+                .build()));
+        return recordsCount;
+    }
+
+    private long forEach(int symbolId, long fromRecord, long toRecord, long remainingRecordsCount, TickConsumer tickConsumer) {
+        long record = fromRecord;
+        while (record < toRecord && remainingRecordsCount > 0) {
+            int chunkIndex = (int) (record / CHUNK_RECORDS_COUNT);
+            var chunkBuffer = chunkBuffers[chunkIndex];
+            long chunkFromRecord = chunkIndex * CHUNK_RECORDS_COUNT;
+            long chunkToRecord = Math.min(toRecord, chunkFromRecord + CHUNK_RECORDS_COUNT);
+            for (; record < chunkToRecord && remainingRecordsCount > 0; record++) {
+                int position = (int) (record - chunkFromRecord) * RECORD_SIZE;
+                if (Short.toUnsignedInt(chunkBuffer.getShort(position + SYMBOL_ID_OFFSET)) == symbolId) {
+                    tickConsumer.accept(symbolId,
+                            chunkBuffer.getLong(position + TIMESTAMP_OFFSET),
+                            chunkBuffer.getInt(position + PRICE_OFFSET),
+                            chunkBuffer.get(position + SCALE_OFFSET));
+                    remainingRecordsCount--;
+                }
+            }
+        }
+        return remainingRecordsCount;
+    }
+
+    private static long[] readBlockRanges(MappedByteBuffer indexBuffer, int blockRangesPosition, int blockRangesCount) {
+        var blockRanges = new long[2 * blockRangesCount];
+        for (int i = 0; i < blockRangesCount; i++) {
+            int position = blockRangesPosition + i * BLOCK_RANGE_SIZE;
+            blockRanges[2 * i] = indexBuffer.getLong(position + BLOCK_RANGE_FIRST_BLOCK_OFFSET);
+            blockRanges[2 * i + 1] = indexBuffer.getLong(position + BLOCK_RANGE_LAST_BLOCK_OFFSET);
+        }
+        return blockRanges;
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+
+    private static void validateHeader(MappedByteBuffer headerBuffer) throws IOException {
+        if (headerBuffer.getInt(MAGIC_OFFSET) != MAGIC) {
+            throw new IOException("Not a tick file");
+        }
+        if (headerBuffer.getShort(VERSION_OFFSET) != VERSION || headerBuffer.getShort(RECORD_SIZE_OFFSET) != RECORD_SIZE) {
+            throw new IOException("Unsupported tick file version " + headerBuffer.getShort(VERSION_OFFSET));
+        }
+    }
+}
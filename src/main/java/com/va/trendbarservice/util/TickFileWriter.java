@@ -0,0 +1,177 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static com.va.trendbarservice.util.TickFile.*;
+
+
+// Writes a tick file through memory-mapped chunks, write(symbolId, ...) only allocates when a symbol's block ranges grow.
+// The symbol index, the block ranges and the final header are written on close(); a file that was never closed is rejected by the reader.
+@Slf4j
+public class TickFileWriter implements Closeable {
+
+    private final Path path;
+    private final long chunkSize;
+    private final FileChannel fileChannel;
+    private final List<Symbol> symbols = new ArrayList<>();
+    private final Map<Symbol, Integer> symbolIdsMap = new HashMap<>();
+
+    private MappedByteBuffer chunkBuffer;
+    private long chunkIndex = -1;
+    @Getter
+    private long recordsCount;
+    private long[] symbolRecordsCounts = new long[16];
+    private long[] symbolFirstTimestamps = new long[16];
+    private long[] symbolLastTimestamps = new long[16];
+    // Per symbol pairs of first and last block, adjacent blocks extend the last pair
+    private long[][] symbolBlockRanges = new long[16][];
+    private int[] symbolBlockRangesCounts = new int[16];
+
+    public TickFileWriter(Path path, int chunkRecordsCount) {
+        this.path = path;
+        this.chunkSize = (long) chunkRecordsCount * RECORD_SIZE;
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            fileChannel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create tick file " + path, e);
+        }
+    }
+
+    public int registerSymbol(Symbol symbol) {
+        var symbolId = symbolIdsMap.get(symbol);
+        if (symbolId != null) {
+            return symbolId;
+        }
+        if (symbols.size() == MAX_SYMBOLS_COUNT) {
+            throw new IllegalStateException("Tick file supports at most " + MAX_SYMBOLS_COUNT + " symbols");
+        }
+        symbolId = symbols.size();
+        symbols.add(symbol);
+        symbolIdsMap.put(symbol, symbolId);
+        if (symbolId == symbolRecordsCounts.length) {
+            symbolRecordsCounts = Arrays.copyOf(symbolRecordsCounts, symbolId * 2);
+            symbolFirstTimestamps = Arrays.copyOf(symbolFirstTimestamps, symbolId * 2);
+            symbolLastTimestamps = Arrays.copyOf(symbolLastTimestamps, symbolId * 2);
+            symbolBlockRanges = Arrays.copyOf(symbolBlockRanges, symbolId * 2);
+            symbolBlockRangesCounts = Arrays.copyOf(symbolBlockRangesCounts, symbolId * 2);
+        }
+        symbolBlockRanges[symbolId] = new long[8];
+        return symbolId;
+    }
+
+    public void write(Quote quote) {
+        var price = quote.getNewPrice();
+        write(registerSymbol(quote.getSymbol()), quote.getUnixTimeStamp(), price.unscaledValue().longValueExact(), price.scale());
+    }
+
+    public void write(int symbolId, long epochMillis, long unscaledPrice, int scale) {
+        if (unscaledPrice < Integer.MIN_VALUE || unscaledPrice > Integer.MAX_VALUE || scale < 0 || scale > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Price " + unscaledPrice + "E-" + scale + " does not fit a tick record");
+        }
+        long recordOffset = recordsCount * RECORD_SIZE;
+        long recordChunkIndex = recordOffset / chunkSize;
+        if (recordChunkIndex != chunkIndex) {
+            chunkBuffer = mapChunk(recordChunkIndex);
+            chunkIndex = recordChunkIndex;
+        }
+        int position = (int) (recordOffset - recordChunkIndex * chunkSize);
+        chunkBuffer.putLong(position + TIMESTAMP_OFFSET, epochMillis);
+        chunkBuffer.putInt(position + PRICE_OFFSET, (int) unscaledPrice);
+        chunkBuffer.putShort(position + SYMBOL_ID_OFFSET, (short) symbolId);
+        chunkBuffer.put(position + SCALE_OFFSET, (byte) scale);
+
+        if (symbolRecordsCounts[symbolId]++ == 0) {
+            symbolFirstTimestamps[symbolId] = epochMillis;
+        }
+        symbolLastTimestamps[symbolId] = epochMillis;
+        addBlock(symbolId, recordsCount / BLOCK_RECORDS_COUNT);
+        recordsCount++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        long indexOffset = HEADER_SIZE + recordsCount * RECORD_SIZE;
+        int blockRangesCount = 0;
+        for (int symbolId = 0; symbolId < symbols.size(); symbolId++) {
+            blockRangesCount += symbolBlockRangesCounts[symbolId];
+        }
+        int blockRangesPosition = symbols.size() * INDEX_ENTRY_SIZE;
+        var indexBuffer = ByteBuffer.allocate(blockRangesPosition + blockRangesCount * BLOCK_RANGE_SIZE);
+        for (int symbolId = 0; symbolId < symbols.size(); symbolId++) {
+            int position = symbolId * INDEX_ENTRY_SIZE;
+            putSymbolCode(indexBuffer, position, symbols.get(symbolId));
+            indexBuffer.putLong(position + INDEX_RECORDS_COUNT_OFFSET, symbolRecordsCounts[symbolId]);
+            indexBuffer.putLong(position + INDEX_FIRST_TIMESTAMP_OFFSET, symbolFirstTimestamps[symbolId]);
+            indexBuffer.putLong(position + INDEX_LAST_TIMESTAMP_OFFSET, symbolLastTimestamps[symbolId]);
+            indexBuffer.putLong(position + INDEX_BLOCK_RANGES_OFFSET_OFFSET, indexOffset + blockRangesPosition);
+            indexBuffer.putLong(position + INDEX_BLOCK_RANGES_COUNT_OFFSET, symbolBlockRangesCounts[symbolId]);
+            var blockRanges = symbolBlockRanges[symbolId];
+            for (int i = 0; i < symbolBlockRangesCounts[symbolId]; i++) {
+                indexBuffer.putLong(blockRangesPosition + BLOCK_RANGE_FIRST_BLOCK_OFFSET, blockRanges[2 * i]);
+                indexBuffer.putLong(blockRangesPosition + BLOCK_RANGE_LAST_BLOCK_OFFSET, blockRanges[2 * i + 1]);
+                blockRangesPosition += BLOCK_RANGE_SIZE;
+            }
+        }
+        var headerBuffer = ByteBuffer.allocate(HEADER_SIZE);
+        headerBuffer.putInt(MAGIC_OFFSET, MAGIC);
+        headerBuffer.putShort(VERSION_OFFSET, VERSION);
+        headerBuffer.putShort(RECORD_SIZE_OFFSET, (short) RECORD_SIZE);
+        headerBuffer.putLong(RECORDS_COUNT_OFFSET, recordsCount);
+        headerBuffer.putInt(SYMBOLS_COUNT_OFFSET, symbols.size());
+        headerBuffer.putLong(INDEX_OFFSET_OFFSET, indexOffset);
+        headerBuffer.putInt(BLOCK_RECORDS_COUNT_OFFSET, BLOCK_RECORDS_COUNT);
+
+        if (chunkBuffer != null) {
+            chunkBuffer.force();
+        }
+        fileChannel.write(indexBuffer, indexOffset);
+        fileChannel.truncate(indexOffset + indexBuffer.capacity());
+        fileChannel.write(headerBuffer, 0);
+        fileChannel.force(true);
+        fileChannel.close();
+        log.info("Closed tick file {} with {} ticks of {} symbols", path, recordsCount, symbols.size());
+    }
+
+    private void addBlock(int symbolId, long block) {
+        var blockRanges = symbolBlockRanges[symbolId];
+        int blockRangesCount = symbolBlockRangesCounts[symbolId];
+        if (blockRangesCount > 0 && blockRanges[2 * blockRangesCount - 1] >= block - 1) {
+            blockRanges[2 * blockRangesCount - 1] = block;
+            return;
+        }
+        if (2 * blockRangesCount == blockRanges.length) {
+            blockRanges = Arrays.copyOf(blockRanges, blockRanges.length * 2);
+            symbolBlockRanges[symbolId] = blockRanges;
+        }
+        blockRanges[2 * blockRangesCount] = block;
+        blockRanges[2 * blockRangesCount + 1] = block;
+        symbolBlockRangesCounts[symbolId] = blockRangesCount + 1;
+    }
+
+    private MappedByteBuffer mapChunk(long index) {
+        try {
+            if (chunkBuffer != null) {
+                chunkBuffer.force();
+            }
+            return fileChannel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + index * chunkSize, chunkSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map tick file chunk " + index, e);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.BidAskTrendBar;
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.TrendBar;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarStatus;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+
+// Open and close are picked by quote timestamp rather than arrival order, so partials built
+// from disjoint slices of the same bar merge to the same OHLC in any order, bid and ask included
+@Getter
+public class TrendBarAccumulator {
+
+    private final TrendBar trendBar;
+
+    private BigDecimal openPrice;
+    private long openTimestamp = Long.MAX_VALUE;
+    private BigDecimal closePrice;
+    private long closeTimestamp = Long.MIN_VALUE;
+    private BigDecimal highPrice;
+    private BigDecimal lowPrice;
+    private long quotesCount;
+    private long ticksCount;
+    private BigDecimal volume;
+    private BigDecimal turnover;
+    private BidAskTrendBar bidAsk;
+
+    public TrendBarAccumulator(TrendBar trendBar) {
+        this.trendBar = trendBar;
+    }
+
+    public void add(Quote quote) {
+        long unixTimeStamp = quote.getUnixTimeStamp();
+        boolean isEarliest = quote.getFirstUnixTimeStamp() < openTimestamp;
+        boolean isLatest = unixTimeStamp >= closeTimestamp;
+        bidAsk = BidAskTrendBar.aggregate(bidAsk, quote, isEarliest, isLatest);
+        if (isEarliest) {
+            openPrice = quote.getFirstPrice();
+            openTimestamp = quote.getFirstUnixTimeStamp();
+        }
+        if (isLatest) {
+            closePrice = quote.getNewPrice();
+            closeTimestamp = unixTimeStamp;
+        }
+        updateHighAndLow(quote.getHighPrice(), quote.getLowPrice());
+        addVolume(quote.getSize(), quote.getTurnover());
+        ticksCount += quote.getTicksCount();
+        quotesCount++;
+    }
+
+    public TrendBarAccumulator merge(TrendBarAccumulator other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        boolean isOtherEarlier = other.openTimestamp < openTimestamp;
+        boolean isOtherLater = other.closeTimestamp >= closeTimestamp;
+        if (other.bidAsk != null) {
+            bidAsk = bidAsk == null ? other.bidAsk.copy() : bidAsk.merge(other.bidAsk, isOtherEarlier, isOtherLater);
+        }
+        if (isOtherEarlier) {
+            openPrice = other.openPrice;
+            openTimestamp = other.openTimestamp;
+        }
+        if (isOtherLater) {
+            closePrice = other.closePrice;
+            closeTimestamp = other.closeTimestamp;
+        }
+        updateHighAndLow(other.highPrice, other.lowPrice);
+        addVolume(other.volume, other.turnover);
+        ticksCount += other.ticksCount;
+        quotesCount += other.quotesCount;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return quotesCount == 0;
+    }
+
+    public TrendBarEntity toCompletedTrendBarEntity() {
+        return TrendBarEntity.builder()
+                .symbol(trendBar.trendBarKey().symbol())
+                .period(trendBar.trendBarKey().trendBarPeriod())
+                .timestamp(trendBar.startOfPeriod().toEpochMilli())
+                .openPrice(openPrice)
+                .highPrice(highPrice)
+                .lowPrice(lowPrice)
+                .closePrice(closePrice)
+                .status(TrendBarStatus.COMPLETED)
+                .ticksCount(ticksCount)
+                .firstQuoteTimestamp(openTimestamp)
+                .lastQuoteTimestamp(closeTimestamp)
+                .volume(volume)
+                .turnover(turnover)
+                .vwap(TrendBarUtils.getVwap(volume, turnover))
+                .bidAsk(bidAsk)
+                .build();
+    }
+
+    private void addVolume(BigDecimal otherVolume, BigDecimal otherTurnover) {
+        if (otherVolume != null) {
+            volume = volume == null ? otherVolume : volume.add(otherVolume);
+            turnover = turnover == null ? otherTurnover : turnover.add(otherTurnover);
+        }
+    }
+
+    private void updateHighAndLow(BigDecimal otherHighPrice, BigDecimal otherLowPrice) {
+        if (highPrice == null || otherHighPrice.compareTo(highPrice) > 0) {
+            highPrice = otherHighPrice;
+        }
+        if (lowPrice == null || otherLowPrice.compareTo(lowPrice) < 0) {
+            lowPrice = otherLowPrice;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.TrendBar;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static com.va.trendbarservice.util.TrendBarUtils.getStartOfPeriod;
+import static com.va.trendbarservice.util.TrendBarUtils.isTimestampInPeriod;
+
+
+// Aggregates one slice of a single symbol's quotes in source order under the sequential backfill rule: a quote older
+// than the open bar of a period is skipped for that period. The open bar is always the bar of the newest quote seen so
+// far, so a slice only needs the newest timestamp before it to carry on where the previous slice stopped, and partials
+// of one bar spread over several slices merge to the same bar
+public class TrendBarAggregationTask implements Callable<Map<TrendBar, TrendBarAccumulator>> {
+
+    private static final TrendBarPeriod[] TREND_BAR_PERIODS = TrendBarPeriod.values();
+
+    private final List<Quote> quotesSlice;
+    private final long lastUnixTimeStamp;
+    @Getter
+    private long skippedQuotesCount;
+
+    public TrendBarAggregationTask(List<Quote> quotesSlice, long lastUnixTimeStamp) {
+        this.quotesSlice = quotesSlice;
+        this.lastUnixTimeStamp = lastUnixTimeStamp;
+    }
+
+    @Override
+    public Map<TrendBar, TrendBarAccumulator> call() {
+        Map<TrendBar, TrendBarAccumulator> accumulatorsMap = new HashMap<>();
+        var openAccumulators = new TrendBarAccumulator[TREND_BAR_PERIODS.length];
+        long newestUnixTimeStamp = lastUnixTimeStamp;
+        for (var quote : quotesSlice) {
+            long unixTimeStamp = quote.getUnixTimeStamp();
+            newestUnixTimeStamp = Math.max(newestUnixTimeStamp, unixTimeStamp);
+            for (int i = 0; i < TREND_BAR_PERIODS.length; i++) {
+                var accumulator = openAccumulators[i];
+                if (accumulator == null || !isTimestampInPeriod(unixTimeStamp, accumulator.getTrendBar())) {
+                    var startOfPeriod = getStartOfPeriod(Instant.ofEpochMilli(unixTimeStamp), TREND_BAR_PERIODS[i]);
+                    if (startOfPeriod.isBefore(getStartOfPeriod(Instant.ofEpochMilli(newestUnixTimeStamp), TREND_BAR_PERIODS[i]))) {
+                        skippedQuotesCount++;
+                        continue;
+                    }
+                    var trendBar = new TrendBar(new TrendBarKey(quote.getSymbol(), TREND_BAR_PERIODS[i]), startOfPeriod);
+                    accumulator = accumulatorsMap.computeIfAbsent(trendBar, TrendBarAccumulator::new);
+                    openAccumulators[i] = accumulator;
+                }
+                accumulator.add(quote);
+            }
+        }
+        return accumulatorsMap;
+    }
+}
@@ -0,0 +1,263 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Layout: magic, version, createdAt, journal position, then open bars, queued quotes and amendable bars, each section
+// prefixed with its entry count. A checkpoint of any other version is rejected
+public class TrendBarCheckpointCodec {
+
+    public static final int MAGIC = 0x54424350; // "TBCP"
+    public static final short VERSION = 1;
+
+    private static final TrendBarPeriod[] TREND_BAR_PERIODS = TrendBarPeriod.values();
+    private static final TrendBarStatus[] TREND_BAR_STATUSES = TrendBarStatus.values();
+
+    private TrendBarCheckpointCodec() {
+    }
+
+    public static void write(TrendBarCheckpoint trendBarCheckpoint, OutputStream outputStream) throws IOException {
+        var out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeLong(trendBarCheckpoint.createdAtMillis());
+        out.writeLong(trendBarCheckpoint.journalPosition());
+
+        writeTrendBarEntities(out, trendBarCheckpoint.openTrendBarEntities());
+
+        out.writeInt(trendBarCheckpoint.queuedQuotes().size());
+        for (var entry : trendBarCheckpoint.queuedQuotes().entrySet()) {
+            writeTrendBarKey(out, entry.getKey());
+            out.writeInt(entry.getValue().size());
+            for (var quote : entry.getValue()) {
+                writeQuote(out, quote);
+            }
+        }
+
+        writeTrendBarEntities(out, trendBarCheckpoint.amendableTrendBarEntities());
+        out.flush();
+    }
+
+    public static TrendBarCheckpoint read(InputStream inputStream) throws IOException {
+        var in = new DataInputStream(new BufferedInputStream(inputStream));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a trend bar checkpoint");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported trend bar checkpoint version: " + version);
+        }
+        long createdAtMillis = in.readLong();
+        long journalPosition = in.readLong();
+
+        Map<TrendBar, TrendBarEntity> openTrendBarEntities = readTrendBarEntities(in);
+
+        int queuesCount = in.readInt();
+        Map<TrendBarKey, List<Quote>> queuedQuotes = new HashMap<>();
+        for (int i = 0; i < queuesCount; i++) {
+            var trendBarKey = readTrendBarKey(in);
+            int quotesCount = in.readInt();
+            List<Quote> quotes = new ArrayList<>(quotesCount);
+            for (int j = 0; j < quotesCount; j++) {
+                quotes.add(readQuote(in, trendBarKey.symbol()));
+            }
+            queuedQuotes.put(trendBarKey, quotes);
+        }
+        Map<TrendBar, TrendBarEntity> amendableTrendBarEntities = readTrendBarEntities(in);
+        return new TrendBarCheckpoint(createdAtMillis, journalPosition, openTrendBarEntities, queuedQuotes, amendableTrendBarEntities);
+    }
+
+    private static void writeTrendBarEntities(DataOutputStream out, Map<TrendBar, TrendBarEntity> trendBarEntities) throws IOException {
+        out.writeInt(trendBarEntities.size());
+        for (var entry : trendBarEntities.entrySet()) {
+            writeTrendBar(out, entry.getKey());
+            writeTrendBarEntity(out, entry.getValue());
+        }
+    }
+
+    private static Map<TrendBar, TrendBarEntity> readTrendBarEntities(DataInputStream in) throws IOException {
+        int trendBarsCount = in.readInt();
+        Map<TrendBar, TrendBarEntity> trendBarEntities = new HashMap<>();
+        for (int i = 0; i < trendBarsCount; i++) {
+            trendBarEntities.put(readTrendBar(in), readTrendBarEntity(in));
+        }
+        return trendBarEntities;
+    }
+
+    private static void writeTrendBar(DataOutputStream out, TrendBar trendBar) throws IOException {
+        writeTrendBarKey(out, trendBar.trendBarKey());
+        out.writeLong(trendBar.startOfPeriod().toEpochMilli());
+    }
+
+    private static TrendBar readTrendBar(DataInputStream in) throws IOException {
+        return new TrendBar(readTrendBarKey(in), Instant.ofEpochMilli(in.readLong()));
+    }
+
+    private static void writeTrendBarKey(DataOutputStream out, TrendBarKey trendBarKey) throws IOException {
+        writeSymbol(out, trendBarKey.symbol());
+        out.writeByte(trendBarKey.trendBarPeriod().ordinal());
+    }
+
+    private static TrendBarKey readTrendBarKey(DataInputStream in) throws IOException {
+        return new TrendBarKey(readSymbol(in), TREND_BAR_PERIODS[in.readByte()]);
+    }
+
+    private static void writeSymbol(DataOutputStream out, Symbol symbol) throws IOException {
+        out.writeUTF(symbol.baseCurrency().getCurrencyCode());
+        out.writeUTF(symbol.quoteCurrency().getCurrencyCode());
+    }
+
+    private static Symbol readSymbol(DataInputStream in) throws IOException {
+        return Symbol.builder()
+                .baseCurrency(Currency.getInstance(in.readUTF()))
+                .quoteCurrency(Currency.getInstance(in.readUTF()))
+                .build();
+    }
+
+    private static void writeTrendBarEntity(DataOutputStream out, TrendBarEntity trendBarEntity) throws IOException {
+        writeSymbol(out, trendBarEntity.getSymbol());
+        out.writeByte(trendBarEntity.getPeriod().ordinal());
+        out.writeLong(trendBarEntity.getTimestamp());
+        out.writeByte(trendBarEntity.getStatus().ordinal());
+        writeBigDecimal(out, trendBarEntity.getOpenPrice());
+        writeBigDecimal(out, trendBarEntity.getHighPrice());
+        writeBigDecimal(out, trendBarEntity.getLowPrice());
+        writeBigDecimal(out, trendBarEntity.getClosePrice());
+        out.writeLong(trendBarEntity.getTicksCount());
+        out.writeLong(trendBarEntity.getFirstQuoteTimestamp());
+        out.writeLong(trendBarEntity.getLastQuoteTimestamp());
+        writeBigDecimal(out, trendBarEntity.getVolume());
+        writeBigDecimal(out, trendBarEntity.getTurnover());
+        writeBidAsk(out, trendBarEntity.getBidAsk());
+        out.writeLong(trendBarEntity.getLastQuoteSequence());
+    }
+
+    private static TrendBarEntity readTrendBarEntity(DataInputStream in) throws IOException {
+        var trendBarEntity = TrendBarEntity.builder()
+                .symbol(readSymbol(in))
+                .period(TREND_BAR_PERIODS[in.readByte()])
+                .timestamp(in.readLong())
+                .status(TREND_BAR_STATUSES[in.readByte()])
+                .openPrice(readBigDecimal(in))
+                .highPrice(readBigDecimal(in))
+                .lowPrice(readBigDecimal(in))
+                .closePrice(readBigDecimal(in))
+                .ticksCount(in.readLong())
+                .firstQuoteTimestamp(in.readLong())
+                .lastQuoteTimestamp(in.readLong())
+                .volume(readBigDecimal(in))
+                .turnover(readBigDecimal(in))
+                .bidAsk(readBidAsk(in))
+                .lastQuoteSequence(in.readLong())
+                .build();
+        trendBarEntity.setVwap(TrendBarUtils.getVwap(trendBarEntity.getVolume(), trendBarEntity.getTurnover()));
+        return trendBarEntity;
+    }
+
+    // Symbol is taken from the enclosing key, conflated aggregates are kept so the restored bar stays exact
+    private static void writeQuote(DataOutputStream out, Quote quote) throws IOException {
+        out.writeLong(quote.getUnixTimeStamp());
+        writeBigDecimal(out, quote.getNewPrice());
+        writeBigDecimal(out, quote.getFirstPrice() == quote.getNewPrice() ? null : quote.getFirstPrice());
+        writeBigDecimal(out, quote.getHighPrice() == quote.getNewPrice() ? null : quote.getHighPrice());
+        writeBigDecimal(out, quote.getLowPrice() == quote.getNewPrice() ? null : quote.getLowPrice());
+        out.writeLong(quote.getFirstUnixTimeStamp());
+        out.writeInt(quote.getTicksCount());
+        writeBigDecimal(out, quote.getSize());
+        writeBigDecimal(out, quote.getTurnover());
+        writeBigDecimal(out, quote.getBidPrice());
+        writeBigDecimal(out, quote.getAskPrice());
+        writeBidAsk(out, quote.getBidAsk());
+        out.writeLong(quote.getJournalSequence());
+    }
+
+    private static Quote readQuote(DataInputStream in, Symbol symbol) throws IOException {
+        return Quote.builder()
+                .symbol(symbol)
+                .unixTimeStamp(in.readLong())
+                .newPrice(readBigDecimal(in))
+                .firstPrice(readBigDecimal(in))
+                .highPrice(readBigDecimal(in))
+                .lowPrice(readBigDecimal(in))
+                .firstUnixTimeStamp(in.readLong())
+                .ticksCount(in.readInt())
+                .size(readBigDecimal(in))
+                .turnover(readBigDecimal(in))
+                .bidPrice(readBigDecimal(in))
+                .askPrice(readBigDecimal(in))
+                .bidAsk(readBidAsk(in))
+                .journalSequence(in.readLong())
+                .build();
+    }
+
+    // Presence flag, then the eight side prices, the spread statistics and the quotes count
+    private static void writeBidAsk(DataOutputStream out, BidAskTrendBar bidAsk) throws IOException {
+        out.writeBoolean(bidAsk != null);
+        if (bidAsk == null) {
+            return;
+        }
+        writeBigDecimal(out, bidAsk.getBidOpenPrice());
+        writeBigDecimal(out, bidAsk.getBidHighPrice());
+        writeBigDecimal(out, bidAsk.getBidLowPrice());
+        writeBigDecimal(out, bidAsk.getBidClosePrice());
+        writeBigDecimal(out, bidAsk.getAskOpenPrice());
+        writeBigDecimal(out, bidAsk.getAskHighPrice());
+        writeBigDecimal(out, bidAsk.getAskLowPrice());
+        writeBigDecimal(out, bidAsk.getAskClosePrice());
+        writeBigDecimal(out, bidAsk.getSpreadMin());
+        writeBigDecimal(out, bidAsk.getSpreadMax());
+        writeBigDecimal(out, bidAsk.getSpreadSum());
+        out.writeLong(bidAsk.getQuotesCount());
+    }
+
+    private static BidAskTrendBar readBidAsk(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        return BidAskTrendBar.builder()
+                .bidOpenPrice(readBigDecimal(in))
+                .bidHighPrice(readBigDecimal(in))
+                .bidLowPrice(readBigDecimal(in))
+                .bidClosePrice(readBigDecimal(in))
+                .askOpenPrice(readBigDecimal(in))
+                .askHighPrice(readBigDecimal(in))
+                .askLowPrice(readBigDecimal(in))
+                .askClosePrice(readBigDecimal(in))
+                .spreadMin(readBigDecimal(in))
+                .spreadMax(readBigDecimal(in))
+                .spreadSum(readBigDecimal(in))
+                .quotesCount(in.readLong())
+                .build();
+    }
+
+    // Unscaled value as length-prefixed bytes, a zero length marks null
+    private static void writeBigDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] unscaledValue = value.unscaledValue().toByteArray();
+        out.writeByte(unscaledValue.length);
+        out.write(unscaledValue);
+        out.writeByte(value.scale());
+    }
+
+    private static BigDecimal readBigDecimal(DataInputStream in) throws IOException {
+        int length = in.readUnsignedByte();
+        if (length == 0) {
+            return null;
+        }
+        byte[] unscaledValue = new byte[length];
+        in.readFully(unscaledValue);
+        return new BigDecimal(new BigInteger(unscaledValue), in.readByte());
+    }
+}
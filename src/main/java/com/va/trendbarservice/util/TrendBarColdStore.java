@@ -0,0 +1,108 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarPeriod;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.va.trendbarservice.util.TrendBarPartitioning.getPartitionEnd;
+
+
+// Immutable segment files laid out as <root>/<period>/<partitionStart>/<symbol>.seg, one directory per partition
+// window so expiring a window removes one directory. Files are written to a temporary name and moved into place,
+// readers only ever see complete segments
+public class TrendBarColdStore {
+
+    private static final String SEGMENT_FILE_SUFFIX = ".seg";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private final Path rootPath;
+
+    public TrendBarColdStore(Path rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    public void write(Symbol symbol, TrendBarPeriod trendBarPeriod, long partitionStart, byte[] segment) {
+        var segmentPath = getSegmentPath(symbol, trendBarPeriod, partitionStart);
+        var temporaryPath = segmentPath.resolveSibling(segmentPath.getFileName() + TEMPORARY_FILE_SUFFIX);
+        try {
+            Files.createDirectories(segmentPath.getParent());
+            Files.write(temporaryPath, segment);
+            Files.move(temporaryPath, segmentPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<byte[]> read(Symbol symbol, TrendBarPeriod trendBarPeriod, long partitionStart) {
+        try {
+            return Optional.of(Files.readAllBytes(getSegmentPath(symbol, trendBarPeriod, partitionStart)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Only windows overlapping the range are opened, each segment is decoded lazily as the stream is pulled
+    public Stream<TrendBarEntity> streamTrendBars(Symbol symbol, TrendBarPeriod trendBarPeriod, long from, long to) {
+        return findPartitionStarts(trendBarPeriod).stream()
+                .filter(partitionStart -> partitionStart <= to && getPartitionEnd(trendBarPeriod, partitionStart) > from)
+                .flatMap(partitionStart -> read(symbol, trendBarPeriod, partitionStart).stream())
+                .flatMap(segment -> TrendBarSegmentCodec.stream(segment, from, to));
+    }
+
+    public List<Long> findPartitionStartsBefore(TrendBarPeriod trendBarPeriod, long before) {
+        return findPartitionStarts(trendBarPeriod).stream()
+                .filter(partitionStart -> partitionStart < before)
+                .toList();
+    }
+
+    public int deletePartition(TrendBarPeriod trendBarPeriod, long partitionStart) {
+        var partitionPath = rootPath.resolve(trendBarPeriod.name()).resolve(Long.toString(partitionStart));
+        if (!Files.isDirectory(partitionPath)) {
+            return 0;
+        }
+        try (Stream<Path> segmentPaths = Files.list(partitionPath)) {
+            int deletedCount = 0;
+            for (var segmentPath : segmentPaths.toList()) {
+                Files.delete(segmentPath);
+                deletedCount++;
+            }
+            Files.delete(partitionPath);
+            return deletedCount;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<Long> findPartitionStarts(TrendBarPeriod trendBarPeriod) {
+        var periodPath = rootPath.resolve(trendBarPeriod.name());
+        if (!Files.isDirectory(periodPath)) {
+            return List.of();
+        }
+        try (Stream<Path> partitionPaths = Files.list(periodPath)) {
+            return partitionPaths
+                    .map(partitionPath -> Long.parseLong(partitionPath.getFileName().toString()))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path getSegmentPath(Symbol symbol, TrendBarPeriod trendBarPeriod, long partitionStart) {
+        return rootPath.resolve(trendBarPeriod.name())
+                .resolve(Long.toString(partitionStart))
+                .resolve(symbol + SEGMENT_FILE_SUFFIX);
+    }
+}
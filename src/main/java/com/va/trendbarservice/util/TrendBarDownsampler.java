@@ -0,0 +1,75 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.DownsampledTrendBar;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarEntity;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Consumer;
+
+
+// Merges finer bars ordered by timestamp into coarser ones, holding only the bucket being built.
+// Weekly multiples are aligned to Monday 00:00 UTC, every other target period to the epoch
+public class TrendBarDownsampler {
+
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+    private static final long MILLIS_PER_WEEK = Duration.ofDays(7).toMillis();
+    private static final long FIRST_MONDAY_EPOCH_MILLIS = 4 * MILLIS_PER_DAY;
+
+    private final Duration targetPeriod;
+    private final Consumer<DownsampledTrendBar> downstream;
+
+    private Symbol symbol;
+    private long startOfBucket = Long.MIN_VALUE;
+    private BigDecimal openPrice;
+    private BigDecimal highPrice;
+    private BigDecimal lowPrice;
+    private BigDecimal closePrice;
+    private int sourceTrendBarsCount;
+
+    public TrendBarDownsampler(Duration targetPeriod, Consumer<DownsampledTrendBar> downstream) {
+        this.targetPeriod = targetPeriod;
+        this.downstream = downstream;
+    }
+
+    public static long getStartOfBucket(long unixTimeStamp, Duration targetPeriod) {
+        long targetPeriodMillis = targetPeriod.toMillis();
+        long alignmentMillis = targetPeriodMillis % MILLIS_PER_WEEK == 0 ? FIRST_MONDAY_EPOCH_MILLIS : 0;
+        return Math.floorDiv(unixTimeStamp - alignmentMillis, targetPeriodMillis) * targetPeriodMillis + alignmentMillis;
+    }
+
+    public void add(TrendBarEntity trendBarEntity) {
+        long startOfTrendBarBucket = getStartOfBucket(trendBarEntity.getTimestamp(), targetPeriod);
+        if (startOfTrendBarBucket != startOfBucket) {
+            finish();
+            symbol = trendBarEntity.getSymbol();
+            startOfBucket = startOfTrendBarBucket;
+            openPrice = trendBarEntity.getOpenPrice();
+            highPrice = trendBarEntity.getHighPrice();
+            lowPrice = trendBarEntity.getLowPrice();
+        } else {
+            highPrice = highPrice.max(trendBarEntity.getHighPrice());
+            lowPrice = lowPrice.min(trendBarEntity.getLowPrice());
+        }
+        closePrice = trendBarEntity.getClosePrice();
+        sourceTrendBarsCount++;
+    }
+
+    public void finish() {
+        if (sourceTrendBarsCount == 0) {
+            return;
+        }
+        downstream.accept(DownsampledTrendBar.builder()
+                .symbol(symbol)
+                .period(targetPeriod)
+                .timestamp(startOfBucket)
+                .openPrice(openPrice)
+                .highPrice(highPrice)
+                .lowPrice(lowPrice)
+                .closePrice(closePrice)
+                .sourceTrendBarsCount(sourceTrendBarsCount)
+                .build());
+        sourceTrendBarsCount = 0;
+    }
+}
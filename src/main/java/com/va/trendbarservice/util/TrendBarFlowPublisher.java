@@ -0,0 +1,190 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.FlowOverflowPolicy;
+import com.va.trendbarservice.model.TrendBarEntity;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.va.trendbarservice.messages.ExceptionMessages.ERROR_FLOW_BUFFER_OVERFLOW;
+import static com.va.trendbarservice.messages.ExceptionMessages.ERROR_FLOW_DEMAND_NOT_POSITIVE;
+
+
+// Flow.Publisher of the bars of one key. Every subscriber gets a buffer of bufferCapacity bars that is drained on the
+// delivery executor only as far as its request(n) demand allows; when the buffer is full the overflow policy decides,
+// so submit() never blocks the aggregator and a stalled subscriber holds at most bufferCapacity bars
+@Slf4j
+public class TrendBarFlowPublisher implements Flow.Publisher<TrendBarEntity> {
+
+    private final Executor deliveryExecutor;
+    private final int bufferCapacity;
+    private final FlowOverflowPolicy overflowPolicy;
+    private final CopyOnWriteArrayList<TrendBarFlowSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    @Getter
+    private final LongAdder droppedCount = new LongAdder();
+    private volatile boolean isClosed;
+
+    public TrendBarFlowPublisher(Executor deliveryExecutor, int bufferCapacity, FlowOverflowPolicy overflowPolicy) {
+        this.deliveryExecutor = deliveryExecutor;
+        this.bufferCapacity = bufferCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super TrendBarEntity> subscriber) {
+        Objects.requireNonNull(subscriber);
+        var subscription = new TrendBarFlowSubscription(subscriber);
+        if (isClosed) {
+            subscription.complete();
+        } else {
+            subscriptions.add(subscription);
+        }
+        subscription.signal();
+    }
+
+    public void submit(TrendBarEntity trendBarEntity) {
+        for (var subscription : subscriptions) {
+            subscription.offer(trendBarEntity);
+        }
+    }
+
+    public boolean hasSubscribers() {
+        return !subscriptions.isEmpty();
+    }
+
+    public int getSubscribersCount() {
+        return subscriptions.size();
+    }
+
+    public void close() {
+        isClosed = true;
+        for (var subscription : subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    // Signals to the subscriber are serialized by the work-in-progress counter: only the thread that moves it
+    // from zero runs the drain, later signals just make that drain loop once more
+    private class TrendBarFlowSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super TrendBarEntity> subscriber;
+        private final Queue<TrendBarEntity> bufferedTrendBarEntities = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger bufferedCount = new AtomicInteger();
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicInteger workInProgress = new AtomicInteger();
+        private boolean isSubscribed;
+        private volatile boolean isCancelled;
+        private volatile boolean isCompleted;
+        private volatile Throwable error;
+
+        private TrendBarFlowSubscription(Flow.Subscriber<? super TrendBarEntity> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                fail(new IllegalArgumentException(ERROR_FLOW_DEMAND_NOT_POSITIVE + n));
+                return;
+            }
+            demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            signal();
+        }
+
+        @Override
+        public void cancel() {
+            isCancelled = true;
+            subscriptions.remove(this);
+            bufferedTrendBarEntities.clear();
+        }
+
+        private void offer(TrendBarEntity trendBarEntity) {
+            if (isCancelled || isCompleted) {
+                return;
+            }
+            if (bufferedCount.incrementAndGet() > bufferCapacity) {
+                droppedCount.increment();
+                switch (overflowPolicy) {
+                    case DROP_NEWEST -> {
+                        bufferedCount.decrementAndGet();
+                        return;
+                    }
+                    case DROP_OLDEST -> {
+                        if (bufferedTrendBarEntities.poll() != null) {
+                            bufferedCount.decrementAndGet();
+                        }
+                    }
+                    case CANCEL -> {
+                        bufferedCount.decrementAndGet();
+                        fail(new IllegalStateException(ERROR_FLOW_BUFFER_OVERFLOW + bufferCapacity));
+                        return;
+                    }
+                }
+            }
+            bufferedTrendBarEntities.offer(trendBarEntity);
+            signal();
+        }
+
+        private void complete() {
+            isCompleted = true;
+            signal();
+        }
+
+        private void fail(Throwable throwable) {
+            error = throwable;
+            subscriptions.remove(this);
+            signal();
+        }
+
+        private void signal() {
+            if (workInProgress.getAndIncrement() == 0) {
+                try {
+                    deliveryExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    workInProgress.set(0);
+                    log.warn("Delivery executor rejected flow delivery");
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (!isSubscribed) {
+                    isSubscribed = true;
+                    subscriber.onSubscribe(this);
+                }
+                long requested = demand.get();
+                long emitted = 0;
+                while (emitted != requested && !isCancelled && error == null) {
+                    var trendBarEntity = bufferedTrendBarEntities.poll();
+                    if (trendBarEntity == null) {
+                        break;
+                    }
+                    bufferedCount.decrementAndGet();
+                    subscriber.onNext(trendBarEntity);
+                    emitted++;
+                }
+                if (emitted > 0 && requested != Long.MAX_VALUE) {
+                    demand.addAndGet(-emitted);
+                }
+                if (!isCancelled && error != null) {
+                    isCancelled = true;
+                    bufferedTrendBarEntities.clear();
+                    subscriber.onError(error);
+                } else if (!isCancelled && isCompleted && bufferedTrendBarEntities.isEmpty()) {
+                    isCancelled = true;
+                    subscriptions.remove(this);
+                    subscriber.onComplete();
+                }
+                missed = workInProgress.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
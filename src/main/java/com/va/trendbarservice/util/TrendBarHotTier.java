@@ -0,0 +1,66 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+// Recent persisted bars per key ordered by timestamp. Writers and readers never lock each other: a put is one skip list
+// insert on the persisting thread, range reads are sub map views. Every bar at or after getHotFromMillis() is present,
+// older ones must be read from storage
+public class TrendBarHotTier {
+
+    private final ConcurrentMap<TrendBarKey, ConcurrentNavigableMap<Long, TrendBarEntity>> keyToTrendBarsMap = new ConcurrentHashMap<>();
+
+    // Nothing is served from memory until the tier has been loaded from storage
+    private volatile long hotFromMillis = Long.MAX_VALUE;
+
+    public void put(TrendBarEntity trendBarEntity) {
+        keyToTrendBarsMap.computeIfAbsent(new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod()),
+                        trendBarKey -> new ConcurrentSkipListMap<>())
+                .put(trendBarEntity.getTimestamp(), trendBarEntity);
+    }
+
+    public List<TrendBarEntity> getTrendBars(TrendBarKey trendBarKey, long from, long to) {
+        var trendBars = keyToTrendBarsMap.get(trendBarKey);
+        if (trendBars == null || from > to) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(trendBars.subMap(from, true, to, true).values());
+    }
+
+    public long getHotFromMillis() {
+        return hotFromMillis;
+    }
+
+    public void markLoadedFrom(long fromMillis) {
+        hotFromMillis = fromMillis;
+    }
+
+    // The boundary moves first and bars are dropped only below the previous boundary, so a reader that sampled the old
+    // boundary just before still finds its whole range; the lag costs one migration interval of extra bars
+    public int evictBefore(long cutoffMillis) {
+        long previousHotFromMillis = hotFromMillis;
+        if (previousHotFromMillis == Long.MAX_VALUE || cutoffMillis <= previousHotFromMillis) {
+            return 0;
+        }
+        hotFromMillis = cutoffMillis;
+        int evictedCount = 0;
+        for (var trendBars : keyToTrendBarsMap.values()) {
+            var evictedTrendBars = trendBars.headMap(previousHotFromMillis);
+            evictedCount += evictedTrendBars.size();
+            evictedTrendBars.clear();
+        }
+        return evictedCount;
+    }
+
+    public int size() {
+        return keyToTrendBarsMap.values().stream().mapToInt(ConcurrentNavigableMap::size).sum();
+    }
+}
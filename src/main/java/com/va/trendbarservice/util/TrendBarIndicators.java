@@ -0,0 +1,82 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.IndicatorType;
+import com.va.trendbarservice.model.TrendBarEntity;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+// Indicators of one (symbol, period) over the last windowSize completed bars, each bar costs O(1) per indicator.
+// SMA and ATR are reported once the window is full, EMA is seeded with the first full-window SMA;
+// ATR uses Wilder's smoothing after that seed, as the usual charting definitions do
+public class TrendBarIndicators {
+
+    private static final MathContext MATH_CONTEXT = MathContext.DECIMAL64;
+
+    private final int windowSize;
+    private final BigDecimal emaAlpha;
+    private final RollingWindow closePrices;
+    private final RollingWindow trueRanges;
+
+    private BigDecimal previousClosePrice;
+    private BigDecimal ema;
+    private BigDecimal atr;
+    @Getter
+    private long lastTimestamp;
+
+    public TrendBarIndicators(int windowSize) {
+        this.windowSize = windowSize;
+        this.emaAlpha = BigDecimal.valueOf(2).divide(BigDecimal.valueOf(windowSize + 1L), MATH_CONTEXT);
+        this.closePrices = new RollingWindow(windowSize);
+        this.trueRanges = new RollingWindow(windowSize);
+    }
+
+    public void update(TrendBarEntity trendBarEntity) {
+        var closePrice = trendBarEntity.getClosePrice();
+        closePrices.add(closePrice);
+        if (closePrices.isFull()) {
+            ema = ema == null
+                    ? closePrices.getAverage(MATH_CONTEXT)
+                    : ema.add(emaAlpha.multiply(closePrice.subtract(ema), MATH_CONTEXT), MATH_CONTEXT);
+        }
+
+        var trueRange = getTrueRange(trendBarEntity);
+        if (atr != null) {
+            atr = atr.multiply(BigDecimal.valueOf(windowSize - 1L)).add(trueRange).divide(BigDecimal.valueOf(windowSize), MATH_CONTEXT);
+        } else {
+            trueRanges.add(trueRange);
+            if (trueRanges.isFull()) {
+                atr = trueRanges.getAverage(MATH_CONTEXT);
+            }
+        }
+
+        previousClosePrice = closePrice;
+        lastTimestamp = trendBarEntity.getTimestamp();
+    }
+
+    public Map<IndicatorType, BigDecimal> getValues() {
+        Map<IndicatorType, BigDecimal> indicatorValues = new EnumMap<>(IndicatorType.class);
+        if (closePrices.isFull()) {
+            indicatorValues.put(IndicatorType.SMA, closePrices.getAverage(MATH_CONTEXT));
+            indicatorValues.put(IndicatorType.EMA, ema);
+        }
+        if (atr != null) {
+            indicatorValues.put(IndicatorType.ATR, atr);
+        }
+        return indicatorValues;
+    }
+
+    private BigDecimal getTrueRange(TrendBarEntity trendBarEntity) {
+        var highLowRange = trendBarEntity.getHighPrice().subtract(trendBarEntity.getLowPrice());
+        if (previousClosePrice == null) {
+            return highLowRange;
+        }
+        var highCloseRange = trendBarEntity.getHighPrice().subtract(previousClosePrice).abs();
+        var lowCloseRange = trendBarEntity.getLowPrice().subtract(previousClosePrice).abs();
+        return highLowRange.max(highCloseRange).max(lowCloseRange);
+    }
+}
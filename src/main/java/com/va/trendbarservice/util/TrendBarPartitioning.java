@@ -0,0 +1,48 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.TrendBarPeriod;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+
+// Bars are partitioned by period and a UTC time window: a day for M1, a calendar month for H1 and D1.
+// The window start is persisted as the partition key, so a database with native partitioning can attach
+// one partition per (period, window) and retention expires whole windows instead of scattered rows
+public class TrendBarPartitioning {
+
+    // Longest window, a bar at timestamp t always has partitionStart in (t - MAX_PARTITION_MILLIS, t]
+    public static final long MAX_PARTITION_MILLIS = 31L * 24 * 60 * 60 * 1000;
+
+    private TrendBarPartitioning() {
+    }
+
+    public static long getPartitionStart(TrendBarPeriod trendBarPeriod, long unixTimeStamp) {
+        var instant = Instant.ofEpochMilli(unixTimeStamp);
+        return switch (trendBarPeriod) {
+            case M1 -> instant.truncatedTo(ChronoUnit.DAYS).toEpochMilli();
+            case H1, D1 -> instant.atZone(ZoneOffset.UTC)
+                    .truncatedTo(ChronoUnit.DAYS)
+                    .with(TemporalAdjusters.firstDayOfMonth())
+                    .toInstant()
+                    .toEpochMilli();
+        };
+    }
+
+    // Exclusive lower bound on partitionStart for the bars at or after from; compared against the bare column so the
+    // (symbol, period, partitionStart) index can range-scan it, where partitionStart + MAX_PARTITION_MILLIS > from cannot
+    public static long getPartitionFrom(long from) {
+        return from > Long.MIN_VALUE + MAX_PARTITION_MILLIS ? from - MAX_PARTITION_MILLIS : Long.MIN_VALUE;
+    }
+
+    public static long getPartitionEnd(TrendBarPeriod trendBarPeriod, long partitionStart) {
+        var startOfPartition = Instant.ofEpochMilli(partitionStart);
+        return switch (trendBarPeriod) {
+            case M1 -> startOfPartition.plus(Duration.ofDays(1)).toEpochMilli();
+            case H1, D1 -> startOfPartition.atZone(ZoneOffset.UTC).plusMonths(1).toInstant().toEpochMilli();
+        };
+    }
+}
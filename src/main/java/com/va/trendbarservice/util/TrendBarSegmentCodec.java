@@ -0,0 +1,309 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.va.trendbarservice.messages.ExceptionMessages.ERROR_SEGMENT_MIXED_KEYS;
+
+
+// Sealed bars of one key in timestamp order. Layout: magic, version, symbol, period, bars count, first timestamp, then per bar a flags byte
+// (status, activity and bid/ask presence), the timestamp as delta-of-delta against the period so regular bars cost one
+// byte, OHLC scaled to 4 decimals as small deltas (open from the previous close, close from open, high above and low
+// below the body) and the first and last quote times from the bar start and end. Every integer is a zigzag varint,
+// so a typical M1 bar takes about 10 bytes instead of the row's 60+
+public class TrendBarSegmentCodec {
+
+    public static final int MAGIC = 0x54425347; // "TBSG"
+    public static final short VERSION = 1;
+    public static final int PRICE_SCALE = 4;
+    public static final int SPREAD_SCALE = 8;
+
+    private static final int STATUS_MASK = 0x03;
+    private static final int HAS_ACTIVITY_FLAG = 0x04;
+    private static final int HAS_BID_ASK_FLAG = 0x08;
+
+    private static final TrendBarPeriod[] TREND_BAR_PERIODS = TrendBarPeriod.values();
+    private static final TrendBarStatus[] TREND_BAR_STATUSES = TrendBarStatus.values();
+
+    private TrendBarSegmentCodec() {
+    }
+
+    public static byte[] encode(List<TrendBarEntity> trendBarEntities) {
+        var byteArrayOutputStream = new ByteArrayOutputStream(16 + trendBarEntities.size() * 12);
+        var out = new DataOutputStream(byteArrayOutputStream);
+        try {
+            var firstTrendBarEntity = trendBarEntities.get(0);
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeUTF(firstTrendBarEntity.getSymbol().baseCurrency().getCurrencyCode());
+            out.writeUTF(firstTrendBarEntity.getSymbol().quoteCurrency().getCurrencyCode());
+            out.writeByte(firstTrendBarEntity.getPeriod().ordinal());
+            writeVarLong(out, trendBarEntities.size());
+            out.writeLong(firstTrendBarEntity.getTimestamp());
+
+            long periodMillis = firstTrendBarEntity.getPeriod().getDuration().toMillis();
+            long prevTimestamp = firstTrendBarEntity.getTimestamp() - periodMillis;
+            long prevDelta = periodMillis;
+            long prevClose = 0;
+            for (var trendBarEntity : trendBarEntities) {
+                if (!trendBarEntity.getSymbol().equals(firstTrendBarEntity.getSymbol()) || trendBarEntity.getPeriod() != firstTrendBarEntity.getPeriod()) {
+                    throw new IllegalArgumentException(ERROR_SEGMENT_MIXED_KEYS + trendBarEntity);
+                }
+                var bidAsk = trendBarEntity.getBidAsk();
+                boolean hasActivity = trendBarEntity.getVolume() != null || trendBarEntity.getTurnover() != null;
+                out.writeByte(trendBarEntity.getStatus().ordinal()
+                        | (hasActivity ? HAS_ACTIVITY_FLAG : 0)
+                        | (bidAsk != null ? HAS_BID_ASK_FLAG : 0));
+
+                long delta = trendBarEntity.getTimestamp() - prevTimestamp;
+                writeVarLong(out, zigzag(delta - prevDelta));
+                prevTimestamp = trendBarEntity.getTimestamp();
+                prevDelta = delta;
+
+                long open = toScaledLong(trendBarEntity.getOpenPrice(), PRICE_SCALE);
+                long close = toScaledLong(trendBarEntity.getClosePrice(), PRICE_SCALE);
+                writeVarLong(out, zigzag(open - prevClose));
+                writeVarLong(out, zigzag(close - open));
+                writeVarLong(out, zigzag(toScaledLong(trendBarEntity.getHighPrice(), PRICE_SCALE) - Math.max(open, close)));
+                writeVarLong(out, zigzag(Math.min(open, close) - toScaledLong(trendBarEntity.getLowPrice(), PRICE_SCALE)));
+                prevClose = close;
+
+                writeVarLong(out, trendBarEntity.getTicksCount());
+                writeVarLong(out, zigzag(trendBarEntity.getFirstQuoteTimestamp() - trendBarEntity.getTimestamp()));
+                writeVarLong(out, zigzag(trendBarEntity.getLastQuoteTimestamp() - trendBarEntity.getTimestamp() - periodMillis));
+                if (hasActivity) {
+                    writeBigDecimal(out, trendBarEntity.getVolume());
+                    writeBigDecimal(out, trendBarEntity.getTurnover());
+                }
+                if (bidAsk != null) {
+                    writeBidAsk(out, bidAsk, open, close, toScaledLong(trendBarEntity.getHighPrice(), PRICE_SCALE),
+                            toScaledLong(trendBarEntity.getLowPrice(), PRICE_SCALE));
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    // Bars are decoded one at a time as the stream is pulled, so a range scan can stop early without inflating the segment
+    public static Stream<TrendBarEntity> stream(byte[] segment) {
+        var segmentIterator = new SegmentIterator(segment);
+        return StreamSupport.stream(Spliterators.spliterator(segmentIterator, segmentIterator.trendBarsCount,
+                Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE), false);
+    }
+
+    // Bars are in timestamp order, so decoding stops at the first bar past the range
+    public static Stream<TrendBarEntity> stream(byte[] segment, long from, long to) {
+        return stream(segment)
+                .dropWhile(trendBarEntity -> trendBarEntity.getTimestamp() < from)
+                .takeWhile(trendBarEntity -> trendBarEntity.getTimestamp() <= to);
+    }
+
+    public static List<TrendBarEntity> decode(byte[] segment) {
+        return stream(segment).toList();
+    }
+
+    // Segment bars overlaid with newer bars of the same key, a newer bar replaces the encoded one with its timestamp
+    public static List<TrendBarEntity> merge(byte[] segment, Collection<TrendBarEntity> trendBarEntities) {
+        NavigableMap<Long, TrendBarEntity> timestampToTrendBarMap = new TreeMap<>();
+        if (segment != null) {
+            stream(segment).forEach(trendBarEntity -> timestampToTrendBarMap.put(trendBarEntity.getTimestamp(), trendBarEntity));
+        }
+        trendBarEntities.forEach(trendBarEntity -> timestampToTrendBarMap.put(trendBarEntity.getTimestamp(), trendBarEntity));
+        return new ArrayList<>(timestampToTrendBarMap.values());
+    }
+
+    private static class SegmentIterator implements Iterator<TrendBarEntity> {
+
+        private final DataInputStream in;
+        private final Symbol symbol;
+        private final TrendBarPeriod trendBarPeriod;
+        private final long trendBarsCount;
+        private final long periodMillis;
+        private long decodedCount;
+        private long prevTimestamp;
+        private long prevDelta;
+        private long prevClose;
+
+        private SegmentIterator(byte[] segment) {
+            in = new DataInputStream(new ByteArrayInputStream(segment));
+            try {
+                if (in.readInt() != MAGIC) {
+                    throw new IOException("Not a trend bar segment");
+                }
+                short version = in.readShort();
+                if (version != VERSION) {
+                    throw new IOException("Unsupported trend bar segment version: " + version);
+                }
+                symbol = Symbol.builder()
+                        .baseCurrency(Currency.getInstance(in.readUTF()))
+                        .quoteCurrency(Currency.getInstance(in.readUTF()))
+                        .build();
+                trendBarPeriod = TREND_BAR_PERIODS[in.readByte()];
+                trendBarsCount = readVarLong(in);
+                // Origin one period before the first bar, so a regular first bar is a zero delta-of-delta like the rest
+                periodMillis = trendBarPeriod.getDuration().toMillis();
+                prevDelta = periodMillis;
+                prevTimestamp = in.readLong() - prevDelta;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return decodedCount < trendBarsCount;
+        }
+
+        @Override
+        public TrendBarEntity next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return readTrendBarEntity();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private TrendBarEntity readTrendBarEntity() throws IOException {
+            int flags = in.readUnsignedByte();
+            long delta = prevDelta + unzigzag(readVarLong(in));
+            long timestamp = prevTimestamp + delta;
+            prevTimestamp = timestamp;
+            prevDelta = delta;
+
+            long open = prevClose + unzigzag(readVarLong(in));
+            long close = open + unzigzag(readVarLong(in));
+            long high = Math.max(open, close) + unzigzag(readVarLong(in));
+            long low = Math.min(open, close) - unzigzag(readVarLong(in));
+            prevClose = close;
+
+            long ticksCount = readVarLong(in);
+            long firstQuoteTimestamp = timestamp + unzigzag(readVarLong(in));
+            long lastQuoteTimestamp = timestamp + periodMillis + unzigzag(readVarLong(in));
+            var trendBarEntity = TrendBarEntity.builder()
+                    .symbol(symbol)
+                    .period(trendBarPeriod)
+                    .timestamp(timestamp)
+                    .partitionStart(TrendBarPartitioning.getPartitionStart(trendBarPeriod, timestamp))
+                    .status(TREND_BAR_STATUSES[flags & STATUS_MASK])
+                    .openPrice(BigDecimal.valueOf(open, PRICE_SCALE))
+                    .highPrice(BigDecimal.valueOf(high, PRICE_SCALE))
+                    .lowPrice(BigDecimal.valueOf(low, PRICE_SCALE))
+                    .closePrice(BigDecimal.valueOf(close, PRICE_SCALE))
+                    .ticksCount(ticksCount)
+                    .firstQuoteTimestamp(firstQuoteTimestamp)
+                    .lastQuoteTimestamp(lastQuoteTimestamp)
+                    .build();
+            if ((flags & HAS_ACTIVITY_FLAG) != 0) {
+                trendBarEntity.setVolume(readBigDecimal(in));
+                trendBarEntity.setTurnover(readBigDecimal(in));
+                trendBarEntity.setVwap(TrendBarUtils.getVwap(trendBarEntity.getVolume(), trendBarEntity.getTurnover()));
+            }
+            if ((flags & HAS_BID_ASK_FLAG) != 0) {
+                trendBarEntity.setBidAsk(readBidAsk(in, open, close, high, low));
+            }
+            decodedCount++;
+            return trendBarEntity;
+        }
+    }
+
+    // Bid and ask sides sit within a spread of the mid bar, so each side price is stored as a delta from its mid counterpart
+    private static void writeBidAsk(DataOutputStream out, BidAskTrendBar bidAsk, long open, long close, long high, long low) throws IOException {
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getBidOpenPrice(), PRICE_SCALE) - open));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getBidHighPrice(), PRICE_SCALE) - high));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getBidLowPrice(), PRICE_SCALE) - low));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getBidClosePrice(), PRICE_SCALE) - close));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getAskOpenPrice(), PRICE_SCALE) - open));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getAskHighPrice(), PRICE_SCALE) - high));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getAskLowPrice(), PRICE_SCALE) - low));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getAskClosePrice(), PRICE_SCALE) - close));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getSpreadMin(), SPREAD_SCALE)));
+        writeVarLong(out, zigzag(toScaledLong(bidAsk.getSpreadMax(), SPREAD_SCALE)));
+        writeBigDecimal(out, bidAsk.getSpreadSum());
+        writeVarLong(out, bidAsk.getQuotesCount());
+    }
+
+    private static BidAskTrendBar readBidAsk(DataInputStream in, long open, long close, long high, long low) throws IOException {
+        return BidAskTrendBar.builder()
+                .bidOpenPrice(BigDecimal.valueOf(open + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .bidHighPrice(BigDecimal.valueOf(high + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .bidLowPrice(BigDecimal.valueOf(low + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .bidClosePrice(BigDecimal.valueOf(close + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .askOpenPrice(BigDecimal.valueOf(open + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .askHighPrice(BigDecimal.valueOf(high + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .askLowPrice(BigDecimal.valueOf(low + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .askClosePrice(BigDecimal.valueOf(close + unzigzag(readVarLong(in)), PRICE_SCALE))
+                .spreadMin(BigDecimal.valueOf(unzigzag(readVarLong(in)), SPREAD_SCALE))
+                .spreadMax(BigDecimal.valueOf(unzigzag(readVarLong(in)), SPREAD_SCALE))
+                .spreadSum(readBigDecimal(in))
+                .quotesCount(readVarLong(in))
+                .build();
+    }
+
+    // Column scales, a price with more decimals than the column keeps fails loudly rather than being rounded
+    private static long toScaledLong(BigDecimal value, int scale) {
+        return value.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in trend bar segment");
+    }
+
+    // Unscaled value as length-prefixed bytes, a zero length marks null
+    private static void writeBigDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        byte[] unscaledValue = value.unscaledValue().toByteArray();
+        out.writeByte(unscaledValue.length);
+        out.write(unscaledValue);
+        out.writeByte(value.scale());
+    }
+
+    private static BigDecimal readBigDecimal(DataInputStream in) throws IOException {
+        int length = in.readUnsignedByte();
+        if (length == 0) {
+            return null;
+        }
+        byte[] unscaledValue = new byte[length];
+        in.readFully(unscaledValue);
+        return new BigDecimal(new BigInteger(unscaledValue), in.readByte());
+    }
+}
@@ -0,0 +1,120 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.FlowOverflowPolicy;
+import com.va.trendbarservice.model.TrendBarEntity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+
+// Delivers bars to one listener in publish order on the shared delivery executor. The publishing thread only enqueues
+// and, when no drain is pending, hands a drain to the executor, so a slow listener never holds up the aggregator.
+// The pending bars are bounded like a flow subscriber buffer, a listener that falls behind loses bars by the overflow policy
+@Slf4j
+public class TrendBarSubscription implements AutoCloseable {
+
+    private final Consumer<TrendBarEntity> listener;
+    private final Executor deliveryExecutor;
+    private final Consumer<TrendBarSubscription> onCancel;
+    private final int bufferCapacity;
+    private final FlowOverflowPolicy overflowPolicy;
+    private final Queue<TrendBarEntity> pendingTrendBarEntities = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final LongAdder droppedCount = new LongAdder();
+    private final AtomicBoolean isDrainScheduled = new AtomicBoolean();
+    private volatile boolean isCancelled;
+
+    public TrendBarSubscription(Consumer<TrendBarEntity> listener, Executor deliveryExecutor, int bufferCapacity,
+                                FlowOverflowPolicy overflowPolicy, Consumer<TrendBarSubscription> onCancel) {
+        this.listener = listener;
+        this.deliveryExecutor = deliveryExecutor;
+        this.bufferCapacity = bufferCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.onCancel = onCancel;
+    }
+
+    public void deliver(TrendBarEntity trendBarEntity) {
+        if (isCancelled) {
+            return;
+        }
+        if (pendingCount.incrementAndGet() > bufferCapacity) {
+            droppedCount.increment();
+            switch (overflowPolicy) {
+                case DROP_NEWEST -> {
+                    pendingCount.decrementAndGet();
+                    return;
+                }
+                case DROP_OLDEST -> {
+                    if (pendingTrendBarEntities.poll() != null) {
+                        pendingCount.decrementAndGet();
+                    }
+                }
+                case CANCEL -> {
+                    pendingCount.decrementAndGet();
+                    log.warn("Trend bar listener fell {} bars behind, cancelling its subscription", bufferCapacity);
+                    cancel();
+                    return;
+                }
+            }
+        }
+        pendingTrendBarEntities.offer(trendBarEntity);
+        scheduleDrain();
+    }
+
+    public void cancel() {
+        if (isCancelled) {
+            return;
+        }
+        isCancelled = true;
+        pendingTrendBarEntities.clear();
+        onCancel.accept(this);
+    }
+
+    @Override
+    public void close() {
+        cancel();
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    private void scheduleDrain() {
+        if (!isDrainScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            deliveryExecutor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            isDrainScheduled.set(false);
+            log.warn("Delivery executor rejected trend bar delivery, {} bars pending", pendingTrendBarEntities.size());
+        }
+    }
+
+    // A bar enqueued after the last poll but before the flag is cleared is picked up by the re-check
+    private void drain() {
+        do {
+            TrendBarEntity trendBarEntity;
+            while (!isCancelled && (trendBarEntity = pendingTrendBarEntities.poll()) != null) {
+                pendingCount.decrementAndGet();
+                try {
+                    listener.accept(trendBarEntity);
+                } catch (RuntimeException e) {
+                    log.warn("Trend bar listener failed on {}", trendBarEntity, e);
+                }
+            }
+            isDrainScheduled.set(false);
+        } while (!isCancelled && !pendingTrendBarEntities.isEmpty() && isDrainScheduled.compareAndSet(false, true));
+    }
+}
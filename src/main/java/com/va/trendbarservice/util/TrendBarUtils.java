@@ -1,9 +1,13 @@
 package com.va.trendbarservice.util;
 
+import com.va.trendbarservice.model.TrendBar;
 import com.va.trendbarservice.model.TrendBarPeriod;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 
@@ -15,6 +19,8 @@ public class TrendBarUtils {
 
     }
 
+    public static final int VWAP_SCALE = 8;
+
     @Setter
     private static Instant fixedInstant;  // For testing
 
@@ -47,4 +53,18 @@ public class TrendBarUtils {
         Instant startOfCurrentPeriod = getStartOfPeriod(instant, trendBarPeriod);
         return startOfCurrentPeriod.plus(trendBarPeriod.getDuration());
     }
+
+    // Unsigned comparison covers both bounds of [startOfPeriod, endOfPeriod) at once
+    public static boolean isTimestampInPeriod(long unixTimeStamp, TrendBar trendBar) {
+        long millisSinceStartOfPeriod = unixTimeStamp - trendBar.startOfPeriod().toEpochMilli();
+        long periodInMillis = trendBar.trendBarKey().trendBarPeriod().getDuration().toMillis();
+        return Long.compareUnsigned(millisSinceStartOfPeriod, periodInMillis) < 0;
+    }
+
+    public static BigDecimal getVwap(BigDecimal volume, BigDecimal turnover) {
+        if (volume == null || volume.signum() == 0) {
+            return null;
+        }
+        return turnover.divide(volume, MathContext.DECIMAL64).setScale(VWAP_SCALE, RoundingMode.HALF_UP);
+    }
 }
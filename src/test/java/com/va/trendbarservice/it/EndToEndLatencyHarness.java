@@ -0,0 +1,189 @@
+package com.va.trendbarservice.it;
+
+import com.va.trendbarservice.metrics.LatencyHistogram;
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.service.impl.QuotesConsumerServiceImpl;
+import com.va.trendbarservice.service.impl.TrendBarBatchProcessorImpl;
+import com.va.trendbarservice.service.impl.TrendBarIndicatorServiceImpl;
+import com.va.trendbarservice.service.impl.TrendBarSubscriptionServiceImpl;
+import com.va.trendbarservice.util.KeyQuotesQueueFactory;
+import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.MicroBatcherExecutorFactory;
+import com.va.trendbarservice.util.QuoteConflator;
+import com.va.trendbarservice.util.QuoteJournal;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.va.trendbarservice.util.TrendBarUtils.getStartOfPeriod;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+
+// Quotes are offered at fixed intended send times and every stage is measured from that intended time,
+// so a stalled pipeline shows up as latency instead of as quotes that were simply never sent (coordinated omission)
+@Slf4j
+public class EndToEndLatencyHarness {
+
+    public enum Stage { ENQUEUED, ROUTED, AGGREGATED, PERSISTED }
+
+    // MicroBatcher starts polling its key queue 2 s after creation
+    public static final long MICROBATCHER_INITIAL_DELAY_MILLIS = 2_000;
+
+    private final int microBatcherExecutionThreshold;
+    private final long microBatcherTimeoutThresholdMillis;
+
+    private final Map<Stage, LatencyHistogram> stageHistograms = new EnumMap<>(Stage.class);
+    private final ConcurrentMap<TrendBarKey, List<Long>> keyToAggregatedQuoteIdsMap = new ConcurrentHashMap<>();
+    private long[] intendedSendNanos;
+
+    private final ConcurrentLinkedQueue<Quote> quotesQueue = new ConcurrentLinkedQueue<>();
+    private final ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TrendBar, Optional<ScheduledFuture<?>>> currBuildersMap = new ConcurrentHashMap<>();
+    private final ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap = new ConcurrentHashMap<>();
+    private final ExecutorService consumerExecutorService = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService sealScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService subscriptionExecutorService = Executors.newSingleThreadExecutor();
+    private final MicroBatcherExecutorFactory microBatcherExecutorFactory = new MicroBatcherExecutorFactory(ExecutionMode.PLATFORM);
+
+    public EndToEndLatencyHarness(int microBatcherExecutionThreshold, long microBatcherTimeoutThresholdMillis) {
+        this.microBatcherExecutionThreshold = microBatcherExecutionThreshold;
+        this.microBatcherTimeoutThresholdMillis = microBatcherTimeoutThresholdMillis;
+        for (var stage : Stage.values()) {
+            stageHistograms.put(stage, new LatencyHistogram());
+        }
+    }
+
+    public LatencyHistogram getStageHistogram(Stage stage) {
+        return stageHistograms.get(stage);
+    }
+
+    // Runs the real consumer -> MicroBatcher -> batch processor chain for the M1 bar of the current minute,
+    // the caller must leave enough of the minute for the run and the final batch
+    public void run(List<Symbol> symbols, int quotesPerSecond, long durationMillis, long completionTimeoutMillis) throws InterruptedException {
+        int quotesCount = (int) (quotesPerSecond * durationMillis / 1000);
+        intendedSendNanos = new long[quotesCount];
+        var quotesConsumerService = wirePipeline(symbols);
+        quotesConsumerService.start();
+        Thread.sleep(MICROBATCHER_INITIAL_DELAY_MILLIS);
+
+        var random = new SplittableRandom(42);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / quotesPerSecond;
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < quotesCount; i++) {
+            long intendedNanos = startNanos + i * intervalNanos;
+            intendedSendNanos[i] = intendedNanos;
+            while (System.nanoTime() < intendedNanos) {
+                Thread.onSpinWait();
+            }
+            var quote = Quote.builder()
+                    .id((long) i)
+                    .symbol(symbols.get(i % symbols.size()))
+                    .newPrice(BigDecimal.valueOf(100_000 + random.nextInt(-50, 51), 5))
+                    .unixTimeStamp(System.currentTimeMillis())
+                    .build();
+            quotesQueue.offer(quote);
+            record(Stage.ENQUEUED, i);
+        }
+
+        long completionDeadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(completionTimeoutMillis);
+        while (getStageHistogram(Stage.PERSISTED).getCount() < quotesCount && System.nanoTime() < completionDeadlineNanos) {
+            Thread.sleep(100);
+        }
+        quotesConsumerService.shutdown();
+        sealScheduler.shutdownNow();
+        subscriptionExecutorService.shutdownNow();
+        currMicroBatchersMap.values().forEach(MicroBatcher::shutdown);
+    }
+
+    public String toReport() {
+        var report = new StringBuilder("End-to-end latency from intended send time (us):\n");
+        report.append(String.format("  %-11s %10s %10s %10s %10s %10s%n", "stage", "count", "p50", "p99", "p99.9", "max"));
+        for (var stage : Stage.values()) {
+            var histogram = getStageHistogram(stage);
+            report.append(String.format("  %-11s %10d %10d %10d %10d %10d%n", stage, histogram.getCount(),
+                    TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(50)),
+                    TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99)),
+                    TimeUnit.NANOSECONDS.toMicros(histogram.getValueAtPercentile(99.9)),
+                    TimeUnit.NANOSECONDS.toMicros(histogram.getMax())));
+        }
+        return report.toString();
+    }
+
+    private void record(Stage stage, long quoteId) {
+        stageHistograms.get(stage).record(System.nanoTime() - intendedSendNanos[(int) quoteId]);
+    }
+
+    private QuotesConsumerServiceImpl wirePipeline(List<Symbol> symbols) {
+        var quotesOverloadCounters = new QuotesOverloadCounters();
+        var trendBarMetrics = new TrendBarMetrics(keyToQuotesQueueMap, quotesQueue, quotesOverloadCounters);
+        var batchProcessor = new TrendBarBatchProcessorImpl(currMicroBatchersMap, mockTrendBarRepository(),
+                new ConcurrentHashMap<>(), keyToQuotesQueueMap, currBuildersMap, new ConcurrentHashMap<>(), sealScheduler,
+                trendBarMetrics, new TrendBarDiagnostics(false), new TrendBarSubscriptionServiceImpl(subscriptionExecutorService, sealScheduler),
+                new TrendBarIndicatorServiceImpl(), mock(TrendBarTieringService.class));
+
+        Instant startOfPeriod = getStartOfPeriod(Instant.now(), TrendBarPeriod.M1);
+        for (var symbol : symbols) {
+            var trendBarKey = new TrendBarKey(symbol, TrendBarPeriod.M1);
+            var trendBar = new TrendBar(trendBarKey, startOfPeriod);
+            var aggregatedQuoteIds = Collections.synchronizedList(new ArrayList<Long>());
+            keyToAggregatedQuoteIdsMap.put(trendBarKey, aggregatedQuoteIds);
+
+            var routedQuotesQueue = new LinkedBlockingQueue<Quote>() {
+                @Override
+                public boolean offer(Quote quote) {
+                    boolean isOffered = super.offer(quote);
+                    record(Stage.ROUTED, quote.getId());
+                    return isOffered;
+                }
+            };
+            keyToQuotesQueueMap.put(trendBarKey, routedQuotesQueue);
+            currBuildersMap.put(trendBar, Optional.empty());
+
+            // Ids are registered before aggregation so the final batch is already part of the bar when it is saved
+            var microBatcher = new MicroBatcher(routedQuotesQueue, microBatcherExecutionThreshold, microBatcherTimeoutThresholdMillis, trendBar,
+                    (quotesBatch, isBatchFinal) -> {
+                        quotesBatch.forEach(quote -> aggregatedQuoteIds.add(quote.getId()));
+                        batchProcessor.processMicroBatch(quotesBatch, trendBar, isBatchFinal);
+                        quotesBatch.forEach(quote -> record(Stage.AGGREGATED, quote.getId()));
+                    }, trendBarMetrics, microBatcherExecutorFactory);
+            currMicroBatchersMap.put(trendBar, microBatcher);
+        }
+
+        return QuotesConsumerServiceImpl.builder()
+                .quotesQueue(quotesQueue)
+                .keyToQuotesQueueMap(keyToQuotesQueueMap)
+                .currBuildersMap(currBuildersMap)
+                .consumerExecutorService(consumerExecutorService)
+                .batchProcessor(batchProcessor)
+                .keyQuotesQueueFactory(new KeyQuotesQueueFactory(Integer.MAX_VALUE, OverloadPolicy.BLOCK, 100, quotesOverloadCounters))
+                .quoteConflator(new QuoteConflator(false))
+                .trendBarMetrics(trendBarMetrics)
+                .trendBarDiagnostics(new TrendBarDiagnostics(false))
+                .quoteJournal(new QuoteJournal(false, null, 0))
+                .build();
+    }
+
+    private TrendBarRepository mockTrendBarRepository() {
+        var trendBarRepository = mock(TrendBarRepository.class);
+        when(trendBarRepository.save(any(TrendBarEntity.class))).thenAnswer(invocation -> {
+            TrendBarEntity trendBarEntity = invocation.getArgument(0);
+            var trendBarKey = new TrendBarKey(trendBarEntity.getSymbol(), trendBarEntity.getPeriod());
+            var aggregatedQuoteIds = keyToAggregatedQuoteIdsMap.getOrDefault(trendBarKey, List.of());
+            synchronized (aggregatedQuoteIds) {
+                aggregatedQuoteIds.forEach(quoteId -> record(Stage.PERSISTED, quoteId));
+            }
+            return trendBarEntity;
+        });
+        return trendBarRepository;
+    }
+}
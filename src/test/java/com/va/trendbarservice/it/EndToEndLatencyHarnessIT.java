@@ -0,0 +1,42 @@
+package com.va.trendbarservice.it;
+
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.List;
+
+import static com.va.trendbarservice.util.TrendBarUtils.getInitialDelayInMillis;
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+public class EndToEndLatencyHarnessIT {
+
+    private static final int QUOTES_PER_SECOND = 20_000;
+    private static final long DURATION_MILLIS = 10_000;
+
+    @Test
+    public void givenFixedOfferedLoad_whenRun_thenEveryStageMeasuredFromIntendedSendTime() throws InterruptedException {
+        var symbols = List.of(
+                Symbol.builder().baseCurrency(Currency.getInstance("EUR")).quoteCurrency(Currency.getInstance("USD")).build(),
+                Symbol.builder().baseCurrency(Currency.getInstance("EUR")).quoteCurrency(Currency.getInstance("JPY")).build()
+        );
+        long requiredMillis = EndToEndLatencyHarness.MICROBATCHER_INITIAL_DELAY_MILLIS + DURATION_MILLIS + 1_000;
+        if (getInitialDelayInMillis(TrendBarPeriod.M1) < requiredMillis) {
+            Thread.sleep(getInitialDelayInMillis(TrendBarPeriod.M1) + 100);
+        }
+        var harness = new EndToEndLatencyHarness(1_000, 100);
+
+        harness.run(symbols, QUOTES_PER_SECOND, DURATION_MILLIS, 70_000);
+
+        log.info(harness.toReport());
+        long quotesCount = QUOTES_PER_SECOND * DURATION_MILLIS / 1000;
+        for (var stage : EndToEndLatencyHarness.Stage.values()) {
+            assertEquals(quotesCount, harness.getStageHistogram(stage).getCount(), stage.name());
+        }
+        assertTrue(harness.getStageHistogram(EndToEndLatencyHarness.Stage.PERSISTED).getValueAtPercentile(50)
+                >= harness.getStageHistogram(EndToEndLatencyHarness.Stage.AGGREGATED).getValueAtPercentile(50));
+    }
+}
@@ -0,0 +1,187 @@
+package com.va.trendbarservice.it;
+
+import com.va.trendbarservice.metrics.LatencyHistogram;
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import com.va.trendbarservice.util.TickFileWriter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class QuotesLoadGenerator {
+
+    public static final int PRICE_SCALE = 5;
+    public static final long INITIAL_PRICE_IN_TICKS = 100_000;
+    public static final int MAX_PRICE_STEP_IN_TICKS = 3;
+
+    @Setter
+    @Value("${quotesLoadGenerator.seed}")
+    private long SEED;
+
+    @Setter
+    @Value("${quotesLoadGenerator.symbols.count}")
+    private int SYMBOLS_COUNT;
+
+    // Burst profile: BURST_SIZE quotes back to back, then a pause of BURST_PAUSE_MICROS (0 = flat out)
+    @Setter
+    @Value("${quotesLoadGenerator.burst.size}")
+    private int BURST_SIZE;
+
+    @Setter
+    @Value("${quotesLoadGenerator.burst.pause.micros}")
+    private long BURST_PAUSE_MICROS;
+
+    private final Queue<Quote> quotesQueue;
+
+    @Getter
+    private List<Symbol> symbols = List.of();
+    private long[] pricesInTicks;
+    private SplittableRandom random;
+
+    public void init() {
+        symbols = createSymbols(SYMBOLS_COUNT);
+        pricesInTicks = new long[symbols.size()];
+        for (int i = 0; i < pricesInTicks.length; i++) {
+            pricesInTicks[i] = INITIAL_PRICE_IN_TICKS;
+        }
+        random = new SplittableRandom(SEED);
+    }
+
+    public LoadRunResult runFor(long durationMillis) {
+        init();
+        log.info("Starting load run for {} ms: seed = {}, symbols = {}, burst size = {}, burst pause = {} us",
+                durationMillis, SEED, symbols.size(), BURST_SIZE, BURST_PAUSE_MICROS);
+
+        long offeredQuotes = 0;
+        long rejectedQuotes = 0;
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+
+        while (System.nanoTime() < deadlineNanos && !Thread.currentThread().isInterrupted()) {
+            for (int i = 0; i < BURST_SIZE; i++) {
+                if (!quotesQueue.offer(nextQuote(System.currentTimeMillis()))) {
+                    rejectedQuotes++;
+                }
+                offeredQuotes++;
+            }
+            if (BURST_PAUSE_MICROS > 0) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(BURST_PAUSE_MICROS));
+            }
+        }
+
+        var loadRunResult = new LoadRunResult(offeredQuotes, rejectedQuotes, System.nanoTime() - startNanos);
+        log.info("Finished load run: {}", loadRunResult);
+        return loadRunResult;
+    }
+
+    // Random walk of +-MAX_PRICE_STEP_IN_TICKS per quote on a randomly picked symbol
+    public Quote nextQuote(long unixTimeStamp) {
+        int symbolIndex = random.nextInt(symbols.size());
+        return Quote.builder()
+                .symbol(symbols.get(symbolIndex))
+                .newPrice(BigDecimal.valueOf(nextPriceInTicks(symbolIndex), PRICE_SCALE))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+
+    // Same random walk written straight into a tick file, one tick every stepMillis from startMillis
+    public void archiveTo(TickFileWriter tickFileWriter, long quotesCount, long startMillis, long stepMillis) {
+        init();
+        int[] symbolIds = new int[symbols.size()];
+        for (int i = 0; i < symbolIds.length; i++) {
+            symbolIds[i] = tickFileWriter.registerSymbol(symbols.get(i));
+        }
+        for (long i = 0; i < quotesCount; i++) {
+            int symbolIndex = random.nextInt(symbols.size());
+            tickFileWriter.write(symbolIds[symbolIndex], startMillis + i * stepMillis, nextPriceInTicks(symbolIndex), PRICE_SCALE);
+        }
+    }
+
+    private long nextPriceInTicks(int symbolIndex) {
+        long step = random.nextLong(-MAX_PRICE_STEP_IN_TICKS, MAX_PRICE_STEP_IN_TICKS + 1);
+        long priceInTicks = Math.max(1, pricesInTicks[symbolIndex] + step);
+        pricesInTicks[symbolIndex] = priceInTicks;
+        return priceInTicks;
+    }
+
+    // EURUSD and EURJPY first, those are the symbols trend bars are built for
+    static List<Symbol> createSymbols(int symbolsCount) {
+        var symbols = new ArrayList<Symbol>();
+        var eur = Currency.getInstance("EUR");
+        symbols.add(Symbol.builder().baseCurrency(eur).quoteCurrency(Currency.getInstance("USD")).build());
+        symbols.add(Symbol.builder().baseCurrency(eur).quoteCurrency(Currency.getInstance("JPY")).build());
+
+        var currencies = Currency.getAvailableCurrencies().stream()
+                .sorted(Comparator.comparing(Currency::getCurrencyCode))
+                .toList();
+        for (int i = 0; symbols.size() < symbolsCount; i++) {
+            var baseCurrency = currencies.get(i % currencies.size());
+            var quoteCurrency = currencies.get((i / currencies.size() + i + 1) % currencies.size());
+            var symbol = Symbol.builder().baseCurrency(baseCurrency).quoteCurrency(quoteCurrency).build();
+            if (!symbols.contains(symbol)) {
+                symbols.add(symbol);
+            }
+        }
+        return List.copyOf(symbols.subList(0, symbolsCount));
+    }
+
+    // Offered counts measure the producer loop only, the service side is reported from the ingested and routed deltas
+    // of TrendBarMetrics over the run and the overload counters, since DROP_OLDEST and CONFLATE accept every offer
+    public record LoadRunResult(long offeredQuotes, long rejectedQuotes, long elapsedNanos) {
+
+        public double offeredQuotesPerSecond() {
+            return perSecond(offeredQuotes);
+        }
+
+        public double perSecond(long quotesCount) {
+            return elapsedNanos == 0 ? 0 : quotesCount * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public String toReport(long ingestedQuotes, long routedQuotes, QuotesOverloadCounters quotesOverloadCounters,
+                               long barsProduced, LatencyHistogram quoteToBarLatencyMillis) {
+            return String.format("""
+                            Load run report:
+                              elapsed                %d ms
+                              offered quotes         %d
+                              offered quotes/s       %.0f
+                              rejected quotes        %d
+                              dropped quotes         %d
+                              conflated quotes       %d
+                              ingested quotes        %d
+                              ingested quotes/s      %.0f
+                              routed quotes          %d
+                              routed quotes/s        %.0f
+                              bars produced          %d
+                              quote-to-bar p50       %d ms
+                              quote-to-bar p99       %d ms
+                              quote-to-bar p99.9     %d ms
+                              quote-to-bar max       %d ms""",
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), offeredQuotes, offeredQuotesPerSecond(),
+                    quotesOverloadCounters.getRejectedQuotes(), quotesOverloadCounters.getDroppedQuotes(),
+                    quotesOverloadCounters.getConflatedQuotes(),
+                    ingestedQuotes, perSecond(ingestedQuotes), routedQuotes, perSecond(routedQuotes), barsProduced,
+                    quoteToBarLatencyMillis.getValueAtPercentile(50),
+                    quoteToBarLatencyMillis.getValueAtPercentile(99),
+                    quoteToBarLatencyMillis.getValueAtPercentile(99.9),
+                    quoteToBarLatencyMillis.getMax());
+        }
+    }
+}
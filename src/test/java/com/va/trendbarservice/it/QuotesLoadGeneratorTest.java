@@ -0,0 +1,77 @@
+package com.va.trendbarservice.it;
+
+import com.va.trendbarservice.metrics.LatencyHistogram;
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuotesLoadGeneratorTest {
+
+    private QuotesLoadGenerator createQuotesLoadGenerator(ConcurrentLinkedQueue<Quote> quotesQueue, long seed, int symbolsCount) {
+        var quotesLoadGenerator = new QuotesLoadGenerator(quotesQueue);
+        quotesLoadGenerator.setSEED(seed);
+        quotesLoadGenerator.setSYMBOLS_COUNT(symbolsCount);
+        quotesLoadGenerator.setBURST_SIZE(100);
+        quotesLoadGenerator.setBURST_PAUSE_MICROS(100);
+        quotesLoadGenerator.init();
+        return quotesLoadGenerator;
+    }
+
+    @Test
+    public void givenSameSeed_whenNextQuote_thenSameQuoteSequence() {
+        var quotesLoadGenerator1 = createQuotesLoadGenerator(new ConcurrentLinkedQueue<>(), 42, 5);
+        var quotesLoadGenerator2 = createQuotesLoadGenerator(new ConcurrentLinkedQueue<>(), 42, 5);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(quotesLoadGenerator1.nextQuote(i), quotesLoadGenerator2.nextQuote(i));
+        }
+    }
+
+    @Test
+    public void givenRandomWalk_whenNextQuote_thenPriceMovesByAtMostMaxStep() {
+        var quotesLoadGenerator = createQuotesLoadGenerator(new ConcurrentLinkedQueue<>(), 7, 1);
+        var maxStep = BigDecimal.valueOf(QuotesLoadGenerator.MAX_PRICE_STEP_IN_TICKS, QuotesLoadGenerator.PRICE_SCALE);
+
+        var previousPrice = BigDecimal.valueOf(QuotesLoadGenerator.INITIAL_PRICE_IN_TICKS, QuotesLoadGenerator.PRICE_SCALE);
+        for (int i = 0; i < 10_000; i++) {
+            var price = quotesLoadGenerator.nextQuote(i).getNewPrice();
+            assertTrue(price.subtract(previousPrice).abs().compareTo(maxStep) <= 0);
+            assertTrue(price.signum() > 0);
+            previousPrice = price;
+        }
+    }
+
+    @Test
+    public void givenSymbolsCount_whenInit_thenDistinctSymbolsStartingWithBuiltOnes() {
+        var quotesLoadGenerator = createQuotesLoadGenerator(new ConcurrentLinkedQueue<>(), 42, 50);
+
+        var symbols = quotesLoadGenerator.getSymbols();
+        assertEquals(50, symbols.size());
+        assertEquals(50, new HashSet<>(symbols).size());
+        assertEquals("EURUSD", symbols.get(0).toString());
+        assertEquals("EURJPY", symbols.get(1).toString());
+    }
+
+    @Test
+    public void givenBurstProfile_whenRunFor_thenAllOfferedQuotesQueuedInWholeBursts() {
+        var quotesQueue = new ConcurrentLinkedQueue<Quote>();
+        var quotesLoadGenerator = createQuotesLoadGenerator(quotesQueue, 42, 2);
+
+        var loadRunResult = quotesLoadGenerator.runFor(50);
+
+        assertTrue(loadRunResult.offeredQuotes() > 0);
+        assertEquals(0, loadRunResult.offeredQuotes() % 100);
+        assertEquals(loadRunResult.offeredQuotes(), quotesQueue.size());
+        assertTrue(loadRunResult.offeredQuotesPerSecond() > 0);
+        var report = loadRunResult.toReport(0, 0, new QuotesOverloadCounters(), 0, new LatencyHistogram());
+        assertTrue(report.contains("dropped quotes"));
+        assertTrue(report.contains("routed quotes/s"));
+        assertTrue(report.contains("quote-to-bar p99.9"));
+    }
+}
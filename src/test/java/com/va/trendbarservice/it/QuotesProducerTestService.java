@@ -8,12 +8,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.Currency;
 import java.util.List;
+import java.util.Queue;
 import java.util.Random;
 import java.util.concurrent.*;
 
@@ -28,11 +30,12 @@ public class QuotesProducerTestService {
     private long INTERVAL;
 
     @Autowired
-    public final ConcurrentLinkedQueue<Quote> quotesQueue;
+    public final Queue<Quote> quotesQueue;
 
     private final Random random = new Random();
 
     @Autowired
+    @Qualifier("scheduler")
     private ScheduledExecutorService scheduledExecutorService;
 
     @PostConstruct
@@ -0,0 +1,69 @@
+package com.va.trendbarservice.it.demo;
+
+import com.va.trendbarservice.it.QuotesLoadGenerator;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.service.TrendBarStarterService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static com.va.trendbarservice.util.TrendBarUtils.getInitialDelayInMillis;
+import static org.junit.jupiter.api.Assertions.*;
+
+
+// Batching thresholds and overload policy are relaxed so the generator measures the pipeline, not a stalled queue
+@Slf4j
+@SpringBootTest(properties = {
+        "microbatcher.execution.threshold.number=100000",
+        "microbatcher.timeout.threshold.millis=100",
+        "quotesQueue.overload.policy=DROP_OLDEST"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+public class QuotesLoadGeneratorLoadIT {
+
+    @Value("${quotesLoadGenerator.duration.millis}")
+    private long durationMillis;
+
+    @Autowired
+    private QuotesLoadGenerator quotesLoadGenerator;
+
+    @Autowired
+    private TrendBarStarterService trendBarStarter;
+
+    @Autowired
+    private TrendBarRepository trendBarRepository;
+
+    @Autowired
+    private TrendBarMetrics trendBarMetrics;
+
+    @Test
+    public void givenHighRateLoad_whenRunCoversFullMinute_thenReportThroughputBarsAndLatency() throws InterruptedException {
+        trendBarStarter.start();
+        Thread.sleep(getInitialDelayInMillis(TrendBarPeriod.M1));
+
+        long ingestedQuotesBefore = trendBarMetrics.getIngestedQuotes();
+        long routedQuotesBefore = trendBarMetrics.getRoutedQuotes().sum();
+        var loadRunResult = quotesLoadGenerator.runFor(durationMillis);
+        long ingestedQuotes = trendBarMetrics.getIngestedQuotes() - ingestedQuotesBefore;
+        long routedQuotes = trendBarMetrics.getRoutedQuotes().sum() - routedQuotesBefore;
+        Thread.sleep(5_000);
+
+        long barsProduced = trendBarRepository.count();
+        log.info(loadRunResult.toReport(ingestedQuotes, routedQuotes, trendBarMetrics.getQuotesOverloadCounters(), barsProduced,
+                trendBarMetrics.getQuoteToBarLatencyMillis()));
+        trendBarMetrics.logDump();
+
+        assertTrue(loadRunResult.offeredQuotes() > 0);
+        assertTrue(ingestedQuotes > 0);
+        assertTrue(barsProduced >= 2);
+    }
+}
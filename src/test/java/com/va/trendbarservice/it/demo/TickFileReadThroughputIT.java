@@ -0,0 +1,65 @@
+package com.va.trendbarservice.it.demo;
+
+import com.va.trendbarservice.it.QuotesLoadGenerator;
+import com.va.trendbarservice.util.TickFile;
+import com.va.trendbarservice.util.TickFileReader;
+import com.va.trendbarservice.util.TickFileWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+// Archives a seeded random walk into a tick file and reports the sequential scan rate of the mapped reader
+@Slf4j
+public class TickFileReadThroughputIT {
+
+    private static final long TICKS_COUNT = 20_000_000;
+    private static final int READ_PASSES = 5;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void givenArchivedTicks_whenScanWithMappedReader_thenReportGigabytesPerSecond() throws IOException {
+        Path tickFilePath = tempDir.resolve("load.ticks");
+        var quotesLoadGenerator = new QuotesLoadGenerator(new ConcurrentLinkedQueue<>());
+        quotesLoadGenerator.setSEED(42);
+        quotesLoadGenerator.setSYMBOLS_COUNT(50);
+
+        long writeStartNanos = System.nanoTime();
+        try (var tickFileWriter = new TickFileWriter(tickFilePath, 1 << 20)) {
+            quotesLoadGenerator.archiveTo(tickFileWriter, TICKS_COUNT, 1_718_841_600_000L, 1);
+        }
+        long writeNanos = System.nanoTime() - writeStartNanos;
+
+        try (var tickFileReader = new TickFileReader(tickFilePath)) {
+            long[] checksum = new long[1];
+            long bestReadNanos = Long.MAX_VALUE;
+            for (int pass = 0; pass < READ_PASSES; pass++) {
+                checksum[0] = 0;
+                long readStartNanos = System.nanoTime();
+                tickFileReader.forEach((symbolId, epochMillis, unscaledPrice, scale) -> checksum[0] += unscaledPrice + symbolId);
+                bestReadNanos = Math.min(bestReadNanos, System.nanoTime() - readStartNanos);
+            }
+            double gigabytes = TICKS_COUNT * TickFile.RECORD_SIZE / 1e9;
+            log.info("""
+                            Tick file throughput:
+                              ticks               {}
+                              file size           {} MB
+                              write               {} GB/s
+                              read (best of {})    {} GB/s, {} M ticks/s""",
+                    TICKS_COUNT, (long) (gigabytes * 1000), String.format("%.2f", gigabytes * 1e9 / writeNanos),
+                    READ_PASSES, String.format("%.2f", gigabytes * 1e9 / bestReadNanos), String.format("%.0f", TICKS_COUNT * 1e3 / bestReadNanos));
+
+            assertEquals(TICKS_COUNT, tickFileReader.getRecordsCount());
+            assertEquals(50, tickFileReader.getSymbolsCount());
+            assertTrue(checksum[0] > 0);
+        }
+    }
+}
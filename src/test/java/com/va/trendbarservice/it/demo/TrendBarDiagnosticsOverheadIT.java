@@ -0,0 +1,103 @@
+package com.va.trendbarservice.it.demo;
+
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+// Times the per-quote diagnostics calls of the routing loop with diagnostics disabled and enabled against a loop
+// without them, best of several interleaved passes after warm-up, and reports the added nanoseconds per quote.
+// Disabled diagnostics must cost a small fraction of enabled ones; an absolute bound is too noisy on shared machines
+@Slf4j
+public class TrendBarDiagnosticsOverheadIT {
+
+    private static final int QUOTES_COUNT = 20_000_000;
+    private static final int BATCH_SIZE = 10;
+    private static final int WARM_UP_PASSES = 3;
+    private static final int MEASURED_PASSES = 5;
+    private static final double MAX_DISABLED_TO_ENABLED_OVERHEAD_RATIO = 0.25;
+
+    private static final TrendBarKey[] TREND_BAR_KEYS = createTrendBarKeys();
+
+    private static volatile long checksumSink;
+
+    @Test
+    public void givenDiagnosticsDisabledAndEnabled_whenRouteQuotes_thenReportOverheadPerQuote() {
+        var disabledDiagnostics = new TrendBarDiagnostics(false);
+        var enabledDiagnostics = new TrendBarDiagnostics(true);
+
+        for (int pass = 0; pass < WARM_UP_PASSES; pass++) {
+            checksumSink += routeQuotes(null);
+            checksumSink += routeQuotes(disabledDiagnostics);
+            checksumSink += routeQuotes(enabledDiagnostics);
+        }
+        long bestBaselineNanos = Long.MAX_VALUE;
+        long bestDisabledNanos = Long.MAX_VALUE;
+        long bestEnabledNanos = Long.MAX_VALUE;
+        for (int pass = 0; pass < MEASURED_PASSES; pass++) {
+            bestBaselineNanos = Math.min(bestBaselineNanos, timeRouteQuotes(null));
+            bestDisabledNanos = Math.min(bestDisabledNanos, timeRouteQuotes(disabledDiagnostics));
+            bestEnabledNanos = Math.min(bestEnabledNanos, timeRouteQuotes(enabledDiagnostics));
+        }
+        double baselineNanos = (double) bestBaselineNanos / QUOTES_COUNT;
+        double disabledNanos = (double) bestDisabledNanos / QUOTES_COUNT;
+        double enabledNanos = (double) bestEnabledNanos / QUOTES_COUNT;
+
+        log.info("""
+                        Diagnostics overhead per routed quote (best of {} passes of {} quotes):
+                          baseline            {} ns
+                          disabled            {} ns (+{} ns)
+                          enabled             {} ns (+{} ns)""",
+                MEASURED_PASSES, QUOTES_COUNT, String.format("%.2f", baselineNanos),
+                String.format("%.2f", disabledNanos), String.format("%.2f", disabledNanos - baselineNanos),
+                String.format("%.2f", enabledNanos), String.format("%.2f", enabledNanos - baselineNanos));
+
+        disabledDiagnostics.logSummary();
+        enabledDiagnostics.logSummary();
+        assertEquals(0, disabledDiagnostics.getLoggedSummaries());
+        assertEquals(TREND_BAR_KEYS.length, enabledDiagnostics.getLoggedSummaries());
+        assertTrue(disabledNanos - baselineNanos < MAX_DISABLED_TO_ENABLED_OVERHEAD_RATIO * (enabledNanos - baselineNanos),
+                "Disabled diagnostics add " + (disabledNanos - baselineNanos) + " ns per quote, enabled "
+                        + (enabledNanos - baselineNanos) + " ns");
+    }
+
+    private static long timeRouteQuotes(TrendBarDiagnostics trendBarDiagnostics) {
+        long startNanos = System.nanoTime();
+        checksumSink += routeQuotes(trendBarDiagnostics);
+        return System.nanoTime() - startNanos;
+    }
+
+    // Mirrors the consumer and batch processor: one routed quote per key and a batch every BATCH_SIZE quotes;
+    // the checksum written to a volatile keeps the loop from being optimized away
+    private static long routeQuotes(TrendBarDiagnostics trendBarDiagnostics) {
+        long checksum = 0;
+        for (int i = 0; i < QUOTES_COUNT; i++) {
+            var trendBarKey = TREND_BAR_KEYS[i % TREND_BAR_KEYS.length];
+            if (trendBarDiagnostics != null) {
+                trendBarDiagnostics.recordQuoteRouted(trendBarKey);
+                if (i % BATCH_SIZE == 0) {
+                    trendBarDiagnostics.recordBatch(trendBarKey, BATCH_SIZE, false);
+                }
+            }
+            checksum += trendBarKey.hashCode();
+        }
+        return checksum;
+    }
+
+    private static TrendBarKey[] createTrendBarKeys() {
+        var symbol = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        var trendBarPeriods = TrendBarPeriod.values();
+        var trendBarKeys = new TrendBarKey[trendBarPeriods.length];
+        for (int i = 0; i < trendBarPeriods.length; i++) {
+            trendBarKeys[i] = new TrendBarKey(symbol, trendBarPeriods[i]);
+        }
+        return trendBarKeys;
+    }
+}
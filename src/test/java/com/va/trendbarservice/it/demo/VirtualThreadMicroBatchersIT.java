@@ -0,0 +1,62 @@
+package com.va.trendbarservice.it.demo;
+
+import com.va.trendbarservice.metrics.TrendBarMetrics;
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.MicroBatcherExecutorFactory;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+
+// Starts thousands of MicroBatchers in VIRTUAL mode and reports how many platform threads their gather loops cost.
+// Needs a JDK with virtual threads, on JDK 17 the factory falls back to PLATFORM and the test is skipped.
+@Slf4j
+public class VirtualThreadMicroBatchersIT {
+
+    private static final int KEYS_COUNT = 3_000;
+
+    @Test
+    public void givenThousandsOfKeys_whenVirtualMode_thenFewPlatformThreadsAndAllQuotesAggregated() throws InterruptedException {
+        var microBatcherExecutorFactory = new MicroBatcherExecutorFactory(ExecutionMode.VIRTUAL);
+        assumeTrue(microBatcherExecutorFactory.getExecutionMode() == ExecutionMode.VIRTUAL);
+
+        var threadMXBean = ManagementFactory.getThreadMXBean();
+        int platformThreadsBefore = threadMXBean.getThreadCount();
+        var trendBarMetrics = new TrendBarMetrics(new ConcurrentHashMap<>(), new ConcurrentLinkedQueue<>(), new QuotesOverloadCounters());
+        var symbol = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        var trendBar = new TrendBar(new TrendBarKey(symbol, TrendBarPeriod.H1), Instant.now().truncatedTo(ChronoUnit.HOURS));
+        var aggregatedQuotesCount = new LongAdder();
+
+        List<MicroBatcher> microBatchers = new ArrayList<>();
+        for (int i = 0; i < KEYS_COUNT; i++) {
+            var keyQuotesQueue = new LinkedBlockingQueue<Quote>();
+            keyQuotesQueue.offer(Quote.builder().symbol(symbol).newPrice(BigDecimal.ONE).unixTimeStamp(System.currentTimeMillis()).build());
+            microBatchers.add(new MicroBatcher(keyQuotesQueue, 1, 500, trendBar,
+                    (quotesBatch, isBatchFinal) -> aggregatedQuotesCount.add(quotesBatch.size()), trendBarMetrics, microBatcherExecutorFactory));
+        }
+        Thread.sleep(4_000);
+        int platformThreadsDuringRun = threadMXBean.getThreadCount();
+        microBatchers.forEach(MicroBatcher::shutdown);
+
+        log.info("{} MicroBatchers in VIRTUAL mode: platform threads {} -> {}, quotes aggregated {}",
+                KEYS_COUNT, platformThreadsBefore, platformThreadsDuringRun, aggregatedQuotesCount.sum());
+        assertEquals(KEYS_COUNT, aggregatedQuotesCount.sum());
+        assertTrue(platformThreadsDuringRun - platformThreadsBefore < 4 * Runtime.getRuntime().availableProcessors() + 16);
+    }
+}
@@ -81,6 +81,14 @@ public class TrendBarEntityRepositoryIT {
                 .isEqualTo(savedTrendBar);
     }
 
+    @Test
+    public void givenSavedTrendBar_whenExistsTrendBarBySymbolAndPeriodAndTimestamp_thenOnlyExactBarFound() {
+        var savedTrendBar = trendBarRepository.save(getTrendBar());
+
+        assertTrue(trendBarRepository.existsTrendBarBySymbolAndPeriodAndTimestamp(SYMBOL_EURUSD, TrendBarPeriod.M1, savedTrendBar.getTimestamp()));
+        assertFalse(trendBarRepository.existsTrendBarBySymbolAndPeriodAndTimestamp(SYMBOL_EURUSD, TrendBarPeriod.H1, savedTrendBar.getTimestamp()));
+        assertFalse(trendBarRepository.existsTrendBarBySymbolAndPeriodAndTimestamp(SYMBOL_EURUSD, TrendBarPeriod.M1, savedTrendBar.getTimestamp() + 1));
+    }
 
     @Test
     public void given2TrendBarsInRange_whenFindTrendBarsBySymbolAndPeriodAndTimestampInRange_thenReturns2TrendBars() {
@@ -282,4 +290,22 @@ public class TrendBarEntityRepositoryIT {
         assertNotNull(foundTrendBars);
         assertEquals(1, foundTrendBars.size());
     }
+
+    @Test
+    public void givenTrendBarsInTwoDailyPartitions_whenDeletePartition_thenOnlyThatPartitionRemoved() {
+        var oldTrendBar = getTrendBar();
+        oldTrendBar.setTimestamp(Timestamp.valueOf("2024-06-16 10:00:00").getTime());
+        var recentTrendBar = getTrendBar();
+        recentTrendBar.setTimestamp(Timestamp.valueOf("2024-06-17 10:00:00").getTime());
+        var savedOldTrendBar = trendBarRepository.save(oldTrendBar);
+        trendBarRepository.save(recentTrendBar);
+
+        var partitionStarts = trendBarRepository.findPartitionStartsBefore(TrendBarPeriod.M1, recentTrendBar.getTimestamp());
+        int deletedCount = trendBarRepository.deletePartition(TrendBarPeriod.M1, savedOldTrendBar.getPartitionStart());
+
+        assertEquals(2, partitionStarts.size());
+        assertEquals(1, deletedCount);
+        assertEquals(1, trendBarRepository.count());
+        assertEquals(recentTrendBar.getTimestamp(), trendBarRepository.findAll().get(0).getTimestamp());
+    }
 }
@@ -15,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Currency;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,7 +33,7 @@ public class QuotesConsumerServiceImplIT {
     private QuotesConsumerServiceImpl quotesConsumerServiceImpl;
 
     @Autowired
-    private ConcurrentLinkedQueue<Quote> quotesQueue;
+    private Queue<Quote> quotesQueue;
 
     @Autowired
     private ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
@@ -46,7 +46,7 @@ public class TrendBarBatchProcessorImplIT {
     private ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap;
 
     @Autowired
-    private ConcurrentMap<TrendBar, TrendBarEntity> currTrendBarEntities;
+    private ConcurrentMap<TrendBar, TrendBarEntity> currTrendBarEntitiesMap;
 
     @Autowired
     private ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
@@ -86,7 +86,7 @@ public class TrendBarBatchProcessorImplIT {
         );
 
         keyToQuotesQueueMap.get(keyEURUSD_M1).clear();
-        currTrendBarEntities.clear();
+        currTrendBarEntitiesMap.clear();
     }
 
     @Test
@@ -94,13 +94,13 @@ public class TrendBarBatchProcessorImplIT {
 
         trendBarBatchProcessorImpl.processMicroBatch(quotesBatch, trendBar, false);
 
-        TrendBarEntity trendBarEntity = currTrendBarEntities.get(trendBar);
+        TrendBarEntity trendBarEntity = currTrendBarEntitiesMap.get(trendBar);
         assertNotNull(trendBarEntity);
         assertEquals(symbolEURUSD, trendBarEntity.getSymbol());
         assertEquals(new BigDecimal("1.2222"), trendBarEntity.getOpenPrice());
         assertEquals(new BigDecimal("1.3333"), trendBarEntity.getHighPrice());
         assertEquals(new BigDecimal("1.1111"), trendBarEntity.getLowPrice());
-        assertNull(trendBarEntity.getClosePrice());
+        assertEquals(new BigDecimal("1.3333"), trendBarEntity.getClosePrice());
         assertEquals(TrendBarStatus.INCOMPLETE, trendBarEntity.getStatus());
     }
 
@@ -152,7 +152,7 @@ public class TrendBarBatchProcessorImplIT {
                         .unixTimeStamp(Instant.now().plusSeconds(20).toEpochMilli())
                         .build()
         );
-        TrendBarEntity trendBarEntity = currTrendBarEntities.get(trendBar);
+        TrendBarEntity trendBarEntity = currTrendBarEntitiesMap.get(trendBar);
 
         TrendBarEntity updatedTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(trendBarEntity, newQuotesBatch, false);
 
@@ -160,7 +160,7 @@ public class TrendBarBatchProcessorImplIT {
         assertEquals(new BigDecimal("1.2222"), updatedTrendBarEntity.getOpenPrice());
         assertEquals(new BigDecimal("1.4444"), updatedTrendBarEntity.getHighPrice());
         assertEquals(new BigDecimal("1.0000"), updatedTrendBarEntity.getLowPrice());
-        assertNull(updatedTrendBarEntity.getClosePrice());
+        assertEquals(new BigDecimal("1.4444"), updatedTrendBarEntity.getClosePrice());
         assertEquals(TrendBarStatus.INCOMPLETE, updatedTrendBarEntity.getStatus());
     }
 
@@ -168,28 +168,44 @@ public class TrendBarBatchProcessorImplIT {
     public void givenEmptyBatch_whenProcessMicroBatch_thenTrendBarEntityNotCreated() {
         trendBarBatchProcessorImpl.processMicroBatch(Collections.emptyList(), trendBar, false);
 
-        TrendBarEntity trendBarEntity = currTrendBarEntities.get(trendBar);
+        TrendBarEntity trendBarEntity = currTrendBarEntitiesMap.get(trendBar);
         assertNull(trendBarEntity);
     }
 
     @Test
-    public void givenEmptyBatch_whenUpdateTrendBarEntity_thenStatusNotUpdated() {
+    public void givenEmptyNonFinalBatch_whenProcessMicroBatch_thenStatusNotUpdated() {
         TrendBarEntity trendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(quotesBatch, trendBar);
-        currTrendBarEntities.put(trendBar, trendBarEntity);
+        currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
 
-        trendBarBatchProcessorImpl.processMicroBatch(Collections.emptyList(), trendBar, true);
+        trendBarBatchProcessorImpl.processMicroBatch(Collections.emptyList(), trendBar, false);
 
-        TrendBarEntity updatedTrendBarEntity = currTrendBarEntities.get(trendBar);
+        TrendBarEntity updatedTrendBarEntity = currTrendBarEntitiesMap.get(trendBar);
         assertNotNull(updatedTrendBarEntity);
         assertEquals(TrendBarStatus.INCOMPLETE, updatedTrendBarEntity.getStatus());
     }
 
+    @Test
+    public void givenEmptyFinalBatch_whenProcessMicroBatch_thenTrendBarEntityCompletedAndSaved() {
+        MicroBatcher mockMicroBatcher = mock(MicroBatcher.class);
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mockMicroBatcher);
+        TrendBarEntity trendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(quotesBatch, trendBar);
+        currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
+
+        trendBarBatchProcessorImpl.processMicroBatch(Collections.emptyList(), trendBar, true);
+
+        assertNull(currTrendBarEntitiesMap.get(trendBar));
+        var savedTrendBarEntities = trendBarRepository.findAll();
+        assertEquals(1, savedTrendBarEntities.size());
+        assertEquals(TrendBarStatus.COMPLETED, savedTrendBarEntities.get(0).getStatus());
+        assertEquals(new BigDecimal("1.3333"), savedTrendBarEntities.get(0).getClosePrice());
+    }
+
     @Test
     public void givenValidBatch_whenDoFinalUpdate_thenTrendBarEntityCompleted() {
         TrendBarEntity trendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(quotesBatch, trendBar);
-        currTrendBarEntities.put(trendBar, trendBarEntity);
+        currTrendBarEntitiesMap.put(trendBar, trendBarEntity);
 
-        trendBarEntity = trendBarBatchProcessorImpl.doFinalUpdate(trendBarEntity, quotesBatch);
+        trendBarEntity = trendBarBatchProcessorImpl.doFinalUpdate(trendBarEntity);
 
         assertEquals(TrendBarStatus.COMPLETED, trendBarEntity.getStatus());
         assertEquals(quotesBatch.get(quotesBatch.size() - 1).getNewPrice(), trendBarEntity.getClosePrice());
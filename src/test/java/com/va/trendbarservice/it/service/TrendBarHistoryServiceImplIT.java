@@ -1,11 +1,15 @@
 package com.va.trendbarservice.it.service;
 
+import com.va.trendbarservice.model.DownsampledTrendBar;
 import com.va.trendbarservice.model.Symbol;
 import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarKey;
 import com.va.trendbarservice.model.TrendBarPeriod;
 import com.va.trendbarservice.model.TrendBarStatus;
 import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
 import com.va.trendbarservice.service.impl.TrendBarHistoryServiceImpl;
+import com.va.trendbarservice.service.impl.TrendBarSegmentServiceImpl;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -18,9 +22,11 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Currency;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -38,6 +44,12 @@ public class TrendBarHistoryServiceImplIT {
     @Autowired
     private TrendBarRepository trendBarRepository;
 
+    @Autowired
+    private TrendBarSegmentRepository trendBarSegmentRepository;
+
+    @Autowired
+    private TrendBarSegmentServiceImpl trendBarSegmentService;
+
     private Symbol symbolEURUSD;
     private TrendBarPeriod periodM1;
     private long timestampNow;
@@ -85,6 +97,7 @@ public class TrendBarHistoryServiceImplIT {
     @AfterEach
     public void tearDown() {
         trendBarRepository.deleteAll();
+        trendBarSegmentRepository.deleteAll();
     }
 
     @Test
@@ -139,4 +152,46 @@ public class TrendBarHistoryServiceImplIT {
         assertNotNull(trendBars);
         assertTrue(trendBars.isEmpty());
     }
+
+    @Test
+    public void givenSeveralSymbols_whenGetTrendBarsBySymbols_thenReturnTrendBarsGroupedPerKey() {
+        Symbol symbolGBPUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("GBP"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        var gbpUsdTrendBarEntity = trendBarRepository.save(trendBarEntity1.toBuilder().id(null).symbol(symbolGBPUSD).build());
+
+        var keyToTrendBarsMap = trendBarHistoryService.getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(
+                Set.of(symbolEURUSD, symbolGBPUSD), Set.of(periodM1), timestampNow - 120000, timestampNow);
+
+        assertEquals(List.of(trendBarEntity1, trendBarEntity2), keyToTrendBarsMap.get(new TrendBarKey(symbolEURUSD, periodM1)));
+        assertEquals(List.of(gbpUsdTrendBarEntity), keyToTrendBarsMap.get(new TrendBarKey(symbolGBPUSD, periodM1)));
+    }
+
+    @Test
+    public void givenStoredM1Bars_whenGetDownsampledTrendBarsForM5_thenMergedBarsReturned() {
+        var downsampledTrendBars = trendBarHistoryService.getDownsampledTrendBars(
+                symbolEURUSD, Duration.ofMinutes(5), timestampNow - 600000, timestampNow);
+
+        assertFalse(downsampledTrendBars.isEmpty());
+        assertEquals(2, downsampledTrendBars.stream().mapToInt(DownsampledTrendBar::sourceTrendBarsCount).sum());
+        assertEquals(trendBarEntity1.getLowPrice(), downsampledTrendBars.get(0).lowPrice());
+    }
+
+    @Test
+    public void givenBarsSealedIntoSegment_whenGetTrendBarsInRange_thenSealedAndRowBarsReturnedInOrder() {
+        long twoDaysAgo = timestampNow - Duration.ofDays(2).toMillis();
+        trendBarRepository.save(trendBarEntity1.toBuilder().id(null).timestamp(twoDaysAgo).build());
+        trendBarRepository.save(trendBarEntity2.toBuilder().id(null).timestamp(twoDaysAgo + 60000).build());
+        trendBarSegmentService.setSEGMENTS_SEAL_DELAY_MILLIS(0);
+
+        assertTrue(trendBarSegmentService.sealPartitions() >= 1);
+        List<TrendBarEntity> trendBars = trendBarHistoryService.getTrendBarsBySymbolAndPeriodAndTimestampInRange(
+                symbolEURUSD, periodM1, twoDaysAgo, timestampNow);
+
+        assertFalse(trendBarSegmentRepository.findAll().isEmpty());
+        assertEquals(List.of(twoDaysAgo, twoDaysAgo + 60000, timestampNow - 60000, timestampNow),
+                trendBars.stream().map(TrendBarEntity::getTimestamp).toList());
+        assertEquals(trendBarEntity2.getHighPrice(), trendBars.get(1).getHighPrice());
+    }
 }
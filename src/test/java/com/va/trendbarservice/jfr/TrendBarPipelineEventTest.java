@@ -0,0 +1,114 @@
+package com.va.trendbarservice.jfr;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.service.impl.TrendBarHistoryServiceImpl;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TrendBarPipelineEventTest {
+
+    @TempDir
+    Path tempDir;
+
+    private TrendBarKey keyEURUSD_M1;
+
+    @BeforeEach
+    public void setUp() {
+        var symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        keyEURUSD_M1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1);
+    }
+
+    @Test
+    public void givenRecording_whenPipelineEventsCommitted_thenKeyBatchSizeAndDurationRecorded() throws Exception {
+        List<RecordedEvent> recordedEvents = record(() -> {
+            var batchGatheredEvent = new BatchGatheredEvent();
+            batchGatheredEvent.begin();
+            batchGatheredEvent.commitFor(keyEURUSD_M1, 10);
+        });
+
+        var batchGatheredEvent = findEvent(recordedEvents, "com.va.trendbarservice.BatchGathered");
+        assertEquals("EURUSD_M1", batchGatheredEvent.getString("key"));
+        assertEquals(10, batchGatheredEvent.getInt("batchSize"));
+        assertFalse(batchGatheredEvent.getDuration().isNegative());
+    }
+
+    @Test
+    public void givenRecording_whenHistoryQueryServed_thenEventCarriesResultSize() throws Exception {
+        var trendBarRepository = mock(TrendBarRepository.class);
+        when(trendBarRepository.findTrendBarsBySymbolAndPeriodFrom(keyEURUSD_M1.symbol(), TrendBarPeriod.M1, 0L))
+                .thenReturn(Optional.of(List.of(TrendBarEntity.builder().build(), TrendBarEntity.builder().build())));
+        var trendBarTieringService = mock(TrendBarTieringService.class);
+        when(trendBarTieringService.getHotFromMillis()).thenReturn(Long.MAX_VALUE);
+        var trendBarHistoryService = new TrendBarHistoryServiceImpl(trendBarRepository, mock(TrendBarSegmentRepository.class),
+                mock(TrendBarColdStore.class), trendBarTieringService);
+
+        List<RecordedEvent> recordedEvents = record(() ->
+                trendBarHistoryService.getTrendBarsBySymbolAndPeriodFrom(keyEURUSD_M1.symbol(), TrendBarPeriod.M1, 0L));
+
+        var historyQueryServedEvent = findEvent(recordedEvents, "com.va.trendbarservice.HistoryQueryServed");
+        assertEquals("EURUSD_M1", historyQueryServedEvent.getString("key"));
+        assertEquals(2, historyQueryServedEvent.getInt("batchSize"));
+    }
+
+    @Test
+    public void givenQuoteRoutedBelowThreshold_whenCommitted_thenNotRecordedByDefault() throws Exception {
+        List<RecordedEvent> recordedEvents = recordWithDefaultSettings(() -> {
+            var quoteRoutedEvent = new QuoteRoutedEvent();
+            quoteRoutedEvent.begin();
+            quoteRoutedEvent.commitFor(keyEURUSD_M1, 1);
+        });
+
+        assertTrue(recordedEvents.stream().noneMatch(event -> event.getEventType().getName().equals("com.va.trendbarservice.QuoteRouted")));
+    }
+
+    private List<RecordedEvent> record(Runnable action) throws Exception {
+        try (var recording = new Recording()) {
+            recording.enable(BatchGatheredEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(HistoryQueryServedEvent.class).withThreshold(Duration.ZERO);
+            return runAndRead(recording, action);
+        }
+    }
+
+    private List<RecordedEvent> recordWithDefaultSettings(Runnable action) throws Exception {
+        try (var recording = new Recording()) {
+            recording.enable(QuoteRoutedEvent.class);
+            return runAndRead(recording, action);
+        }
+    }
+
+    private List<RecordedEvent> runAndRead(Recording recording, Runnable action) throws Exception {
+        recording.start();
+        action.run();
+        recording.stop();
+        Path recordingFile = tempDir.resolve("trendbar.jfr");
+        recording.dump(recordingFile);
+        return RecordingFile.readAllEvents(recordingFile);
+    }
+
+    private static RecordedEvent findEvent(List<RecordedEvent> recordedEvents, String eventName) {
+        return recordedEvents.stream()
+                .filter(event -> event.getEventType().getName().equals(eventName))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,69 @@
+package com.va.trendbarservice.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    private LatencyHistogram latencyHistogram;
+
+    @BeforeEach
+    public void setUp() {
+        latencyHistogram = new LatencyHistogram();
+    }
+
+    @Test
+    public void givenEmptyHistogram_whenGetValueAtPercentile_thenZero() {
+        assertEquals(0, latencyHistogram.getCount());
+        assertEquals(0, latencyHistogram.getValueAtPercentile(99));
+        assertEquals(0, latencyHistogram.getMean());
+    }
+
+    @Test
+    public void givenUniformValues_whenGetValueAtPercentile_thenWithinBucketPrecision() {
+        for (long value = 1; value <= 10_000; value++) {
+            latencyHistogram.record(value);
+        }
+
+        assertEquals(10_000, latencyHistogram.getCount());
+        assertEquals(10_000, latencyHistogram.getMax());
+        assertEquals(5_000.5, latencyHistogram.getMean(), 0.001);
+        assertEquals(5_000, latencyHistogram.getValueAtPercentile(50), 5_000 * 0.125);
+        assertEquals(9_900, latencyHistogram.getValueAtPercentile(99), 9_900 * 0.125);
+        assertEquals(10_000, latencyHistogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void givenNegativeValue_whenRecord_thenClampedToZero() {
+        latencyHistogram.record(-5);
+
+        assertEquals(1, latencyHistogram.getCount());
+        assertEquals(0, latencyHistogram.getMax());
+    }
+
+    @Test
+    public void givenAnyValue_whenBucketIndexOf_thenValueWithinBucketUpperBound() {
+        long[] values = {0, 7, 8, 9, 15, 16, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucketIndex = LatencyHistogram.bucketIndexOf(value);
+            assertTrue(bucketIndex < LatencyHistogram.BUCKET_COUNT);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(bucketIndex));
+            if (bucketIndex > 0) {
+                assertTrue(value > LatencyHistogram.bucketUpperBound(bucketIndex - 1));
+            }
+        }
+    }
+
+    @Test
+    public void givenRecordedValues_whenReset_thenEmpty() {
+        latencyHistogram.record(42);
+
+        latencyHistogram.reset();
+
+        assertEquals(0, latencyHistogram.getCount());
+        assertEquals(0, latencyHistogram.getMax());
+        assertEquals(0, latencyHistogram.getValueAtPercentile(50));
+    }
+}
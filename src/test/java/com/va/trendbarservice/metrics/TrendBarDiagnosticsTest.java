@@ -0,0 +1,75 @@
+package com.va.trendbarservice.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.va.trendbarservice.model.Symbol;
+import com.va.trendbarservice.model.TrendBarKey;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarDiagnosticsTest {
+
+    private TrendBarKey keyEURUSD_M1;
+    private Logger logger;
+    private ListAppender<ILoggingEvent> listAppender;
+
+    @BeforeEach
+    public void setUp() {
+        var symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        keyEURUSD_M1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1);
+
+        logger = (Logger) LoggerFactory.getLogger(TrendBarDiagnostics.class);
+        listAppender = new ListAppender<>();
+        listAppender.start();
+        logger.addAppender(listAppender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(listAppender);
+    }
+
+    @Test
+    public void givenEnabledDiagnostics_whenLogSummary_thenOneSummaryPerKeyAndCountersReset() {
+        var trendBarDiagnostics = new TrendBarDiagnostics(true);
+        for (int i = 0; i < 1_000; i++) {
+            trendBarDiagnostics.recordQuoteRouted(keyEURUSD_M1);
+        }
+        trendBarDiagnostics.recordBatch(keyEURUSD_M1, 10, false);
+        trendBarDiagnostics.recordBatch(keyEURUSD_M1, 4, true);
+
+        trendBarDiagnostics.logSummary();
+        trendBarDiagnostics.logSummary();
+
+        assertEquals(1, trendBarDiagnostics.getLoggedSummaries());
+        assertEquals(1, listAppender.list.size());
+        String summary = listAppender.list.get(0).getFormattedMessage();
+        assertTrue(summary.contains("EURUSD_M1"));
+        assertTrue(summary.contains("routed quotes = 1000"));
+        assertTrue(summary.contains("batched quotes = 14"));
+        assertTrue(summary.contains("last batch size = 4"));
+    }
+
+    @Test
+    public void givenDisabledDiagnostics_whenRecordAndLogSummary_thenNothingLogged() {
+        var trendBarDiagnostics = new TrendBarDiagnostics(false);
+        trendBarDiagnostics.recordQuoteRouted(keyEURUSD_M1);
+        trendBarDiagnostics.recordBatch(keyEURUSD_M1, 10, true);
+
+        trendBarDiagnostics.logSummary();
+
+        assertEquals(0, trendBarDiagnostics.getLoggedSummaries());
+        assertTrue(listAppender.list.isEmpty());
+    }
+}
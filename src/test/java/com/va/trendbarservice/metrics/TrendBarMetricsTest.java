@@ -0,0 +1,73 @@
+package com.va.trendbarservice.metrics;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarMetricsTest {
+
+    private TrendBarMetrics trendBarMetrics;
+    private ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
+    private QuotesOverloadCounters quotesOverloadCounters;
+    private Symbol symbolEURUSD;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        keyToQuotesQueueMap = new ConcurrentHashMap<>();
+        quotesOverloadCounters = new QuotesOverloadCounters();
+        trendBarMetrics = new TrendBarMetrics(keyToQuotesQueueMap, new ConcurrentLinkedQueue<>(), quotesOverloadCounters);
+    }
+
+    @Test
+    public void givenRecordedMetrics_whenSnapshot_thenCountersGaugesAndHistogramsReported() {
+        var queueEURUSD_M1 = new LinkedBlockingQueue<Quote>();
+        queueEURUSD_M1.offer(Quote.builder().symbol(symbolEURUSD).newPrice(BigDecimal.ONE).build());
+        keyToQuotesQueueMap.put(new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1), queueEURUSD_M1);
+
+        trendBarMetrics.recordQuoteIngested(symbolEURUSD);
+        trendBarMetrics.recordQuoteIngested(symbolEURUSD);
+        trendBarMetrics.recordQuoteRouted();
+        trendBarMetrics.recordBatchProcessed(7, 1_000);
+        trendBarMetrics.recordBarFinalized(1_000, 1_250);
+        trendBarMetrics.recordBarPersisted(2_000);
+        quotesOverloadCounters.incrementDropped();
+
+        var snapshot = trendBarMetrics.snapshot();
+
+        assertEquals(2L, snapshot.get("quotes.ingested{symbol=EURUSD}"));
+        assertEquals(2L, trendBarMetrics.getIngestedQuotes());
+        assertEquals(1L, snapshot.get("quotes.routed"));
+        assertEquals(1L, snapshot.get("quotes.dropped"));
+        assertEquals(1, snapshot.get("queue.depth{key=EURUSD_M1}"));
+        assertEquals(0, snapshot.get("queue.depth{queue=ingest}"));
+        assertEquals(1L, snapshot.get("batches.processed"));
+        assertEquals(7L, snapshot.get("batch.size.max"));
+        assertEquals(250L, snapshot.get("trendbar.finalize.latency.millis.max"));
+        assertEquals(1L, snapshot.get("trendbars.persisted"));
+        assertTrue(snapshot.containsKey("quote.to.trendbar.latency.millis.p99.9"));
+    }
+
+    @Test
+    public void givenRecordedMetrics_whenDump_thenOneLinePerMetric() {
+        trendBarMetrics.recordQuoteIngested(symbolEURUSD);
+
+        var dump = trendBarMetrics.dump();
+
+        assertTrue(dump.contains("quotes.ingested{symbol=EURUSD} 1\n"));
+        assertEquals(trendBarMetrics.snapshot().size(), dump.lines().count());
+    }
+}
@@ -0,0 +1,89 @@
+package com.va.trendbarservice.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BidAskTrendBarTest {
+
+    @Test
+    public void givenBidAskQuotes_whenAggregate_thenBothSidesOhlcAndSpreadStatisticsTracked() {
+        BidAskTrendBar bidAskTrendBar = null;
+
+        bidAskTrendBar = BidAskTrendBar.aggregate(bidAskTrendBar, createQuote("1.1000", "1.1002"), true, true);
+        bidAskTrendBar = BidAskTrendBar.aggregate(bidAskTrendBar, createQuote("1.0990", "1.0996"), false, true);
+        bidAskTrendBar = BidAskTrendBar.aggregate(bidAskTrendBar, createQuote("1.1010", "1.1014"), false, true);
+
+        assertEquals(new BigDecimal("1.1000"), bidAskTrendBar.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.1010"), bidAskTrendBar.getBidHighPrice());
+        assertEquals(new BigDecimal("1.0990"), bidAskTrendBar.getBidLowPrice());
+        assertEquals(new BigDecimal("1.1010"), bidAskTrendBar.getBidClosePrice());
+        assertEquals(new BigDecimal("1.1002"), bidAskTrendBar.getAskOpenPrice());
+        assertEquals(new BigDecimal("1.0996"), bidAskTrendBar.getAskLowPrice());
+        assertEquals(new BigDecimal("1.1014"), bidAskTrendBar.getAskClosePrice());
+        assertEquals(new BigDecimal("0.0002"), bidAskTrendBar.getSpreadMin());
+        assertEquals(new BigDecimal("0.0006"), bidAskTrendBar.getSpreadMax());
+        assertEquals(0, new BigDecimal("0.0004").compareTo(bidAskTrendBar.getSpreadAvg()));
+        assertEquals(3, bidAskTrendBar.getQuotesCount());
+    }
+
+    @Test
+    public void givenQuoteWithoutBidAsk_whenAggregate_thenUnchanged() {
+        var quote = Quote.builder().newPrice(BigDecimal.ONE).build();
+
+        assertNull(BidAskTrendBar.aggregate(null, quote, true, true));
+    }
+
+    @Test
+    public void givenFoldedQuote_whenAggregate_thenFoldedStateCopiedNotShared() {
+        var foldedBidAsk = BidAskTrendBar.of(new BigDecimal("1.1000"), new BigDecimal("1.1002"));
+        var conflatedQuote = Quote.builder().newPrice(BigDecimal.ONE).bidAsk(foldedBidAsk).build();
+
+        var bidAskTrendBar = BidAskTrendBar.aggregate(null, conflatedQuote, true, true);
+        bidAskTrendBar.add(new BigDecimal("1.2000"), new BigDecimal("1.2002"), false, true);
+
+        assertNotSame(foldedBidAsk, bidAskTrendBar);
+        assertEquals(1, foldedBidAsk.getQuotesCount());
+        assertEquals(2, bidAskTrendBar.getQuotesCount());
+    }
+
+    @Test
+    public void givenQuoteNeitherEarliestNorLatest_whenAggregate_thenOpensAndClosesKept() {
+        var bidAskTrendBar = BidAskTrendBar.of(new BigDecimal("1.1000"), new BigDecimal("1.1002"));
+
+        BidAskTrendBar.aggregate(bidAskTrendBar, createQuote("1.0990", "1.0996"), false, false);
+
+        assertEquals(new BigDecimal("1.1000"), bidAskTrendBar.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.1000"), bidAskTrendBar.getBidClosePrice());
+        assertEquals(new BigDecimal("1.1002"), bidAskTrendBar.getAskOpenPrice());
+        assertEquals(new BigDecimal("1.1002"), bidAskTrendBar.getAskClosePrice());
+        assertEquals(new BigDecimal("1.0990"), bidAskTrendBar.getBidLowPrice());
+        assertEquals(2, bidAskTrendBar.getQuotesCount());
+    }
+
+    @Test
+    public void givenEarlierFoldedQuote_whenAggregate_thenOpensTakenAndClosesKept() {
+        var bidAskTrendBar = BidAskTrendBar.of(new BigDecimal("1.1000"), new BigDecimal("1.1002"));
+        var foldedBidAsk = BidAskTrendBar.of(new BigDecimal("1.0990"), new BigDecimal("1.0996"))
+                .add(new BigDecimal("1.0995"), new BigDecimal("1.0999"), false, true);
+        var conflatedQuote = Quote.builder().newPrice(BigDecimal.ONE).bidAsk(foldedBidAsk).build();
+
+        BidAskTrendBar.aggregate(bidAskTrendBar, conflatedQuote, true, false);
+
+        assertEquals(new BigDecimal("1.0990"), bidAskTrendBar.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.0996"), bidAskTrendBar.getAskOpenPrice());
+        assertEquals(new BigDecimal("1.1000"), bidAskTrendBar.getBidClosePrice());
+        assertEquals(new BigDecimal("1.1002"), bidAskTrendBar.getAskClosePrice());
+        assertEquals(3, bidAskTrendBar.getQuotesCount());
+    }
+
+    private static Quote createQuote(String bidPrice, String askPrice) {
+        return Quote.builder()
+                .newPrice(new BigDecimal(bidPrice))
+                .bidPrice(new BigDecimal(bidPrice))
+                .askPrice(new BigDecimal(askPrice))
+                .build();
+    }
+}
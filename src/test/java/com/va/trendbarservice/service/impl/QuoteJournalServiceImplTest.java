@@ -0,0 +1,162 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.service.TrendBarBuilderService;
+import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.QuoteJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+public class QuoteJournalServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private TrendBarBatchProcessor batchProcessor;
+
+    @Mock
+    private TrendBarBuilderService trendBarBuilderService;
+
+    private QuoteJournal quoteJournal;
+    private ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap;
+    private ConcurrentMap<TrendBar, TrendBarEntity> currTrendBarEntitiesMap;
+    private QuoteJournalServiceImpl quoteJournalServiceImpl;
+    private Symbol symbolEURUSD;
+    private TrendBar openTrendBarEURUSD_D1;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        var keyEURUSD_D1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.D1);
+        openTrendBarEURUSD_D1 = new TrendBar(keyEURUSD_D1, Instant.now().truncatedTo(ChronoUnit.DAYS));
+
+        ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap = new ConcurrentHashMap<>();
+        keyToQuotesQueueMap.put(keyEURUSD_D1, new LinkedBlockingQueue<>());
+        currMicroBatchersMap = new ConcurrentHashMap<>();
+        currTrendBarEntitiesMap = new ConcurrentHashMap<>();
+        quoteJournal = new QuoteJournal(true, tempDir.resolve("quotes.journal"), 1024);
+
+        quoteJournalServiceImpl = new QuoteJournalServiceImpl(quoteJournal, keyToQuotesQueueMap, currMicroBatchersMap, currTrendBarEntitiesMap, batchProcessor, trendBarBuilderService);
+        quoteJournalServiceImpl.setREPLAY_ON_STARTUP(true);
+        quoteJournalServiceImpl.setREPLAY_BATCH_SIZE(2);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        quoteJournal.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenJournaledQuotes_whenReplayIntoOpenTrendBars_thenOpenPeriodQuotesAggregatedInBatchesAndBuilderStarted() {
+        long startOfDay = openTrendBarEURUSD_D1.startOfPeriod().toEpochMilli();
+        quoteJournal.append(createQuote("1.0700", startOfDay - 1));
+        quoteJournal.append(createQuote("1.0710", startOfDay + 1));
+        quoteJournal.append(createQuote("1.0720", startOfDay + 2));
+        quoteJournal.append(createQuote("1.0730", startOfDay + 3));
+        quoteJournal.commit();
+
+        int replayedTrendBarsCount = quoteJournalServiceImpl.replayIntoOpenTrendBars(0);
+
+        assertEquals(1, replayedTrendBarsCount);
+        ArgumentCaptor<List<Quote>> quotesBatchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(batchProcessor, times(2)).processMicroBatch(quotesBatchCaptor.capture(), eq(openTrendBarEURUSD_D1), eq(false));
+        assertEquals(2, quotesBatchCaptor.getAllValues().get(0).size());
+        assertEquals(1, quotesBatchCaptor.getAllValues().get(1).size());
+        verify(trendBarBuilderService).buildTrendBar(openTrendBarEURUSD_D1);
+    }
+
+    @Test
+    public void givenRunningMicroBatcher_whenReplayIntoOpenTrendBars_thenBuilderNotStartedAgain() {
+        quoteJournal.append(createQuote("1.0710", openTrendBarEURUSD_D1.startOfPeriod().toEpochMilli() + 1));
+        quoteJournal.commit();
+        currMicroBatchersMap.put(openTrendBarEURUSD_D1, mock(MicroBatcher.class));
+
+        quoteJournalServiceImpl.replayIntoOpenTrendBars(0);
+
+        verify(trendBarBuilderService, never()).buildTrendBar(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void givenCheckpointPosition_whenReplayIntoOpenTrendBars_thenOnlyQuotesAfterPositionReplayed() {
+        long startOfDay = openTrendBarEURUSD_D1.startOfPeriod().toEpochMilli();
+        quoteJournal.append(createQuote("1.0710", startOfDay + 1));
+        quoteJournal.append(createQuote("1.0720", startOfDay + 2));
+        quoteJournal.append(createQuote("1.0730", startOfDay + 3));
+        quoteJournal.commit();
+        currTrendBarEntitiesMap.put(openTrendBarEURUSD_D1, TrendBarEntity.builder().lastQuoteSequence(2).build());
+
+        quoteJournalServiceImpl.replayIntoOpenTrendBars(2);
+
+        ArgumentCaptor<List<Quote>> quotesBatchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(batchProcessor).processMicroBatch(quotesBatchCaptor.capture(), eq(openTrendBarEURUSD_D1), eq(false));
+        assertEquals(List.of(3L), quotesBatchCaptor.getValue().stream().map(Quote::getJournalSequence).toList());
+        verify(trendBarBuilderService).buildTrendBar(openTrendBarEURUSD_D1);
+    }
+
+    @Test
+    public void givenRestoredTrendBarAndReplayDisabled_whenReplayIntoOpenTrendBars_thenOnlyBuilderStarted() {
+        quoteJournalServiceImpl.setREPLAY_ON_STARTUP(false);
+        currTrendBarEntitiesMap.put(openTrendBarEURUSD_D1, TrendBarEntity.builder().build());
+
+        assertEquals(0, quoteJournalServiceImpl.replayIntoOpenTrendBars(0));
+        verifyNoInteractions(batchProcessor);
+        verify(trendBarBuilderService).buildTrendBar(openTrendBarEURUSD_D1);
+    }
+
+    @Test
+    public void givenRestoredTrendBarWhosePeriodEnded_whenReplayIntoOpenTrendBars_thenReplayedButNoBuilderStarted() {
+        var endedTrendBarEURUSD_D1 = new TrendBar(openTrendBarEURUSD_D1.trendBarKey(), openTrendBarEURUSD_D1.startOfPeriod().minus(1, ChronoUnit.DAYS));
+        quoteJournal.append(createQuote("1.0710", endedTrendBarEURUSD_D1.startOfPeriod().toEpochMilli() + 1));
+        quoteJournal.commit();
+        currTrendBarEntitiesMap.put(endedTrendBarEURUSD_D1, TrendBarEntity.builder().build());
+
+        quoteJournalServiceImpl.replayIntoOpenTrendBars(0);
+
+        verify(batchProcessor).processMicroBatch(anyList(), eq(endedTrendBarEURUSD_D1), eq(false));
+        verify(trendBarBuilderService, never()).buildTrendBar(any());
+    }
+
+    @Test
+    public void givenReplayOnStartupDisabled_whenReplayIntoOpenTrendBars_thenNothingReplayed() {
+        quoteJournalServiceImpl.setREPLAY_ON_STARTUP(false);
+
+        assertEquals(0, quoteJournalServiceImpl.replayIntoOpenTrendBars(0));
+        verifyNoInteractions(batchProcessor, trendBarBuilderService);
+    }
+
+    private Quote createQuote(String newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
@@ -2,17 +2,27 @@ package com.va.trendbarservice.service.impl;
 
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.util.KeyQuotesQueueFactory;
+import com.va.trendbarservice.util.QuoteConflator;
+import com.va.trendbarservice.util.QuoteJournal;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import ch.qos.logback.classic.Logger;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Currency;
@@ -29,11 +39,15 @@ import static org.mockito.Mockito.*;
 public class QuotesConsumerServiceImplTest {
 
     private QuotesConsumerServiceImpl quotesConsumerServiceImpl;
+    private QuotesConsumerServiceImpl conflatingQuotesConsumerServiceImpl;
+    private TrendBarMetrics trendBarMetrics;
 
     @Mock
     private ConcurrentLinkedQueue<Quote> quotesQueue;
     @Mock
     private ExecutorService consumerExecutorService;
+    @Mock
+    private TrendBarBatchProcessor batchProcessor;
 
     private ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
 
@@ -58,6 +72,7 @@ public class QuotesConsumerServiceImplTest {
         keyEURJPY_M1 = new TrendBarKey(symbolEURJPY, TrendBarPeriod.M1);
 
         keyToQuotesQueueMap = new ConcurrentHashMap<>();
+        trendBarMetrics = new TrendBarMetrics(keyToQuotesQueueMap, new ConcurrentLinkedQueue<>(), new QuotesOverloadCounters());
         keyToQuotesQueueMap.put(keyEURUSD_M1, new LinkedBlockingQueue<>());
         keyToQuotesQueueMap.put(keyEURJPY_M1, new LinkedBlockingQueue<>());
 
@@ -87,6 +102,16 @@ public class QuotesConsumerServiceImplTest {
                 .keyToQuotesQueueMap(keyToQuotesQueueMap)
                 .currBuildersMap(currBuildersMap)
                 .consumerExecutorService(consumerExecutorService)
+                .batchProcessor(batchProcessor)
+                .keyQuotesQueueFactory(new KeyQuotesQueueFactory(100, OverloadPolicy.BLOCK, 100, new QuotesOverloadCounters()))
+                .quoteConflator(new QuoteConflator(false))
+                .trendBarMetrics(trendBarMetrics)
+                .trendBarDiagnostics(new TrendBarDiagnostics(false))
+                .quoteJournal(new QuoteJournal(false, null, 0))
+                .build();
+
+        conflatingQuotesConsumerServiceImpl = quotesConsumerServiceImpl.toBuilder()
+                .quoteConflator(new QuoteConflator(true))
                 .build();
     }
 
@@ -157,6 +182,25 @@ public class QuotesConsumerServiceImplTest {
         assertTrue(queue.isEmpty());
     }
 
+    @Test
+    public void givenPriceTooLargeForJournal_whenProcessQuote_thenLogErrorAndQuoteNotRouted(@TempDir Path tempDir) throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, tempDir.resolve("quotes.journal"), 16)) {
+            var journalingQuotesConsumerServiceImpl = quotesConsumerServiceImpl.toBuilder().quoteJournal(quoteJournal).build();
+            var oversizedQuote = validTestQuote.toBuilder().newPrice(new BigDecimal("1.1234E+30").setScale(4)).build();
+
+            Logger logger = (Logger) LoggerFactory.getLogger(QuotesConsumerServiceImpl.class);
+            ListAppender<ILoggingEvent> listAppender = new ListAppender<>();
+            listAppender.start();
+            logger.addAppender(listAppender);
+
+            journalingQuotesConsumerServiceImpl.processQuote(oversizedQuote);
+
+            assertTrue(listAppender.list.stream().anyMatch(event -> event.getFormattedMessage().contains(ERROR_QUOTE_NOT_JOURNALABLE)));
+            assertTrue(keyToQuotesQueueMap.get(keyEURUSD_M1).isEmpty());
+            assertEquals(0, quoteJournal.getAppendedCount());
+        }
+    }
+
     @Test
     public void givenQuoteWithDifferentSymbol_whenProcessQuote_thenQuoteNotAddedToQueue() {
         var differentSymbol = Symbol.builder()
@@ -266,6 +310,77 @@ public class QuotesConsumerServiceImplTest {
         assertFalse(queue.contains(invalidTimestampQuote));
     }
 
+    @Test
+    public void givenQuoteAtStartOfPeriod_whenProcessQuote_thenQuoteAddedToQueue() {
+        var startOfPeriodQuote = Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.1234"))
+                .unixTimeStamp(Instant.now().truncatedTo(ChronoUnit.MINUTES).toEpochMilli())
+                .build();
+
+        quotesConsumerServiceImpl.processQuote(startOfPeriodQuote);
+
+        BlockingQueue<Quote> queue = keyToQuotesQueueMap.get(keyEURUSD_M1);
+        assertTrue(queue.contains(startOfPeriodQuote));
+    }
+
+    @Test
+    public void givenQuoteOutsidePeriod_whenProcessQuote_thenOfferedForCompletedTrendBarsAmendment() {
+        var lateQuote = Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.1234"))
+                .unixTimeStamp(Instant.now().minus(1, ChronoUnit.MINUTES).toEpochMilli())
+                .build();
+
+        quotesConsumerServiceImpl.processQuote(lateQuote);
+
+        verify(batchProcessor, times(1)).amendCompletedTrendBars(lateQuote);
+    }
+
+    @Test
+    public void givenQuoteInOpenPeriod_whenProcessQuote_thenCompletedTrendBarsNotScanned() {
+        var inOrderQuote = Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.1234"))
+                .unixTimeStamp(Instant.now().truncatedTo(ChronoUnit.MINUTES).toEpochMilli())
+                .build();
+
+        quotesConsumerServiceImpl.processQuote(inOrderQuote);
+
+        verify(batchProcessor, never()).amendCompletedTrendBars(any(Quote.class));
+    }
+    @Test
+    public void givenBurstOfQuotes_whenProcessConflationCycle_thenOneConflatedQuotePerSymbolRouted() {
+        long unixTimeStamp = Instant.now().truncatedTo(ChronoUnit.MINUTES).toEpochMilli();
+        when(quotesQueue.poll())
+                .thenReturn(createQuote(symbolEURUSD, "1.1000", unixTimeStamp))
+                .thenReturn(createQuote(symbolEURUSD, "1.1300", unixTimeStamp + 1))
+                .thenReturn(createQuote(validTestQuote2.getSymbol(), "160.00", unixTimeStamp + 2))
+                .thenReturn(createQuote(symbolEURUSD, "1.0900", unixTimeStamp + 3))
+                .thenReturn(createQuote(symbolEURUSD, "1.1200", unixTimeStamp + 4))
+                .thenReturn(null);
+
+        conflatingQuotesConsumerServiceImpl.processConflationCycle(conflatingQuotesConsumerServiceImpl::routeQuote);
+
+        BlockingQueue<Quote> queueEURUSD = keyToQuotesQueueMap.get(keyEURUSD_M1);
+        BlockingQueue<Quote> queueEURJPY = keyToQuotesQueueMap.get(keyEURJPY_M1);
+        assertEquals(1, queueEURUSD.size());
+        assertEquals(1, queueEURJPY.size());
+        var conflatedQuote = queueEURUSD.peek();
+        assertEquals(new BigDecimal("1.1000"), conflatedQuote.getFirstPrice());
+        assertEquals(new BigDecimal("1.1300"), conflatedQuote.getHighPrice());
+        assertEquals(new BigDecimal("1.0900"), conflatedQuote.getLowPrice());
+        assertEquals(new BigDecimal("1.1200"), conflatedQuote.getNewPrice());
+        assertEquals(unixTimeStamp + 4, conflatedQuote.getUnixTimeStamp());
+    }
+
+    private Quote createQuote(Symbol symbol, String newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbol)
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
 
     @Test
     public void whenShutdown_thenExecutorServiceShutDown() {
@@ -0,0 +1,265 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.util.QuoteJournal;
+import com.va.trendbarservice.util.TickFileWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Currency;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+public class TrendBarBackfillServiceImplTest {
+
+    private static final long START_OF_DAY = 1_718_841_600_000L; // 2024-06-20T00:00:00Z
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private TrendBarRepository trendBarRepository;
+
+    @Mock
+    private TrendBarTieringService trendBarTieringService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TrendBarBackfillServiceImpl trendBarBackfillServiceImpl;
+    private Symbol symbolEURUSD;
+    private List<TrendBarEntity> savedTrendBarEntities;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        savedTrendBarEntities = new ArrayList<>();
+        lenient().when(trendBarRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TrendBarEntity> trendBarEntities = invocation.getArgument(0);
+            savedTrendBarEntities.addAll(trendBarEntities);
+            return trendBarEntities;
+        });
+
+        trendBarBackfillServiceImpl = new TrendBarBackfillServiceImpl(trendBarRepository, trendBarTieringService,
+                new TransactionTemplate(transactionManager));
+        trendBarBackfillServiceImpl.setBACKFILL_PATH("");
+        trendBarBackfillServiceImpl.setBACKFILL_SAVE_BATCH_SIZE(2);
+        trendBarBackfillServiceImpl.setQUOTE_JOURNAL_SEGMENT_RECORDS(1024);
+        trendBarBackfillServiceImpl.setBACKFILL_PARALLELISM(4);
+        trendBarBackfillServiceImpl.setBACKFILL_SLICE_MAX_QUOTES(50);
+    }
+
+    @Test
+    public void givenHistoricalQuotes_whenBackfill_thenCompletedBarsForAllPeriodsSavedInBatches() {
+        var quotes = List.of(
+                createQuote("1.0700", START_OF_DAY),
+                createQuote("1.0750", START_OF_DAY + 30_000),
+                createQuote("1.0650", START_OF_DAY + 61_000),
+                createQuote("1.0690", START_OF_DAY + 70_000));
+
+        int savedTrendBarsCount = trendBarBackfillServiceImpl.backfill(quotes.iterator());
+
+        assertEquals(4, savedTrendBarsCount);
+        verify(trendBarRepository, times(2)).saveAll(anyList());
+        verify(transactionManager, times(2)).commit(any());
+        assertTrendBar(findTrendBar(TrendBarPeriod.M1, START_OF_DAY), "1.0700", "1.0750", "1.0700", "1.0750");
+        assertTrendBar(findTrendBar(TrendBarPeriod.M1, START_OF_DAY + 60_000), "1.0650", "1.0690", "1.0650", "1.0690");
+        assertTrendBar(findTrendBar(TrendBarPeriod.H1, START_OF_DAY), "1.0700", "1.0750", "1.0650", "1.0690");
+        assertTrendBar(findTrendBar(TrendBarPeriod.D1, START_OF_DAY), "1.0700", "1.0750", "1.0650", "1.0690");
+    }
+
+    @Test
+    public void givenQuoteOlderThanOpenBar_whenBackfill_thenSkippedOnlyForThatPeriod() {
+        var quotes = List.of(
+                createQuote("1.0700", START_OF_DAY),
+                createQuote("1.0710", START_OF_DAY + 61_000),
+                createQuote("1.0600", START_OF_DAY + 10_000));
+
+        trendBarBackfillServiceImpl.backfill(quotes.iterator());
+
+        assertTrendBar(findTrendBar(TrendBarPeriod.M1, START_OF_DAY), "1.0700", "1.0700", "1.0700", "1.0700");
+        assertTrendBar(findTrendBar(TrendBarPeriod.H1, START_OF_DAY), "1.0700", "1.0710", "1.0600", "1.0710");
+    }
+
+    @Test
+    public void givenQuotesOfRunningPeriod_whenBackfill_thenOpenBarsLeftToLivePipeline() {
+        trendBarBackfillServiceImpl.backfill(List.of(createQuote("1.0700", System.currentTimeMillis())).iterator());
+
+        verify(trendBarRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    public void givenCsvFile_whenBackfillFromCsv_thenSameBarsAsFromIterator() throws IOException {
+        Path csvPath = tempDir.resolve("quotes.csv");
+        Files.write(csvPath, List.of(
+                "symbol,price,timestamp",
+                "EURUSD,1.0700," + START_OF_DAY,
+                "EURUSD,1.0750," + (START_OF_DAY + 30_000)));
+
+        int savedTrendBarsCount = trendBarBackfillServiceImpl.backfillFromCsv(csvPath);
+
+        assertEquals(3, savedTrendBarsCount);
+        assertTrendBar(findTrendBar(TrendBarPeriod.D1, START_OF_DAY), "1.0700", "1.0750", "1.0700", "1.0750");
+    }
+
+    @Test
+    public void givenQuoteJournal_whenBackfillFromConfiguredPath_thenJournaledQuotesBackfilled() throws IOException {
+        Path journalPath = tempDir.resolve("quotes.journal");
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 1024)) {
+            quoteJournal.append(createQuote("1.0700", START_OF_DAY));
+            quoteJournal.append(createQuote("1.0650", START_OF_DAY + 30_000));
+            quoteJournal.commit();
+        }
+        trendBarBackfillServiceImpl.setBACKFILL_PATH(journalPath.toString());
+
+        int savedTrendBarsCount = trendBarBackfillServiceImpl.backfillFromConfiguredPath();
+
+        assertEquals(3, savedTrendBarsCount);
+        assertTrendBar(findTrendBar(TrendBarPeriod.M1, START_OF_DAY), "1.0700", "1.0700", "1.0650", "1.0650");
+    }
+
+    @Test
+    public void givenMultiSymbolMultiDayQuotes_whenBackfillInParallel_thenSameBarsAsSequentialBackfill() {
+        var symbolEURJPY = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("JPY"))
+                .build();
+        var random = new SplittableRandom(42);
+        List<Quote> quotes = new ArrayList<>();
+        long unscaledEURUSD = 107_000;
+        long unscaledEURJPY = 17_000_000;
+        for (long timestamp = START_OF_DAY; timestamp < START_OF_DAY + 3 * 86_400_000L; timestamp += random.nextLong(1, 180_000)) {
+            unscaledEURUSD += random.nextLong(-20, 21);
+            unscaledEURJPY += random.nextLong(-2_000, 2_001);
+            quotes.add(createQuote(symbolEURUSD, BigDecimal.valueOf(unscaledEURUSD, 5), timestamp));
+            quotes.add(createQuote(symbolEURJPY, BigDecimal.valueOf(unscaledEURJPY, 5), timestamp));
+        }
+
+        int sequentialSavedCount = trendBarBackfillServiceImpl.backfill(quotes.iterator());
+        var sequentialTrendBarEntities = sorted(savedTrendBarEntities);
+        savedTrendBarEntities.clear();
+        int parallelSavedCount = trendBarBackfillServiceImpl.backfillInParallel(quotes.stream());
+
+        assertEquals(sequentialSavedCount, parallelSavedCount);
+        assertEquals(2 * 3, savedTrendBarEntities.stream().filter(trendBarEntity -> trendBarEntity.getPeriod() == TrendBarPeriod.D1).count());
+        assertEquals(sequentialTrendBarEntities, sorted(savedTrendBarEntities));
+    }
+
+    @Test
+    public void givenOutOfOrderQuotesAcrossSlices_whenBackfillInParallel_thenSkippedAsInSequentialBackfill() {
+        var quotes = List.of(
+                createQuote("1.0700", START_OF_DAY),
+                createQuote("1.0710", START_OF_DAY + 3_600_000),
+                createQuote("1.0720", START_OF_DAY + 3_661_000),
+                createQuote("1.0600", START_OF_DAY + 3_610_000),
+                createQuote("1.0500", START_OF_DAY + 60_000),
+                createQuote("1.0730", START_OF_DAY + 86_400_000),
+                createQuote("1.0400", START_OF_DAY + 86_000_000),
+                createQuote("1.0740", START_OF_DAY + 86_430_000));
+        trendBarBackfillServiceImpl.setBACKFILL_SLICE_MAX_QUOTES(2);
+
+        int sequentialSavedCount = trendBarBackfillServiceImpl.backfill(quotes.iterator());
+        var sequentialTrendBarEntities = sorted(savedTrendBarEntities);
+        savedTrendBarEntities.clear();
+        int parallelSavedCount = trendBarBackfillServiceImpl.backfillInParallel(quotes.stream());
+
+        assertEquals(sequentialSavedCount, parallelSavedCount);
+        assertEquals(sequentialTrendBarEntities, sorted(savedTrendBarEntities));
+        assertTrendBar(findTrendBar(TrendBarPeriod.H1, START_OF_DAY + 3_600_000), "1.0710", "1.0720", "1.0600", "1.0720");
+        assertTrendBar(findTrendBar(TrendBarPeriod.D1, START_OF_DAY), "1.0700", "1.0720", "1.0500", "1.0720");
+    }
+
+    @Test
+    public void givenParallelEnabled_whenBackfillFromCsv_thenBarsAggregatedInParallel() throws IOException {
+        Path csvPath = tempDir.resolve("quotes.csv");
+        Files.write(csvPath, List.of(
+                "EURUSD,1.0750," + (START_OF_DAY + 30_000),
+                "EURUSD,1.0700," + START_OF_DAY));
+        trendBarBackfillServiceImpl.setBACKFILL_PARALLEL_ENABLED(true);
+
+        int savedTrendBarsCount = trendBarBackfillServiceImpl.backfillFromCsv(csvPath);
+
+        assertEquals(3, savedTrendBarsCount);
+        assertTrendBar(findTrendBar(TrendBarPeriod.M1, START_OF_DAY), "1.0700", "1.0750", "1.0700", "1.0750");
+    }
+
+    @Test
+    public void givenTickFile_whenBackfillFromConfiguredPath_thenArchivedTicksBackfilled() throws IOException {
+        Path tickFilePath = tempDir.resolve("quotes.ticks");
+        try (var tickFileWriter = new TickFileWriter(tickFilePath, 1024)) {
+            tickFileWriter.write(createQuote("1.0700", START_OF_DAY));
+            tickFileWriter.write(createQuote("1.0760", START_OF_DAY + 61_000));
+        }
+        trendBarBackfillServiceImpl.setBACKFILL_PATH(tickFilePath.toString());
+
+        int savedTrendBarsCount = trendBarBackfillServiceImpl.backfillFromConfiguredPath();
+
+        assertEquals(4, savedTrendBarsCount);
+        assertTrendBar(findTrendBar(TrendBarPeriod.H1, START_OF_DAY), "1.0700", "1.0760", "1.0700", "1.0760");
+    }
+
+    @Test
+    public void givenNoConfiguredPath_whenBackfillFromConfiguredPath_thenNothingBackfilled() {
+        assertEquals(0, trendBarBackfillServiceImpl.backfillFromConfiguredPath());
+        verifyNoInteractions(trendBarRepository);
+    }
+
+    private TrendBarEntity findTrendBar(TrendBarPeriod trendBarPeriod, long timestamp) {
+        return savedTrendBarEntities.stream()
+                .filter(trendBarEntity -> trendBarEntity.getPeriod() == trendBarPeriod && trendBarEntity.getTimestamp() == timestamp)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static void assertTrendBar(TrendBarEntity trendBarEntity, String open, String high, String low, String close) {
+        assertEquals(new BigDecimal(open), trendBarEntity.getOpenPrice());
+        assertEquals(new BigDecimal(high), trendBarEntity.getHighPrice());
+        assertEquals(new BigDecimal(low), trendBarEntity.getLowPrice());
+        assertEquals(new BigDecimal(close), trendBarEntity.getClosePrice());
+        assertEquals(TrendBarStatus.COMPLETED, trendBarEntity.getStatus());
+    }
+
+    private static List<TrendBarEntity> sorted(List<TrendBarEntity> trendBarEntities) {
+        return trendBarEntities.stream()
+                .sorted(Comparator.comparing((TrendBarEntity trendBarEntity) -> trendBarEntity.getSymbol().toString())
+                        .thenComparing(TrendBarEntity::getPeriod)
+                        .thenComparingLong(TrendBarEntity::getTimestamp))
+                .toList();
+    }
+
+    private Quote createQuote(String newPrice, long unixTimeStamp) {
+        return createQuote(symbolEURUSD, new BigDecimal(newPrice), unixTimeStamp);
+    }
+
+    private static Quote createQuote(Symbol symbol, BigDecimal newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbol)
+                .newPrice(newPrice)
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
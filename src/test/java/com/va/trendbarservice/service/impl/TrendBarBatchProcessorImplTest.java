@@ -1,8 +1,16 @@
 package com.va.trendbarservice.service.impl;
 
+import com.va.trendbarservice.metrics.TrendBarDiagnostics;
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.*;
 import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.service.TrendBarIndicatorService;
+import com.va.trendbarservice.service.TrendBarSubscriptionService;
+import com.va.trendbarservice.service.TrendBarTieringService;
 import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.QuoteConflator;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
+import com.va.trendbarservice.util.TrendBarAccumulator;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,6 +36,7 @@ import static org.mockito.Mockito.*;
 public class TrendBarBatchProcessorImplTest {
 
     private TrendBarBatchProcessorImpl trendBarBatchProcessorImpl;
+    private TrendBarMetrics trendBarMetrics;
 
     @Mock
     private ConcurrentMap<TrendBar, MicroBatcher> currMicroBatchersMap;
@@ -44,6 +53,20 @@ public class TrendBarBatchProcessorImplTest {
     @Mock
     private ConcurrentMap<TrendBar, Optional<ScheduledFuture<?>>> currBuildersMap;
 
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private TrendBarSubscriptionService trendBarSubscriptionService;
+
+    @Mock
+    private TrendBarIndicatorService trendBarIndicatorService;
+
+    @Mock
+    private TrendBarTieringService trendBarTieringService;
+
+    private ConcurrentMap<TrendBar, TrendBarEntity> amendableTrendBarEntitiesMap;
+
     @Mock
     private MicroBatcher microBatcher1;
 
@@ -86,8 +109,13 @@ public class TrendBarBatchProcessorImplTest {
                 .status(TrendBarStatus.INCOMPLETE)
                 .build();
 
+        amendableTrendBarEntitiesMap = new ConcurrentHashMap<>();
+
+        trendBarMetrics = new TrendBarMetrics(new ConcurrentHashMap<>(), new ConcurrentLinkedQueue<>(), new QuotesOverloadCounters());
         trendBarBatchProcessorImpl = Mockito.spy(new TrendBarBatchProcessorImpl(
-                currMicroBatchersMap, trendBarRepository, currTrendBarEntitiesMap, keyToQuotesQueueMap, currBuildersMap));
+                currMicroBatchersMap, trendBarRepository, currTrendBarEntitiesMap, keyToQuotesQueueMap, currBuildersMap,
+                amendableTrendBarEntitiesMap, scheduler, trendBarMetrics, new TrendBarDiagnostics(false), trendBarSubscriptionService,
+                trendBarIndicatorService, trendBarTieringService));
     }
 
     @Test
@@ -99,6 +127,19 @@ public class TrendBarBatchProcessorImplTest {
         verify(currTrendBarEntitiesMap, never()).put(eq(trendBarEURUSD_M1), any(TrendBarEntity.class));
     }
 
+    @Test
+    public void givenEmptyQuotesBatchFinal_whenProcessMicroBatch_thenCompletesAndSavesTrendBar() {
+        List<Quote> quotesBatch = List.of();
+        when(currTrendBarEntitiesMap.get(trendBarEURUSD_M1)).thenReturn(trendBarEntity);
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mock(MicroBatcher.class));
+
+        trendBarBatchProcessorImpl.processMicroBatch(quotesBatch, trendBarEURUSD_M1, true);
+
+        verify(trendBarBatchProcessorImpl, times(1)).updateTrendBarEntity(eq(trendBarEntity), eq(quotesBatch), eq(true));
+        verify(trendBarRepository, times(1)).save(any(TrendBarEntity.class));
+        verify(trendBarTieringService, times(1)).onTrendBarPersisted(any(TrendBarEntity.class));
+    }
+
     @Test
     public void givenNotEmptyQuotesBatch_whenProcessMicroBatch_thenContinues() {
         List<Quote> quotesBatch = List.of(validTestQuote);
@@ -158,7 +199,7 @@ public class TrendBarBatchProcessorImplTest {
         assertEquals(new BigDecimal("1.1234"), result.getOpenPrice());
         assertEquals(new BigDecimal("1.1234"), result.getHighPrice());
         assertEquals(new BigDecimal("1.1234"), result.getLowPrice());
-        assertNull(result.getClosePrice());
+        assertEquals(new BigDecimal("1.1234"), result.getClosePrice());
         assertEquals(keyEURUSD_M1.trendBarPeriod(), result.getPeriod());
         assertEquals(TrendBarStatus.INCOMPLETE, result.getStatus());
     }
@@ -188,7 +229,7 @@ public class TrendBarBatchProcessorImplTest {
         assertEquals(BigDecimal.valueOf(1.2222).setScale(4, RoundingMode.HALF_UP), trendBarEntity.getOpenPrice());
         assertEquals(BigDecimal.valueOf(1.4444).setScale(4, RoundingMode.HALF_UP), trendBarEntity.getHighPrice());
         assertEquals(BigDecimal.valueOf(1.1111).setScale(4, RoundingMode.HALF_UP), trendBarEntity.getLowPrice());
-        assertNull(trendBarEntity.getClosePrice());
+        assertEquals(BigDecimal.valueOf(1.4444).setScale(4, RoundingMode.HALF_UP), trendBarEntity.getClosePrice());
         assertEquals(TrendBarStatus.INCOMPLETE, trendBarEntity.getStatus());
     }
 
@@ -201,6 +242,73 @@ public class TrendBarBatchProcessorImplTest {
         assertNull(trendBarEntity);
     }
 
+    @Test
+    public void givenSizedAndUnsizedQuotesOverTwoBatches_whenProcessMicroBatch_thenActivityFieldsAndVwapAggregated() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        var firstBatch = List.of(
+                createQuote(1.1000).toBuilder().unixTimeStamp(startOfPeriod + 1_000).size(new BigDecimal("100")).build(),
+                createQuote(1.2000).toBuilder().unixTimeStamp(startOfPeriod + 2_000).build());
+        var secondBatch = List.of(
+                createQuote(1.3000).toBuilder().unixTimeStamp(startOfPeriod + 3_000).size(new BigDecimal("300")).build());
+
+        var createdTrendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(firstBatch, trendBarEURUSD_M1);
+        var updatedTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(createdTrendBarEntity, secondBatch, false);
+
+        assertEquals(2, createdTrendBarEntity.getTicksCount());
+        assertEquals(3, updatedTrendBarEntity.getTicksCount());
+        assertEquals(startOfPeriod + 1_000, updatedTrendBarEntity.getFirstQuoteTimestamp());
+        assertEquals(startOfPeriod + 3_000, updatedTrendBarEntity.getLastQuoteTimestamp());
+        assertEquals(0, new BigDecimal("400").compareTo(updatedTrendBarEntity.getVolume()));
+        assertEquals(0, new BigDecimal("1.25").compareTo(updatedTrendBarEntity.getVwap()));
+    }
+
+    @Test
+    public void givenUnsizedQuotes_whenCreateTrendBarEntity_thenVolumeAndVwapNull() {
+        var createdTrendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(List.of(createQuote(1.1000)), trendBarEURUSD_M1);
+
+        assertEquals(1, createdTrendBarEntity.getTicksCount());
+        assertNull(createdTrendBarEntity.getVolume());
+        assertNull(createdTrendBarEntity.getVwap());
+    }
+
+    @Test
+    public void givenBidAskQuotesOverTwoBatches_whenUpdateTrendBarEntity_thenBidAskBarAggregatedWithoutMutatingEarlierSnapshot() {
+        var firstBatch = List.of(createQuote(1.1001).toBuilder().bidPrice(new BigDecimal("1.1000")).askPrice(new BigDecimal("1.1002")).build());
+        var secondBatch = List.of(createQuote(1.0993).toBuilder().bidPrice(new BigDecimal("1.0990")).askPrice(new BigDecimal("1.0996")).build());
+
+        var createdTrendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(firstBatch, trendBarEURUSD_M1);
+        var updatedTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(createdTrendBarEntity, secondBatch, false);
+
+        assertEquals(1, createdTrendBarEntity.getBidAsk().getQuotesCount());
+        var bidAsk = updatedTrendBarEntity.getBidAsk();
+        assertEquals(new BigDecimal("1.1000"), bidAsk.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.0990"), bidAsk.getBidLowPrice());
+        assertEquals(new BigDecimal("1.0996"), bidAsk.getAskClosePrice());
+        assertEquals(new BigDecimal("0.0006"), bidAsk.getSpreadMax());
+        assertEquals(2, bidAsk.getQuotesCount());
+    }
+
+    private TrendBarEntity createCompletedTrendBar(long lastQuoteTimestamp) {
+        return trendBarEntity.toBuilder()
+                .timestamp(trendBarEURUSD_M1.startOfPeriod().toEpochMilli())
+                .openPrice(new BigDecimal("1.1000"))
+                .highPrice(new BigDecimal("1.1200"))
+                .lowPrice(new BigDecimal("1.0900"))
+                .closePrice(new BigDecimal("1.1100"))
+                .firstQuoteTimestamp(trendBarEURUSD_M1.startOfPeriod().toEpochMilli())
+                .lastQuoteTimestamp(lastQuoteTimestamp)
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+
+    private Quote createLateQuote(String newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+
     private Quote createQuote(double newPrice) {
         return Quote.builder()
                 .id(null)
@@ -263,20 +371,46 @@ public class TrendBarBatchProcessorImplTest {
     }
 
     @Test
-    public void whenDoFinalUpdate_thenReturnFinalizedTrendBarEntity() {
-        List<Quote> quotesBatch = new ArrayList<>();
-        quotesBatch.add(createQuote(1.1234));
-        quotesBatch.add(createQuote(1.1256));
-        quotesBatch.add(createQuote(1.1211));
-        quotesBatch.add(createQuote(1.1244));
+    public void whenDoFinalUpdate_thenReturnFinalizedTrendBarEntityWithTrackedClose() {
+        var trackedTrendBarEntity = trendBarEntity.toBuilder().closePrice(new BigDecimal("1.1244")).build();
 
-        TrendBarEntity finalizedTrendBarEntity = trendBarBatchProcessorImpl.doFinalUpdate(trendBarEntity, quotesBatch);
+        TrendBarEntity finalizedTrendBarEntity = trendBarBatchProcessorImpl.doFinalUpdate(trackedTrendBarEntity);
 
         assertNotNull(finalizedTrendBarEntity);
         assertEquals(new BigDecimal("1.1244"), finalizedTrendBarEntity.getClosePrice());
         assertEquals(TrendBarStatus.COMPLETED, finalizedTrendBarEntity.getStatus());
     }
 
+    @Test
+    public void givenQuotesOutOfTimestampOrder_whenCreateTrendBarEntity_thenCloseFromLatestQuote() {
+        long nowMillis = System.currentTimeMillis();
+        List<Quote> quotesBatch = List.of(
+                createQuote(1.1234).toBuilder().unixTimeStamp(nowMillis).build(),
+                createQuote(1.1256).toBuilder().unixTimeStamp(nowMillis + 20).build(),
+                createQuote(1.1211).toBuilder().unixTimeStamp(nowMillis + 10).build());
+
+        var createdTrendBarEntity = trendBarBatchProcessorImpl.createTrendBarEntity(quotesBatch, trendBarEURUSD_M1);
+
+        assertEquals(new BigDecimal("1.1256"), createdTrendBarEntity.getClosePrice());
+        assertEquals(nowMillis + 20, createdTrendBarEntity.getLastQuoteTimestamp());
+    }
+
+    @Test
+    public void givenQuotesAtOrBelowSequenceWatermark_whenUpdateTrendBarEntity_thenOnlyNewerQuotesCounted() {
+        var restoredTrendBarEntity = trendBarEntity.toBuilder().ticksCount(5).lastQuoteSequence(7).build();
+        List<Quote> quotesBatch = List.of(
+                createQuote(1.1999).toBuilder().journalSequence(6).build(),
+                createQuote(1.1001).toBuilder().journalSequence(7).build(),
+                createQuote(1.1244).toBuilder().journalSequence(8).build());
+
+        var updatedTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(restoredTrendBarEntity, quotesBatch, false);
+
+        assertEquals(6, updatedTrendBarEntity.getTicksCount());
+        assertEquals(8, updatedTrendBarEntity.getLastQuoteSequence());
+        assertEquals(new BigDecimal("1.1244"), updatedTrendBarEntity.getClosePrice());
+        assertEquals(restoredTrendBarEntity.getHighPrice().max(new BigDecimal("1.1244")), updatedTrendBarEntity.getHighPrice());
+    }
+
     @Test
     public void givenNotEmptyQuotesBatch_whenUpdateTrendBarAndIsNotBatchFinal_thenUpdatesTrendBar() {
         List<Quote> quotesBatch = new ArrayList<>(List.of(validTestQuote));
@@ -287,7 +421,7 @@ public class TrendBarBatchProcessorImplTest {
 
         assertEquals(new BigDecimal("1.1234"), updatedTrendBar.getHighPrice());
         assertEquals(new BigDecimal("1.1234"), updatedTrendBar.getLowPrice());
-        assertNull(updatedTrendBar.getClosePrice());
+        assertEquals(new BigDecimal("1.1234"), updatedTrendBar.getClosePrice());
         assertEquals(TrendBarStatus.INCOMPLETE, updatedTrendBar.getStatus());
         verify(trendBarRepository, never()).save(any(TrendBarEntity.class));
     }
@@ -310,6 +444,41 @@ public class TrendBarBatchProcessorImplTest {
         verify(trendBarRepository, times(1)).save(any(TrendBarEntity.class));
     }
 
+    @Test
+    public void givenBatchFinal_whenUpdateTrendBarEntity_thenCompletedTrendBarPublishedToSubscribers() {
+        MicroBatcher mockMicroBatcher = mock(MicroBatcher.class);
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mockMicroBatcher);
+
+        trendBarBatchProcessorImpl.updateTrendBarEntity(trendBarEntity, List.of(createQuote(1.1244)), true);
+
+        verify(trendBarSubscriptionService).publishCompleted(argThat(completedTrendBarEntity ->
+                completedTrendBarEntity.getStatus() == TrendBarStatus.COMPLETED
+                        && completedTrendBarEntity.getClosePrice().compareTo(new BigDecimal("1.1244")) == 0));
+        verify(trendBarIndicatorService).onTrendBarCompleted(argThat(completedTrendBarEntity ->
+                completedTrendBarEntity.getStatus() == TrendBarStatus.COMPLETED));
+    }
+
+    @Test
+    public void givenNotFinalBatchWithLateQuoteLast_whenProcessMicroBatch_thenPartialTrendBarPublishedWithCloseOfLatestQuote() {
+        long nowMillis = System.currentTimeMillis();
+        when(currTrendBarEntitiesMap.get(trendBarEURUSD_M1)).thenReturn(trendBarEntity);
+
+        trendBarBatchProcessorImpl.processMicroBatch(List.of(createLateQuote("1.1244", nowMillis + 20),
+                createLateQuote("1.1211", nowMillis + 10)), trendBarEURUSD_M1, false);
+
+        verify(trendBarSubscriptionService).publishPartial(argThat(partialTrendBarEntity ->
+                partialTrendBarEntity.getLowPrice().compareTo(new BigDecimal("1.1211")) == 0
+                        && partialTrendBarEntity.getClosePrice().compareTo(new BigDecimal("1.1244")) == 0));
+        verify(trendBarSubscriptionService, never()).publishCompleted(any());
+    }
+
+    @Test
+    public void givenNotFinalBatch_whenUpdateTrendBarEntity_thenNothingPublished() {
+        trendBarBatchProcessorImpl.updateTrendBarEntity(trendBarEntity, List.of(createQuote(1.1244)), false);
+
+        verifyNoInteractions(trendBarSubscriptionService);
+    }
+
 
     @Test
     public void givenQuotesBatchWithLowerPrice_whenUpdateTrendBarEntity_thenUpdatesHighPrice() {
@@ -325,7 +494,7 @@ public class TrendBarBatchProcessorImplTest {
         var updatedTrendBar = trendBarBatchProcessorImpl.updateTrendBarEntity(trendBarEntity, quotesBatch, false);
 
         assertEquals(new BigDecimal("1.0900"), updatedTrendBar.getHighPrice());
-        assertNull(updatedTrendBar.getClosePrice());
+        assertEquals(new BigDecimal("1.0900"), updatedTrendBar.getClosePrice());
         assertEquals(TrendBarStatus.INCOMPLETE, updatedTrendBar.getStatus());
         verify(trendBarRepository, never()).save(any(TrendBarEntity.class));
     }
@@ -344,7 +513,7 @@ public class TrendBarBatchProcessorImplTest {
         var updatedTrendBar = trendBarBatchProcessorImpl.updateTrendBarEntity(trendBarEntity, quotesBatch, false);
 
         assertEquals(new BigDecimal("9.0900"), updatedTrendBar.getLowPrice());
-        assertNull(updatedTrendBar.getClosePrice());
+        assertEquals(new BigDecimal("9.0900"), updatedTrendBar.getClosePrice());
         assertEquals(TrendBarStatus.INCOMPLETE, updatedTrendBar.getStatus());
         verify(trendBarRepository, never()).save(any(TrendBarEntity.class));
     }
@@ -374,4 +543,224 @@ public class TrendBarBatchProcessorImplTest {
         verify(microBatcher1, times(1)).shutdown();
         verify(microBatcher2, times(1)).shutdown();
     }
+
+    @Test
+    public void givenLatenessWindow_whenUpdateTrendBarEntityWithBatchFinal_thenTrendBarAmendableAndNotSaved() {
+        trendBarBatchProcessorImpl.setTRENDBAR_LATENESS_MILLIS(1000);
+        List<Quote> quotesBatch = new ArrayList<>(List.of(createQuote(1.1234)));
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mock(MicroBatcher.class));
+
+        var completedTrendBar = trendBarBatchProcessorImpl.updateTrendBarEntity(trendBarEntity, quotesBatch, true);
+
+        assertEquals(completedTrendBar, amendableTrendBarEntitiesMap.values().iterator().next());
+        verify(scheduler, times(1)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        verify(trendBarRepository, never()).save(any(TrendBarEntity.class));
+        verify(trendBarSubscriptionService, never()).publishCompleted(any());
+        verify(trendBarIndicatorService, never()).onTrendBarCompleted(any());
+    }
+
+    @Test
+    public void givenAmendedTrendBar_whenSealTrendBar_thenAmendedTrendBarPublishedOnce() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, createCompletedTrendBar(startOfPeriod + 50_000));
+        trendBarBatchProcessorImpl.amendCompletedTrendBars(createLateQuote("1.1300", startOfPeriod + 10_000));
+
+        trendBarBatchProcessorImpl.sealTrendBar(trendBarEURUSD_M1);
+        trendBarBatchProcessorImpl.sealTrendBar(trendBarEURUSD_M1);
+
+        verify(trendBarSubscriptionService, times(1)).publishCompleted(argThat(sealedTrendBarEntity ->
+                sealedTrendBarEntity.getHighPrice().compareTo(new BigDecimal("1.1300")) == 0));
+        verify(trendBarIndicatorService, times(1)).onTrendBarCompleted(argThat(sealedTrendBarEntity ->
+                sealedTrendBarEntity.getHighPrice().compareTo(new BigDecimal("1.1300")) == 0));
+    }
+
+    @Test
+    public void givenLateQuoteOlderThanLastQuote_whenAmendCompletedTrendBars_thenHighLowAmendedAndCloseKept() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, createCompletedTrendBar(startOfPeriod + 50_000));
+
+        trendBarBatchProcessorImpl.amendCompletedTrendBars(createLateQuote("1.1300", startOfPeriod + 10_000));
+
+        var amendedTrendBar = amendableTrendBarEntitiesMap.get(trendBarEURUSD_M1);
+        assertEquals(new BigDecimal("1.1000"), amendedTrendBar.getOpenPrice());
+        assertEquals(new BigDecimal("1.1300"), amendedTrendBar.getHighPrice());
+        assertEquals(new BigDecimal("1.0900"), amendedTrendBar.getLowPrice());
+        assertEquals(new BigDecimal("1.1100"), amendedTrendBar.getClosePrice());
+        assertEquals(startOfPeriod + 50_000, amendedTrendBar.getLastQuoteTimestamp());
+    }
+
+    @Test
+    public void givenLateQuoteNewerThanLastQuote_whenAmendCompletedTrendBars_thenCloseAmended() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, createCompletedTrendBar(startOfPeriod + 50_000));
+
+        trendBarBatchProcessorImpl.amendCompletedTrendBars(createLateQuote("1.1300", startOfPeriod + 59_000));
+
+        var amendedTrendBar = amendableTrendBarEntitiesMap.get(trendBarEURUSD_M1);
+        assertEquals(new BigDecimal("1.1300"), amendedTrendBar.getClosePrice());
+        assertEquals(startOfPeriod + 59_000, amendedTrendBar.getLastQuoteTimestamp());
+    }
+
+    @Test
+    public void givenLateQuoteOutsideCompletedPeriod_whenAmendCompletedTrendBars_thenTrendBarNotChanged() {
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, trendBarEntity);
+        var lateQuote = Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.1300"))
+                .unixTimeStamp(trendBarEURUSD_M1.startOfPeriod().minus(1, ChronoUnit.MILLIS).toEpochMilli())
+                .build();
+
+        trendBarBatchProcessorImpl.amendCompletedTrendBars(lateQuote);
+
+        assertEquals(trendBarEntity, amendableTrendBarEntitiesMap.get(trendBarEURUSD_M1));
+    }
+
+    @Test
+    public void givenAmendableTrendBar_whenSealTrendBar_thenSavedAndRemoved() {
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, trendBarEntity);
+
+        trendBarBatchProcessorImpl.sealTrendBar(trendBarEURUSD_M1);
+
+        verify(trendBarRepository, times(1)).save(trendBarEntity);
+        assertTrue(amendableTrendBarEntitiesMap.isEmpty());
+    }
+
+    @Test
+    public void givenRestoredEndedTrendBar_whenCompleteRestoredTrendBar_thenQueuedQuotesFoldedAndSavedWithTrackedClose() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        var restoredTrendBarEntity = createCompletedTrendBar(startOfPeriod + 50_000).toBuilder().status(TrendBarStatus.INCOMPLETE).build();
+        when(currTrendBarEntitiesMap.remove(trendBarEURUSD_M1)).thenReturn(restoredTrendBarEntity);
+
+        trendBarBatchProcessorImpl.completeRestoredTrendBar(trendBarEURUSD_M1, List.of(createLateQuote("1.1200", startOfPeriod + 55_000)));
+
+        verify(trendBarRepository).save(argThat(completedTrendBarEntity ->
+                completedTrendBarEntity.getStatus() == TrendBarStatus.COMPLETED
+                        && completedTrendBarEntity.getClosePrice().compareTo(new BigDecimal("1.1200")) == 0));
+        verify(trendBarSubscriptionService).publishCompleted(any(TrendBarEntity.class));
+        verifyNoInteractions(currMicroBatchersMap);
+    }
+
+    @Test
+    public void givenRestoredTrendBarAlreadyPersisted_whenCompleteRestoredTrendBar_thenNotSavedAgain() {
+        when(currTrendBarEntitiesMap.remove(trendBarEURUSD_M1)).thenReturn(trendBarEntity);
+        when(trendBarRepository.existsTrendBarBySymbolAndPeriodAndTimestamp(symbolEURUSD, TrendBarPeriod.M1,
+                trendBarEURUSD_M1.startOfPeriod().toEpochMilli())).thenReturn(true);
+
+        trendBarBatchProcessorImpl.completeRestoredTrendBar(trendBarEURUSD_M1, List.of());
+
+        verify(trendBarRepository, never()).save(any(TrendBarEntity.class));
+        verifyNoInteractions(trendBarSubscriptionService);
+    }
+
+    @Test
+    public void givenRestoredAmendableTrendBar_whenSealRestoredTrendBar_thenSealScheduled() {
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, trendBarEntity);
+
+        trendBarBatchProcessorImpl.sealRestoredTrendBar(trendBarEURUSD_M1);
+
+        verify(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+        assertEquals(trendBarEntity, amendableTrendBarEntitiesMap.get(trendBarEURUSD_M1));
+    }
+
+    @Test
+    public void givenRestoredAmendableTrendBarAlreadyPersisted_whenSealRestoredTrendBar_thenDropped() {
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1, trendBarEntity);
+        when(trendBarRepository.existsTrendBarBySymbolAndPeriodAndTimestamp(any(), any(), anyLong())).thenReturn(true);
+
+        trendBarBatchProcessorImpl.sealRestoredTrendBar(trendBarEURUSD_M1);
+
+        assertTrue(amendableTrendBarEntitiesMap.isEmpty());
+        verifyNoInteractions(scheduler);
+    }
+
+    @Test
+    public void givenConflatedQuotes_whenCreateAndUpdateTrendBarEntity_thenSameTrendBarAsForRawQuotes() {
+        List<Quote> rawQuotesBatch1 = List.of(createQuote(1.2222), createQuote(1.1111), createQuote(1.3333));
+        List<Quote> rawQuotesBatch2 = List.of(createQuote(1.4444), createQuote(1.0555), createQuote(1.2000));
+        List<Quote> conflatedQuotesBatch1 = List.of(createConflatedQuote(rawQuotesBatch1));
+        List<Quote> conflatedQuotesBatch2 = List.of(createConflatedQuote(rawQuotesBatch2));
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mock(MicroBatcher.class));
+
+        var rawTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(
+                trendBarBatchProcessorImpl.createTrendBarEntity(rawQuotesBatch1, trendBarEURUSD_M1), rawQuotesBatch2, true);
+        var conflatedTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(
+                trendBarBatchProcessorImpl.createTrendBarEntity(conflatedQuotesBatch1, trendBarEURUSD_M1), conflatedQuotesBatch2, true);
+
+        assertEquals(rawTrendBarEntity, conflatedTrendBarEntity);
+        assertEquals(BigDecimal.valueOf(1.2222).setScale(4, RoundingMode.HALF_UP), conflatedTrendBarEntity.getOpenPrice());
+        assertEquals(BigDecimal.valueOf(1.4444).setScale(4, RoundingMode.HALF_UP), conflatedTrendBarEntity.getHighPrice());
+        assertEquals(BigDecimal.valueOf(1.0555).setScale(4, RoundingMode.HALF_UP), conflatedTrendBarEntity.getLowPrice());
+        assertEquals(BigDecimal.valueOf(1.2000).setScale(4, RoundingMode.HALF_UP), conflatedTrendBarEntity.getClosePrice());
+    }
+
+    @Test
+    public void givenOutOfOrderQuotes_whenCreateAndUpdateTrendBarEntity_thenConflatedTrendBarSameAsRaw() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        List<Quote> rawQuotesBatch1 = List.of(createLateQuote("1.2222", startOfPeriod + 10),
+                createLateQuote("1.3333", startOfPeriod + 40), createLateQuote("1.1111", startOfPeriod + 20));
+        List<Quote> rawQuotesBatch2 = List.of(createLateQuote("1.4444", startOfPeriod + 30),
+                createLateQuote("1.0999", startOfPeriod + 5), createLateQuote("1.2000", startOfPeriod + 40));
+        List<Quote> conflatedQuotesBatch1 = List.of(createConflatedQuote(rawQuotesBatch1));
+        List<Quote> conflatedQuotesBatch2 = List.of(createConflatedQuote(rawQuotesBatch2));
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mock(MicroBatcher.class));
+
+        var rawTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(
+                trendBarBatchProcessorImpl.createTrendBarEntity(rawQuotesBatch1, trendBarEURUSD_M1), rawQuotesBatch2, true);
+        var conflatedTrendBarEntity = trendBarBatchProcessorImpl.updateTrendBarEntity(
+                trendBarBatchProcessorImpl.createTrendBarEntity(conflatedQuotesBatch1, trendBarEURUSD_M1), conflatedQuotesBatch2, true);
+
+        var trendBarAccumulator = new TrendBarAccumulator(trendBarEURUSD_M1);
+        rawQuotesBatch1.forEach(trendBarAccumulator::add);
+        rawQuotesBatch2.forEach(trendBarAccumulator::add);
+
+        assertEquals(rawTrendBarEntity, conflatedTrendBarEntity);
+        assertEquals(new BigDecimal("1.0999"), conflatedTrendBarEntity.getOpenPrice());
+        assertEquals(new BigDecimal("1.2000"), conflatedTrendBarEntity.getClosePrice());
+        assertEquals(startOfPeriod + 5, conflatedTrendBarEntity.getFirstQuoteTimestamp());
+        assertEquals(startOfPeriod + 40, conflatedTrendBarEntity.getLastQuoteTimestamp());
+        assertEquals(6, conflatedTrendBarEntity.getTicksCount());
+        assertEquals(trendBarAccumulator.getOpenPrice(), conflatedTrendBarEntity.getOpenPrice());
+        assertEquals(trendBarAccumulator.getClosePrice(), conflatedTrendBarEntity.getClosePrice());
+    }
+
+    @Test
+    public void givenOutOfOrderBidAskQuotes_whenCreateAndUpdateTrendBarEntity_thenSidesFollowQuoteTimeInBothModes() {
+        long startOfPeriod = trendBarEURUSD_M1.startOfPeriod().toEpochMilli();
+        List<Quote> rawQuotesBatch1 = List.of(createLateQuote("1.2000", "1.2002", startOfPeriod + 10),
+                createLateQuote("1.2100", "1.2104", startOfPeriod + 40), createLateQuote("1.1900", "1.1902", startOfPeriod + 20));
+        List<Quote> rawQuotesBatch2 = List.of(createLateQuote("1.1800", "1.1806", startOfPeriod + 5),
+                createLateQuote("1.2200", "1.2202", startOfPeriod + 30), createLateQuote("1.2050", "1.2052", startOfPeriod + 40));
+        List<Quote> conflatedQuotesBatch1 = List.of(createConflatedQuote(rawQuotesBatch1));
+        List<Quote> conflatedQuotesBatch2 = List.of(createConflatedQuote(rawQuotesBatch2));
+        when(currMicroBatchersMap.get(any(TrendBar.class))).thenReturn(mock(MicroBatcher.class));
+
+        var rawBidAsk = trendBarBatchProcessorImpl.updateTrendBarEntity(
+                trendBarBatchProcessorImpl.createTrendBarEntity(rawQuotesBatch1, trendBarEURUSD_M1), rawQuotesBatch2, true).getBidAsk();
+        var conflatedBidAsk = trendBarBatchProcessorImpl.updateTrendBarEntity(
+                trendBarBatchProcessorImpl.createTrendBarEntity(conflatedQuotesBatch1, trendBarEURUSD_M1), conflatedQuotesBatch2, true).getBidAsk();
+
+        assertEquals(rawBidAsk, conflatedBidAsk);
+        assertEquals(new BigDecimal("1.1800"), conflatedBidAsk.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.1806"), conflatedBidAsk.getAskOpenPrice());
+        assertEquals(new BigDecimal("1.2050"), conflatedBidAsk.getBidClosePrice());
+        assertEquals(new BigDecimal("1.2052"), conflatedBidAsk.getAskClosePrice());
+        assertEquals(new BigDecimal("1.2200"), conflatedBidAsk.getBidHighPrice());
+        assertEquals(6, conflatedBidAsk.getQuotesCount());
+    }
+
+    private Quote createLateQuote(String bidPrice, String askPrice, long unixTimeStamp) {
+        return createLateQuote(bidPrice, unixTimeStamp).toBuilder()
+                .bidPrice(new BigDecimal(bidPrice))
+                .askPrice(new BigDecimal(askPrice))
+                .build();
+    }
+
+    private Quote createConflatedQuote(List<Quote> rawQuotes) {
+        var conflatedQuotes = new ArrayList<Quote>();
+        var quoteConflator = new QuoteConflator(true);
+        rawQuotes.forEach(quote -> quoteConflator.fold(quote, conflatedQuotes::add));
+        quoteConflator.drain(conflatedQuotes::add);
+        assertEquals(1, conflatedQuotes.size());
+        return conflatedQuotes.get(0);
+    }
 }
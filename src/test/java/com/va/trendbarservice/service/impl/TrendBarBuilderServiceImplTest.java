@@ -1,8 +1,12 @@
 package com.va.trendbarservice.service.impl;
 
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.*;
 import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.util.KeyQuotesQueueFactory;
 import com.va.trendbarservice.util.MicroBatcher;
+import com.va.trendbarservice.util.MicroBatcherExecutorFactory;
+import com.va.trendbarservice.util.QuotesOverloadCounters;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -66,7 +70,10 @@ public class TrendBarBuilderServiceImplTest {
                 keyToQuotesQueueMap,
                 currBuildersMap,
                 currMicroBatchersMap,
-                batchProcessor
+                batchProcessor,
+                new KeyQuotesQueueFactory(100, OverloadPolicy.BLOCK, 100, new QuotesOverloadCounters()),
+                new TrendBarMetrics(keyToQuotesQueueMap, new ConcurrentLinkedQueue<>(), new QuotesOverloadCounters()),
+                new MicroBatcherExecutorFactory(ExecutionMode.PLATFORM)
         );
         trendBarBuilderServiceImpl.setMICROBATCHER_EXECUTION_THRESHOLD_NUMBER(10);
         trendBarBuilderServiceImpl.setMICROBATCHER_TIMEOUT_THRESHOLD_MILLIS(10_000);
@@ -0,0 +1,245 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.service.TrendBarBatchProcessor;
+import com.va.trendbarservice.util.QuoteJournal;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Currency;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+
+@ExtendWith(MockitoExtension.class)
+public class TrendBarCheckpointServiceImplTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @Mock
+    private TrendBarBatchProcessor batchProcessor;
+
+    private ConcurrentMap<TrendBar, TrendBarEntity> currTrendBarEntitiesMap;
+    private ConcurrentMap<TrendBar, TrendBarEntity> amendableTrendBarEntitiesMap;
+    private ConcurrentMap<TrendBarKey, LinkedBlockingQueue<Quote>> keyToQuotesQueueMap;
+    private QuoteJournal quoteJournal;
+    private TrendBarCheckpointServiceImpl trendBarCheckpointServiceImpl;
+    private Symbol symbolEURUSD;
+    private TrendBar trendBarEURUSD_D1_Today;
+    private TrendBar trendBarEURUSD_M1_Expired;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        var keyEURUSD_D1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.D1);
+        var keyEURUSD_M1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1);
+        trendBarEURUSD_D1_Today = new TrendBar(keyEURUSD_D1, Instant.now().truncatedTo(ChronoUnit.DAYS));
+        trendBarEURUSD_M1_Expired = new TrendBar(keyEURUSD_M1, Instant.now().truncatedTo(ChronoUnit.MINUTES).minus(5, ChronoUnit.MINUTES));
+
+        currTrendBarEntitiesMap = new ConcurrentHashMap<>();
+        amendableTrendBarEntitiesMap = new ConcurrentHashMap<>();
+        keyToQuotesQueueMap = new ConcurrentHashMap<>();
+        keyToQuotesQueueMap.put(keyEURUSD_D1, new LinkedBlockingQueue<>());
+        keyToQuotesQueueMap.put(keyEURUSD_M1, new LinkedBlockingQueue<>());
+
+        quoteJournal = new QuoteJournal(false, null, 0);
+        trendBarCheckpointServiceImpl = new TrendBarCheckpointServiceImpl(currTrendBarEntitiesMap, amendableTrendBarEntitiesMap, keyToQuotesQueueMap, scheduler, quoteJournal, batchProcessor);
+        trendBarCheckpointServiceImpl.setCHECKPOINT_ENABLED(true);
+        trendBarCheckpointServiceImpl.setCHECKPOINT_PATH(tempDir.resolve("open-trendbars.ckpt").toString());
+        trendBarCheckpointServiceImpl.setCHECKPOINT_INTERVAL_MILLIS(5_000);
+    }
+
+    @Test
+    public void givenOpenTrendBars_whenWriteAndRestoreCheckpoint_thenCurrentAndEndedBarsAndQueuedQuotesRestored() {
+        var openTrendBarEntity = createOpenTrendBarEntity(trendBarEURUSD_D1_Today, 1);
+        var endedTrendBarEntity = createOpenTrendBarEntity(trendBarEURUSD_M1_Expired, 1);
+        currTrendBarEntitiesMap.put(trendBarEURUSD_D1_Today, openTrendBarEntity);
+        currTrendBarEntitiesMap.put(trendBarEURUSD_M1_Expired, endedTrendBarEntity);
+        var queuedQuote = createQuote();
+        quoteJournal.append(createQuote());
+        quoteJournal.append(queuedQuote);
+        quoteJournal.commit();
+        keyToQuotesQueueMap.get(trendBarEURUSD_D1_Today.trendBarKey()).offer(queuedQuote);
+
+        trendBarCheckpointServiceImpl.writeCheckpoint();
+        currTrendBarEntitiesMap.clear();
+        keyToQuotesQueueMap.values().forEach(LinkedBlockingQueue::clear);
+
+        long replayPosition = trendBarCheckpointServiceImpl.restoreCheckpoint();
+
+        assertEquals(1, replayPosition);
+        assertEquals(openTrendBarEntity, currTrendBarEntitiesMap.get(trendBarEURUSD_D1_Today));
+        assertEquals(endedTrendBarEntity, currTrendBarEntitiesMap.get(trendBarEURUSD_M1_Expired));
+        assertEquals(queuedQuote, keyToQuotesQueueMap.get(trendBarEURUSD_D1_Today.trendBarKey()).peek());
+        verifyNoInteractions(batchProcessor);
+    }
+
+    @Test
+    public void givenEndedOpenTrendBarWithQueuedQuotes_whenRestoreAndCompleteRestoredTrendBars_thenCompletedWithQueuedQuotes() {
+        var queuedQuote = createQuote();
+        quoteJournal.append(createQuote());
+        quoteJournal.append(queuedQuote);
+        quoteJournal.commit();
+        currTrendBarEntitiesMap.put(trendBarEURUSD_D1_Today, createOpenTrendBarEntity(trendBarEURUSD_D1_Today, 1));
+        currTrendBarEntitiesMap.put(trendBarEURUSD_M1_Expired, createOpenTrendBarEntity(trendBarEURUSD_M1_Expired, 1));
+        keyToQuotesQueueMap.get(trendBarEURUSD_M1_Expired.trendBarKey()).offer(queuedQuote);
+
+        trendBarCheckpointServiceImpl.writeCheckpoint();
+        currTrendBarEntitiesMap.clear();
+        keyToQuotesQueueMap.values().forEach(LinkedBlockingQueue::clear);
+        trendBarCheckpointServiceImpl.restoreCheckpoint();
+        trendBarCheckpointServiceImpl.completeRestoredTrendBars();
+
+        assertTrue(keyToQuotesQueueMap.get(trendBarEURUSD_M1_Expired.trendBarKey()).isEmpty());
+        verify(batchProcessor).completeRestoredTrendBar(trendBarEURUSD_M1_Expired, List.of(queuedQuote));
+        verify(batchProcessor, never()).completeRestoredTrendBar(eq(trendBarEURUSD_D1_Today), any());
+    }
+
+    @Test
+    public void givenAmendableTrendBar_whenRestoreAndCompleteRestoredTrendBars_thenAmendableRestoredAndSealScheduled() {
+        var amendableTrendBarEntity = createOpenTrendBarEntity(trendBarEURUSD_M1_Expired, 1).toBuilder()
+                .status(TrendBarStatus.COMPLETED)
+                .closePrice(new BigDecimal("1.0755"))
+                .build();
+        amendableTrendBarEntitiesMap.put(trendBarEURUSD_M1_Expired, amendableTrendBarEntity);
+        currTrendBarEntitiesMap.put(trendBarEURUSD_M1_Expired, createOpenTrendBarEntity(trendBarEURUSD_M1_Expired, 1));
+
+        trendBarCheckpointServiceImpl.writeCheckpoint();
+        amendableTrendBarEntitiesMap.clear();
+        currTrendBarEntitiesMap.clear();
+        trendBarCheckpointServiceImpl.restoreCheckpoint();
+        trendBarCheckpointServiceImpl.completeRestoredTrendBars();
+
+        assertEquals(amendableTrendBarEntity, amendableTrendBarEntitiesMap.get(trendBarEURUSD_M1_Expired));
+        assertNull(currTrendBarEntitiesMap.get(trendBarEURUSD_M1_Expired));
+        verify(batchProcessor).sealRestoredTrendBar(trendBarEURUSD_M1_Expired);
+        verify(batchProcessor, never()).completeRestoredTrendBar(any(), any());
+    }
+
+    @Test
+    public void givenQueuedQuotesAlreadyFoldedIntoBar_whenRestoreCheckpoint_thenOnlyUnfoldedQuotesRequeued() {
+        var foldedQuote = createQuote();
+        var unfoldedQuote = createQuote();
+        quoteJournal.append(foldedQuote);
+        quoteJournal.append(unfoldedQuote);
+        quoteJournal.commit();
+        currTrendBarEntitiesMap.put(trendBarEURUSD_D1_Today, createOpenTrendBarEntity(trendBarEURUSD_D1_Today, foldedQuote.getJournalSequence()));
+        keyToQuotesQueueMap.get(trendBarEURUSD_D1_Today.trendBarKey()).addAll(List.of(foldedQuote, unfoldedQuote));
+
+        trendBarCheckpointServiceImpl.writeCheckpoint();
+        currTrendBarEntitiesMap.clear();
+        keyToQuotesQueueMap.values().forEach(LinkedBlockingQueue::clear);
+
+        long replayPosition = trendBarCheckpointServiceImpl.restoreCheckpoint();
+
+        assertEquals(foldedQuote.getJournalSequence(), replayPosition);
+        assertEquals(List.of(unfoldedQuote), List.copyOf(keyToQuotesQueueMap.get(trendBarEURUSD_D1_Today.trendBarKey())));
+    }
+
+    @Test
+    public void givenCheckpointAtJournalPosition_whenRestoreIntoFreshJournal_thenSequencesContinueAfterPosition() {
+        quoteJournal.append(createQuote());
+        quoteJournal.append(createQuote());
+        quoteJournal.commit();
+        currTrendBarEntitiesMap.put(trendBarEURUSD_D1_Today, createOpenTrendBarEntity(trendBarEURUSD_D1_Today, 2));
+        trendBarCheckpointServiceImpl.writeCheckpoint();
+
+        var restartedQuoteJournal = new QuoteJournal(false, null, 0);
+        var restartedCheckpointServiceImpl = new TrendBarCheckpointServiceImpl(new ConcurrentHashMap<>(), new ConcurrentHashMap<>(), keyToQuotesQueueMap, scheduler, restartedQuoteJournal, batchProcessor);
+        restartedCheckpointServiceImpl.setCHECKPOINT_ENABLED(true);
+        restartedCheckpointServiceImpl.setCHECKPOINT_PATH(tempDir.resolve("open-trendbars.ckpt").toString());
+        restartedCheckpointServiceImpl.restoreCheckpoint();
+        var quote = createQuote();
+        restartedQuoteJournal.append(quote);
+
+        assertEquals(3, quote.getJournalSequence());
+    }
+
+    @Test
+    public void givenRolledQuoteJournal_whenWriteCheckpoint_thenFilesBeforeLowestWatermarkReleased() throws Exception {
+        Path journalPath = tempDir.resolve("quotes.journal");
+        try (var rollingQuoteJournal = new QuoteJournal(true, journalPath, 2)) {
+            var checkpointServiceImpl = new TrendBarCheckpointServiceImpl(currTrendBarEntitiesMap, amendableTrendBarEntitiesMap,
+                    keyToQuotesQueueMap, scheduler, rollingQuoteJournal, batchProcessor);
+            checkpointServiceImpl.setCHECKPOINT_ENABLED(true);
+            checkpointServiceImpl.setCHECKPOINT_PATH(tempDir.resolve("open-trendbars.ckpt").toString());
+            for (int i = 0; i < 7; i++) {
+                rollingQuoteJournal.append(createQuote());
+            }
+            rollingQuoteJournal.commit();
+            currTrendBarEntitiesMap.put(trendBarEURUSD_D1_Today, createOpenTrendBarEntity(trendBarEURUSD_D1_Today, 5));
+
+            checkpointServiceImpl.writeCheckpoint();
+
+            assertFalse(Files.exists(tempDir.resolve("quotes.journal.00000000000000000000")));
+            assertFalse(Files.exists(tempDir.resolve("quotes.journal.00000000000000000002")));
+            assertTrue(Files.exists(tempDir.resolve("quotes.journal.00000000000000000004")));
+            assertTrue(Files.exists(tempDir.resolve("quotes.journal.00000000000000000006")));
+        }
+    }
+
+    @Test
+    public void givenNoCheckpointFile_whenRestoreCheckpoint_thenNothingRestored() {
+        assertEquals(0, trendBarCheckpointServiceImpl.restoreCheckpoint());
+        assertTrue(currTrendBarEntitiesMap.isEmpty());
+    }
+
+    @Test
+    public void givenCorruptCheckpointFile_whenRestoreCheckpoint_thenNothingRestored() throws Exception {
+        Files.write(tempDir.resolve("open-trendbars.ckpt"), new byte[]{0, 1, 2});
+
+        assertEquals(0, trendBarCheckpointServiceImpl.restoreCheckpoint());
+        assertTrue(currTrendBarEntitiesMap.isEmpty());
+    }
+
+    @Test
+    public void givenCheckpointDisabled_whenStartPeriodicCheckpointsAndWrite_thenNothingScheduledOrWritten() {
+        trendBarCheckpointServiceImpl.setCHECKPOINT_ENABLED(false);
+
+        trendBarCheckpointServiceImpl.startPeriodicCheckpoints();
+        trendBarCheckpointServiceImpl.writeCheckpoint();
+
+        verifyNoInteractions(scheduler);
+        assertFalse(Files.exists(tempDir.resolve("open-trendbars.ckpt")));
+    }
+
+    private Quote createQuote() {
+        return Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.0755"))
+                .unixTimeStamp(System.currentTimeMillis())
+                .build();
+    }
+
+    private TrendBarEntity createOpenTrendBarEntity(TrendBar trendBar, long lastQuoteSequence) {
+        return TrendBarEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(trendBar.trendBarKey().trendBarPeriod())
+                .timestamp(trendBar.startOfPeriod().toEpochMilli())
+                .status(TrendBarStatus.INCOMPLETE)
+                .openPrice(new BigDecimal("1.0712"))
+                .highPrice(new BigDecimal("1.0799"))
+                .lowPrice(new BigDecimal("1.0650"))
+                .lastQuoteSequence(lastQuoteSequence)
+                .build();
+    }
+}
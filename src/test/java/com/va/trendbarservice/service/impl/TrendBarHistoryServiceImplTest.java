@@ -0,0 +1,226 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.service.TrendBarTieringService;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import com.va.trendbarservice.util.TrendBarSegmentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendBarHistoryServiceImplTest {
+
+    @Mock
+    private TrendBarRepository trendBarRepository;
+
+    @Mock
+    private TrendBarSegmentRepository trendBarSegmentRepository;
+
+    @Mock
+    private TrendBarColdStore trendBarColdStore;
+
+    @Mock
+    private TrendBarTieringService trendBarTieringService;
+
+    @InjectMocks
+    private TrendBarHistoryServiceImpl trendBarHistoryServiceImpl;
+
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        symbolEURJPY = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("JPY"));
+        lenient().when(trendBarTieringService.getHotFromMillis()).thenReturn(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void givenSeveralSymbols_whenGetTrendBarsBySymbols_thenOneQueryAndBarsGroupedPerKey() {
+        var eurUsdBar1 = createTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1, 60_000);
+        var eurJpyBar = createTrendBarEntity(symbolEURJPY, TrendBarPeriod.M1, 60_000);
+        var eurUsdBar2 = createTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1, 120_000);
+        var symbols = new LinkedHashSet<>(List.of(symbolEURUSD, symbolEURJPY));
+        when(trendBarRepository.findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(symbols, Set.of(TrendBarPeriod.M1), 0L, 180_000L))
+                .thenReturn(Optional.of(List.of(eurUsdBar1, eurJpyBar, eurUsdBar2)));
+
+        var keyToTrendBarsMap = trendBarHistoryServiceImpl.getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(
+                symbols, Set.of(TrendBarPeriod.M1), 0, 180_000);
+
+        assertEquals(2, keyToTrendBarsMap.size());
+        assertEquals(List.of(eurUsdBar1, eurUsdBar2), keyToTrendBarsMap.get(new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1)));
+        assertEquals(List.of(eurJpyBar), keyToTrendBarsMap.get(new TrendBarKey(symbolEURJPY, TrendBarPeriod.M1)));
+        verify(trendBarRepository, times(1)).findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenNoPeriodsAndZeroTo_whenGetTrendBarsBySymbols_thenAllPeriodsQueriedOpenEndedAndEmptyKeysPresent() {
+        when(trendBarRepository.findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(Set.of(symbolEURUSD), EnumSet.allOf(TrendBarPeriod.class), 0L, Long.MAX_VALUE))
+                .thenReturn(Optional.empty());
+
+        var keyToTrendBarsMap = trendBarHistoryServiceImpl.getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(
+                Set.of(symbolEURUSD), Set.of(), 0, 0);
+
+        assertEquals(TrendBarPeriod.values().length, keyToTrendBarsMap.size());
+        assertTrue(keyToTrendBarsMap.values().stream().allMatch(List::isEmpty));
+    }
+
+    @Test
+    public void givenNoSymbols_whenGetTrendBarsBySymbols_thenRepositoryNotQueried() {
+        var keyToTrendBarsMap = trendBarHistoryServiceImpl.getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(
+                Set.of(), Set.of(TrendBarPeriod.M1), 0, 0);
+
+        assertTrue(keyToTrendBarsMap.isEmpty());
+        verifyNoInteractions(trendBarRepository);
+    }
+
+    @Test
+    public void givenSealedSegmentAndLaterRows_whenGetTrendBarsInRange_thenSegmentDecodedWithinRangeAndMergedInOrder() {
+        var sealedBar1 = createPricedTrendBarEntity(symbolEURUSD, 60_000);
+        var sealedBar2 = createPricedTrendBarEntity(symbolEURUSD, 120_000);
+        var sealedBar3 = createPricedTrendBarEntity(symbolEURUSD, 180_000);
+        var rowBar = createPricedTrendBarEntity(symbolEURUSD, 240_000);
+        var trendBarSegmentEntity = TrendBarSegmentEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .fromTimestamp(60_000)
+                .toTimestamp(180_000)
+                .trendBarsCount(3)
+                .data(TrendBarSegmentCodec.encode(List.of(sealedBar1, sealedBar2, sealedBar3)))
+                .build();
+        when(trendBarSegmentRepository.findSegmentsBySymbolAndPeriodAndTimestampInRange(symbolEURUSD, TrendBarPeriod.M1, 120_000L, 300_000L))
+                .thenReturn(List.of(trendBarSegmentEntity));
+        when(trendBarRepository.findTrendBarsBySymbolAndPeriodAndTimestampInRange(symbolEURUSD, TrendBarPeriod.M1, 120_000L, 300_000L))
+                .thenReturn(Optional.of(List.of(rowBar)));
+
+        var trendBarEntities = trendBarHistoryServiceImpl.getTrendBarsBySymbolAndPeriodAndTimestampInRange(
+                symbolEURUSD, TrendBarPeriod.M1, 120_000, 300_000);
+
+        assertEquals(List.of(sealedBar2, sealedBar3, rowBar), trendBarEntities);
+    }
+
+    @Test
+    public void givenSeveralSymbols_whenGetTrendBarsBySymbols_thenTiersReadRowsSegmentsThenColdFiles() {
+        var symbols = Set.of(symbolEURUSD);
+        when(trendBarRepository.findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(symbols, Set.of(TrendBarPeriod.M1), 0L, 180_000L))
+                .thenReturn(Optional.empty());
+
+        trendBarHistoryServiceImpl.getTrendBarsBySymbolsAndPeriodsAndTimestampInRange(symbols, Set.of(TrendBarPeriod.M1), 0, 180_000);
+
+        var inOrder = inOrder(trendBarRepository, trendBarSegmentRepository, trendBarColdStore);
+        inOrder.verify(trendBarRepository).findTrendBarsBySymbolsAndPeriodsAndTimestampInRange(any(), any(), anyLong(), anyLong());
+        inOrder.verify(trendBarSegmentRepository).findSegmentsBySymbolsAndPeriodsAndTimestampInRange(any(), any(), anyLong(), anyLong());
+        inOrder.verify(trendBarColdStore).streamTrendBars(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenHotTierLoaded_whenGetTrendBarsInRange_thenStorageQueriedBeforeBoundaryAndHotBarsAppended() {
+        var storedBar = createPricedTrendBarEntity(symbolEURUSD, 60_000);
+        var hotBar = createPricedTrendBarEntity(symbolEURUSD, 180_000);
+        var keyEURUSD_M1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1);
+        when(trendBarTieringService.getHotFromMillis()).thenReturn(120_000L);
+        when(trendBarRepository.findTrendBarsBySymbolAndPeriodAndTimestampInRange(symbolEURUSD, TrendBarPeriod.M1, 0L, 119_999L))
+                .thenReturn(Optional.of(List.of(storedBar)));
+        when(trendBarTieringService.getHotTrendBars(keyEURUSD_M1, 120_000L, Long.MAX_VALUE)).thenReturn(List.of(hotBar));
+
+        var trendBarEntities = trendBarHistoryServiceImpl.getTrendBarsBySymbolAndPeriodFrom(symbolEURUSD, TrendBarPeriod.M1, 0);
+
+        assertEquals(List.of(storedBar, hotBar), trendBarEntities);
+    }
+
+    @Test
+    public void givenRangeInsideHotTier_whenGetTrendBarsInRange_thenStorageNotQueried() {
+        var hotBar = createPricedTrendBarEntity(symbolEURUSD, 180_000);
+        when(trendBarTieringService.getHotFromMillis()).thenReturn(120_000L);
+        when(trendBarTieringService.getHotTrendBars(new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1), 150_000L, 240_000L)).thenReturn(List.of(hotBar));
+
+        var trendBarEntities = trendBarHistoryServiceImpl.getTrendBarsBySymbolAndPeriodAndTimestampInRange(
+                symbolEURUSD, TrendBarPeriod.M1, 150_000, 240_000);
+
+        assertEquals(List.of(hotBar), trendBarEntities);
+        verifyNoInteractions(trendBarRepository, trendBarSegmentRepository, trendBarColdStore);
+    }
+
+    @Test
+    public void givenBarInColdAndWarmTiers_whenGetTrendBarsInRange_thenReturnedOnceFromWarmTier() {
+        var coldBar = createPricedTrendBarEntity(symbolEURUSD, 60_000);
+        var warmBar = coldBar.toBuilder().closePrice(new BigDecimal("1.0799")).build();
+        when(trendBarColdStore.streamTrendBars(symbolEURUSD, TrendBarPeriod.M1, 0L, 120_000L)).thenReturn(Stream.of(coldBar));
+        when(trendBarSegmentRepository.findSegmentsBySymbolAndPeriodAndTimestampInRange(symbolEURUSD, TrendBarPeriod.M1, 0L, 120_000L))
+                .thenReturn(List.of(TrendBarSegmentEntity.builder().data(TrendBarSegmentCodec.encode(List.of(warmBar))).build()));
+        when(trendBarRepository.findTrendBarsBySymbolAndPeriodAndTimestampInRange(symbolEURUSD, TrendBarPeriod.M1, 0L, 120_000L))
+                .thenReturn(Optional.empty());
+
+        var trendBarEntities = trendBarHistoryServiceImpl.getTrendBarsBySymbolAndPeriodAndTimestampInRange(
+                symbolEURUSD, TrendBarPeriod.M1, 0, 120_000);
+
+        assertEquals(List.of(warmBar), trendBarEntities);
+        var inOrder = inOrder(trendBarSegmentRepository, trendBarColdStore);
+        inOrder.verify(trendBarSegmentRepository).findSegmentsBySymbolAndPeriodAndTimestampInRange(any(), any(), anyLong(), anyLong());
+        inOrder.verify(trendBarColdStore).streamTrendBars(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenWeeklyTargetPeriod_whenGetDownsampledTrendBars_thenDailyBarsStreamedFromAlignedStart() {
+        long monday = 19_891L * 86_400_000L;
+        long wednesday = monday + 2 * 86_400_000L;
+        var mondayBar = createTrendBarEntity(symbolEURUSD, TrendBarPeriod.D1, monday).toBuilder()
+                .openPrice(BigDecimal.ONE).highPrice(BigDecimal.TEN).lowPrice(BigDecimal.ONE).closePrice(BigDecimal.valueOf(2)).build();
+        var tuesdayBar = mondayBar.toBuilder().timestamp(monday + 86_400_000L).closePrice(BigDecimal.TEN).build();
+        when(trendBarRepository.streamTrendBarsBySymbolAndPeriodAndTimestampInRange(symbolEURUSD, TrendBarPeriod.D1, monday, Long.MAX_VALUE))
+                .thenReturn(Stream.of(mondayBar, tuesdayBar));
+
+        var downsampledTrendBars = trendBarHistoryServiceImpl.getDownsampledTrendBars(symbolEURUSD, Duration.ofDays(7), wednesday, 0);
+
+        assertEquals(1, downsampledTrendBars.size());
+        assertEquals(monday, downsampledTrendBars.get(0).timestamp());
+        assertEquals(BigDecimal.ONE, downsampledTrendBars.get(0).openPrice());
+        assertEquals(BigDecimal.TEN, downsampledTrendBars.get(0).closePrice());
+        assertEquals(2, downsampledTrendBars.get(0).sourceTrendBarsCount());
+        var inOrder = inOrder(trendBarRepository, trendBarSegmentRepository, trendBarColdStore);
+        inOrder.verify(trendBarRepository).streamTrendBarsBySymbolAndPeriodAndTimestampInRange(any(), any(), anyLong(), anyLong());
+        inOrder.verify(trendBarSegmentRepository).findSegmentsBySymbolAndPeriodAndTimestampInRange(any(), any(), anyLong(), anyLong());
+        inOrder.verify(trendBarColdStore).streamTrendBars(any(), any(), anyLong(), anyLong());
+    }
+
+    @Test
+    public void givenTargetPeriodNotMultipleOfStoredPeriod_whenGetDownsampledTrendBars_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> trendBarHistoryServiceImpl.getDownsampledTrendBars(symbolEURUSD, Duration.ofSeconds(90), 0, 0));
+        verifyNoInteractions(trendBarRepository);
+    }
+
+    private static TrendBarEntity createPricedTrendBarEntity(Symbol symbol, long timestamp) {
+        return createTrendBarEntity(symbol, TrendBarPeriod.M1, timestamp).toBuilder()
+                .partitionStart(0)
+                .openPrice(new BigDecimal("1.0712"))
+                .highPrice(new BigDecimal("1.0799"))
+                .lowPrice(new BigDecimal("1.0650"))
+                .closePrice(new BigDecimal("1.0750"))
+                .build();
+    }
+
+    private static TrendBarEntity createTrendBarEntity(Symbol symbol, TrendBarPeriod period, long timestamp) {
+        return TrendBarEntity.builder()
+                .symbol(symbol)
+                .period(period)
+                .timestamp(timestamp)
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+}
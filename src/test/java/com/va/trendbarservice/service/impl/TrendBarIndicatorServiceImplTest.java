@@ -0,0 +1,73 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarIndicatorServiceImplTest {
+
+    private TrendBarIndicatorServiceImpl trendBarIndicatorServiceImpl;
+    private Symbol symbolEURUSD;
+
+    @BeforeEach
+    public void setUp() {
+        trendBarIndicatorServiceImpl = new TrendBarIndicatorServiceImpl();
+        trendBarIndicatorServiceImpl.setINDICATORS_ENABLED(true);
+        trendBarIndicatorServiceImpl.setINDICATORS_WINDOW_SIZE(2);
+        trendBarIndicatorServiceImpl.setINDICATORS_TYPES(EnumSet.of(IndicatorType.SMA, IndicatorType.ATR));
+        symbolEURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+    }
+
+    @Test
+    public void givenCompletedBars_whenGetLatestIndicators_thenOnlyConfiguredIndicatorsOfThatKeyReturned() {
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 60_000, "1.10"));
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 120_000, "1.20"));
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.H1, 0, "9.00"));
+
+        var indicatorValues = trendBarIndicatorServiceImpl.getLatestIndicators(symbolEURUSD, TrendBarPeriod.M1);
+
+        assertEquals(EnumSet.of(IndicatorType.SMA, IndicatorType.ATR), indicatorValues.keySet());
+        assertEquals(0, new BigDecimal("1.15").compareTo(indicatorValues.get(IndicatorType.SMA)));
+        assertTrue(trendBarIndicatorServiceImpl.getLatestIndicators(symbolEURUSD, TrendBarPeriod.H1).isEmpty());
+    }
+
+    @Test
+    public void givenReplayedBar_whenOnTrendBarCompleted_thenIgnored() {
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 60_000, "1.10"));
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 120_000, "1.20"));
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 120_000, "5.00"));
+
+        var indicatorValues = trendBarIndicatorServiceImpl.getLatestIndicators(symbolEURUSD, TrendBarPeriod.M1);
+
+        assertEquals(0, new BigDecimal("1.15").compareTo(indicatorValues.get(IndicatorType.SMA)));
+    }
+
+    @Test
+    public void givenIndicatorsDisabled_whenOnTrendBarCompleted_thenNothingTracked() {
+        trendBarIndicatorServiceImpl.setINDICATORS_ENABLED(false);
+
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 60_000, "1.10"));
+        trendBarIndicatorServiceImpl.onTrendBarCompleted(createTrendBarEntity(TrendBarPeriod.M1, 120_000, "1.20"));
+
+        assertTrue(trendBarIndicatorServiceImpl.getLatestIndicators(symbolEURUSD, TrendBarPeriod.M1).isEmpty());
+    }
+
+    private TrendBarEntity createTrendBarEntity(TrendBarPeriod period, long timestamp, String closePrice) {
+        return TrendBarEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(period)
+                .timestamp(timestamp)
+                .openPrice(new BigDecimal(closePrice))
+                .highPrice(new BigDecimal(closePrice))
+                .lowPrice(new BigDecimal(closePrice))
+                .closePrice(new BigDecimal(closePrice))
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+}
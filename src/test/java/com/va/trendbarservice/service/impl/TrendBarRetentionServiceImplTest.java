@@ -0,0 +1,87 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import com.va.trendbarservice.util.TrendBarPartitioning;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendBarRetentionServiceImplTest {
+
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+
+    @Mock
+    private TrendBarRepository trendBarRepository;
+
+    @Mock
+    private TrendBarSegmentRepository trendBarSegmentRepository;
+
+    @Mock
+    private TrendBarColdStore trendBarColdStore;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    @InjectMocks
+    private TrendBarRetentionServiceImpl trendBarRetentionServiceImpl;
+
+    @BeforeEach
+    public void setUp() {
+        trendBarRetentionServiceImpl.setRETENTION_ENABLED(true);
+        trendBarRetentionServiceImpl.setRETENTION_INTERVAL_MILLIS(60_000);
+        trendBarRetentionServiceImpl.setRETENTION_M1_DAYS(2);
+    }
+
+    @Test
+    public void givenM1PartitionsOlderAndStraddlingCutoff_whenExpirePartitions_thenOnlyFullyExpiredOnesDropped() {
+        long today = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, System.currentTimeMillis());
+        long fiveDaysAgo = today - 5 * MILLIS_PER_DAY;
+        long twoDaysAgo = today - 2 * MILLIS_PER_DAY;
+        when(trendBarRepository.findPartitionStartsBefore(eq(TrendBarPeriod.M1), anyLong())).thenReturn(List.of(fiveDaysAgo, twoDaysAgo));
+        when(trendBarRepository.deletePartition(TrendBarPeriod.M1, fiveDaysAgo)).thenReturn(1440);
+
+        int expiredPartitionsCount = trendBarRetentionServiceImpl.expirePartitions();
+
+        assertEquals(1, expiredPartitionsCount);
+        verify(trendBarRepository).deletePartition(TrendBarPeriod.M1, fiveDaysAgo);
+        verify(trendBarRepository, never()).deletePartition(TrendBarPeriod.M1, twoDaysAgo);
+        verify(trendBarRepository, never()).findPartitionStartsBefore(eq(TrendBarPeriod.H1), anyLong());
+    }
+
+    @Test
+    public void givenExpiredSealedPartition_whenExpirePartitions_thenRowsAndSegmentsDropped() {
+        long today = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, System.currentTimeMillis());
+        long fiveDaysAgo = today - 5 * MILLIS_PER_DAY;
+        when(trendBarSegmentRepository.findPartitionStartsBefore(eq(TrendBarPeriod.M1), anyLong())).thenReturn(List.of(fiveDaysAgo));
+
+        int expiredPartitionsCount = trendBarRetentionServiceImpl.expirePartitions();
+
+        assertEquals(1, expiredPartitionsCount);
+        verify(trendBarRepository).deletePartition(TrendBarPeriod.M1, fiveDaysAgo);
+        verify(trendBarSegmentRepository).deletePartition(TrendBarPeriod.M1, fiveDaysAgo);
+    }
+
+    @Test
+    public void givenRetentionDisabled_whenStartPeriodicRetention_thenNothingScheduled() {
+        trendBarRetentionServiceImpl.setRETENTION_ENABLED(false);
+
+        trendBarRetentionServiceImpl.startPeriodicRetention();
+
+        verifyNoInteractions(scheduler);
+    }
+}
@@ -0,0 +1,146 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.util.TrendBarPartitioning;
+import com.va.trendbarservice.util.TrendBarSegmentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendBarSegmentServiceImplTest {
+
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    @Mock
+    private TrendBarRepository trendBarRepository;
+
+    @Mock
+    private TrendBarSegmentRepository trendBarSegmentRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ScheduledExecutorService scheduler;
+
+    private TrendBarSegmentServiceImpl trendBarSegmentServiceImpl;
+
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+    private long yesterday;
+    private long today;
+
+    @BeforeEach
+    public void setUp() {
+        trendBarSegmentServiceImpl = new TrendBarSegmentServiceImpl(trendBarRepository, trendBarSegmentRepository,
+                new TransactionTemplate(transactionManager), scheduler);
+        trendBarSegmentServiceImpl.setSEGMENTS_ENABLED(true);
+        trendBarSegmentServiceImpl.setSEGMENTS_SEAL_INTERVAL_MILLIS(60_000);
+        trendBarSegmentServiceImpl.setSEGMENTS_SEAL_DELAY_MILLIS(0);
+        symbolEURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        symbolEURJPY = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("JPY"));
+        today = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, System.currentTimeMillis());
+        yesterday = today - MILLIS_PER_DAY;
+    }
+
+    @Test
+    public void givenClosedAndOpenM1Partitions_whenSealPartitions_thenClosedOneEncodedPerSymbolAndRowsDropped() {
+        var eurUsdBar1 = createTrendBarEntity(symbolEURUSD, yesterday, "1.0712");
+        var eurJpyBar = createTrendBarEntity(symbolEURJPY, yesterday, "161.2001");
+        var eurUsdBar2 = createTrendBarEntity(symbolEURUSD, yesterday + MINUTE_MILLIS, "1.0715");
+        when(trendBarRepository.findPartitionStartsBefore(eq(TrendBarPeriod.M1), anyLong())).thenReturn(List.of(yesterday, today));
+        when(trendBarRepository.findTrendBarsByPeriodAndPartitionStart(TrendBarPeriod.M1, yesterday))
+                .thenReturn(List.of(eurUsdBar1.toBuilder().id(1L).build(), eurJpyBar.toBuilder().id(2L).build(),
+                        eurUsdBar2.toBuilder().id(3L).build()));
+        when(trendBarSegmentRepository.findBySymbolAndPeriodAndPartitionStart(any(), eq(TrendBarPeriod.M1), eq(yesterday)))
+                .thenReturn(Optional.empty());
+
+        int sealedPartitionsCount = trendBarSegmentServiceImpl.sealPartitions();
+
+        assertEquals(1, sealedPartitionsCount);
+        var segmentCaptor = ArgumentCaptor.forClass(TrendBarSegmentEntity.class);
+        verify(trendBarSegmentRepository, times(2)).save(segmentCaptor.capture());
+        var eurUsdSegment = segmentCaptor.getAllValues().get(0);
+        assertEquals(symbolEURUSD, eurUsdSegment.getSymbol());
+        assertEquals(yesterday, eurUsdSegment.getPartitionStart());
+        assertEquals(yesterday, eurUsdSegment.getFromTimestamp());
+        assertEquals(yesterday + MINUTE_MILLIS, eurUsdSegment.getToTimestamp());
+        assertEquals(2, eurUsdSegment.getTrendBarsCount());
+        assertEquals(List.of(eurUsdBar1, eurUsdBar2), TrendBarSegmentCodec.decode(eurUsdSegment.getData()));
+        assertEquals(List.of(eurJpyBar), TrendBarSegmentCodec.decode(segmentCaptor.getAllValues().get(1).getData()));
+        verify(trendBarRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(trendBarRepository, never()).deletePartition(any(), anyLong());
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void givenLateRowIntoSealedPartition_whenSealPartitions_thenMergedIntoExistingSegment() {
+        var sealedBar1 = createTrendBarEntity(symbolEURUSD, yesterday, "1.0712");
+        var sealedBar2 = createTrendBarEntity(symbolEURUSD, yesterday + MINUTE_MILLIS, "1.0715");
+        var amendedBar2 = createTrendBarEntity(symbolEURUSD, yesterday + MINUTE_MILLIS, "1.0799");
+        var existingSegment = TrendBarSegmentEntity.builder()
+                .id(7L)
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .partitionStart(yesterday)
+                .data(TrendBarSegmentCodec.encode(List.of(sealedBar1, sealedBar2)))
+                .build();
+        when(trendBarRepository.findPartitionStartsBefore(eq(TrendBarPeriod.M1), anyLong())).thenReturn(List.of(yesterday));
+        when(trendBarRepository.findTrendBarsByPeriodAndPartitionStart(TrendBarPeriod.M1, yesterday)).thenReturn(List.of(amendedBar2));
+        when(trendBarSegmentRepository.findBySymbolAndPeriodAndPartitionStart(symbolEURUSD, TrendBarPeriod.M1, yesterday))
+                .thenReturn(Optional.of(existingSegment));
+
+        trendBarSegmentServiceImpl.sealPartitions();
+
+        var segmentCaptor = ArgumentCaptor.forClass(TrendBarSegmentEntity.class);
+        verify(trendBarSegmentRepository).save(segmentCaptor.capture());
+        assertEquals(7L, segmentCaptor.getValue().getId());
+        assertEquals(List.of(sealedBar1, amendedBar2), TrendBarSegmentCodec.decode(segmentCaptor.getValue().getData()));
+    }
+
+    @Test
+    public void givenSegmentsDisabled_whenStartPeriodicSealing_thenNothingScheduled() {
+        trendBarSegmentServiceImpl.setSEGMENTS_ENABLED(false);
+
+        trendBarSegmentServiceImpl.startPeriodicSealing();
+
+        verifyNoInteractions(scheduler);
+    }
+
+    private static TrendBarEntity createTrendBarEntity(Symbol symbol, long timestamp, String price) {
+        return TrendBarEntity.builder()
+                .symbol(symbol)
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .partitionStart(TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, timestamp))
+                .status(TrendBarStatus.COMPLETED)
+                .openPrice(new BigDecimal(price))
+                .highPrice(new BigDecimal(price))
+                .lowPrice(new BigDecimal(price))
+                .closePrice(new BigDecimal(price))
+                .ticksCount(1)
+                .firstQuoteTimestamp(timestamp + 100)
+                .lastQuoteTimestamp(timestamp + 100)
+                .build();
+    }
+}
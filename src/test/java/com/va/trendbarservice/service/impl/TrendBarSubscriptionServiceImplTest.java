@@ -0,0 +1,282 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarSubscriptionServiceImplTest {
+
+    private ExecutorService subscriptionExecutorService;
+    private ScheduledExecutorService scheduler;
+    private TrendBarSubscriptionServiceImpl trendBarSubscriptionServiceImpl;
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+
+    @BeforeEach
+    public void setUp() {
+        subscriptionExecutorService = Executors.newFixedThreadPool(2);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        trendBarSubscriptionServiceImpl = new TrendBarSubscriptionServiceImpl(subscriptionExecutorService, scheduler);
+        trendBarSubscriptionServiceImpl.setDELIVERY_BUFFER_CAPACITY(128);
+        trendBarSubscriptionServiceImpl.setDELIVERY_OVERFLOW_POLICY(FlowOverflowPolicy.DROP_OLDEST);
+        trendBarSubscriptionServiceImpl.setFLOW_BUFFER_CAPACITY(16);
+        trendBarSubscriptionServiceImpl.setFLOW_OVERFLOW_POLICY(FlowOverflowPolicy.DROP_OLDEST);
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        symbolEURJPY = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("JPY"))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        subscriptionExecutorService.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void givenKeyAndAllSymbolsSubscribers_whenPublishCompleted_thenEachGetsMatchingBars() throws InterruptedException {
+        var eurUsdM1Bars = new LinkedBlockingQueue<TrendBarEntity>();
+        var allBars = new LinkedBlockingQueue<TrendBarEntity>();
+        trendBarSubscriptionServiceImpl.subscribe(symbolEURUSD, TrendBarPeriod.M1, eurUsdM1Bars::add);
+        trendBarSubscriptionServiceImpl.subscribeAll(allBars::add);
+
+        var eurUsdM1Bar = createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1);
+        var eurJpyH1Bar = createCompletedTrendBarEntity(symbolEURJPY, TrendBarPeriod.H1);
+        trendBarSubscriptionServiceImpl.publishCompleted(eurUsdM1Bar);
+        trendBarSubscriptionServiceImpl.publishCompleted(eurJpyH1Bar);
+
+        assertSame(eurUsdM1Bar, eurUsdM1Bars.poll(5, TimeUnit.SECONDS));
+        assertSame(eurUsdM1Bar, allBars.poll(5, TimeUnit.SECONDS));
+        assertSame(eurJpyH1Bar, allBars.poll(5, TimeUnit.SECONDS));
+        assertNull(eurUsdM1Bars.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void givenSlowSubscriber_whenPublishCompleted_thenPublisherNotBlockedAndOrderKept() throws InterruptedException {
+        var releaseListener = new CountDownLatch(1);
+        var deliveredTimestamps = new CopyOnWriteArrayList<Long>();
+        var allDelivered = new CountDownLatch(100);
+        trendBarSubscriptionServiceImpl.subscribe(symbolEURUSD, TrendBarPeriod.M1, trendBarEntity -> {
+            try {
+                releaseListener.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredTimestamps.add(trendBarEntity.getTimestamp());
+            allDelivered.countDown();
+        });
+
+        long publishStartNanos = System.nanoTime();
+        for (long i = 0; i < 100; i++) {
+            trendBarSubscriptionServiceImpl.publishCompleted(createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1).toBuilder().timestamp(i).build());
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - publishStartNanos);
+        releaseListener.countDown();
+
+        assertTrue(publishMillis < 1_000);
+        assertTrue(allDelivered.await(5, TimeUnit.SECONDS));
+        assertEquals(LongStream.range(0, 100).boxed().toList(), deliveredTimestamps);
+    }
+
+    @Test
+    public void givenSubscriberFallingBehindBuffer_whenPublishCompleted_thenOldestPendingBarsDropped() throws InterruptedException {
+        trendBarSubscriptionServiceImpl.setDELIVERY_BUFFER_CAPACITY(16);
+        var releaseListener = new CountDownLatch(1);
+        var deliveredTimestamps = new CopyOnWriteArrayList<Long>();
+        var subscription = trendBarSubscriptionServiceImpl.subscribe(symbolEURUSD, TrendBarPeriod.M1, trendBarEntity -> {
+            try {
+                releaseListener.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredTimestamps.add(trendBarEntity.getTimestamp());
+        });
+
+        for (long i = 0; i < 100; i++) {
+            trendBarSubscriptionServiceImpl.publishCompleted(createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1).toBuilder().timestamp(i).build());
+        }
+        releaseListener.countDown();
+
+        waitUntil(() -> deliveredTimestamps.contains(99L));
+        assertTrue(deliveredTimestamps.size() <= 17, "delivered " + deliveredTimestamps.size());
+        assertEquals(100, deliveredTimestamps.size() + subscription.getDroppedCount());
+    }
+
+    @Test
+    public void givenCancelOverflowPolicy_whenSubscriberFallsBehindBuffer_thenSubscriptionCancelled() throws InterruptedException {
+        trendBarSubscriptionServiceImpl.setDELIVERY_BUFFER_CAPACITY(1);
+        trendBarSubscriptionServiceImpl.setDELIVERY_OVERFLOW_POLICY(FlowOverflowPolicy.CANCEL);
+        var releaseListener = new CountDownLatch(1);
+        var subscription = trendBarSubscriptionServiceImpl.subscribeAll(trendBarEntity -> {
+            try {
+                releaseListener.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 3; i++) {
+            trendBarSubscriptionServiceImpl.publishCompleted(createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1));
+        }
+        releaseListener.countDown();
+
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, trendBarSubscriptionServiceImpl.getSubscriptionsCount());
+    }
+
+    @Test
+    public void givenFailingSubscriber_whenPublishCompleted_thenOtherSubscribersStillDelivered() throws InterruptedException {
+        var delivered = new LinkedBlockingQueue<TrendBarEntity>();
+        trendBarSubscriptionServiceImpl.subscribeAll(trendBarEntity -> {
+            throw new IllegalStateException("listener failure");
+        });
+        trendBarSubscriptionServiceImpl.subscribeAll(delivered::add);
+
+        trendBarSubscriptionServiceImpl.publishCompleted(createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.D1));
+
+        assertNotNull(delivered.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void givenCancelledSubscription_whenPublishCompleted_thenNotDeliveredAndRemoved() throws InterruptedException {
+        var delivered = new LinkedBlockingQueue<TrendBarEntity>();
+        var subscription = trendBarSubscriptionServiceImpl.subscribe(symbolEURUSD, TrendBarPeriod.M1, delivered::add);
+        assertEquals(1, trendBarSubscriptionServiceImpl.getSubscriptionsCount());
+
+        subscription.cancel();
+        trendBarSubscriptionServiceImpl.publishCompleted(createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1));
+
+        assertTrue(subscription.isCancelled());
+        assertEquals(0, trendBarSubscriptionServiceImpl.getSubscriptionsCount());
+        assertNull(delivered.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void givenSlowPartialSubscriber_whenManyPartialUpdates_thenOnlyLatestStateDeliveredWithoutBacklog() throws InterruptedException {
+        var releaseListener = new CountDownLatch(1);
+        var deliveredClosePrices = new CopyOnWriteArrayList<BigDecimal>();
+        var partialSubscription = trendBarSubscriptionServiceImpl.subscribePartial(symbolEURUSD, TrendBarPeriod.M1, 0, trendBarEntity -> {
+            try {
+                releaseListener.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            deliveredClosePrices.add(trendBarEntity.getClosePrice());
+        });
+        var formingTrendBarEntity = createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1).toBuilder()
+                .closePrice(null)
+                .status(TrendBarStatus.INCOMPLETE)
+                .build();
+
+        for (int i = 1; i <= 1_000; i++) {
+            trendBarSubscriptionServiceImpl.publishPartial(formingTrendBarEntity.toBuilder().closePrice(BigDecimal.valueOf(i)).build());
+        }
+        releaseListener.countDown();
+
+        waitUntil(() -> deliveredClosePrices.contains(BigDecimal.valueOf(1_000)));
+        assertTrue(deliveredClosePrices.size() <= 2);
+        assertEquals(1_000, partialSubscription.getDeliveredCount() + partialSubscription.getCoalescedCount());
+        assertNull(formingTrendBarEntity.getClosePrice());
+    }
+
+    @Test
+    public void givenMaxUpdateRate_whenPartialUpdatesPublishedContinuously_thenDeliveriesThrottledAndLatestDelivered() throws InterruptedException {
+        var deliveredClosePrices = new CopyOnWriteArrayList<BigDecimal>();
+        trendBarSubscriptionServiceImpl.subscribePartial(symbolEURUSD, TrendBarPeriod.M1, 10, trendBarEntity -> deliveredClosePrices.add(trendBarEntity.getClosePrice()));
+        var formingTrendBarEntity = createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1);
+
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(500);
+        int lastPrice = 0;
+        while (System.nanoTime() < deadlineNanos) {
+            trendBarSubscriptionServiceImpl.publishPartial(formingTrendBarEntity.toBuilder().closePrice(BigDecimal.valueOf(++lastPrice)).build());
+            Thread.sleep(1);
+        }
+        var latestPrice = BigDecimal.valueOf(lastPrice);
+        waitUntil(() -> deliveredClosePrices.contains(latestPrice));
+
+        assertTrue(deliveredClosePrices.size() <= 8, "delivered " + deliveredClosePrices.size());
+        assertEquals(latestPrice, deliveredClosePrices.get(deliveredClosePrices.size() - 1));
+    }
+
+    @Test
+    public void givenNoPartialSubscribers_whenPublishPartial_thenNothingDelivered() {
+        trendBarSubscriptionServiceImpl.publishPartial(createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1));
+
+        assertEquals(0, trendBarSubscriptionServiceImpl.getSubscriptionsCount());
+    }
+
+    @Test
+    public void givenFlowSubscribers_whenPublished_thenCompletedAndPartialBarsDeliveredOnDemandForTheirKey() throws InterruptedException {
+        var completedBars = new LinkedBlockingQueue<TrendBarEntity>();
+        var partialBars = new LinkedBlockingQueue<TrendBarEntity>();
+        trendBarSubscriptionServiceImpl.completedPublisher(symbolEURUSD, TrendBarPeriod.M1).subscribe(requestingAll(completedBars));
+        trendBarSubscriptionServiceImpl.partialPublisher(symbolEURUSD, TrendBarPeriod.M1).subscribe(requestingAll(partialBars));
+        waitUntil(() -> trendBarSubscriptionServiceImpl.getSubscriptionsCount() == 2);
+
+        var eurUsdM1Bar = createCompletedTrendBarEntity(symbolEURUSD, TrendBarPeriod.M1);
+        trendBarSubscriptionServiceImpl.publishCompleted(createCompletedTrendBarEntity(symbolEURJPY, TrendBarPeriod.M1));
+        trendBarSubscriptionServiceImpl.publishPartial(eurUsdM1Bar.toBuilder().closePrice(BigDecimal.TEN).build());
+        trendBarSubscriptionServiceImpl.publishCompleted(eurUsdM1Bar);
+
+        assertSame(eurUsdM1Bar, completedBars.poll(5, TimeUnit.SECONDS));
+        assertEquals(BigDecimal.TEN, partialBars.poll(5, TimeUnit.SECONDS).getClosePrice());
+        assertNull(completedBars.poll(100, TimeUnit.MILLISECONDS));
+        assertNull(partialBars.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private static Flow.Subscriber<TrendBarEntity> requestingAll(BlockingQueue<TrendBarEntity> delivered) {
+        return new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                subscription.request(Long.MAX_VALUE);
+            }
+
+            @Override
+            public void onNext(TrendBarEntity trendBarEntity) {
+                delivered.add(trendBarEntity);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        };
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadlineNanos) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static TrendBarEntity createCompletedTrendBarEntity(Symbol symbol, TrendBarPeriod period) {
+        return TrendBarEntity.builder()
+                .symbol(symbol)
+                .period(period)
+                .openPrice(new BigDecimal("1.0700"))
+                .highPrice(new BigDecimal("1.0750"))
+                .lowPrice(new BigDecimal("1.0650"))
+                .closePrice(new BigDecimal("1.0720"))
+                .timestamp(1_718_841_600_000L)
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+}
@@ -0,0 +1,194 @@
+package com.va.trendbarservice.service.impl;
+
+import com.va.trendbarservice.model.*;
+import com.va.trendbarservice.repository.TrendBarRepository;
+import com.va.trendbarservice.repository.TrendBarSegmentRepository;
+import com.va.trendbarservice.util.TrendBarColdStore;
+import com.va.trendbarservice.util.TrendBarPartitioning;
+import com.va.trendbarservice.util.TrendBarSegmentCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendBarTieringServiceImplTest {
+
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    @Mock
+    private TrendBarRepository trendBarRepository;
+
+    @Mock
+    private TrendBarSegmentRepository trendBarSegmentRepository;
+
+    @Mock
+    private TrendBarColdStore trendBarColdStore;
+
+    @Mock
+    private ScheduledExecutorService tieringScheduler;
+
+    private TrendBarTieringServiceImpl trendBarTieringServiceImpl;
+
+    private Symbol symbolEURUSD;
+    private TrendBarKey keyEURUSD_M1;
+
+    @BeforeEach
+    public void setUp() {
+        trendBarTieringServiceImpl = new TrendBarTieringServiceImpl(trendBarRepository, trendBarSegmentRepository, trendBarColdStore, tieringScheduler);
+        trendBarTieringServiceImpl.setTIERING_ENABLED(true);
+        trendBarTieringServiceImpl.setTIERING_HOT_WINDOW_MILLIS(MILLIS_PER_DAY);
+        trendBarTieringServiceImpl.setTIERING_COLD_AFTER_DAYS(7);
+        trendBarTieringServiceImpl.setTIERING_MIGRATION_INTERVAL_MILLIS(60_000);
+        symbolEURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        keyEURUSD_M1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1);
+    }
+
+    @Test
+    public void givenSealedAndRowBarsInHotWindow_whenLoadHotTier_thenServedFromMemoryWithRowsWinning() {
+        long recent = System.currentTimeMillis() - 10 * MINUTE_MILLIS;
+        var sealedBar1 = createTrendBarEntity(recent, "1.0712");
+        var sealedBar2 = createTrendBarEntity(recent + MINUTE_MILLIS, "1.0715");
+        var amendedBar2 = createTrendBarEntity(recent + MINUTE_MILLIS, "1.0799");
+        var trendBarSegmentEntity = TrendBarSegmentEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .data(TrendBarSegmentCodec.encode(List.of(sealedBar1, sealedBar2)))
+                .build();
+        when(trendBarSegmentRepository.findSegmentsFrom(anyLong())).thenReturn(List.of(trendBarSegmentEntity));
+        when(trendBarRepository.findTrendBarsFrom(anyLong())).thenReturn(List.of(amendedBar2));
+        assertEquals(Long.MAX_VALUE, trendBarTieringServiceImpl.getHotFromMillis());
+
+        trendBarTieringServiceImpl.loadHotTier();
+
+        assertTrue(trendBarTieringServiceImpl.getHotFromMillis() <= recent);
+        assertEquals(List.of(sealedBar1, amendedBar2), trendBarTieringServiceImpl.getHotTrendBars(keyEURUSD_M1, recent, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenPersistedBar_whenOnTrendBarPersisted_thenHotOnlyWhenEnabled() {
+        var trendBarEntity = createTrendBarEntity(System.currentTimeMillis(), "1.0712");
+
+        trendBarTieringServiceImpl.onTrendBarPersisted(trendBarEntity);
+        trendBarTieringServiceImpl.setTIERING_ENABLED(false);
+        trendBarTieringServiceImpl.onTrendBarPersisted(trendBarEntity.toBuilder().timestamp(trendBarEntity.getTimestamp() + MINUTE_MILLIS).build());
+
+        assertEquals(List.of(trendBarEntity), trendBarTieringServiceImpl.getHotTrendBars(keyEURUSD_M1, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenBarPersistedWithQuoteScale_whenOnTrendBarPersisted_thenMirroredAtColumnScale() {
+        var trendBarEntity = createTrendBarEntity(System.currentTimeMillis(), "1.07125").toBuilder()
+                .bidAsk(BidAskTrendBar.of(new BigDecimal("1.07120"), new BigDecimal("1.07126")))
+                .build();
+
+        trendBarTieringServiceImpl.onTrendBarPersisted(trendBarEntity);
+
+        var hotTrendBarEntity = trendBarTieringServiceImpl.getHotTrendBars(keyEURUSD_M1, 0, Long.MAX_VALUE).get(0);
+        assertEquals(new BigDecimal("1.0713"), hotTrendBarEntity.getClosePrice());
+        assertEquals(new BigDecimal("1.0713"), hotTrendBarEntity.getOpenPrice());
+        assertEquals(new BigDecimal("1.0712"), hotTrendBarEntity.getBidAsk().getBidClosePrice());
+        assertEquals(new BigDecimal("1.0713"), hotTrendBarEntity.getBidAsk().getAskClosePrice());
+        assertEquals(new BigDecimal("0.00006000"), hotTrendBarEntity.getBidAsk().getSpreadMin());
+        assertEquals(List.of(hotTrendBarEntity), TrendBarSegmentCodec.decode(TrendBarSegmentCodec.encode(List.of(hotTrendBarEntity))));
+        assertEquals(new BigDecimal("1.07125"), trendBarEntity.getClosePrice());
+    }
+
+    @Test
+    public void givenBackfilledBarOlderThanHotWindow_whenOnTrendBarPersisted_thenNotMirrored() {
+        long nowMillis = System.currentTimeMillis();
+        var recentTrendBarEntity = createTrendBarEntity(nowMillis - 10 * MINUTE_MILLIS, "1.0712");
+
+        trendBarTieringServiceImpl.onTrendBarPersisted(createTrendBarEntity(nowMillis - 2 * MILLIS_PER_DAY, "1.0700"));
+        trendBarTieringServiceImpl.onTrendBarPersisted(recentTrendBarEntity);
+
+        assertEquals(List.of(recentTrendBarEntity), trendBarTieringServiceImpl.getHotTrendBars(keyEURUSD_M1, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenSealedPartitionOlderThanColdAge_whenMigrate_thenWrittenToColdStoreAndDroppedFromDatabase() {
+        long today = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, System.currentTimeMillis());
+        long tenDaysAgo = today - 10 * MILLIS_PER_DAY;
+        long sixDaysAgo = today - 6 * MILLIS_PER_DAY;
+        byte[] segment = TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(tenDaysAgo, "1.0712")));
+        var trendBarSegmentEntity = TrendBarSegmentEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .partitionStart(tenDaysAgo)
+                .data(segment)
+                .build();
+        when(trendBarSegmentRepository.findPartitionStartsBefore(eq(TrendBarPeriod.M1), anyLong())).thenReturn(List.of(tenDaysAgo, sixDaysAgo));
+        when(trendBarSegmentRepository.findByPeriodAndPartitionStart(TrendBarPeriod.M1, tenDaysAgo)).thenReturn(List.of(trendBarSegmentEntity));
+        when(trendBarColdStore.read(symbolEURUSD, TrendBarPeriod.M1, tenDaysAgo)).thenReturn(Optional.empty());
+
+        int migratedPartitionsCount = trendBarTieringServiceImpl.migrate();
+
+        assertEquals(1, migratedPartitionsCount);
+        verify(trendBarColdStore).write(symbolEURUSD, TrendBarPeriod.M1, tenDaysAgo, segment);
+        verify(trendBarSegmentRepository).deletePartition(TrendBarPeriod.M1, tenDaysAgo);
+        verify(trendBarSegmentRepository, never()).deletePartition(TrendBarPeriod.M1, sixDaysAgo);
+    }
+
+    @Test
+    public void givenColdSegmentAlreadyPresent_whenMigrate_thenWarmBarsMergedIntoIt() {
+        long tenDaysAgo = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, System.currentTimeMillis()) - 10 * MILLIS_PER_DAY;
+        var coldBar = createTrendBarEntity(tenDaysAgo, "1.0712");
+        var lateBar = createTrendBarEntity(tenDaysAgo + MINUTE_MILLIS, "1.0715");
+        var trendBarSegmentEntity = TrendBarSegmentEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .partitionStart(tenDaysAgo)
+                .data(TrendBarSegmentCodec.encode(List.of(lateBar)))
+                .build();
+        when(trendBarSegmentRepository.findPartitionStartsBefore(eq(TrendBarPeriod.M1), anyLong())).thenReturn(List.of(tenDaysAgo));
+        when(trendBarSegmentRepository.findByPeriodAndPartitionStart(TrendBarPeriod.M1, tenDaysAgo)).thenReturn(List.of(trendBarSegmentEntity));
+        when(trendBarColdStore.read(symbolEURUSD, TrendBarPeriod.M1, tenDaysAgo))
+                .thenReturn(Optional.of(TrendBarSegmentCodec.encode(List.of(coldBar))));
+
+        trendBarTieringServiceImpl.migrate();
+
+        var segmentCaptor = ArgumentCaptor.forClass(byte[].class);
+        verify(trendBarColdStore).write(eq(symbolEURUSD), eq(TrendBarPeriod.M1), eq(tenDaysAgo), segmentCaptor.capture());
+        assertEquals(List.of(coldBar, lateBar), TrendBarSegmentCodec.decode(segmentCaptor.getValue()));
+    }
+
+    @Test
+    public void givenTieringDisabled_whenStartPeriodicMigration_thenNothingScheduled() {
+        trendBarTieringServiceImpl.setTIERING_ENABLED(false);
+
+        trendBarTieringServiceImpl.startPeriodicMigration();
+
+        verifyNoInteractions(tieringScheduler);
+    }
+
+    private TrendBarEntity createTrendBarEntity(long timestamp, String price) {
+        return TrendBarEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .partitionStart(TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, timestamp))
+                .status(TrendBarStatus.COMPLETED)
+                .openPrice(new BigDecimal(price))
+                .highPrice(new BigDecimal(price))
+                .lowPrice(new BigDecimal(price))
+                .closePrice(new BigDecimal(price))
+                .ticksCount(1)
+                .firstQuoteTimestamp(timestamp + 100)
+                .lastQuoteTimestamp(timestamp + 100)
+                .build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.OverloadPolicy;
+import com.va.trendbarservice.model.Quote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedKeyQuotesQueueTest {
+
+    private QuotesOverloadCounters overloadCounters;
+
+    @BeforeEach
+    public void setUp() {
+        overloadCounters = new QuotesOverloadCounters();
+    }
+
+    @Test
+    public void givenFullQueueAndRejectPolicy_whenOffer_thenQuoteRejected() {
+        var keyQuotesQueue = new BoundedKeyQuotesQueue(1, OverloadPolicy.REJECT, 100, overloadCounters);
+
+        assertTrue(keyQuotesQueue.offer(createQuote("1.1000")));
+        assertFalse(keyQuotesQueue.offer(createQuote("1.1001")));
+
+        assertEquals(1, keyQuotesQueue.size());
+        assertEquals(1, overloadCounters.getRejectedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndDropOldestPolicy_whenOffer_thenLatestQuoteKept() {
+        var keyQuotesQueue = new BoundedKeyQuotesQueue(1, OverloadPolicy.DROP_OLDEST, 100, overloadCounters);
+        var latestQuote = createQuote("1.1001");
+
+        keyQuotesQueue.offer(createQuote("1.1000"));
+        keyQuotesQueue.offer(latestQuote);
+
+        assertEquals(latestQuote, keyQuotesQueue.poll());
+        assertEquals(1, overloadCounters.getDroppedQuotes());
+    }
+
+    @Test
+    public void givenConflatePolicy_whenCreate_thenRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new BoundedKeyQuotesQueue(1, OverloadPolicy.CONFLATE, 100, overloadCounters));
+    }
+
+    @Test
+    public void givenFullQueueAndBlockPolicy_whenOffer_thenQuoteRejectedAfterTimeout() {
+        var keyQuotesQueue = new BoundedKeyQuotesQueue(1, OverloadPolicy.BLOCK, 20, overloadCounters);
+        var queuedQuote = createQuote("1.1000");
+
+        keyQuotesQueue.offer(queuedQuote);
+        long startNanos = System.nanoTime();
+
+        assertFalse(keyQuotesQueue.offer(createQuote("1.1001")));
+        assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(20));
+        assertEquals(queuedQuote, keyQuotesQueue.poll());
+        assertEquals(1, overloadCounters.getRejectedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndBlockPolicy_whenCapacityFreedWithinTimeout_thenQuoteOffered() throws InterruptedException {
+        var keyQuotesQueue = new BoundedKeyQuotesQueue(1, OverloadPolicy.BLOCK, 5_000, overloadCounters);
+        var latestQuote = createQuote("1.1001");
+        keyQuotesQueue.offer(createQuote("1.1000"));
+
+        var consumer = new Thread(() -> {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(50));
+            keyQuotesQueue.poll();
+        });
+        consumer.start();
+
+        assertTrue(keyQuotesQueue.offer(latestQuote));
+        consumer.join();
+        assertEquals(latestQuote, keyQuotesQueue.poll());
+        assertEquals(0, overloadCounters.getRejectedQuotes());
+    }
+
+    private Quote createQuote(String newPrice) {
+        return Quote.builder()
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(System.currentTimeMillis())
+                .build();
+    }
+}
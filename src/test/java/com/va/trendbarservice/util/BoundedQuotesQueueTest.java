@@ -0,0 +1,191 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.OverloadPolicy;
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoundedQuotesQueueTest {
+
+    private QuotesOverloadCounters overloadCounters;
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+
+    @BeforeEach
+    public void setUp() {
+        overloadCounters = new QuotesOverloadCounters();
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        symbolEURJPY = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("JPY"))
+                .build();
+    }
+
+    @Test
+    public void givenFullQueueAndRejectPolicy_whenOffer_thenQuoteRejectedAndCounted() {
+        var quotesQueue = new BoundedQuotesQueue(2, OverloadPolicy.REJECT, overloadCounters);
+
+        assertTrue(quotesQueue.offer(createQuote(symbolEURUSD, "1.1000", 1)));
+        assertTrue(quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2)));
+        assertFalse(quotesQueue.offer(createQuote(symbolEURUSD, "1.1002", 3)));
+
+        assertEquals(2, quotesQueue.size());
+        assertEquals(1, overloadCounters.getRejectedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndDropOldestPolicy_whenOffer_thenOldestQuoteDropped() {
+        var quotesQueue = new BoundedQuotesQueue(2, OverloadPolicy.DROP_OLDEST, overloadCounters);
+        var oldestQuote = createQuote(symbolEURUSD, "1.1000", 1);
+
+        quotesQueue.offer(oldestQuote);
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2));
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1002", 3));
+
+        assertEquals(2, quotesQueue.size());
+        assertNotEquals(oldestQuote, quotesQueue.poll());
+        assertEquals(1, overloadCounters.getDroppedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndConflatePolicy_whenOffer_thenOneFoldedQuotePerSymbolKept() {
+        var quotesQueue = new BoundedQuotesQueue(1, OverloadPolicy.CONFLATE, overloadCounters);
+        var queuedQuote = createQuote(symbolEURUSD, "1.1000", 1);
+        var latestEURUSDQuote = createQuote(symbolEURUSD, "1.1002", 3);
+        var latestEURJPYQuote = createQuote(symbolEURJPY, "160.10", 4);
+
+        quotesQueue.offer(queuedQuote);
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2));
+        quotesQueue.offer(latestEURUSDQuote);
+        quotesQueue.offer(latestEURJPYQuote);
+
+        assertEquals(3, quotesQueue.size());
+        assertEquals(queuedQuote, quotesQueue.poll());
+        Map<Symbol, Quote> conflatedQuotesMap = new HashMap<>();
+        for (int i = 0; i < 2; i++) {
+            var conflatedQuote = quotesQueue.poll();
+            conflatedQuotesMap.put(conflatedQuote.getSymbol(), conflatedQuote);
+        }
+        assertEquals(latestEURUSDQuote.getNewPrice(), conflatedQuotesMap.get(symbolEURUSD).getNewPrice());
+        assertEquals(2, conflatedQuotesMap.get(symbolEURUSD).getTicksCount());
+        assertEquals(latestEURJPYQuote.getNewPrice(), conflatedQuotesMap.get(symbolEURJPY).getNewPrice());
+        assertNull(quotesQueue.poll());
+        assertTrue(quotesQueue.isEmpty());
+        assertEquals(1, overloadCounters.getConflatedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndConflatePolicy_whenOffer_thenSupersededQuotesFoldedIntoSurvivor() {
+        var quotesQueue = new BoundedQuotesQueue(1, OverloadPolicy.CONFLATE, overloadCounters);
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1000", 1));
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2).toBuilder().size(new BigDecimal("100")).build());
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1050", 3));
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.0950", 4).toBuilder().size(new BigDecimal("200")).build());
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1002", 5));
+
+        quotesQueue.poll();
+        var conflatedQuote = quotesQueue.poll();
+
+        assertEquals(new BigDecimal("1.1001"), conflatedQuote.getFirstPrice());
+        assertEquals(new BigDecimal("1.1050"), conflatedQuote.getHighPrice());
+        assertEquals(new BigDecimal("1.0950"), conflatedQuote.getLowPrice());
+        assertEquals(new BigDecimal("1.1002"), conflatedQuote.getNewPrice());
+        assertEquals(4, conflatedQuote.getTicksCount());
+        assertEquals(new BigDecimal("300"), conflatedQuote.getSize());
+        assertEquals(3, overloadCounters.getConflatedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndConflatePolicy_whenOfferQuoteOfNextMinute_thenSupersededQuoteQueued() {
+        var quotesQueue = new BoundedQuotesQueue(1, OverloadPolicy.CONFLATE, overloadCounters);
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1000", 1));
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2));
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1002", 60_000));
+
+        assertEquals(3, quotesQueue.size());
+        assertEquals(new BigDecimal("1.1000"), quotesQueue.poll().getNewPrice());
+        assertEquals(new BigDecimal("1.1001"), quotesQueue.poll().getNewPrice());
+        assertEquals(new BigDecimal("1.1002"), quotesQueue.poll().getNewPrice());
+        assertEquals(0, overloadCounters.getConflatedQuotes());
+    }
+
+    @Test
+    public void givenFullQueueAndBlockPolicy_whenOffer_thenProducerWaitsForCapacity() throws InterruptedException {
+        var quotesQueue = new BoundedQuotesQueue(1, OverloadPolicy.BLOCK, overloadCounters);
+        quotesQueue.offer(createQuote(symbolEURUSD, "1.1000", 1));
+        var offered = new CountDownLatch(1);
+
+        var producer = new Thread(() -> {
+            quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2));
+            offered.countDown();
+        });
+        producer.start();
+
+        assertFalse(offered.await(100, TimeUnit.MILLISECONDS));
+        quotesQueue.poll();
+        assertTrue(offered.await(1, TimeUnit.SECONDS));
+        assertEquals(1, quotesQueue.size());
+    }
+
+    @Test
+    public void givenFullQueueAndRejectPolicy_whenAddAll_thenCapacityStillEnforced() {
+        var quotesQueue = new BoundedQuotesQueue(2, OverloadPolicy.REJECT, overloadCounters);
+
+        assertThrows(IllegalStateException.class, () -> quotesQueue.addAll(List.of(
+                createQuote(symbolEURUSD, "1.1000", 1),
+                createQuote(symbolEURUSD, "1.1001", 2),
+                createQuote(symbolEURUSD, "1.1002", 3))));
+
+        assertEquals(2, quotesQueue.size());
+        assertEquals(1, overloadCounters.getRejectedQuotes());
+    }
+
+    @Test
+    public void givenQueuedQuote_whenRemoved_thenCapacityReleased() {
+        var quotesQueue = new BoundedQuotesQueue(1, OverloadPolicy.REJECT, overloadCounters);
+        var queuedQuote = createQuote(symbolEURUSD, "1.1000", 1);
+        quotesQueue.offer(queuedQuote);
+
+        assertTrue(quotesQueue.remove(queuedQuote));
+        assertFalse(quotesQueue.remove(queuedQuote));
+
+        assertEquals(0, quotesQueue.size());
+        assertTrue(quotesQueue.offer(createQuote(symbolEURUSD, "1.1001", 2)));
+        assertEquals(0, overloadCounters.getRejectedQuotes());
+    }
+
+    @Test
+    public void givenQueuedQuotes_whenIterate_thenRemovalNotSupported() {
+        var quotesQueue = new BoundedQuotesQueue(2, OverloadPolicy.REJECT, overloadCounters);
+        var queuedQuote = createQuote(symbolEURUSD, "1.1000", 1);
+        quotesQueue.offer(queuedQuote);
+
+        var iterator = quotesQueue.iterator();
+
+        assertEquals(queuedQuote, iterator.next());
+        assertThrows(UnsupportedOperationException.class, iterator::remove);
+        assertEquals(1, quotesQueue.size());
+    }
+
+    private Quote createQuote(Symbol symbol, String newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbol)
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.ExecutionMode;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MicroBatcherExecutorFactoryTest {
+
+    private static final boolean VIRTUAL_THREADS_SUPPORTED = Runtime.version().feature() >= 21;
+
+    @Test
+    public void givenPlatformMode_whenCreateExecutors_thenTasksRunOnPlatformThreads() throws Exception {
+        var microBatcherExecutorFactory = new MicroBatcherExecutorFactory(ExecutionMode.PLATFORM);
+
+        assertEquals(ExecutionMode.PLATFORM, microBatcherExecutorFactory.getExecutionMode());
+        assertFalse(runOn(microBatcherExecutorFactory.newTaskExecutor()));
+        assertFalse(runOn(microBatcherExecutorFactory.newBatchScheduler()));
+    }
+
+    @Test
+    public void givenVirtualModeWithoutVirtualThreads_whenCreateFactory_thenFallsBackToPlatform() throws Exception {
+        assumeFalse(VIRTUAL_THREADS_SUPPORTED);
+        var microBatcherExecutorFactory = new MicroBatcherExecutorFactory(ExecutionMode.VIRTUAL);
+
+        assertEquals(ExecutionMode.PLATFORM, microBatcherExecutorFactory.getExecutionMode());
+        assertFalse(runOn(microBatcherExecutorFactory.newBatchScheduler()));
+    }
+
+    @Test
+    public void givenVirtualModeWithVirtualThreads_whenCreateExecutors_thenTasksRunOnVirtualThreads() throws Exception {
+        assumeTrue(VIRTUAL_THREADS_SUPPORTED);
+        var microBatcherExecutorFactory = new MicroBatcherExecutorFactory(ExecutionMode.VIRTUAL);
+
+        assertEquals(ExecutionMode.VIRTUAL, microBatcherExecutorFactory.getExecutionMode());
+        assertTrue(runOn(microBatcherExecutorFactory.newTaskExecutor()));
+        assertTrue(runOn(microBatcherExecutorFactory.newBatchScheduler()));
+    }
+
+    // Returns whether the task ran on a virtual thread
+    private static boolean runOn(ExecutorService executorService) throws Exception {
+        try {
+            return executorService.submit(MicroBatcherExecutorFactoryTest::isCurrentThreadVirtual).get(5, TimeUnit.SECONDS);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static boolean isCurrentThreadVirtual() throws ReflectiveOperationException {
+        if (!VIRTUAL_THREADS_SUPPORTED) {
+            return false;
+        }
+        Method isVirtual = Thread.class.getMethod("isVirtual");
+        return (boolean) isVirtual.invoke(Thread.currentThread());
+    }
+}
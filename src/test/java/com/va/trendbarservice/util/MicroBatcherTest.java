@@ -1,5 +1,6 @@
 package com.va.trendbarservice.util;
 
+import com.va.trendbarservice.metrics.TrendBarMetrics;
 import com.va.trendbarservice.model.*;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,6 +30,7 @@ public class MicroBatcherTest {
     @Mock
     private BiConsumer<List<Quote>, Boolean> executionLogic;
 
+    private TrendBarMetrics trendBarMetrics;
     private TrendBar trendBar;
     private int executionThreshold;
     private int timeoutThreshold;
@@ -48,10 +50,11 @@ public class MicroBatcherTest {
 
         trendBar = new TrendBar(keyEURUSD_M1, startOfPeriod);
 
+        trendBarMetrics = new TrendBarMetrics(new ConcurrentHashMap<>(), new ConcurrentLinkedQueue<>(), new QuotesOverloadCounters());
         executionThreshold = 5;
         timeoutThreshold = 1000;
 
-        microBatcher = new MicroBatcher(trendBarKeyQuotesQueue, executionThreshold, timeoutThreshold, trendBar, executionLogic);
+        microBatcher = new MicroBatcher(trendBarKeyQuotesQueue, executionThreshold, timeoutThreshold, trendBar, executionLogic, trendBarMetrics, new MicroBatcherExecutorFactory(ExecutionMode.PLATFORM));
     }
 
     @Test
@@ -212,7 +215,7 @@ public class MicroBatcherTest {
         List<Quote> quoteList = new ArrayList<>();
         boolean isBatchFinalFinal = false;
         CountDownLatch latch = new CountDownLatch(1);
-        MicroBatcher localMicroBatcher = new MicroBatcher(trendBarKeyQuotesQueue, executionThreshold, timeoutThreshold, trendBar, executionLogic);
+        MicroBatcher localMicroBatcher = new MicroBatcher(trendBarKeyQuotesQueue, executionThreshold, timeoutThreshold, trendBar, executionLogic, trendBarMetrics, new MicroBatcherExecutorFactory(ExecutionMode.PLATFORM));
 
         localMicroBatcher.submitTasks(quoteList, isBatchFinalFinal, latch);
         latch.await(5, TimeUnit.SECONDS);
@@ -225,7 +228,7 @@ public class MicroBatcherTest {
     public void givenQuoteList_whenSubmitFinalTask_thenExecutionLogicCalled() throws InterruptedException {
         List<Quote> quoteList = new ArrayList<>();
         CountDownLatch latch2 = new CountDownLatch(1);
-        MicroBatcher localMicroBatcher = new MicroBatcher(trendBarKeyQuotesQueue, executionThreshold, timeoutThreshold, trendBar, executionLogic);
+        MicroBatcher localMicroBatcher = new MicroBatcher(trendBarKeyQuotesQueue, executionThreshold, timeoutThreshold, trendBar, executionLogic, trendBarMetrics, new MicroBatcherExecutorFactory(ExecutionMode.PLATFORM));
 
         localMicroBatcher.submitFinalTask(quoteList, latch2);
         latch2.await(5, TimeUnit.SECONDS);
@@ -0,0 +1,136 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuoteConflatorTest {
+
+    private QuoteConflator quoteConflator;
+    private List<Quote> routedQuotes;
+    private Symbol symbolEURUSD;
+    private long startOfMinute;
+
+    @BeforeEach
+    public void setUp() {
+        quoteConflator = new QuoteConflator(true);
+        routedQuotes = new ArrayList<>();
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        startOfMinute = Instant.parse("2024-06-20T10:15:00Z").toEpochMilli();
+    }
+
+    @Test
+    public void givenTicksInSameMinute_whenFoldAndDrain_thenOneAggregateRouted() {
+        quoteConflator.fold(createQuote("1.1000", startOfMinute), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.0800", startOfMinute + 10), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.1500", startOfMinute + 20), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.1200", startOfMinute + 30), routedQuotes::add);
+
+        assertTrue(routedQuotes.isEmpty());
+        assertEquals(1, quoteConflator.getPendingSymbolsCount());
+
+        quoteConflator.drain(routedQuotes::add);
+
+        assertEquals(1, routedQuotes.size());
+        var conflatedQuote = routedQuotes.get(0);
+        assertEquals(new BigDecimal("1.1000"), conflatedQuote.getFirstPrice());
+        assertEquals(new BigDecimal("1.1500"), conflatedQuote.getHighPrice());
+        assertEquals(new BigDecimal("1.0800"), conflatedQuote.getLowPrice());
+        assertEquals(new BigDecimal("1.1200"), conflatedQuote.getNewPrice());
+        assertEquals(startOfMinute + 30, conflatedQuote.getUnixTimeStamp());
+        assertEquals(0, quoteConflator.getPendingSymbolsCount());
+    }
+
+    @Test
+    public void givenTicksAcrossMinuteBoundary_whenFold_thenPreviousAggregateRoutedFirst() {
+        quoteConflator.fold(createQuote("1.1000", startOfMinute + 59_999), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.2000", startOfMinute + 60_000), routedQuotes::add);
+
+        assertEquals(1, routedQuotes.size());
+        assertEquals(new BigDecimal("1.1000"), routedQuotes.get(0).getNewPrice());
+
+        quoteConflator.drain(routedQuotes::add);
+
+        assertEquals(2, routedQuotes.size());
+        assertEquals(new BigDecimal("1.2000"), routedQuotes.get(1).getFirstPrice());
+    }
+
+    @Test
+    public void givenOutOfOrderTicksInSameMinute_whenFoldAndDrain_thenFirstAndCloseFollowQuoteTime() {
+        quoteConflator.fold(createQuote("1.1000", startOfMinute + 20), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.1200", startOfMinute + 40), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.0900", startOfMinute + 10), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.1100", startOfMinute + 30), routedQuotes::add);
+
+        quoteConflator.drain(routedQuotes::add);
+
+        var conflatedQuote = routedQuotes.get(0);
+        assertEquals(new BigDecimal("1.0900"), conflatedQuote.getFirstPrice());
+        assertEquals(startOfMinute + 10, conflatedQuote.getFirstUnixTimeStamp());
+        assertEquals(new BigDecimal("1.1200"), conflatedQuote.getNewPrice());
+        assertEquals(startOfMinute + 40, conflatedQuote.getUnixTimeStamp());
+        assertEquals(4, conflatedQuote.getTicksCount());
+    }
+
+    @Test
+    public void givenFoldedQuote_whenFold_thenOriginalQuoteNotMutated() {
+        var firstQuote = createQuote("1.1000", startOfMinute);
+
+        quoteConflator.fold(firstQuote, routedQuotes::add);
+        quoteConflator.fold(createQuote("1.2000", startOfMinute + 1), routedQuotes::add);
+
+        assertEquals(new BigDecimal("1.1000"), firstQuote.getNewPrice());
+        assertEquals(new BigDecimal("1.1000"), firstQuote.getHighPrice());
+    }
+
+    @Test
+    public void givenSizedTicksInSameMinute_whenFoldAndDrain_thenTicksSizeAndTurnoverFolded() {
+        quoteConflator.fold(createQuote("1.1000", startOfMinute).toBuilder().size(new BigDecimal("100")).build(), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.2000", startOfMinute + 10), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.3000", startOfMinute + 20).toBuilder().size(new BigDecimal("300")).build(), routedQuotes::add);
+
+        quoteConflator.drain(routedQuotes::add);
+
+        var conflatedQuote = routedQuotes.get(0);
+        assertEquals(3, conflatedQuote.getTicksCount());
+        assertEquals(startOfMinute, conflatedQuote.getFirstUnixTimeStamp());
+        assertEquals(new BigDecimal("400"), conflatedQuote.getSize());
+        assertEquals(0, new BigDecimal("500").compareTo(conflatedQuote.getTurnover()));
+    }
+
+    @Test
+    public void givenBidAskTicksInSameMinute_whenFoldAndDrain_thenBidAskStateFolded() {
+        quoteConflator.fold(createQuote("1.1001", startOfMinute).toBuilder()
+                .bidPrice(new BigDecimal("1.1000")).askPrice(new BigDecimal("1.1002")).build(), routedQuotes::add);
+        quoteConflator.fold(createQuote("1.1013", startOfMinute + 10).toBuilder()
+                .bidPrice(new BigDecimal("1.1010")).askPrice(new BigDecimal("1.1016")).build(), routedQuotes::add);
+
+        quoteConflator.drain(routedQuotes::add);
+
+        var bidAsk = routedQuotes.get(0).getBidAsk();
+        assertEquals(new BigDecimal("1.1000"), bidAsk.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.1016"), bidAsk.getAskClosePrice());
+        assertEquals(new BigDecimal("0.0006"), bidAsk.getSpreadMax());
+        assertEquals(2, bidAsk.getQuotesCount());
+    }
+
+    private Quote createQuote(String newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuoteJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path journalPath;
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+
+    @BeforeEach
+    public void setUp() {
+        journalPath = tempDir.resolve("quotes.journal");
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        symbolEURJPY = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("JPY"))
+                .build();
+    }
+
+    @Test
+    public void givenCommittedQuotesAcrossSegments_whenReopenAndReplay_thenSameQuotesInOrder() throws IOException {
+        List<Quote> appendedQuotes = new ArrayList<>();
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 4)) {
+            for (int i = 0; i < 10; i++) {
+                var quote = createQuote(i % 2 == 0 ? symbolEURUSD : symbolEURJPY, BigDecimal.valueOf(107_000 + i, 5), 1_718_870_400_000L + i);
+                quoteJournal.append(quote);
+                appendedQuotes.add(quote);
+            }
+            quoteJournal.commit();
+        }
+
+        List<Quote> replayedQuotes = new ArrayList<>();
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 4)) {
+            long replayedCount = quoteJournal.replay(replayedQuotes::add);
+
+            assertEquals(10, replayedCount);
+            assertEquals(10, quoteJournal.getAppendedCount());
+        }
+        assertEquals(appendedQuotes, replayedQuotes);
+    }
+
+    @Test
+    public void givenUncommittedQuotes_whenReplay_thenOnlyCommittedQuotesReplayed() throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 1024)) {
+            quoteJournal.append(createQuote(symbolEURUSD, new BigDecimal("1.0712"), 1L));
+            quoteJournal.commit();
+            quoteJournal.append(createQuote(symbolEURUSD, new BigDecimal("1.0713"), 2L));
+
+            List<Quote> replayedQuotes = new ArrayList<>();
+            quoteJournal.replay(replayedQuotes::add);
+
+            assertEquals(1, replayedQuotes.size());
+            assertEquals(new BigDecimal("1.0712"), replayedQuotes.get(0).getNewPrice());
+        }
+    }
+
+    @Test
+    public void givenReopenedJournal_whenAppend_thenContinuesAfterCommittedQuotes() throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 2)) {
+            quoteJournal.append(createQuote(symbolEURUSD, new BigDecimal("1.0712"), 1L));
+        }
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 2)) {
+            quoteJournal.append(createQuote(symbolEURJPY, new BigDecimal("160.25"), 2L));
+            quoteJournal.commit();
+
+            List<Quote> replayedQuotes = new ArrayList<>();
+            quoteJournal.replay(replayedQuotes::add);
+
+            assertEquals(List.of(1L, 2L), replayedQuotes.stream().map(Quote::getUnixTimeStamp).toList());
+        }
+    }
+
+    @Test
+    public void givenCommittedQuotes_whenReplayFromPosition_thenOnlyLaterQuotesReplayedWithTheirSequences() throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 2)) {
+            for (int i = 0; i < 5; i++) {
+                quoteJournal.append(createQuote(symbolEURUSD, BigDecimal.valueOf(107_120 + i, 5), 1L + i));
+            }
+            quoteJournal.commit();
+
+            List<Quote> replayedQuotes = new ArrayList<>();
+            long replayedCount = quoteJournal.replay(3, replayedQuotes::add);
+
+            assertEquals(2, replayedCount);
+            assertEquals(List.of(4L, 5L), replayedQuotes.stream().map(Quote::getJournalSequence).toList());
+            assertEquals(5, quoteJournal.getCommittedCount());
+        }
+    }
+
+    @Test
+    public void givenDisabledJournalResumedFromCheckpoint_whenAppend_thenSequencesContinueAfterPosition() {
+        var quoteJournal = new QuoteJournal(false, journalPath, 1024);
+        quoteJournal.resumeFrom(41);
+        var quote = createQuote(symbolEURUSD, new BigDecimal("1.0712"), 1L);
+
+        quoteJournal.append(quote);
+        quoteJournal.commit();
+
+        assertEquals(42, quote.getJournalSequence());
+        assertEquals(42, quoteJournal.getCommittedCount());
+    }
+
+    @Test
+    public void givenDisabledJournal_whenAppendAndReplay_thenNoFileAndNothingReplayed() {
+        var quoteJournal = new QuoteJournal(false, journalPath, 1024);
+
+        quoteJournal.append(createQuote(symbolEURUSD, new BigDecimal("1.0712"), 1L));
+        quoteJournal.commit();
+
+        assertEquals(0, quoteJournal.replay(quote -> fail()));
+        assertFalse(QuoteJournal.exists(journalPath));
+    }
+
+    @Test
+    public void givenQuotesWithSizeAndBidAsk_whenReplay_thenOptionalFieldsRestored() throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 1024)) {
+            var sizedQuote = createQuote(symbolEURUSD, new BigDecimal("1.07125"), 1L).toBuilder()
+                    .size(new BigDecimal("250000"))
+                    .bidPrice(new BigDecimal("1.07120"))
+                    .askPrice(new BigDecimal("1.07130"))
+                    .build();
+            var bidOnlyQuote = createQuote(symbolEURJPY, new BigDecimal("160.25"), 2L).toBuilder()
+                    .bidPrice(new BigDecimal("160.24"))
+                    .build();
+            quoteJournal.append(sizedQuote);
+            quoteJournal.append(bidOnlyQuote);
+            quoteJournal.commit();
+
+            List<Quote> replayedQuotes = new ArrayList<>();
+            quoteJournal.replay(replayedQuotes::add);
+
+            assertEquals(List.of(sizedQuote, bidOnlyQuote), replayedQuotes);
+            assertNull(replayedQuotes.get(1).getAskPrice());
+            assertNull(replayedQuotes.get(1).getSize());
+        }
+    }
+
+    @Test
+    public void givenPriceOutOfRecordRange_whenAppend_thenIllegalArgumentExceptionAndNothingAppended() throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 1024)) {
+            var oversizedQuote = createQuote(symbolEURUSD, new BigDecimal("9223372036854775808"), 1L);
+            var overscaledQuote = createQuote(symbolEURUSD, new BigDecimal("1.0712").setScale(200), 1L);
+
+            assertThrows(IllegalArgumentException.class, () -> quoteJournal.append(oversizedQuote));
+            assertThrows(IllegalArgumentException.class, () -> quoteJournal.append(overscaledQuote));
+            assertEquals(0, quoteJournal.getAppendedCount());
+            assertEquals(0, oversizedQuote.getJournalSequence());
+        }
+    }
+
+    @Test
+    public void givenJournalRolledOverFiles_whenReleaseBeforeCheckpointPosition_thenOnlyCoveredFilesDeleted() throws IOException {
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 2)) {
+            for (int i = 0; i < 5; i++) {
+                quoteJournal.append(createQuote(symbolEURUSD, BigDecimal.valueOf(107_120 + i, 5), 1L + i));
+            }
+            quoteJournal.commit();
+
+            quoteJournal.releaseBefore(3);
+
+            List<Quote> replayedQuotes = new ArrayList<>();
+            quoteJournal.replay(3, replayedQuotes::add);
+            assertEquals(List.of(4L, 5L), replayedQuotes.stream().map(Quote::getJournalSequence).toList());
+            assertFalse(Files.exists(tempDir.resolve("quotes.journal.00000000000000000000")));
+            assertTrue(Files.exists(tempDir.resolve("quotes.journal.00000000000000000002")));
+            assertTrue(Files.exists(tempDir.resolve("quotes.journal.00000000000000000004")));
+        }
+        try (var quoteJournal = new QuoteJournal(true, journalPath, 2)) {
+            assertEquals(5, quoteJournal.getAppendedCount());
+        }
+    }
+
+    @Test
+    public void givenJournalFileOfOtherVersion_whenOpen_thenUncheckedIOException() throws IOException {
+        var otherVersionHeader = ByteBuffer.allocate(QuoteJournal.HEADER_SIZE)
+                .putInt(QuoteJournal.MAGIC).putShort((short) (QuoteJournal.VERSION + 1)).putShort((short) QuoteJournal.RECORD_SIZE).array();
+        Files.write(tempDir.resolve("quotes.journal.00000000000000000000"), otherVersionHeader);
+
+        assertThrows(UncheckedIOException.class, () -> new QuoteJournal(true, journalPath, 1024));
+    }
+
+    @Test
+    public void givenForeignFile_whenOpen_thenUncheckedIOException() throws IOException {
+        Files.write(tempDir.resolve("quotes.journal.00000000000000000000"), new byte[QuoteJournal.HEADER_SIZE]);
+
+        assertThrows(UncheckedIOException.class, () -> new QuoteJournal(true, journalPath, 1024));
+    }
+
+    private static Quote createQuote(Symbol symbol, BigDecimal newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbol)
+                .newPrice(newPrice)
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
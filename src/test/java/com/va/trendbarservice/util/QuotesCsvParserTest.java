@@ -0,0 +1,53 @@
+package com.va.trendbarservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuotesCsvParserTest {
+
+    private final QuotesCsvParser quotesCsvParser = new QuotesCsvParser();
+
+    @Test
+    public void givenQuoteLine_whenParse_thenQuoteFieldsSet() {
+        var quote = quotesCsvParser.parse("EURJPY, 170.125 ,1718841600000");
+
+        assertEquals("EURJPY", quote.getSymbol().toString());
+        assertEquals(new BigDecimal("170.125"), quote.getNewPrice());
+        assertEquals(1_718_841_600_000L, quote.getUnixTimeStamp());
+    }
+
+    @Test
+    public void givenSameSymbol_whenParseTwice_thenSymbolInstanceReused() {
+        var first = quotesCsvParser.parse("EURUSD,1.0712,1");
+        var second = quotesCsvParser.parse("EURUSD,1.0713,2");
+
+        assertSame(first.getSymbol(), second.getSymbol());
+    }
+
+    @Test
+    public void givenHeaderCommentAndBlankLines_whenIsQuoteLine_thenFalse() {
+        assertFalse(QuotesCsvParser.isQuoteLine("symbol,price,timestamp"));
+        assertFalse(QuotesCsvParser.isQuoteLine("# exported 2024-06-20"));
+        assertFalse(QuotesCsvParser.isQuoteLine("  "));
+        assertTrue(QuotesCsvParser.isQuoteLine("EURUSD,1.0712,1"));
+    }
+
+    @Test
+    public void givenQuoteLineWithSize_whenParse_thenSizeSet() {
+        var quote = quotesCsvParser.parse("EURUSD,1.0712,1718841600000, 250000");
+
+        assertEquals(1_718_841_600_000L, quote.getUnixTimeStamp());
+        assertEquals(new BigDecimal("250000"), quote.getSize());
+        assertNull(quotesCsvParser.parse("EURUSD,1.0712,1").getSize());
+    }
+
+    @Test
+    public void givenMalformedLine_whenParse_thenIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> quotesCsvParser.parse("EURUSD;1.0712;1"));
+        assertThrows(IllegalArgumentException.class, () -> quotesCsvParser.parse("EURUSD,abc,1"));
+        assertThrows(IllegalArgumentException.class, () -> quotesCsvParser.parse("EUR,1.0712,1"));
+    }
+}
@@ -0,0 +1,145 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.Quote;
+import com.va.trendbarservice.model.Symbol;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TickFileReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path tickFilePath;
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+
+    @BeforeEach
+    public void setUp() {
+        tickFilePath = tempDir.resolve("quotes.ticks");
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        symbolEURJPY = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("JPY"))
+                .build();
+    }
+
+    @Test
+    public void givenTicksAcrossChunks_whenWriteAndReplay_thenSameQuotesInOrder() throws IOException {
+        List<Quote> writtenQuotes = new ArrayList<>();
+        try (var tickFileWriter = new TickFileWriter(tickFilePath, 4)) {
+            for (int i = 0; i < 11; i++) {
+                var quote = createQuote(i % 3 == 0 ? symbolEURJPY : symbolEURUSD, BigDecimal.valueOf(107_000 + i, 5), 1_718_841_600_000L + i);
+                tickFileWriter.write(quote);
+                writtenQuotes.add(quote);
+            }
+        }
+
+        List<Quote> replayedQuotes = new ArrayList<>();
+        try (var tickFileReader = new TickFileReader(tickFilePath)) {
+            assertEquals(11, tickFileReader.replay(replayedQuotes::add));
+        }
+        assertEquals(writtenQuotes, replayedQuotes);
+        assertEquals(TickFile.HEADER_SIZE + 11 * TickFile.RECORD_SIZE + 2 * TickFile.INDEX_ENTRY_SIZE + 2 * TickFile.BLOCK_RANGE_SIZE,
+                Files.size(tickFilePath));
+    }
+
+    @Test
+    public void givenTicksOfTwoSymbols_whenReadIndexAndForEachOfSymbol_thenOnlySymbolTicksVisited() throws IOException {
+        try (var tickFileWriter = new TickFileWriter(tickFilePath, 1024)) {
+            int eurUsdId = tickFileWriter.registerSymbol(symbolEURUSD);
+            int eurJpyId = tickFileWriter.registerSymbol(symbolEURJPY);
+            tickFileWriter.write(eurUsdId, 1_000L, 107_120, 5);
+            tickFileWriter.write(eurJpyId, 2_000L, 17_012_500, 5);
+            tickFileWriter.write(eurUsdId, 3_000L, 107_130, 5);
+        }
+
+        try (var tickFileReader = new TickFileReader(tickFilePath)) {
+            int eurUsdId = tickFileReader.getSymbolId(symbolEURUSD);
+            assertEquals(2, tickFileReader.getSymbolsCount());
+            assertEquals(symbolEURUSD, tickFileReader.getSymbol(eurUsdId));
+            assertEquals(2, tickFileReader.getSymbolRecordsCount(eurUsdId));
+            assertEquals(1_000L, tickFileReader.getFirstTimestamp(eurUsdId));
+            assertEquals(3_000L, tickFileReader.getLastTimestamp(eurUsdId));
+            assertEquals(-1, tickFileReader.getSymbolId(new Symbol(Currency.getInstance("GBP"), Currency.getInstance("USD"))));
+
+            long[] unscaledPricesSum = new long[1];
+            tickFileReader.forEach(eurUsdId, (symbolId, epochMillis, unscaledPrice, scale) -> {
+                assertEquals(eurUsdId, symbolId);
+                assertEquals(5, scale);
+                unscaledPricesSum[0] += unscaledPrice;
+            });
+            assertEquals(107_120 + 107_130, unscaledPricesSum[0]);
+        }
+    }
+
+    @Test
+    public void givenSparseSymbolAmongDenseSymbol_whenForEachOfSymbol_thenOnlyItsBlocksVisited() throws IOException {
+        int denseRecordsCount = 3 * TickFile.BLOCK_RECORDS_COUNT;
+        try (var tickFileWriter = new TickFileWriter(tickFilePath, 1024)) {
+            int eurUsdId = tickFileWriter.registerSymbol(symbolEURUSD);
+            int eurJpyId = tickFileWriter.registerSymbol(symbolEURJPY);
+            tickFileWriter.write(eurJpyId, 0L, 17_012_500, 5);
+            for (int i = 1; i <= denseRecordsCount; i++) {
+                tickFileWriter.write(eurUsdId, i, 107_000 + i % 100, 5);
+            }
+            tickFileWriter.write(eurJpyId, denseRecordsCount + 1L, 17_012_600, 5);
+        }
+
+        try (var tickFileReader = new TickFileReader(tickFilePath)) {
+            int eurUsdId = tickFileReader.getSymbolId(symbolEURUSD);
+            int eurJpyId = tickFileReader.getSymbolId(symbolEURJPY);
+            assertEquals(4, tickFileReader.getSymbolBlocksCount(eurUsdId));
+            assertEquals(2, tickFileReader.getSymbolBlocksCount(eurJpyId));
+
+            List<Long> eurJpyTimestamps = new ArrayList<>();
+            tickFileReader.forEach(eurJpyId, (symbolId, epochMillis, unscaledPrice, scale) -> eurJpyTimestamps.add(epochMillis));
+            assertEquals(List.of(0L, denseRecordsCount + 1L), eurJpyTimestamps);
+
+            long[] eurUsdRecordsCount = new long[1];
+            tickFileReader.forEach(eurUsdId, (symbolId, epochMillis, unscaledPrice, scale) -> eurUsdRecordsCount[0]++);
+            assertEquals(denseRecordsCount, eurUsdRecordsCount[0]);
+        }
+    }
+
+    @Test
+    public void givenWriterNotClosed_whenOpenReader_thenUncheckedIOException() {
+        var tickFileWriter = new TickFileWriter(tickFilePath, 1024);
+        tickFileWriter.write(createQuote(symbolEURUSD, new BigDecimal("1.0712"), 1L));
+
+        assertThrows(UncheckedIOException.class, () -> new TickFileReader(tickFilePath));
+    }
+
+    @Test
+    public void givenPriceBeyondIntRange_whenWrite_thenIllegalArgumentException() throws IOException {
+        try (var tickFileWriter = new TickFileWriter(tickFilePath, 1024)) {
+            int eurUsdId = tickFileWriter.registerSymbol(symbolEURUSD);
+
+            assertThrows(IllegalArgumentException.class, () -> tickFileWriter.write(eurUsdId, 1L, 1L << 40, 5));
+            assertEquals(0, tickFileWriter.getRecordsCount());
+        }
+    }
+
+    private static Quote createQuote(Symbol symbol, BigDecimal newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbol)
+                .newPrice(newPrice)
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
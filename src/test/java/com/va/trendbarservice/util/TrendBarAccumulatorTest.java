@@ -0,0 +1,131 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarAccumulatorTest {
+
+    private static final long START_OF_DAY = 1_718_841_600_000L; // 2024-06-20T00:00:00Z
+
+    private Symbol symbolEURUSD;
+    private TrendBar trendBarEURUSD_D1;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        trendBarEURUSD_D1 = new TrendBar(new TrendBarKey(symbolEURUSD, TrendBarPeriod.D1), Instant.ofEpochMilli(START_OF_DAY));
+    }
+
+    @Test
+    public void givenQuotes_whenAdd_thenOhlcFollowsTimestamps() {
+        var accumulator = new TrendBarAccumulator(trendBarEURUSD_D1);
+
+        accumulator.add(createQuote("1.0720", START_OF_DAY + 2_000));
+        accumulator.add(createQuote("1.0700", START_OF_DAY + 1_000));
+        accumulator.add(createQuote("1.0690", START_OF_DAY + 3_000));
+        accumulator.add(createQuote("1.0710", START_OF_DAY + 4_000));
+
+        var trendBarEntity = accumulator.toCompletedTrendBarEntity();
+        assertEquals(new BigDecimal("1.0700"), trendBarEntity.getOpenPrice());
+        assertEquals(new BigDecimal("1.0720"), trendBarEntity.getHighPrice());
+        assertEquals(new BigDecimal("1.0690"), trendBarEntity.getLowPrice());
+        assertEquals(new BigDecimal("1.0710"), trendBarEntity.getClosePrice());
+        assertEquals(START_OF_DAY, trendBarEntity.getTimestamp());
+        assertEquals(TrendBarStatus.COMPLETED, trendBarEntity.getStatus());
+        assertEquals(4, accumulator.getQuotesCount());
+    }
+
+    @Test
+    public void givenPartialsOfSameBar_whenMergeInEitherOrder_thenSameOhlcAsSingleAccumulator() {
+        var whole = new TrendBarAccumulator(trendBarEURUSD_D1);
+        var morning = new TrendBarAccumulator(trendBarEURUSD_D1);
+        var evening = new TrendBarAccumulator(trendBarEURUSD_D1);
+        String[] prices = {"1.0700", "1.0760", "1.0640", "1.0710", "1.0690", "1.0730"};
+        for (int i = 0; i < prices.length; i++) {
+            var quote = createQuote(prices[i], START_OF_DAY + i * 3_600_000L);
+            whole.add(quote);
+            (i < 3 ? morning : evening).add(quote);
+        }
+
+        var mergedForward = new TrendBarAccumulator(trendBarEURUSD_D1).merge(morning).merge(evening).toCompletedTrendBarEntity();
+        var mergedBackward = new TrendBarAccumulator(trendBarEURUSD_D1).merge(evening).merge(morning).toCompletedTrendBarEntity();
+
+        assertEquals(whole.toCompletedTrendBarEntity(), mergedForward);
+        assertEquals(whole.toCompletedTrendBarEntity(), mergedBackward);
+    }
+
+    @Test
+    public void givenBidAskPartialsOfSameBar_whenMergeInEitherOrder_thenBidAskFollowsTimestamps() {
+        var whole = new TrendBarAccumulator(trendBarEURUSD_D1);
+        var morning = new TrendBarAccumulator(trendBarEURUSD_D1);
+        var evening = new TrendBarAccumulator(trendBarEURUSD_D1);
+        String[] bidPrices = {"1.0710", "1.0700", "1.0760", "1.0690", "1.0730", "1.0720"};
+        long[] hours = {1, 0, 2, 4, 5, 3};
+        for (int i = 0; i < bidPrices.length; i++) {
+            var quote = createQuote(bidPrices[i], START_OF_DAY + hours[i] * 3_600_000L).toBuilder()
+                    .bidPrice(new BigDecimal(bidPrices[i]))
+                    .askPrice(new BigDecimal(bidPrices[i]).add(new BigDecimal("0.0002")))
+                    .build();
+            whole.add(quote);
+            (i < 3 ? morning : evening).add(quote);
+        }
+
+        var mergedForward = new TrendBarAccumulator(trendBarEURUSD_D1).merge(morning).merge(evening).toCompletedTrendBarEntity();
+        var mergedBackward = new TrendBarAccumulator(trendBarEURUSD_D1).merge(evening).merge(morning).toCompletedTrendBarEntity();
+
+        var bidAsk = whole.toCompletedTrendBarEntity().getBidAsk();
+        assertEquals(new BigDecimal("1.0700"), bidAsk.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.0730"), bidAsk.getBidClosePrice());
+        assertEquals(new BigDecimal("1.0762"), bidAsk.getAskHighPrice());
+        assertEquals(6, bidAsk.getQuotesCount());
+        assertEquals(bidAsk, mergedForward.getBidAsk());
+        assertEquals(bidAsk, mergedBackward.getBidAsk());
+    }
+
+    @Test
+    public void givenEmptyPartial_whenMerge_thenUnchanged() {
+        var accumulator = new TrendBarAccumulator(trendBarEURUSD_D1);
+        accumulator.add(createQuote("1.0700", START_OF_DAY));
+
+        accumulator.merge(new TrendBarAccumulator(trendBarEURUSD_D1));
+
+        assertEquals(1, accumulator.getQuotesCount());
+        assertEquals(new BigDecimal("1.0700"), accumulator.getHighPrice());
+        assertTrue(new TrendBarAccumulator(trendBarEURUSD_D1).isEmpty());
+    }
+
+    @Test
+    public void givenSizedPartials_whenMerge_thenTicksVolumeAndVwapCombined() {
+        var firstPartial = new TrendBarAccumulator(trendBarEURUSD_D1);
+        firstPartial.add(createQuote("1.0700", START_OF_DAY + 1_000).toBuilder().size(new BigDecimal("100")).build());
+        var secondPartial = new TrendBarAccumulator(trendBarEURUSD_D1);
+        secondPartial.add(createQuote("1.0800", START_OF_DAY + 2_000).toBuilder().size(new BigDecimal("300")).build());
+        secondPartial.add(createQuote("1.0900", START_OF_DAY + 3_000));
+
+        var trendBarEntity = firstPartial.merge(secondPartial).toCompletedTrendBarEntity();
+
+        assertEquals(3, trendBarEntity.getTicksCount());
+        assertEquals(START_OF_DAY + 1_000, trendBarEntity.getFirstQuoteTimestamp());
+        assertEquals(START_OF_DAY + 3_000, trendBarEntity.getLastQuoteTimestamp());
+        assertEquals(0, new BigDecimal("400").compareTo(trendBarEntity.getVolume()));
+        assertEquals(0, new BigDecimal("1.0775").compareTo(trendBarEntity.getVwap()));
+    }
+
+    private Quote createQuote(String newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal(newPrice))
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarAggregationTaskTest {
+
+    private static final long START_OF_DAY = 1_718_841_600_000L; // 2024-06-20T00:00:00Z
+
+    private Symbol symbolEURUSD;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+    }
+
+    @Test
+    public void givenBarSpreadOverSlices_whenSlicesMerged_thenSameAsWholeSlice() {
+        List<Quote> quotes = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            quotes.add(createQuote(BigDecimal.valueOf(107_000 + (i % 7) * 10 - i, 5), START_OF_DAY + i * 1_000L));
+        }
+
+        Map<TrendBar, TrendBarAccumulator> accumulatorsMap = new HashMap<>();
+        long lastUnixTimeStamp = Long.MIN_VALUE;
+        for (var quotesSlice : List.of(quotes.subList(0, 45), quotes.subList(45, 90), quotes.subList(90, 120))) {
+            new TrendBarAggregationTask(quotesSlice, lastUnixTimeStamp).call()
+                    .forEach((trendBar, accumulator) -> accumulatorsMap.merge(trendBar, accumulator, TrendBarAccumulator::merge));
+            lastUnixTimeStamp = quotesSlice.get(quotesSlice.size() - 1).getUnixTimeStamp();
+        }
+
+        var wholeAccumulatorsMap = new TrendBarAggregationTask(quotes, Long.MIN_VALUE).call();
+        assertEquals(wholeAccumulatorsMap.keySet(), accumulatorsMap.keySet());
+        wholeAccumulatorsMap.forEach((trendBar, accumulator) ->
+                assertEquals(accumulator.toCompletedTrendBarEntity(), accumulatorsMap.get(trendBar).toCompletedTrendBarEntity()));
+        var trendBarEURUSD_M1 = new TrendBar(new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1), Instant.ofEpochMilli(START_OF_DAY));
+        assertEquals(60, accumulatorsMap.get(trendBarEURUSD_M1).getQuotesCount());
+    }
+
+    @Test
+    public void givenQuoteOlderThanBarOfPreviousSlice_whenCall_thenSkippedOnlyForThatPeriod() {
+        var aggregationTask = new TrendBarAggregationTask(List.of(createQuote(new BigDecimal("1.0600"), START_OF_DAY + 10_000)),
+                START_OF_DAY + 61_000);
+
+        var accumulatorsMap = aggregationTask.call();
+
+        assertEquals(1, aggregationTask.getSkippedQuotesCount());
+        assertEquals(2, accumulatorsMap.size());
+        assertFalse(accumulatorsMap.containsKey(new TrendBar(new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1), Instant.ofEpochMilli(START_OF_DAY))));
+    }
+
+    @Test
+    public void givenNoQuotes_whenCall_thenNoBars() {
+        assertTrue(new TrendBarAggregationTask(List.of(), Long.MIN_VALUE).call().isEmpty());
+    }
+
+    private Quote createQuote(BigDecimal newPrice, long unixTimeStamp) {
+        return Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(newPrice)
+                .unixTimeStamp(unixTimeStamp)
+                .build();
+    }
+}
@@ -0,0 +1,125 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarCheckpointCodecTest {
+
+    private Symbol symbolEURUSD;
+    private TrendBar trendBarEURUSD_D1;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        trendBarEURUSD_D1 = new TrendBar(new TrendBarKey(symbolEURUSD, TrendBarPeriod.D1), Instant.parse("2024-06-20T00:00:00Z"));
+    }
+
+    @Test
+    public void givenCheckpoint_whenWriteAndRead_thenOpenTrendBarsAndQueuedQuotesRestored() throws IOException {
+        var openTrendBarEntity = TrendBarEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.D1)
+                .timestamp(trendBarEURUSD_D1.startOfPeriod().toEpochMilli())
+                .status(TrendBarStatus.INCOMPLETE)
+                .openPrice(new BigDecimal("1.0712"))
+                .highPrice(new BigDecimal("1.0799"))
+                .lowPrice(new BigDecimal("1.0650"))
+                .ticksCount(7)
+                .firstQuoteTimestamp(1_718_841_600_100L)
+                .lastQuoteTimestamp(1_718_870_400_000L)
+                .volume(new BigDecimal("100"))
+                .turnover(new BigDecimal("107.12"))
+                .vwap(new BigDecimal("1.07120000"))
+                .bidAsk(BidAskTrendBar.of(new BigDecimal("1.0711"), new BigDecimal("1.0713")))
+                .lastQuoteSequence(95L)
+                .build();
+        var rawQuote = Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.07305"))
+                .unixTimeStamp(1_718_870_400_123L)
+                .bidPrice(new BigDecimal("1.07300"))
+                .askPrice(new BigDecimal("1.07310"))
+                .journalSequence(96L)
+                .build();
+        var conflatedQuote = Quote.builder()
+                .symbol(symbolEURUSD)
+                .newPrice(new BigDecimal("1.0731"))
+                .firstPrice(new BigDecimal("1.0720"))
+                .highPrice(new BigDecimal("1.0800"))
+                .lowPrice(new BigDecimal("1.0700"))
+                .unixTimeStamp(1_718_870_400_456L)
+                .firstUnixTimeStamp(1_718_870_400_200L)
+                .ticksCount(3)
+                .size(new BigDecimal("500"))
+                .turnover(new BigDecimal("536.5"))
+                .journalSequence(99L)
+                .build();
+        var amendableTrendBarEURUSD_D1 = new TrendBar(trendBarEURUSD_D1.trendBarKey(), Instant.parse("2024-06-19T00:00:00Z"));
+        var amendableTrendBarEntity = openTrendBarEntity.toBuilder()
+                .timestamp(amendableTrendBarEURUSD_D1.startOfPeriod().toEpochMilli())
+                .status(TrendBarStatus.COMPLETED)
+                .closePrice(new BigDecimal("1.0755"))
+                .build();
+        var trendBarCheckpoint = new TrendBarCheckpoint(42L, 100L,
+                Map.of(trendBarEURUSD_D1, openTrendBarEntity),
+                Map.of(trendBarEURUSD_D1.trendBarKey(), List.of(rawQuote, conflatedQuote)),
+                Map.of(amendableTrendBarEURUSD_D1, amendableTrendBarEntity));
+
+        var restoredTrendBarCheckpoint = writeAndRead(trendBarCheckpoint);
+
+        assertEquals(42L, restoredTrendBarCheckpoint.createdAtMillis());
+        assertEquals(100L, restoredTrendBarCheckpoint.journalPosition());
+        assertEquals(openTrendBarEntity, restoredTrendBarCheckpoint.openTrendBarEntities().get(trendBarEURUSD_D1));
+        assertNull(restoredTrendBarCheckpoint.openTrendBarEntities().get(trendBarEURUSD_D1).getClosePrice());
+        assertEquals(List.of(rawQuote, conflatedQuote), restoredTrendBarCheckpoint.queuedQuotes().get(trendBarEURUSD_D1.trendBarKey()));
+        assertEquals(Map.of(amendableTrendBarEURUSD_D1, amendableTrendBarEntity), restoredTrendBarCheckpoint.amendableTrendBarEntities());
+    }
+
+    @Test
+    public void givenEmptyCheckpoint_whenWriteAndRead_thenEmptySectionsRestored() throws IOException {
+        var restoredTrendBarCheckpoint = writeAndRead(new TrendBarCheckpoint(1L, 0L, Map.of(), Map.of(), Map.of()));
+
+        assertTrue(restoredTrendBarCheckpoint.openTrendBarEntities().isEmpty());
+        assertTrue(restoredTrendBarCheckpoint.queuedQuotes().isEmpty());
+        assertTrue(restoredTrendBarCheckpoint.amendableTrendBarEntities().isEmpty());
+    }
+
+    @Test
+    public void givenForeignBytes_whenRead_thenIOException() {
+        var inputStream = new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6});
+
+        assertThrows(IOException.class, () -> TrendBarCheckpointCodec.read(inputStream));
+    }
+
+    @Test
+    public void givenCheckpointOfOtherVersion_whenRead_thenIOException() throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        TrendBarCheckpointCodec.write(new TrendBarCheckpoint(1L, 0L, Map.of(), Map.of(), Map.of()), outputStream);
+        byte[] checkpoint = outputStream.toByteArray();
+        checkpoint[5] = TrendBarCheckpointCodec.VERSION + 1;
+
+        var exception = assertThrows(IOException.class, () -> TrendBarCheckpointCodec.read(new ByteArrayInputStream(checkpoint)));
+        assertTrue(exception.getMessage().contains("version"));
+    }
+
+    private static TrendBarCheckpoint writeAndRead(TrendBarCheckpoint trendBarCheckpoint) throws IOException {
+        var outputStream = new ByteArrayOutputStream();
+        TrendBarCheckpointCodec.write(trendBarCheckpoint, outputStream);
+        return TrendBarCheckpointCodec.read(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarColdStoreTest {
+
+    private static final long MILLIS_PER_DAY = Duration.ofDays(1).toMillis();
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    @TempDir
+    private Path tempDir;
+
+    private TrendBarColdStore trendBarColdStore;
+    private Symbol symbolEURUSD;
+    private Symbol symbolEURJPY;
+    private long day1;
+    private long day2;
+
+    @BeforeEach
+    public void setUp() {
+        trendBarColdStore = new TrendBarColdStore(tempDir);
+        symbolEURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        symbolEURJPY = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("JPY"));
+        day1 = Instant.parse("2024-06-20T00:00:00Z").toEpochMilli();
+        day2 = day1 + MILLIS_PER_DAY;
+    }
+
+    @Test
+    public void givenSegmentsInTwoPartitions_whenStreamTrendBars_thenOnlyRequestedSymbolAndRangeReturnedInOrder() {
+        var day1Bars = List.of(createTrendBarEntity(symbolEURUSD, day1), createTrendBarEntity(symbolEURUSD, day1 + MINUTE_MILLIS));
+        var day2Bars = List.of(createTrendBarEntity(symbolEURUSD, day2), createTrendBarEntity(symbolEURUSD, day2 + MINUTE_MILLIS));
+        trendBarColdStore.write(symbolEURUSD, TrendBarPeriod.M1, day2, TrendBarSegmentCodec.encode(day2Bars));
+        trendBarColdStore.write(symbolEURUSD, TrendBarPeriod.M1, day1, TrendBarSegmentCodec.encode(day1Bars));
+        trendBarColdStore.write(symbolEURJPY, TrendBarPeriod.M1, day1, TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(symbolEURJPY, day1))));
+
+        var trendBarEntities = trendBarColdStore.streamTrendBars(symbolEURUSD, TrendBarPeriod.M1, day1 + MINUTE_MILLIS, day2).toList();
+
+        assertEquals(List.of(day1Bars.get(1), day2Bars.get(0)), trendBarEntities);
+        assertTrue(trendBarColdStore.streamTrendBars(symbolEURUSD, TrendBarPeriod.H1, 0, Long.MAX_VALUE).toList().isEmpty());
+    }
+
+    @Test
+    public void givenSegmentWritten_whenRewritten_thenReplacedWithoutTemporaryFilesLeft() throws Exception {
+        trendBarColdStore.write(symbolEURUSD, TrendBarPeriod.M1, day1, TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(symbolEURUSD, day1))));
+        byte[] segment = TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(symbolEURUSD, day1 + MINUTE_MILLIS)));
+
+        trendBarColdStore.write(symbolEURUSD, TrendBarPeriod.M1, day1, segment);
+
+        assertArrayEquals(segment, trendBarColdStore.read(symbolEURUSD, TrendBarPeriod.M1, day1).orElseThrow());
+        try (var paths = Files.walk(tempDir)) {
+            assertTrue(paths.noneMatch(path -> path.toString().endsWith(".tmp")));
+        }
+        assertTrue(trendBarColdStore.read(symbolEURJPY, TrendBarPeriod.M1, day1).isEmpty());
+    }
+
+    @Test
+    public void givenTwoPartitions_whenDeletePartition_thenOnlyThatWindowRemoved() {
+        trendBarColdStore.write(symbolEURUSD, TrendBarPeriod.M1, day1, TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(symbolEURUSD, day1))));
+        trendBarColdStore.write(symbolEURJPY, TrendBarPeriod.M1, day1, TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(symbolEURJPY, day1))));
+        trendBarColdStore.write(symbolEURUSD, TrendBarPeriod.M1, day2, TrendBarSegmentCodec.encode(List.of(createTrendBarEntity(symbolEURUSD, day2))));
+        assertEquals(List.of(day1, day2), trendBarColdStore.findPartitionStartsBefore(TrendBarPeriod.M1, Long.MAX_VALUE));
+
+        int deletedCount = trendBarColdStore.deletePartition(TrendBarPeriod.M1, day1);
+
+        assertEquals(2, deletedCount);
+        assertEquals(List.of(day2), trendBarColdStore.findPartitionStartsBefore(TrendBarPeriod.M1, Long.MAX_VALUE));
+        assertEquals(0, trendBarColdStore.deletePartition(TrendBarPeriod.M1, day1));
+    }
+
+    private static TrendBarEntity createTrendBarEntity(Symbol symbol, long timestamp) {
+        return TrendBarEntity.builder()
+                .symbol(symbol)
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .partitionStart(TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, timestamp))
+                .status(TrendBarStatus.COMPLETED)
+                .openPrice(new BigDecimal("1.0712"))
+                .highPrice(new BigDecimal("1.0799"))
+                .lowPrice(new BigDecimal("1.0650"))
+                .closePrice(new BigDecimal("1.0750"))
+                .ticksCount(3)
+                .firstQuoteTimestamp(timestamp + 10)
+                .lastQuoteTimestamp(timestamp + 50_000)
+                .build();
+    }
+}
@@ -0,0 +1,77 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarDownsamplerTest {
+
+    private static final Symbol SYMBOL_EURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+    private static final long MILLIS_PER_HOUR = Duration.ofHours(1).toMillis();
+
+    @Test
+    public void givenHourlyBars_whenDownsampledToH4_thenMergedIntoFourHourBuckets() {
+        List<DownsampledTrendBar> downsampledTrendBars = new ArrayList<>();
+        var trendBarDownsampler = new TrendBarDownsampler(Duration.ofHours(4), downsampledTrendBars::add);
+
+        for (int hour = 0; hour < 6; hour++) {
+            trendBarDownsampler.add(createTrendBarEntity(hour * MILLIS_PER_HOUR, 10 + hour, 20 + hour, 5 - hour, 15 + hour));
+        }
+        trendBarDownsampler.finish();
+
+        assertEquals(2, downsampledTrendBars.size());
+        var firstH4TrendBar = downsampledTrendBars.get(0);
+        assertEquals(0, firstH4TrendBar.timestamp());
+        assertEquals(BigDecimal.valueOf(10), firstH4TrendBar.openPrice());
+        assertEquals(BigDecimal.valueOf(23), firstH4TrendBar.highPrice());
+        assertEquals(BigDecimal.valueOf(2), firstH4TrendBar.lowPrice());
+        assertEquals(BigDecimal.valueOf(18), firstH4TrendBar.closePrice());
+        assertEquals(4, firstH4TrendBar.sourceTrendBarsCount());
+        var secondH4TrendBar = downsampledTrendBars.get(1);
+        assertEquals(4 * MILLIS_PER_HOUR, secondH4TrendBar.timestamp());
+        assertEquals(BigDecimal.valueOf(14), secondH4TrendBar.openPrice());
+        assertEquals(BigDecimal.valueOf(20), secondH4TrendBar.closePrice());
+        assertEquals(2, secondH4TrendBar.sourceTrendBarsCount());
+        assertEquals(Duration.ofHours(4), secondH4TrendBar.period());
+    }
+
+    @Test
+    public void givenWeeklyTargetPeriod_whenGetStartOfBucket_thenAlignedToMonday() {
+        long wednesday = Instant.parse("2024-06-19T13:45:00Z").toEpochMilli();
+
+        long startOfBucket = TrendBarDownsampler.getStartOfBucket(wednesday, Duration.ofDays(7));
+
+        assertEquals(Instant.parse("2024-06-17T00:00:00Z").toEpochMilli(), startOfBucket);
+    }
+
+    @Test
+    public void givenNoBars_whenFinish_thenNothingEmitted() {
+        List<DownsampledTrendBar> downsampledTrendBars = new ArrayList<>();
+        var trendBarDownsampler = new TrendBarDownsampler(Duration.ofHours(4), downsampledTrendBars::add);
+
+        trendBarDownsampler.finish();
+
+        assertTrue(downsampledTrendBars.isEmpty());
+    }
+
+    private static TrendBarEntity createTrendBarEntity(long timestamp, int open, int high, int low, int close) {
+        return TrendBarEntity.builder()
+                .symbol(SYMBOL_EURUSD)
+                .period(TrendBarPeriod.H1)
+                .timestamp(timestamp)
+                .openPrice(BigDecimal.valueOf(open))
+                .highPrice(BigDecimal.valueOf(high))
+                .lowPrice(BigDecimal.valueOf(low))
+                .closePrice(BigDecimal.valueOf(close))
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.FlowOverflowPolicy;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.model.TrendBarStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarFlowPublisherTest {
+
+    private ExecutorService deliveryExecutor;
+
+    @BeforeEach
+    public void setUp() {
+        deliveryExecutor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        deliveryExecutor.shutdownNow();
+    }
+
+    @Test
+    public void givenRequestedDemand_whenBarsSubmitted_thenOnlyRequestedBarsDelivered() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 16, FlowOverflowPolicy.DROP_OLDEST);
+        var subscriber = new RecordingSubscriber();
+        trendBarFlowPublisher.subscribe(subscriber);
+        waitUntil(() -> subscriber.subscription != null);
+
+        subscriber.subscription.request(2);
+        LongStream.range(0, 5).forEach(timestamp -> trendBarFlowPublisher.submit(createTrendBarEntity(timestamp)));
+
+        waitUntil(() -> subscriber.timestamps.size() == 2);
+        Thread.sleep(100);
+        assertEquals(List.of(0L, 1L), subscriber.timestamps);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        waitUntil(() -> subscriber.timestamps.size() == 5);
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), subscriber.timestamps);
+    }
+
+    @Test
+    public void givenDropOldestPolicy_whenBufferOverflows_thenLatestBarsKept() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 3, FlowOverflowPolicy.DROP_OLDEST);
+        var subscriber = subscribeAndAwait(trendBarFlowPublisher);
+
+        LongStream.range(0, 10).forEach(timestamp -> trendBarFlowPublisher.submit(createTrendBarEntity(timestamp)));
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        waitUntil(() -> subscriber.timestamps.size() == 3);
+        assertEquals(List.of(7L, 8L, 9L), subscriber.timestamps);
+        assertEquals(7, trendBarFlowPublisher.getDroppedCount().sum());
+    }
+
+    @Test
+    public void givenDropNewestPolicy_whenBufferOverflows_thenEarliestBarsKept() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 3, FlowOverflowPolicy.DROP_NEWEST);
+        var subscriber = subscribeAndAwait(trendBarFlowPublisher);
+
+        LongStream.range(0, 10).forEach(timestamp -> trendBarFlowPublisher.submit(createTrendBarEntity(timestamp)));
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        waitUntil(() -> subscriber.timestamps.size() == 3);
+        assertEquals(List.of(0L, 1L, 2L), subscriber.timestamps);
+        assertEquals(7, trendBarFlowPublisher.getDroppedCount().sum());
+    }
+
+    @Test
+    public void givenCancelPolicy_whenBufferOverflows_thenSubscriberFailedAndRemoved() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 3, FlowOverflowPolicy.CANCEL);
+        var subscriber = subscribeAndAwait(trendBarFlowPublisher);
+
+        LongStream.range(0, 4).forEach(timestamp -> trendBarFlowPublisher.submit(createTrendBarEntity(timestamp)));
+
+        waitUntil(() -> subscriber.error != null);
+        assertInstanceOf(IllegalStateException.class, subscriber.error);
+        assertEquals(0, trendBarFlowPublisher.getSubscribersCount());
+        assertTrue(subscriber.timestamps.isEmpty());
+    }
+
+    @Test
+    public void givenNonPositiveRequest_whenRequested_thenSubscriberFailed() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 3, FlowOverflowPolicy.DROP_OLDEST);
+        var subscriber = subscribeAndAwait(trendBarFlowPublisher);
+
+        subscriber.subscription.request(0);
+
+        waitUntil(() -> subscriber.error != null);
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+        assertFalse(trendBarFlowPublisher.hasSubscribers());
+    }
+
+    @Test
+    public void givenCancelledSubscription_whenBarsSubmitted_thenNothingDelivered() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 3, FlowOverflowPolicy.DROP_OLDEST);
+        var subscriber = subscribeAndAwait(trendBarFlowPublisher);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        subscriber.subscription.cancel();
+        trendBarFlowPublisher.submit(createTrendBarEntity(0));
+
+        Thread.sleep(100);
+        assertTrue(subscriber.timestamps.isEmpty());
+        assertEquals(0, trendBarFlowPublisher.getSubscribersCount());
+    }
+
+    @Test
+    public void givenBufferedBars_whenPublisherClosed_thenBarsDrainedBeforeComplete() throws InterruptedException {
+        var trendBarFlowPublisher = new TrendBarFlowPublisher(deliveryExecutor, 3, FlowOverflowPolicy.DROP_OLDEST);
+        var subscriber = subscribeAndAwait(trendBarFlowPublisher);
+
+        trendBarFlowPublisher.submit(createTrendBarEntity(0));
+        trendBarFlowPublisher.close();
+        Thread.sleep(100);
+        assertFalse(subscriber.isCompleted);
+
+        subscriber.subscription.request(1);
+        waitUntil(() -> subscriber.isCompleted);
+        assertEquals(List.of(0L), subscriber.timestamps);
+        assertEquals(0, trendBarFlowPublisher.getSubscribersCount());
+    }
+
+    private static RecordingSubscriber subscribeAndAwait(TrendBarFlowPublisher trendBarFlowPublisher) throws InterruptedException {
+        var subscriber = new RecordingSubscriber();
+        trendBarFlowPublisher.subscribe(subscriber);
+        waitUntil(() -> subscriber.subscription != null);
+        return subscriber;
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadlineNanos) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static TrendBarEntity createTrendBarEntity(long timestamp) {
+        return TrendBarEntity.builder()
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<TrendBarEntity> {
+
+        private final List<Long> timestamps = new CopyOnWriteArrayList<>();
+        private volatile Flow.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean isCompleted;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(TrendBarEntity trendBarEntity) {
+            timestamps.add(trendBarEntity.getTimestamp());
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            isCompleted = true;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarHotTierTest {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private TrendBarHotTier trendBarHotTier;
+    private TrendBarKey keyEURUSD_M1;
+
+    @BeforeEach
+    public void setUp() {
+        trendBarHotTier = new TrendBarHotTier();
+        var symbolEURUSD = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("USD"));
+        keyEURUSD_M1 = new TrendBarKey(symbolEURUSD, TrendBarPeriod.M1);
+    }
+
+    @Test
+    public void givenNotLoaded_whenGetHotFromMillis_thenNothingServedFromMemory() {
+        assertEquals(Long.MAX_VALUE, trendBarHotTier.getHotFromMillis());
+        assertEquals(0, trendBarHotTier.evictBefore(10 * MINUTE_MILLIS));
+    }
+
+    @Test
+    public void givenBarsPutOutOfOrder_whenGetTrendBars_thenRangeReturnedInTimestampOrder() {
+        var bar3 = createTrendBarEntity(3 * MINUTE_MILLIS);
+        var bar1 = createTrendBarEntity(MINUTE_MILLIS);
+        var bar2 = createTrendBarEntity(2 * MINUTE_MILLIS);
+        trendBarHotTier.put(bar3);
+        trendBarHotTier.put(bar1);
+        trendBarHotTier.put(bar2);
+
+        assertEquals(List.of(bar1, bar2), trendBarHotTier.getTrendBars(keyEURUSD_M1, MINUTE_MILLIS, 2 * MINUTE_MILLIS));
+        assertTrue(trendBarHotTier.getTrendBars(new TrendBarKey(keyEURUSD_M1.symbol(), TrendBarPeriod.H1), 0, Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void givenSameTimestampPutTwice_whenGetTrendBars_thenLatestKept() {
+        var bar = createTrendBarEntity(MINUTE_MILLIS);
+        var amendedBar = bar.toBuilder().ticksCount(99).build();
+        trendBarHotTier.put(bar);
+        trendBarHotTier.put(amendedBar);
+
+        assertEquals(List.of(amendedBar), trendBarHotTier.getTrendBars(keyEURUSD_M1, 0, Long.MAX_VALUE));
+    }
+
+    @Test
+    public void givenLoadedTier_whenEvictBefore_thenBoundaryMovesAndBarsDroppedOnePassLater() {
+        for (int i = 0; i < 5; i++) {
+            trendBarHotTier.put(createTrendBarEntity(i * MINUTE_MILLIS));
+        }
+        trendBarHotTier.markLoadedFrom(0);
+
+        assertEquals(0, trendBarHotTier.evictBefore(2 * MINUTE_MILLIS));
+        assertEquals(2 * MINUTE_MILLIS, trendBarHotTier.getHotFromMillis());
+        assertEquals(5, trendBarHotTier.size());
+
+        assertEquals(2, trendBarHotTier.evictBefore(4 * MINUTE_MILLIS));
+        assertEquals(4 * MINUTE_MILLIS, trendBarHotTier.getHotFromMillis());
+        assertEquals(3, trendBarHotTier.size());
+    }
+
+    private TrendBarEntity createTrendBarEntity(long timestamp) {
+        return TrendBarEntity.builder()
+                .symbol(keyEURUSD_M1.symbol())
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+}
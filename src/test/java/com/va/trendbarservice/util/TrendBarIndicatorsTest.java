@@ -0,0 +1,72 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.IndicatorType;
+import com.va.trendbarservice.model.TrendBarEntity;
+import com.va.trendbarservice.model.TrendBarPeriod;
+import com.va.trendbarservice.model.TrendBarStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarIndicatorsTest {
+
+    @Test
+    public void givenWindowNotFull_whenGetValues_thenNoIndicatorsReported() {
+        var trendBarIndicators = new TrendBarIndicators(3);
+
+        trendBarIndicators.update(createTrendBarEntity(1, "11", "12", "10"));
+        trendBarIndicators.update(createTrendBarEntity(2, "12", "13", "11"));
+
+        assertTrue(trendBarIndicators.getValues().isEmpty());
+        assertEquals(2, trendBarIndicators.getLastTimestamp());
+    }
+
+    @Test
+    public void givenRollingWindow_whenBarsAdded_thenSmaEmaAndAtrMatchFullRecomputation() {
+        var trendBarIndicators = new TrendBarIndicators(3);
+
+        trendBarIndicators.update(createTrendBarEntity(1, "10", "11", "9"));
+        trendBarIndicators.update(createTrendBarEntity(2, "12", "13", "10"));
+        trendBarIndicators.update(createTrendBarEntity(3, "14", "15", "12"));
+        var valuesAfterThirdBar = trendBarIndicators.getValues();
+        // SMA(10, 12, 14) = 12 seeds the EMA; true ranges 2, 3, 3
+        assertEquals(0, new BigDecimal("12").compareTo(valuesAfterThirdBar.get(IndicatorType.SMA)));
+        assertEquals(0, new BigDecimal("12").compareTo(valuesAfterThirdBar.get(IndicatorType.EMA)));
+        assertEquals(0, new BigDecimal("2.666666666666667").compareTo(valuesAfterThirdBar.get(IndicatorType.ATR)));
+
+        trendBarIndicators.update(createTrendBarEntity(4, "18", "19", "16"));
+        var valuesAfterFourthBar = trendBarIndicators.getValues();
+        // SMA(12, 14, 18); EMA = 12 + 0.5 * (18 - 12); true range max(3, |19 - 14|, |16 - 14|) = 5 smoothed with Wilder
+        assertEquals(0, new BigDecimal("14.66666666666667").compareTo(valuesAfterFourthBar.get(IndicatorType.SMA)));
+        assertEquals(0, new BigDecimal("15").compareTo(valuesAfterFourthBar.get(IndicatorType.EMA)));
+        assertEquals(0, new BigDecimal("3.444444444444445").compareTo(valuesAfterFourthBar.get(IndicatorType.ATR)));
+    }
+
+    @Test
+    public void givenRollingWindow_whenOldestValueEvicted_thenAverageCoversLastValuesOnly() {
+        var rollingWindow = new RollingWindow(2);
+
+        rollingWindow.add(BigDecimal.ONE);
+        rollingWindow.add(BigDecimal.TEN);
+        rollingWindow.add(BigDecimal.valueOf(20));
+
+        assertTrue(rollingWindow.isFull());
+        assertEquals(2, rollingWindow.size());
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(rollingWindow.getAverage(MathContext.DECIMAL64)));
+    }
+
+    private static TrendBarEntity createTrendBarEntity(long timestamp, String close, String high, String low) {
+        return TrendBarEntity.builder()
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .openPrice(new BigDecimal(close))
+                .closePrice(new BigDecimal(close))
+                .highPrice(new BigDecimal(high))
+                .lowPrice(new BigDecimal(low))
+                .status(TrendBarStatus.COMPLETED)
+                .build();
+    }
+}
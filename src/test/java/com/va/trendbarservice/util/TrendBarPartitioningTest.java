@@ -0,0 +1,50 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.TrendBarPeriod;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarPartitioningTest {
+
+    private static final long TIMESTAMP = Instant.parse("2024-02-20T13:45:00Z").toEpochMilli();
+
+    @Test
+    public void givenM1Bar_whenGetPartitionStartAndEnd_thenDailyWindow() {
+        long partitionStart = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, TIMESTAMP);
+
+        assertEquals(Instant.parse("2024-02-20T00:00:00Z").toEpochMilli(), partitionStart);
+        assertEquals(Instant.parse("2024-02-21T00:00:00Z").toEpochMilli(), TrendBarPartitioning.getPartitionEnd(TrendBarPeriod.M1, partitionStart));
+    }
+
+    @Test
+    public void givenH1AndD1Bars_whenGetPartitionStartAndEnd_thenMonthlyWindow() {
+        long partitionStart = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.H1, TIMESTAMP);
+
+        assertEquals(Instant.parse("2024-02-01T00:00:00Z").toEpochMilli(), partitionStart);
+        assertEquals(partitionStart, TrendBarPartitioning.getPartitionStart(TrendBarPeriod.D1, TIMESTAMP));
+        assertEquals(Instant.parse("2024-03-01T00:00:00Z").toEpochMilli(), TrendBarPartitioning.getPartitionEnd(TrendBarPeriod.D1, partitionStart));
+    }
+
+    @Test
+    public void givenAnyBar_whenGetPartitionStart_thenWithinMaxPartitionMillis() {
+        long endOfLongMonth = Instant.parse("2024-01-31T23:59:00Z").toEpochMilli();
+
+        long partitionStart = TrendBarPartitioning.getPartitionStart(TrendBarPeriod.D1, endOfLongMonth);
+
+        assertTrue(partitionStart + TrendBarPartitioning.MAX_PARTITION_MILLIS > endOfLongMonth);
+    }
+
+    @Test
+    public void givenBarAtOrAfterFrom_whenGetPartitionFrom_thenPartitionStartAboveBound() {
+        long from = Instant.parse("2024-01-31T23:59:00Z").toEpochMilli();
+
+        long partitionFrom = TrendBarPartitioning.getPartitionFrom(from);
+
+        assertTrue(TrendBarPartitioning.getPartitionStart(TrendBarPeriod.D1, from) > partitionFrom);
+        assertTrue(TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, from) > partitionFrom);
+        assertEquals(Long.MIN_VALUE, TrendBarPartitioning.getPartitionFrom(Long.MIN_VALUE));
+    }
+}
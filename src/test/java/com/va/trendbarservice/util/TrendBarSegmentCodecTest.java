@@ -0,0 +1,131 @@
+package com.va.trendbarservice.util;
+
+import com.va.trendbarservice.model.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Currency;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrendBarSegmentCodecTest {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private Symbol symbolEURUSD;
+    private long startOfDay;
+
+    @BeforeEach
+    public void setUp() {
+        symbolEURUSD = Symbol.builder()
+                .baseCurrency(Currency.getInstance("EUR"))
+                .quoteCurrency(Currency.getInstance("USD"))
+                .build();
+        startOfDay = Instant.parse("2024-06-20T00:00:00Z").toEpochMilli();
+    }
+
+    @Test
+    public void givenRegularM1Bars_whenEncodeAndDecode_thenBarsRestoredInFewBytesPerBar() {
+        List<TrendBarEntity> trendBarEntities = new ArrayList<>();
+        for (int i = 0; i < 1440; i++) {
+            long timestamp = startOfDay + i * MINUTE_MILLIS;
+            long open = 10_700 + (i % 7);
+            trendBarEntities.add(createTrendBarEntity(timestamp, open, open + 3, open - 2, open + 1));
+        }
+
+        byte[] segment = TrendBarSegmentCodec.encode(trendBarEntities);
+        var decodedTrendBarEntities = TrendBarSegmentCodec.decode(segment);
+
+        assertEquals(trendBarEntities, decodedTrendBarEntities);
+        assertTrue(segment.length < trendBarEntities.size() * 12, "segment takes " + segment.length + " bytes");
+    }
+
+    @Test
+    public void givenGapsAndPriceJumps_whenEncodeAndDecode_thenTimestampsAndPricesExact() {
+        var trendBarEntities = List.of(
+                createTrendBarEntity(startOfDay, 10_712, 10_799, 10_650, 10_750),
+                createTrendBarEntity(startOfDay + 3 * MINUTE_MILLIS, 10_750, 10_751, 10_000, 10_001),
+                createTrendBarEntity(startOfDay + 4 * MINUTE_MILLIS, 12_000, 12_500, 11_900, 11_950),
+                createTrendBarEntity(startOfDay + 90 * MINUTE_MILLIS, 11_950, 11_950, 11_950, 11_950));
+
+        var decodedTrendBarEntities = TrendBarSegmentCodec.decode(TrendBarSegmentCodec.encode(trendBarEntities));
+
+        assertEquals(trendBarEntities, decodedTrendBarEntities);
+    }
+
+    @Test
+    public void givenActivityAndBidAsk_whenEncodeAndDecode_thenRestoredWithVwapRecomputed() {
+        var trendBarEntity = createTrendBarEntity(startOfDay, 10_712, 10_799, 10_650, 10_750).toBuilder()
+                .volume(new BigDecimal("100"))
+                .turnover(new BigDecimal("107.12"))
+                .vwap(new BigDecimal("1.07120000"))
+                .bidAsk(BidAskTrendBar.of(new BigDecimal("1.0711"), new BigDecimal("1.0713")))
+                .build();
+
+        var decodedTrendBarEntity = TrendBarSegmentCodec.decode(TrendBarSegmentCodec.encode(List.of(trendBarEntity))).get(0);
+
+        assertEquals(trendBarEntity.getVolume(), decodedTrendBarEntity.getVolume());
+        assertEquals(trendBarEntity.getTurnover(), decodedTrendBarEntity.getTurnover());
+        assertEquals(0, trendBarEntity.getVwap().compareTo(decodedTrendBarEntity.getVwap()));
+        var bidAsk = decodedTrendBarEntity.getBidAsk();
+        assertEquals(new BigDecimal("1.0711"), bidAsk.getBidOpenPrice());
+        assertEquals(new BigDecimal("1.0713"), bidAsk.getAskClosePrice());
+        assertEquals(0, new BigDecimal("0.0002").compareTo(bidAsk.getSpreadMax()));
+        assertEquals(trendBarEntity.getBidAsk().getSpreadSum(), bidAsk.getSpreadSum());
+        assertEquals(1, bidAsk.getQuotesCount());
+    }
+
+    @Test
+    public void givenSegment_whenStreamLimited_thenOnlyPulledBarsDecoded() {
+        List<TrendBarEntity> trendBarEntities = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            trendBarEntities.add(createTrendBarEntity(startOfDay + i * MINUTE_MILLIS, 10_700, 10_701, 10_699, 10_700));
+        }
+
+        var firstTrendBarEntities = TrendBarSegmentCodec.stream(TrendBarSegmentCodec.encode(trendBarEntities))
+                .takeWhile(trendBarEntity -> trendBarEntity.getTimestamp() < startOfDay + 2 * MINUTE_MILLIS)
+                .toList();
+
+        assertEquals(trendBarEntities.subList(0, 2), firstTrendBarEntities);
+    }
+
+    @Test
+    public void givenBarsOfDifferentSymbols_whenEncode_thenThrowsIllegalArgumentException() {
+        var symbolEURJPY = new Symbol(Currency.getInstance("EUR"), Currency.getInstance("JPY"));
+        var trendBarEntities = List.of(
+                createTrendBarEntity(startOfDay, 10_700, 10_701, 10_699, 10_700),
+                createTrendBarEntity(startOfDay + MINUTE_MILLIS, 10_700, 10_701, 10_699, 10_700).toBuilder().symbol(symbolEURJPY).build());
+
+        assertThrows(IllegalArgumentException.class, () -> TrendBarSegmentCodec.encode(trendBarEntities));
+    }
+
+    @Test
+    public void givenPriceFinerThanColumnScale_whenEncode_thenThrowsArithmeticException() {
+        var trendBarEntity = createTrendBarEntity(startOfDay, 10_700, 10_701, 10_699, 10_700).toBuilder()
+                .openPrice(new BigDecimal("1.07005"))
+                .build();
+
+        assertThrows(ArithmeticException.class, () -> TrendBarSegmentCodec.encode(List.of(trendBarEntity)));
+    }
+
+    private TrendBarEntity createTrendBarEntity(long timestamp, long open, long high, long low, long close) {
+        return TrendBarEntity.builder()
+                .symbol(symbolEURUSD)
+                .period(TrendBarPeriod.M1)
+                .timestamp(timestamp)
+                .partitionStart(TrendBarPartitioning.getPartitionStart(TrendBarPeriod.M1, timestamp))
+                .status(TrendBarStatus.COMPLETED)
+                .openPrice(BigDecimal.valueOf(open, 4))
+                .highPrice(BigDecimal.valueOf(high, 4))
+                .lowPrice(BigDecimal.valueOf(low, 4))
+                .closePrice(BigDecimal.valueOf(close, 4))
+                .ticksCount(12)
+                .firstQuoteTimestamp(timestamp + 150)
+                .lastQuoteTimestamp(timestamp + 59_400)
+                .build();
+    }
+}